@@ -82,12 +82,12 @@ public class AccountApi {
 		}
 		
 		Account account = new Account(email);
-		account.setPassword(SecurityTools.encryptWithSHA512(password));
+		account.setPassword(SecurityTools.hashPassword(password));
 		account.setFirstName(firstName);
 		account.setLastName(lastName);
 		accountDao.persist(account);
 
-		LOGGER.debug("Persisted account: %s", account);
+		LOGGER.debug("Persisted account: {}", account);
 		return ResponseSurrogate.created(account);
 	}
 
@@ -114,15 +114,13 @@ public class AccountApi {
 
 		LOGGER.debug("get account requested");
 
-		String encryptedPassword = SecurityTools.encryptWithSHA512(password);
-		
-		if (!accountDao.checkCredentials(email, encryptedPassword)) {
-			LOGGER.warn("Account with wrong credentials (email:\"%s\", pass:\"%s\") requested", email, password);
+		Account account = accountDao.authenticate(email, password);
+		if (account == null) {
+			LOGGER.warn("Account with wrong credentials (email:\"{}\") requested", email);
 			throw new CredentialException(email);
 		}
 
-		Account account = accountDao.getAccount(email, encryptedPassword);
-		LOGGER.debug("Account requested: %s", account);
+		LOGGER.debug("Account requested: {}", account);
 		return ResponseSurrogate.of(account);
 	}
 	
@@ -153,19 +151,17 @@ public class AccountApi {
 
 		LOGGER.debug("update account requested");
 		
-		String encryptedPassword = SecurityTools.encryptWithSHA512(password);
-		if (!accountDao.checkCredentials(email, encryptedPassword)) {
-			LOGGER.warn("Account with wrong credentials (email:\"%s\", pass:\"%s\") requested", email, password);
+		Account account = accountDao.authenticate(email, password);
+		if (account == null) {
+			LOGGER.warn("Account with wrong credentials (email:\"{}\") requested", email);
 			throw new CredentialException(email);
 		}
 
-		Account account = accountDao.getAccount(email, encryptedPassword);
-		Optional.ofNullable(encryptedPassword).ifPresent(account::setPassword);
 		Optional.ofNullable(firstName).ifPresent(account::setFirstName);
 		Optional.ofNullable(lastName).ifPresent(account::setLastName);
 		accountDao.persist(account);
 
-		LOGGER.debug("Updated account: %s", account);
+		LOGGER.debug("Updated account: {}", account);
 		return ResponseSurrogate.updated(account);
 	}
 }
@@ -0,0 +1,125 @@
+package info.interactivesystems.gamificationengine.api;
+
+import info.interactivesystems.gamificationengine.api.exeption.ApiError;
+import info.interactivesystems.gamificationengine.api.validation.ValidApiKey;
+import info.interactivesystems.gamificationengine.api.validation.ValidPositiveDigit;
+import info.interactivesystems.gamificationengine.dao.AssetDAO;
+import info.interactivesystems.gamificationengine.entities.Asset;
+import info.interactivesystems.gamificationengine.jobs.ThumbnailGenerator;
+
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The assets are the images like avatars, group logos and reward icons. Each asset is identified
+ * by the hash of its content, which is also returned as the hash of the avatar, logo or icon
+ * of an entity. An asset is returned as raw image. Because the content of an asset never changes,
+ * it may be cached by the client for a long time and is only sent again if the client hasn't
+ * the current version.
+ */
+@Path("/asset")
+@Stateless
+public class AssetApi {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AssetApi.class);
+
+	/**
+	 * The number of seconds a client may cache an asset, this is one year.
+	 */
+	private static final int MAX_AGE = 365 * 24 * 60 * 60;
+
+	@Inject
+	AssetDAO assetDao;
+
+	/**
+	 * Returns the content of the asset with the passed hash as image. The hash is sent as ETag,
+	 * so if the client already has the asset, only the status 304 (not modified) is returned.
+	 * If the API key is not valid an analogous message is returned.
+	 *
+	 * @param hash
+	 *            The hash of the asset's content. This field must not be null.
+	 * @param size
+	 *            Optionally the size in pixels in which the image is shown. If no size is passed the 
+	 *            original image is returned.
+	 * @param apiKey
+	 *            The valid query parameter API key affiliated to one specific organisation.
+	 * @param request
+	 *            The request with the ETag of the client's version of the asset.
+	 * @return Response of the asset's content as image.
+	 */
+	@GET
+	@Path("/{hash}")
+	public Response getAsset(@PathParam("hash") @NotNull String hash,
+			@QueryParam("size") @ValidPositiveDigit(message = "Size must be a valid number") String size,
+			@QueryParam("apiKey") @ValidApiKey String apiKey, @Context Request request) {
+		LOGGER.debug("get asset");
+
+		return image(request, hash, sizeOf(size), assetDao);
+	}
+
+	/**
+	 * Builds the response of the asset with the passed hash. If a size is passed, the smallest 
+	 * variant of the image which is at least as large is returned. If there is no such variant, 
+	 * because the image is smaller or its variants aren't generated yet, the image itself is 
+	 * returned. If the client has sent the hash as ETag, the status 304 is returned without 
+	 * loading the asset. Otherwise the content is returned as it is stored, with its content 
+	 * type and length.
+	 *
+	 * @param request
+	 *            The request with the ETag of the client's version of the asset.
+	 * @param hash
+	 *            The hash of the asset that is returned.
+	 * @param size
+	 *            The requested size of the image in pixels or 0 for the original image.
+	 * @param assetDao
+	 *            The data access for the assets.
+	 * @return Response of the asset's content or of the status 304.
+	 */
+	static Response image(Request request, String hash, int size, AssetDAO assetDao) {
+		if (hash == null) {
+			throw new ApiError(Response.Status.NOT_FOUND, "No image is stored.");
+		}
+		int variantSize = ThumbnailGenerator.variantSize(size);
+		if (size > 0 && variantSize > 0) {
+			String variantHash = assetDao.getVariantHash(hash, variantSize);
+			if (variantHash != null) {
+				hash = variantHash;
+			}
+		}
+		EntityTag tag = new EntityTag(hash);
+		CacheControl cacheControl = new CacheControl();
+		cacheControl.setMaxAge(MAX_AGE);
+		cacheControl.setPrivate(true);
+
+		ResponseBuilder response = request.evaluatePreconditions(tag);
+		if (response == null) {
+			Asset asset = assetDao.getAsset(hash);
+			if (asset == null) {
+				throw new ApiError(Response.Status.NOT_FOUND, "No such asset: %s", hash);
+			}
+			response = Response.ok(asset.getContent(), asset.getContentType()).header("Content-Length", asset.getSize());
+		}
+		return response.tag(tag).cacheControl(cacheControl).build();
+	}
+
+	/**
+	 * Converts the optional size of an image request, no size means the original image.
+	 */
+	static int sizeOf(String size) {
+		return size == null ? 0 : ValidateUtils.requireGreaterThanZero(size);
+	}
+}
@@ -10,15 +10,18 @@ import info.interactivesystems.gamificationengine.entities.Organisation;
 import info.interactivesystems.gamificationengine.entities.Player;
 import info.interactivesystems.gamificationengine.entities.donationCall.Donation;
 import info.interactivesystems.gamificationengine.entities.donationCall.DonationCall;
+import info.interactivesystems.gamificationengine.utils.DonorTotal;
 import info.interactivesystems.gamificationengine.utils.Progress;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
@@ -118,6 +121,7 @@ public class DonationApi {
 	 */
 	@POST
 	@Path("/{id}/donate/{playerId}")
+	@WriteHeavy
 	@TypeHint(DonationCall.class)
 	public Response donate(@PathParam("id") @NotNull @ValidPositiveDigit(message = "The donation id must be a valid number") String dId,
 			@PathParam("playerId") @NotNull @ValidPositiveDigit(message = "The player id must be a valid number") String playerId,
@@ -139,6 +143,15 @@ public class DonationApi {
 				throw new ApiError(Response.Status.FORBIDDEN, "Not enough coins for such a donation.");
 			}
 			player.donate(dCall, donationAmount);
+			if (!playerDao.applyBalance(player)) {
+				throw new ApiError(Response.Status.FORBIDDEN, "Not enough coins for such a donation.");
+			}
+			if (!donationDao.donate(dCall, donationAmount)) {
+				// the goal was reached by a parallel donation, so the player gets her/his coins back
+				player.awardCoins(donationAmount);
+				playerDao.applyBalance(player);
+				return ResponseSurrogate.of("Call for Donation is already completed");
+			}
 			
 			Donation donation = new Donation();
 			donation.setBelongsTo(dCall.getBelongsTo());
@@ -201,8 +214,9 @@ public class DonationApi {
 		
 	/**
 	 * Returns the progress of an call for donations: the current amount and the amount that should be
-	 * reached. If the API key is not valid an analogous message is returned. It is also checked, if the 
-	 * id is a positive number otherwise a message for an invalid number is returned.
+	 * reached. The progress is read without loading the call for donations. If the API key is not valid 
+	 * an analogous message is returned. It is also checked, if the id is a positive number otherwise a 
+	 * message for an invalid number is returned.
 	 * 
 	 * @param dId
 	 * 			Required path parameter as integer which uniquely identify the DonationCall.
@@ -220,21 +234,24 @@ public class DonationApi {
 		LOGGER.debug("get progress");
 		
 		int id = ValidateUtils.requireGreaterThanZero(dId);
-		DonationCall dCall = donationDao.getDonationCall(id, apiKey);
-		ValidateUtils.requireNotNull(id, dCall);
-
-		Progress progress = new Progress(dCall.getCurrentAmount(), dCall.getGoalAmount());
+		Progress progress = donationDao.getProgress(id, apiKey);
+		ValidateUtils.requireNotNull(id, progress);
 		
 		return ResponseSurrogate.of(progress);
 	}
 	
 	/**
-	 * Returns a list of all donors that have donated to a specific call for donoation. If the API key is 
-	 * not valid an analogous message is returned. It is also checked, if the id is a positive number 
-	 * otherwise a message for an invalid number is returned.
+	 * Returns a list of all donors that have donated to a specific call for donoation. Each donor is 
+	 * contained only once. If a count is passed, only one page of the donors ordered by their ids is 
+	 * returned. If the API key is not valid an analogous message is returned. It is also 
+	 * checked, if the id is a positive number otherwise a message for an invalid number is returned.
 	 * 
 	 * @param dId
 	 * 			 The id of the call for donations to which all donors should be returned.
+	 * @param page
+	 *           Optionally the number of the requested page, starting with 0. The default value is 0. 
+	 * @param count
+	 *           Optionally the count of donors on one page. If no count is passed, all donors are returned. 
 	 * @param apiKey
 	 * 			The valid query parameter API key affiliated to one specific organisation, 
 	 *          to which this call for donations belongs to.
@@ -242,26 +259,71 @@ public class DonationApi {
 	 */
 	@GET
 	@Path("/{id}/donors")
-	@TypeHint(DonationCall[].class)
+	@TypeHint(Player[].class)
 	public Response getDonors(@PathParam("id") @NotNull @ValidPositiveDigit String dId, 
+			@QueryParam("page") @ValidPositiveDigit(message = "Page must be a valid number") @DefaultValue("0") String page,
+			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") String count,
+			@QueryParam("apiKey") @ValidApiKey String apiKey) {
+
+		int id = ValidateUtils.requireGreaterThanZero(dId);
+		DonationCall dCall = donationDao.getDonationCall(id, apiKey);
+		ValidateUtils.requireNotNull(id, dCall);
+
+		List<Player> donors;
+		if (count == null) {
+			donors = donationDao.getDonors(dCall, apiKey);
+		} else {
+			int pageSize = ValidateUtils.requireGreaterThanZero(count);
+			donors = donationDao.getDonors(dCall, ValidateUtils.requirePage(page, pageSize), pageSize, apiKey);
+		}
+		
+		return ResponseSurrogate.of(donors);
+	}
+	
+	/**
+	 * Returns the donors of a specific call for donations together with the sum and the number of their 
+	 * donations. The donor who has donated the most coins comes first. The sums are computed by the data base, 
+	 * so also calls with many donations can be queried. If the API key is not valid an analogous message is 
+	 * returned. It is also checked, if the id is a positive number otherwise a message for an invalid number 
+	 * is returned.
+	 * 
+	 * @param dId
+	 * 			 The id of the call for donations whose top donors should be returned.
+	 * @param count
+	 *           Optionally the count of donors that should be returned can be passed. The default value is 10. 
+	 * @param apiKey
+	 * 			The valid query parameter API key affiliated to one specific organisation, 
+	 *          to which this call for donations belongs to.
+	 * @return Returns a list of the donors with their summed up donations in JSON.
+	 */
+	@GET
+	@Path("/{id}/topDonors")
+	@TypeHint(DonorTotal[].class)
+	public Response getTopDonors(@PathParam("id") @NotNull @ValidPositiveDigit String dId, 
+			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") @DefaultValue("10") String count,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
 		int id = ValidateUtils.requireGreaterThanZero(dId);
 		DonationCall dCall = donationDao.getDonationCall(id, apiKey);
 		ValidateUtils.requireNotNull(id, dCall);
 
-		List<Player> donors = dCall.getDonors();
+		List<DonorTotal> donors = donationDao.getTopDonors(dCall, ValidateUtils.requireGreaterThanZero(count), apiKey);
 		
 		return ResponseSurrogate.of(donors);
 	}
 	
 	/**
-	 * Gets a list of all donations which were made for a specific call for donations. 
+	 * Gets a list of all donations which were made for a specific call for donations. If a count is passed, 
+	 * only one page of the donations ordered by the point of time they were made is returned. 
 	 * If the API key is not valid an analogous message is returned. It is also checked, if the offer id is a 
 	 * positive number otherwise a message for an invalid number is returned.
 	 * 
 	 * @param donationCallId
 	 *           The call for Donation whose donations are returned. This parameter is required.
+	 * @param page
+	 *           Optionally the number of the requested page, starting with 0. The default value is 0. 
+	 * @param count
+	 *           Optionally the count of donations on one page. If no count is passed, all donations are returned. 
 	 * @param apiKey
 	 *            The valid query parameter API key affiliated to one specific organisation, 
 	 *            to which the call for donations belongs to.
@@ -271,16 +333,20 @@ public class DonationApi {
 	@Path("/{id}/donations")
 	@TypeHint(Donation[].class)
 	public Response getDonations(@PathParam("id") @NotNull @ValidPositiveDigit(message = "The id must be a valid number") String donationCallId,
+			@QueryParam("page") @ValidPositiveDigit(message = "Page must be a valid number") @DefaultValue("0") String page,
+			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") String count,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 	
 		int dId = ValidateUtils.requireGreaterThanZero(donationCallId);
 		DonationCall dCall = donationDao.getDonationCall(dId, apiKey); 
 		ValidateUtils.requireNotNull(dId, dCall);
 		
-		List<Donation> donations = donationDao.getDonationsForDonationCall(dCall, apiKey); 
-
-		for (Donation donation : donations) {
-			LOGGER.debug("Donation " + donation.getId() + " with "+ donation.getAmount() + "coins for: " + dCall.getId());
+		List<Donation> donations;
+		if (count == null) {
+			donations = donationDao.getDonationsForDonationCall(dCall, apiKey);
+		} else {
+			int pageSize = ValidateUtils.requireGreaterThanZero(count);
+			donations = donationDao.getDonationsForDonationCall(dCall, ValidateUtils.requirePage(page, pageSize), pageSize, apiKey);
 		}
 
 		return ResponseSurrogate.of(donations);
@@ -369,11 +435,14 @@ public class DonationApi {
 		if(!dCall.isGoalReached()){
 			List<Donation> donations = donationDao.getDonationsForDonationCall(dCall, apiKey);
 			if(!donations.isEmpty()){
+				List<Player> donors = new ArrayList<>();
 				for (Donation donation : donations) {
 					Player player = donation.getPlayer();
-					player.setCoins(player.getCoins() + donation.getAmount());
+					player.awardCoins(donation.getAmount());
+					donors.add(player);
 					donationDao.deleteDonation(donation);
 				}
+				playerDao.applyBalances(donors);
 			}
 		}
 
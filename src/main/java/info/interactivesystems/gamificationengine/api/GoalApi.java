@@ -1,5 +1,6 @@
 package info.interactivesystems.gamificationengine.api;
 
+import info.interactivesystems.gamificationengine.api.exeption.ApiError;
 import info.interactivesystems.gamificationengine.api.validation.ValidApiKey;
 import info.interactivesystems.gamificationengine.api.validation.ValidListOfDigits;
 import info.interactivesystems.gamificationengine.api.validation.ValidListOfDigitsOrNull;
@@ -14,12 +15,14 @@ import info.interactivesystems.gamificationengine.entities.Role;
 import info.interactivesystems.gamificationengine.entities.goal.Goal;
 import info.interactivesystems.gamificationengine.entities.goal.GoalRule;
 import info.interactivesystems.gamificationengine.entities.rewards.Reward;
+import info.interactivesystems.gamificationengine.jobs.GoalReevaluationJob;
 import info.interactivesystems.gamificationengine.utils.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.ejb.Stateless;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.DELETE;
@@ -67,6 +70,10 @@ public class GoalApi {
 	RewardDAO rewardDao;
 	@Inject
 	RoleDAO roleDao;
+	@Inject
+	GoalReevaluationJob reevaluationJob;
+	@Inject
+	Event<GoalReevaluationJob.GoalChanged> goalChanged;
 
 	/**
 	 * Creates a new goal and so the method generates the goal-id.
@@ -140,10 +147,10 @@ public class GoalApi {
 		String[] rewardIdList = rewardIds.split(",");
 
 		for (String rewardIdString : rewardIdList) {
-			LOGGER.debug("RewardToAdd: " + rewardIdString);
+			LOGGER.debug("RewardToAdd: {}", rewardIdString);
 			Reward reward = rewardDao.getReward(ValidateUtils.requireGreaterThanZero(rewardIdString), apiKey);
 			if (reward != null) {
-				LOGGER.debug("RewardAdded: " + reward.getId());
+				LOGGER.debug("RewardAdded: {}", reward.getId());
 				goal.addReward(reward);
 			}
 		}
@@ -223,6 +230,9 @@ public class GoalApi {
 	 * "true" and "false" can be passed. 
 	 * It is also checked, if all ids are a positive number otherwise a message for an invalid number is returned.
 	 * If the API key is not valid an analogous message is returned.
+	 * Players who have already completed the changed goal with their finished tasks or points obtain it by 
+	 * its re-evaluation (see {@link #reevaluateGoal(String, String)}). When the roles are changed or whether 
+	 * the goal is repeatable or a group goal, the re-evaluation is started after the change was stored.
 	 * 
 	 * @param goalId
 	 *            Required id of the goal which should be modified.
@@ -253,6 +263,7 @@ public class GoalApi {
 			value = null;
 		}
 
+		boolean qualifies = false;
 		switch (attribute) {
 		case "goalName":
 			goal.setName(value);
@@ -260,10 +271,12 @@ public class GoalApi {
 
 		case "isRepeateable":
 			goal.setRepeatable(Boolean.parseBoolean(value));
+			qualifies = true;
 			break;
 
 		case "isGroupGoal":
 			goal.setPlayerGroupGoal(Boolean.parseBoolean(value));
+			qualifies = true;
 			break;
 
 		case "rewardId":
@@ -272,16 +285,86 @@ public class GoalApi {
 
 		case "roles":
 			changeRoles(value, goal, apiKey);
+			qualifies = true;
 			break;
 		default:
 			break;
 		}
 
 		goalDao.insertGoal(goal);
+		if (qualifies) {
+			// the players may have completed the goal already
+			goalChanged.fire(new GoalReevaluationJob.GoalChanged(goal.getId(), apiKey));
+		}
 
 		return ResponseSurrogate.created(goal);
 	}
 
+	/**
+	 * Starts the re-evaluation of all players of the organisation for one specific goal. This should be 
+	 * done after the goal was changed, for example when other roles are allowed to complete it, because 
+	 * the players are otherwise only checked when they complete one of the goal's tasks. Each player who 
+	 * has completed the goal with her/his already finished tasks or points then obtains the goal and its 
+	 * rewards. The players are re-evaluated in the background, the returned status contains the progress.
+	 * If the goal is already re-evaluated, an analogous message is returned.
+	 * If the API key is not valid an analogous message is returned. It is also checked, if the id is a 
+	 * positive number otherwise a message for an invalid number is returned.
+	 * 
+	 * @param id
+	 *          Required integer which uniquely identify the {@link Goal}.
+	 * @param apiKey
+	 *            The valid query parameter API key affiliated to one specific organisation, 
+	 *            to which this goal belongs to.
+	 * @return Response of the status of the re-evaluation in JSON.
+	 */
+	@POST
+	@Path("/{id}/reevaluation")
+	@TypeHint(GoalReevaluationJob.Status.class)
+	public Response reevaluateGoal(@PathParam("id") @NotNull @ValidPositiveDigit String id, 
+			@QueryParam("apiKey") @ValidApiKey String apiKey) {
+
+		int goalId = ValidateUtils.requireGreaterThanZero(id);
+		Goal goal = goalDao.getGoal(goalId, apiKey);
+		ValidateUtils.requireNotNull(goalId, goal);
+
+		GoalReevaluationJob.Status status = reevaluationJob.start(goalId, apiKey);
+		if (status == null) {
+			throw new ApiError(Response.Status.CONFLICT, "The goal %s is already re-evaluated.", goalId);
+		}
+		return ResponseSurrogate.created(status);
+	}
+
+	/**
+	 * Gets the progress of the latest re-evaluation of one specific goal: the number of players who are 
+	 * re-evaluated, who were already re-evaluated and who have obtained the goal, the elapsed time and the 
+	 * number of re-evaluated players per second.
+	 * If the API key is not valid an analogous message is returned. It is also checked, if the id is a 
+	 * positive number otherwise a message for an invalid number is returned.
+	 * 
+	 * @param id
+	 *          Required integer which uniquely identify the {@link Goal}.
+	 * @param apiKey
+	 *            The valid query parameter API key affiliated to one specific organisation, 
+	 *            to which this goal belongs to.
+	 * @return Response of the status of the re-evaluation in JSON.
+	 */
+	@GET
+	@Path("/{id}/reevaluation")
+	@TypeHint(GoalReevaluationJob.Status.class)
+	public Response getReevaluation(@PathParam("id") @NotNull @ValidPositiveDigit String id, 
+			@QueryParam("apiKey") @ValidApiKey String apiKey) {
+
+		int goalId = ValidateUtils.requireGreaterThanZero(id);
+		Goal goal = goalDao.getGoal(goalId, apiKey);
+		ValidateUtils.requireNotNull(goalId, goal);
+
+		GoalReevaluationJob.Status status = GoalReevaluationJob.getStatus(goalId);
+		if (status == null) {
+			throw new ApiError(Response.Status.NOT_FOUND, "The goal %s wasn't re-evaluated.", goalId);
+		}
+		return ResponseSurrogate.of(status);
+	}
+
 	/**
 	 * This method converts the string of reward ids which are transfered to a list of rewards.
 	 * These rewards are then set as the new list of rewards a player can earn by completing the goal. 
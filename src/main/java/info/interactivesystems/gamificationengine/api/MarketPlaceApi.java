@@ -25,7 +25,6 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import javax.ejb.Stateless;
 import javax.inject.Inject;
@@ -173,7 +172,7 @@ public class MarketPlaceApi {
 		List<MarketPlace> markets = marketPlDao.getAllMarketPlaces(apiKey);
 		
 		for (MarketPlace m : markets) {
-			LOGGER.debug("| MarketPlace:" + m.getId());
+			LOGGER.debug("| MarketPlace:{}", m.getId());
 		}
 
 		return ResponseSurrogate.of(markets);
@@ -278,9 +277,12 @@ public class MarketPlaceApi {
 		}
 
 		LOGGER.debug("Offer created  ");
-		player.setCoins(player.getCoins() - ValidateUtils.requireGreaterThanZero(prize));
+		player.spent(ValidateUtils.requireGreaterThanZero(prize));
+		if (!playerDao.applyBalance(player)) {
+			throw new ApiError(Response.Status.FORBIDDEN, "Not enough coins for such an offer.");
+		}
 
-		LOGGER.debug("Prize: " + player.getCoins());
+		LOGGER.debug("Prize: {}", player.getCoins());
 		
 		marketPlace.addOffer(offer);
 		marketPlDao.insertOffer(offer);
@@ -307,6 +309,7 @@ public class MarketPlaceApi {
 	 */
 	@POST
 	@Path("/{playerId}/bid/{offerId}")
+	@WriteHeavy
 	@TypeHint(Bid.class)
 	public Response giveABid(@PathParam("playerId") @NotNull @ValidPositiveDigit(message = "The player id must be a valid number") String playerId,
 			@PathParam("offerId") @NotNull @ValidPositiveDigit(message = "The offer id must be a valid number") String offerId,
@@ -327,35 +330,32 @@ public class MarketPlaceApi {
 		}
 
 		Organisation organisation = organisationDao.getOrganisationByApiKey(apiKey);
-		Offer offer = marketPlDao.getOffer(ValidateUtils.requireGreaterThanZero(offerId), apiKey);
-		ValidateUtils.requireNotNull(Integer.valueOf(offerId), offer);
+		int offId = ValidateUtils.requireGreaterThanZero(offerId);
+		Offer offer = marketPlDao.getOffer(offId, apiKey);
+		ValidateUtils.requireNotNull(offId, offer);
+
+		int bidPrize = ValidateUtils.requireGreaterThanZero(prize);
 		
-		LOGGER.debug("Bids:");
-		for (Bid b : marketPlDao.getBidsForOffer(offer, apiKey)) {
-			LOGGER.debug("-" + b.getId());
+		// The offer is raised first, which locks it until the bid is stored. So bids on the
+		// same offer are serialized and take the locks in the same order as deleteOffer.
+		if (!marketPlDao.raisePrize(offer, bidPrize)) {
+			throw new ApiError(Response.Status.NOT_FOUND, "No such id: %s", offId);
+		}
+
+		player.spent(bidPrize);
+		if (!playerDao.applyBalance(player)) {
+			marketPlDao.raisePrize(offer, -bidPrize);
+			throw new ApiError(Response.Status.FORBIDDEN, "Not enough coins for such a bid.");
 		}
 
 		Bid bid = new Bid();
-		bid.setPrize(ValidateUtils.requireGreaterThanZero(prize));
+		bid.setPrize(bidPrize);
 		bid.setBelongsTo(organisation);
 		bid.setCreationDate(LocalDateTime.now());		//Set current date and time for bid
 		bid.setPlayer(player);
-
-		marketPlDao.insertBid(bid);
 		bid.setOffer(offer);
 
-		LOGGER.debug("Offerprize before: " + offer.getPrize());
-		offer.addPrize(prize);
-		LOGGER.debug("Offerprize after: " + offer.getPrize());
-
-		LOGGER.debug("Player coins before: " + player.getCoins());
-		player.spent(Integer.valueOf(prize));
-		LOGGER.debug("Player coins after: " + player.getCoins());
-		
-		LOGGER.debug("Bids:");
-		for (Bid b : marketPlDao.getBidsForOffer(offer, apiKey)) {
-			LOGGER.debug("-" + b.getId());
-		}
+		marketPlDao.insertBid(bid);
 
 		return ResponseSurrogate.created(bid);
 	}
@@ -406,7 +406,7 @@ public class MarketPlaceApi {
 		List<Offer> offers = marketPlDao.getAllOffers(apiKey);
 		
 		for (Offer offer : offers) {
-			LOGGER.debug("| Offer:" + offer.getId());
+			LOGGER.debug("| Offer:{}", offer.getId());
 		}
 
 		return ResponseSurrogate.of(offers);
@@ -435,22 +435,11 @@ public class MarketPlaceApi {
 			@PathParam("marketPlaceId") @NotNull @ValidPositiveDigit(message = "The market id must be a valid number") String marketPlId,
 			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") String count,  
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
+
+		int marketId = ValidateUtils.requireGreaterThanZero(marketPlId);
+		ValidateUtils.requireNotNull(marketId, marketPlDao.getMarketplaceId(marketId, apiKey));
 		
-		MarketPlace market = marketPlDao.getMarketplace(ValidateUtils.requireGreaterThanZero(marketPlId),apiKey);
-		ValidateUtils.requireNotNull(Integer.valueOf(marketPlId), market);
-		
-		List<Offer> offers = new ArrayList<>();
-		if(count != null){
-			offers = market.getOffers().stream()
-	            .limit(Integer.valueOf(count)).collect(Collectors.toList());
-		}else{
-			offers = market.getOffers();
-		}
-		
-		
-		for (Offer offer : offers) {
-			LOGGER.debug("| Offer:" + offer.getId());
-		}
+		List<Offer> offers = marketPlDao.getOffers(marketId, null, count == null ? 0 : Integer.parseInt(count), apiKey);
 
 		return ResponseSurrogate.of(offers);
 	}
@@ -481,25 +470,15 @@ public class MarketPlaceApi {
 			@QueryParam("marketPlaceId") @NotNull @ValidPositiveDigit(message = "The market id must be a valid number") String marketPlId,
 			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") String count,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
-		
+
 		int id = Integer.parseInt(roleId);
 		Role role = roleDao.getRole(id, apiKey);
 		ValidateUtils.requireNotNull(id, role);
 		
-		MarketPlace market = marketPlDao.getMarketplace(ValidateUtils.requireGreaterThanZero(marketPlId), apiKey);
-		ValidateUtils.requireNotNull(Integer.valueOf(marketPlId), market);
-		
-		List<Offer> offers = new ArrayList<>();
-		if(count != null){
-			offers = market.filterOfferByRole(Arrays.asList(role)).stream()
-	            .limit(Integer.valueOf(count)).collect(Collectors.toList());
-		}else{
-			offers = market.filterOfferByRole(Arrays.asList(role));
-		}
+		int marketId = ValidateUtils.requireGreaterThanZero(marketPlId);
+		ValidateUtils.requireNotNull(marketId, marketPlDao.getMarketplaceId(marketId, apiKey));
 		
-		for (Offer offer : offers) {
-			LOGGER.debug("| Offer:" + offer.getId());
-		}
+		List<Offer> offers = marketPlDao.getOffers(marketId, Arrays.asList(role), count == null ? 0 : Integer.parseInt(count), apiKey);
 
 		return ResponseSurrogate.of(offers);
 	}
@@ -531,7 +510,7 @@ public class MarketPlaceApi {
 		offers = marketPlDao.getOffersByPlayer(player, apiKey);
 
 		for (Offer offer : offers) {
-			LOGGER.debug("Player: " + player.getId() + "| Offer:" + offer.getId());
+			LOGGER.debug("Player: {}| Offer:{}", player.getId(), offer.getId());
 		}
 
 		return ResponseSurrogate.of(offers);
@@ -567,24 +546,11 @@ public class MarketPlaceApi {
 		Player player = playerDao.getPlayer(ValidateUtils.requireGreaterThanZero(playerId), apiKey);
 		ValidateUtils.requireNotNull(Integer.valueOf(playerId), player);
 
-		MarketPlace market = marketPlDao.getMarketplace(ValidateUtils.requireGreaterThanZero(marketPlId),apiKey);
-		ValidateUtils.requireNotNull(Integer.valueOf(marketPlId), market);
+		int marketId = ValidateUtils.requireGreaterThanZero(marketPlId);
+		ValidateUtils.requireNotNull(marketId, marketPlDao.getMarketplaceId(marketId, apiKey));
 		
-		List<Offer> matchingOffers = new ArrayList<>();
-		if (market.getOffers().size() > 0) {
-			LOGGER.debug("Marketplace: " + market.getId());
-			matchingOffers = market.filterOfferByRole(player.getBelongsToRoles());
-
-			if(count != null){
-				matchingOffers = matchingOffers.stream().limit(Integer.valueOf(count)).collect(Collectors.toList());
-			}
-			
-			for (Offer offer : matchingOffers) {
-				LOGGER.debug("Result Offer : " + offer.getId());
-			}
-			
-			return ResponseSurrogate.of(matchingOffers);
-		}
+		List<Offer> matchingOffers = marketPlDao.getOffers(marketId, player.getBelongsToRoles(), 
+				count == null ? 0 : Integer.parseInt(count), apiKey);
 
 		return ResponseSurrogate.of(matchingOffers);
 	}
@@ -611,14 +577,11 @@ public class MarketPlaceApi {
 			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") @DefaultValue("10") String count,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
-		MarketPlace market = marketPlDao.getMarketplace(ValidateUtils.requireGreaterThanZero(marketPlId), apiKey);
-		ValidateUtils.requireNotNull(Integer.valueOf(marketPlId), market);
+		int marketId = ValidateUtils.requireGreaterThanZero(marketPlId);
+		ValidateUtils.requireNotNull(marketId, marketPlDao.getMarketplaceId(marketId, apiKey));
 
-		List<Offer> recentOffers = market.filterOfferByDate(market.getOffers(), ValidateUtils.requireGreaterThanZero(count));
+		List<Offer> recentOffers = marketPlDao.getRecentOffers(marketId, null, ValidateUtils.requireGreaterThanZero(count), apiKey);
 
-		for (Offer offer : recentOffers) {
-			LOGGER.debug("| Offer:" + offer.getId());
-		}
 		return ResponseSurrogate.of(recentOffers);
 	}
 	
@@ -650,22 +613,13 @@ public class MarketPlaceApi {
 		Player player = playerDao.getPlayer(ValidateUtils.requireGreaterThanZero(playerId), apiKey);
 		ValidateUtils.requireNotNull(Integer.valueOf(playerId), player);
 		
-		MarketPlace market = marketPlDao.getMarketplace(ValidateUtils.requireGreaterThanZero(marketPlId), apiKey);
-		ValidateUtils.requireNotNull(Integer.valueOf(marketPlId), market);
+		int marketId = ValidateUtils.requireGreaterThanZero(marketPlId);
+		ValidateUtils.requireNotNull(marketId, marketPlDao.getMarketplaceId(marketId, apiKey));
 		
-		List<Offer> matchingOffers;
-			matchingOffers = market.filterOfferByRole(player.getBelongsToRoles());
-
-			if (matchingOffers.isEmpty()) {
-				return ResponseSurrogate.of(matchingOffers);
-			}
+		List<Offer> recentOffers = marketPlDao.getRecentOffers(marketId, player.getBelongsToRoles(), 
+				ValidateUtils.requireGreaterThanZero(count), apiKey);
 
-			List<Offer> recentOffers = market.filterOfferByDate(matchingOffers, ValidateUtils.requireGreaterThanZero(count));
-
-			for (Offer offer : recentOffers) {
-				LOGGER.debug("| Offer:" + offer.getId());
-			}
-			return ResponseSurrogate.of(recentOffers);
+		return ResponseSurrogate.of(recentOffers);
 	}
 
 	/**
@@ -690,14 +644,10 @@ public class MarketPlaceApi {
 			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") @DefaultValue("10") String count,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
-		MarketPlace market = marketPlDao.getMarketplace(ValidateUtils.requireGreaterThanZero(marketPlId), apiKey);
-		ValidateUtils.requireNotNull(Integer.valueOf(marketPlId), market);
+		int marketId = ValidateUtils.requireGreaterThanZero(marketPlId);
+		ValidateUtils.requireNotNull(marketId, marketPlDao.getMarketplaceId(marketId, apiKey));
 		
-		List<Offer> highestOffers = market.filterOffersByPrize(market.getOffers(), ValidateUtils.requireGreaterThanZero(count));
-
-		for (Offer offer : highestOffers) {
-			LOGGER.debug("| Offer:" + offer.getId());
-		}
+		List<Offer> highestOffers = marketPlDao.getHighestOffers(marketId, null, ValidateUtils.requireGreaterThanZero(count), apiKey);
 			
 		return ResponseSurrogate.of(highestOffers);
 	}
@@ -731,22 +681,13 @@ public class MarketPlaceApi {
 		Player player = playerDao.getPlayer(ValidateUtils.requireGreaterThanZero(playerId), apiKey);
 		ValidateUtils.requireNotNull(Integer.valueOf(playerId), player);
 		
-		MarketPlace market = marketPlDao.getMarketplace(ValidateUtils.requireGreaterThanZero(marketPlId), apiKey);
-		ValidateUtils.requireNotNull(Integer.valueOf(marketPlId), market);
+		int marketId = ValidateUtils.requireGreaterThanZero(marketPlId);
+		ValidateUtils.requireNotNull(marketId, marketPlDao.getMarketplaceId(marketId, apiKey));
 		
-		List<Offer> matchingOffers;
-			matchingOffers = market.filterOfferByRole(player.getBelongsToRoles());
-
-			if (matchingOffers.isEmpty()) {
-				return ResponseSurrogate.of(matchingOffers);
-			}
-			List<Offer> highestOffers = market.filterOffersByPrize(matchingOffers, ValidateUtils.requireGreaterThanZero(count));
-
-			for (Offer offer : highestOffers) {
-				LOGGER.debug("| Offer:" + offer.getId());
-			}
+		List<Offer> highestOffers = marketPlDao.getHighestOffers(marketId, player.getBelongsToRoles(), 
+				ValidateUtils.requireGreaterThanZero(count), apiKey);
 			
-			return ResponseSurrogate.of(highestOffers);
+		return ResponseSurrogate.of(highestOffers);
 	}
 
 	/**
@@ -773,7 +714,7 @@ public class MarketPlaceApi {
 		List<Bid> bidsForOffer = marketPlDao.getBidsForOffer(offer, apiKey);
 
 		for (Bid bid : bidsForOffer) {
-			LOGGER.debug("Bid " + bid.getId() + " with "+ bid.getPrize() + "coins for Offer: " + offer.getId());
+			LOGGER.debug("Bid {} with {} coins for Offer: {}", bid.getId(), bid.getPrize(), offer.getId());
 		}
 
 		return ResponseSurrogate.of(bidsForOffer);
@@ -800,37 +741,16 @@ public class MarketPlaceApi {
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
 		int offId = ValidateUtils.requireGreaterThanZero(offerId);
-		Offer offer = marketPlDao.getOffer(offId, apiKey);
+		Offer offer = marketPlDao.getOfferForUpdate(offId, apiKey);
 		ValidateUtils.requireNotNull(offId, offer);
 		
-		int prize = offer.getPrize();
-		int sum = 0;
-		
-		List<Bid> bids = marketPlDao.getBidsForOffer(offer, apiKey);
-		if (!bids.isEmpty()) {
-			for (Bid bid : bids) {
-				Player player = bid.getPlayer();
-				player.setCoins(player.getCoins() + bid.getPrize());
-				LOGGER.debug("give a bid" + player.getId());
-				sum = sum + bid.getPrize();
-				LOGGER.debug(" Sum = " + sum);
-				marketPlDao.deleteBid(bid);
-			}
-		}
+		playerDao.applyBalances(MarketPlace.refundOffer(offer, marketPlDao.getBidsForOffer(offer, apiKey)));
 		
-		List<MarketPlace> markets = marketPlDao.getAllMarketPlaces(apiKey);
-		if (!markets.isEmpty()) {
-			for (MarketPlace market : markets) {
-				market.removeOffer(offer);
-				LOGGER.debug("Removed from market place  " + market.getId());
-			}
+		for (MarketPlace market : marketPlDao.getMarketplacesOfOffers(Arrays.asList(offer))) {
+			market.removeOffer(offer);
 		}
 
-		Player owner = offer.getPlayer();
-		LOGGER.debug("Owners Coins " + owner.getCoins());
-		owner.setCoins(owner.getCoins() + (prize-sum));
-		LOGGER.debug("Owners Coins " + owner.getCoins());
-		
+		// bids are deleted by cascading
 		Offer deletedOffer = marketPlDao.deleteOffer(offId, apiKey);
 
 		return ResponseSurrogate.deleted(deletedOffer);
@@ -924,7 +844,7 @@ public class MarketPlaceApi {
 		List<Integer> matchingOffers = new ArrayList<>();
 		
 		for (Offer offer : offers) {
-			LOGGER.debug("| Offer:" + offer.getId());
+			LOGGER.debug("| Offer:{}", offer.getId());
 			matchingOffers.add(offer.getId());
 		}
 
@@ -955,7 +875,7 @@ public class MarketPlaceApi {
 		int idTask = ValidateUtils.requireGreaterThanZero(taskId);
 		Task task = taskDao.getTask(idTask, apiKey);
 		
-		ArrayList<OfferMarketPlace> offList = MarketPlace.getAllOfferMarketPlaces(marketPlDao, task, apiKey);
+		List<OfferMarketPlace> offList = marketPlDao.getOfferMarketPlaces(task, apiKey);
 		
 		return ResponseSurrogate.of(offList);
 	}
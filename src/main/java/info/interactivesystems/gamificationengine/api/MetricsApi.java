@@ -0,0 +1,87 @@
+package info.interactivesystems.gamificationengine.api;
+
+import info.interactivesystems.gamificationengine.api.exeption.ApiError;
+import info.interactivesystems.gamificationengine.utils.Metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import javax.ejb.Stateless;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * Exposes the metrics of the requests and of the data access methods in the text exposition
+ * format of Prometheus, so they can be scraped by a monitoring system. For each route and each
+ * data access method the number of calls, the number of errors and a histogram of the latency
+ * are returned, for each route also a histogram of the number of queries. For the task
+ * completions of each organisation a histogram of the time of each stage and of the number of
+ * rules, goals and rewards is returned.
+ * <p>
+ * The metrics cover all organisations, so they aren't protected by an API key but by the password
+ * of the system property gamificationengine.metrics.password, which is sent with HTTP basic
+ * authentication and any user name. If the password isn't set, the metrics can't be requested.
+ */
+@Path("/metrics")
+@Stateless
+@Produces("text/plain; version=0.0.4")
+public class MetricsApi {
+
+	static final String PASSWORD = "gamificationengine.metrics.password";
+
+	private static final String BASIC = "Basic ";
+
+	/**
+	 * Returns the current metrics, if the password is correct. Otherwise an exception is
+	 * returned that the credentials are wrong.
+	 *
+	 * @param authorization
+	 *            The header "Authorization: Basic &lt;credentials&gt;" with the password of the
+	 *            metrics.
+	 * @return The metrics as text.
+	 */
+	@GET
+	public String metrics(@HeaderParam(HttpHeaders.AUTHORIZATION) String authorization) {
+		if (!isAuthorized(authorization, System.getProperty(PASSWORD))) {
+			throw new ApiError(Response.Status.UNAUTHORIZED, "The credentials for the metrics are wrong.");
+		}
+
+		StringBuilder out = new StringBuilder();
+		Metrics.REQUESTS.writeTo(out);
+		Metrics.REQUEST_QUERIES.writeTo(out);
+		Metrics.QUERIES.writeTo(out);
+		Metrics.COMPLETION_STAGES.writeTo(out);
+		Metrics.COMPLETION_ITEMS.writeTo(out);
+		return out.toString();
+	}
+
+	/**
+	 * Checks whether the header contains the configured password.
+	 *
+	 * @param authorization
+	 *            The header "Authorization" or null.
+	 * @param password
+	 *            The configured password or null if the metrics are disabled.
+	 * @return True if the password is configured and was sent, otherwise false.
+	 */
+	static boolean isAuthorized(String authorization, String password) {
+		if (password == null || authorization == null || !authorization.startsWith(BASIC)) {
+			return false;
+		}
+		String credentials;
+		try {
+			credentials = new String(Base64.getDecoder().decode(authorization.substring(BASIC.length()).trim()),
+					StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		int colon = credentials.indexOf(':');
+		return colon >= 0 && MessageDigest.isEqual(credentials.substring(colon + 1).getBytes(StandardCharsets.UTF_8),
+				password.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,94 @@
+package info.interactivesystems.gamificationengine.api;
+
+import info.interactivesystems.gamificationengine.utils.Metrics;
+import info.interactivesystems.gamificationengine.utils.QueryBudget;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Path;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the count, the errors and the latency of the requests of each route in
+ * {@link Metrics#REQUESTS}. The route is the templated path of the resource method, like
+ * /task/{id}/complete/{playerId}, so all requests of one method are counted together. Requests
+ * with a status of 400 or higher are counted as errors.
+ * <p>
+ * The queries of each request are counted by the {@link QueryBudget} and recorded in
+ * {@link Metrics#REQUEST_QUERIES}. Requests which are over the budget or which run the same
+ * query again and again are logged as warnings together with their queries.
+ * <p>
+ * The filter runs before the {@link RateLimitFilter}, so the requests which are rejected by the
+ * rate limits are recorded, too.
+ */
+@Provider
+@Priority(Priorities.USER - 100)
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetricsFilter.class);
+
+	private static final String START = MetricsFilter.class.getName() + ".start";
+
+	private static final ConcurrentMap<Method, String> ROUTES = new ConcurrentHashMap<>();
+
+	@Context
+	ResourceInfo resourceInfo;
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) {
+		requestContext.setProperty(START, System.nanoTime());
+		QueryBudget.begin();
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		Object start = requestContext.getProperty(START);
+		QueryBudget.Report queries = QueryBudget.end();
+		if (start == null) {
+			// the request was rejected before it was matched
+			return;
+		}
+		Method method = resourceInfo.getResourceMethod();
+		String route = method == null ? "unmatched" : ROUTES.computeIfAbsent(method, m -> route(resourceInfo.getResourceClass(), m));
+		Metrics.REQUESTS.record(requestContext.getMethod(), route, System.nanoTime() - (Long) start,
+				responseContext.getStatus() >= 400);
+
+		if (queries != null) {
+			Metrics.REQUEST_QUERIES.recordValue(requestContext.getMethod(), route, queries.getTotal(), queries.isOverBudget());
+			String repeated = queries.getRepeatedQuery();
+			if (repeated != null) {
+				LOGGER.warn("{} {} runs {} {} times, possibly once per item: {}", requestContext.getMethod(), route, repeated,
+						queries.getCount(repeated), queries);
+			} else if (queries.isOverBudget()) {
+				LOGGER.warn("{} {} is over the query budget of {}: {}", requestContext.getMethod(), route, QueryBudget.BUDGET, queries);
+			}
+		}
+	}
+
+	static String route(Class<?> resourceClass, Method method) {
+		StringBuilder route = new StringBuilder();
+		for (Path path : new Path[] { resourceClass.getAnnotation(Path.class), method.getAnnotation(Path.class) }) {
+			if (path != null) {
+				for (String segment : path.value().split("/")) {
+					if (!segment.isEmpty()) {
+						route.append('/').append(segment);
+					}
+				}
+			}
+		}
+		return route.length() == 0 ? "/" : route.toString();
+	}
+}
@@ -4,17 +4,21 @@ import info.interactivesystems.gamificationengine.api.exeption.ApiError;
 import info.interactivesystems.gamificationengine.api.exeption.CredentialException;
 import info.interactivesystems.gamificationengine.api.exeption.Notification;
 import info.interactivesystems.gamificationengine.api.validation.ValidApiKey;
+import info.interactivesystems.gamificationengine.api.validation.ValidPositiveDigit;
 import info.interactivesystems.gamificationengine.dao.AccountDAO;
 import info.interactivesystems.gamificationengine.dao.OrganisationDAO;
 import info.interactivesystems.gamificationengine.entities.Account;
 import info.interactivesystems.gamificationengine.entities.Organisation;
+import info.interactivesystems.gamificationengine.jobs.EventReplay;
 import info.interactivesystems.gamificationengine.utils.SecurityTools;
+import info.interactivesystems.gamificationengine.utils.SessionToken;
 
 import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
@@ -43,6 +47,8 @@ import com.webcohesion.enunciate.metadata.rs.TypeHint;
  * When an Organisation is created it has to be connected with an account. Each organisation 
  * may be managed by many people, but at least by one who is added to the list of the manager 
  * of the respective organisation and so also the Account.  
+ * Instead of passing the API key with each request, a manager can request a session token 
+ * for the organisation and send it in the header "Authorization: Bearer &lt;token&gt;".
  * In the response of all requests the account's password isn't returned because of security 
  * reasons.
  */
@@ -57,6 +63,8 @@ public class OrganisationApi {
 	OrganisationDAO organisationDao;
 	@Inject
 	AccountDAO accountDao;
+	@Inject
+	EventReplay eventReplay;
 
 	/**
 	 * Creates a new organisation. The email address and password of one Account are used 
@@ -82,13 +90,13 @@ public class OrganisationApi {
 
 		LOGGER.debug("create organisation requested");
 
-		String encryptedPassword = SecurityTools.encryptWithSHA512(password);
-		if (!accountDao.checkCredentials(email, encryptedPassword)) {
+		Account account = accountDao.authenticate(email, password);
+		if (account == null) {
 			throw new CredentialException(email);
 		}
 
 		Organisation organisation = new Organisation(name);
-		organisation.addManager(accountDao.getAccount(email, encryptedPassword));
+		organisation.addManager(account);
 		organisation.setApiKey(SecurityTools.generateApiKey());
 
 		LOGGER.debug("Organisation created");
@@ -135,7 +143,7 @@ public class OrganisationApi {
 		}
 
 		Account newManager = new Account(manager);
-		newManager.setPassword(SecurityTools.encryptWithSHA512(managerPw));
+		newManager.setPassword(SecurityTools.hashPassword(managerPw));
 		newManager.setFirstName(firstName);
 		newManager.setLastName(lastName);
 		
@@ -161,7 +169,7 @@ public class OrganisationApi {
 
 		LOGGER.debug("get organisation requested");
 
-		if (!accountDao.checkCredentials(email, SecurityTools.encryptWithSHA512(password))) {
+		if (accountDao.authenticate(email, password) == null) {
 			throw new CredentialException(email);
 		}
 
@@ -192,7 +200,7 @@ public class OrganisationApi {
 
 		LOGGER.debug("get organisation requested");
 
-		if (!accountDao.checkCredentials(email, SecurityTools.encryptWithSHA512(password))) {
+		if (accountDao.authenticate(email, password) == null) {
 			throw new CredentialException(email);
 		}
 
@@ -225,14 +233,138 @@ public class OrganisationApi {
 		Notification notification = new Notification();
 
 		LOGGER.debug("generate api key requested");
-		if (!accountDao.checkCredentials(email, SecurityTools.encryptWithSHA512(password))) {
+		if (accountDao.authenticate(email, password) == null) {
 			throw new CredentialException(email);
 		}
 
 		int intId = Integer.parseInt(id);
 		Organisation organisation = organisationDao.getOrganisation(intId);
 		organisation.setApiKey(SecurityTools.generateApiKey());
+		// tokens of the organisation have to use the new key
+		TokenAuthenticationFilter.API_KEYS.evict(intId);
 
 		return ResponseSurrogate.updated(organisation, notification);
 	}
+
+	/**
+	 * Issues a session token for the given organisation, if the email address and the associated
+	 * password belong to one of its managers. Otherwise an exception is returned that the given
+	 * credentials are wrong. 
+	 * The token can be sent in the header "Authorization: Bearer &lt;token&gt;" instead of 
+	 * the API key until it expires. Requests with a token are authenticated without checking the
+	 * password again. The token doesn't contain the API key, which is looked up and cached for 
+	 * one minute.
+	 * 
+	 * @param id
+	 *            The path parameter of the organisation, for which the token should be issued.
+	 * @param email
+	 *           The valid email address. 
+	 * @param password
+	 *            Required header parameter to connect it with the given email address.
+	 * @return A Response of the session token in JSON.
+	 */
+	@POST
+	@Path("/{id}/token")
+	@TypeHint(SessionToken.class)
+	public Response issueToken(@PathParam("id") @NotNull @ValidPositiveDigit String id, @QueryParam("email") @NotNull @Email String email,
+			@HeaderParam("password") @NotNull String password) {
+
+		LOGGER.debug("session token requested");
+
+		Organisation organisation = requireManager(id, email, password);
+
+		return ResponseSurrogate.created(SessionToken.issue(organisation.getId()));
+	}
+
+	/**
+	 * Turns the completion event log of the given organisation on or off, if the email address
+	 * and the associated password belong to one of its managers. Otherwise an exception is 
+	 * returned that the given credentials are wrong.
+	 * While the log is turned on, each completion of one of the organisation's tasks is written
+	 * as one line to the logger "gamificationengine.completions", with the number of rules, goals
+	 * and rewards and the time of each stage of the completion.
+	 * In the response the account's password isn't returned because of security reasons.
+	 * 
+	 * @param id
+	 *            The path parameter of the organisation.
+	 * @param enabled
+	 *            Whether the completions should be logged. The default value is true.
+	 * @param email
+	 *           The valid email address. 
+	 * @param password
+	 *            Required header parameter to connect it with the given email address.
+	 * @return A Response of Organisation in JSON.
+	 */
+	@PUT
+	@Path("/{id}/completionLog")
+	@TypeHint(Organisation.class)
+	public Response setCompletionLog(@PathParam("id") @NotNull @ValidPositiveDigit String id,
+			@QueryParam("enabled") @DefaultValue("true") boolean enabled, @QueryParam("email") @NotNull @Email String email,
+			@HeaderParam("password") @NotNull String password) {
+
+		LOGGER.debug("completion log requested");
+
+		Organisation organisation = requireManager(id, email, password);
+
+		organisation.setCompletionLog(enabled);
+		return ResponseSurrogate.updated(organisation);
+	}
+
+	/**
+	 * Rebuilds the points and coins of all players and groups of the given organisation from 
+	 * their events, if the email address and the associated password belong to one of its 
+	 * managers. Otherwise an exception is returned that the given credentials are wrong.
+	 * Each balance which differs from the sum of its events is reported and, if apply is true, 
+	 * replaced by this sum. Without apply the balances are only audited. 
+	 * 
+	 * @param id
+	 *            The path parameter of the organisation.
+	 * @param apply
+	 *            Whether differing balances should be replaced. The default value is false.
+	 * @param email
+	 *           The valid email address. 
+	 * @param password
+	 *            Required header parameter to connect it with the given email address.
+	 * @return A Response of the numbers of the replay in JSON.
+	 */
+	@POST
+	@Path("/{id}/replay")
+	@TypeHint(EventReplay.Report.class)
+	public Response replayEvents(@PathParam("id") @NotNull @ValidPositiveDigit String id,
+			@QueryParam("apply") @DefaultValue("false") boolean apply, @QueryParam("email") @NotNull @Email String email,
+			@HeaderParam("password") @NotNull String password) {
+
+		LOGGER.debug("replay of events requested");
+
+		Organisation organisation = requireManager(id, email, password);
+
+		return ResponseSurrogate.of(eventReplay.replay(organisation.getId(), apply));
+	}
+
+	/**
+	 * Gets an organisation if the email address and the associated password belong to one of its 
+	 * managers. Otherwise an exception is thrown that the given credentials are wrong.
+	 * 
+	 * @param id
+	 *            The id of the organisation.
+	 * @param email
+	 *           The email address of the manager.
+	 * @param password
+	 *            The password of the manager.
+	 * @return The {@link Organisation} that is associated with the passed id.
+	 */
+	private Organisation requireManager(String id, String email, String password) {
+		Account account = accountDao.authenticate(email, password);
+		if (account == null) {
+			throw new CredentialException(email);
+		}
+
+		int intId = ValidateUtils.requireGreaterThanZero(id);
+		Organisation organisation = organisationDao.getOrganisation(intId);
+		ValidateUtils.requireNotNull(intId, organisation);
+		if (organisation.getManagers().stream().noneMatch(m -> m.getEmail().equals(account.getEmail()))) {
+			throw new CredentialException(email);
+		}
+		return organisation;
+	}
 }
@@ -5,10 +5,12 @@ import info.interactivesystems.gamificationengine.api.validation.ValidApiKey;
 import info.interactivesystems.gamificationengine.api.validation.ValidListOfDigits;
 import info.interactivesystems.gamificationengine.api.validation.ValidListOfDigitsOrNull;
 import info.interactivesystems.gamificationengine.api.validation.ValidPositiveDigit;
+import info.interactivesystems.gamificationengine.dao.AssetDAO;
 import info.interactivesystems.gamificationengine.dao.OrganisationDAO;
 import info.interactivesystems.gamificationengine.dao.PlayerDAO;
 import info.interactivesystems.gamificationengine.dao.PlayerGroupDAO;
 import info.interactivesystems.gamificationengine.dao.RoleDAO;
+import info.interactivesystems.gamificationengine.dao.TaskDAO;
 import info.interactivesystems.gamificationengine.entities.Organisation;
 import info.interactivesystems.gamificationengine.entities.Player;
 import info.interactivesystems.gamificationengine.entities.PlayerGroup;
@@ -17,11 +19,16 @@ import info.interactivesystems.gamificationengine.entities.goal.FinishedGoal;
 import info.interactivesystems.gamificationengine.entities.rewards.Achievement;
 import info.interactivesystems.gamificationengine.entities.rewards.Badge;
 import info.interactivesystems.gamificationengine.entities.rewards.PermanentReward;
+import info.interactivesystems.gamificationengine.entities.task.ArchivedTask;
 import info.interactivesystems.gamificationengine.entities.task.FinishedTask;
+import info.interactivesystems.gamificationengine.utils.ImageIngestion;
 import info.interactivesystems.gamificationengine.utils.ImageUtils;
 import info.interactivesystems.gamificationengine.utils.SecurityTools;
 import info.interactivesystems.gamificationengine.utils.StringUtils;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -29,6 +36,7 @@ import java.util.stream.Collectors;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
@@ -39,7 +47,9 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import org.slf4j.Logger;
@@ -72,6 +82,8 @@ import com.webcohesion.enunciate.metadata.rs.TypeHint;
 public class PlayerApi {
 	private static final Logger LOGGER = LoggerFactory.getLogger(PlayerApi.class);
 
+	@Inject
+	AssetDAO assetDao;
 	@Inject
 	OrganisationDAO organisationDao;
 	@Inject
@@ -80,6 +92,8 @@ public class PlayerApi {
 	RoleDAO roleDao;
 	@Inject
 	PlayerGroupDAO groupDao;
+	@Inject
+	TaskDAO taskDao;
 	
 
 	/**
@@ -118,7 +132,7 @@ public class PlayerApi {
 			@QueryParam("avatar") String avatar,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
-		LOGGER.debug("createplayer requested (Params: apiKey = {}, nickname = {}, password = {}", apiKey, nickname, password);
+		LOGGER.debug("createplayer requested (Params: apiKey = {}, nickname = {})", apiKey, nickname);
 
 		List<Role> roles = new ArrayList<>();
 		if(!playerRoleIds.equals("null")){
@@ -142,14 +156,17 @@ public class PlayerApi {
 		}
 		
 		player.setBelongsTo(organisation);
-		player.setPassword(SecurityTools.encryptWithSHA512(password));
+		// clients log in with the SHA-512 hash of the password, which is then hashed with a salt
+		player.setPassword(SecurityTools.hashPassword(SecurityTools.encryptWithSHA512(password)));
 		player.setReference(reference);
 		player.setNickname(nickname);
 		player.setBelongsToRoles(roles);
 		
 		if (avatar != null) {
 			try {
-				player.setAvatar(ImageUtils.imageToByte(avatar));
+				player.setAvatarHash(assetDao.store(ImageIngestion.fetch(avatar)));
+			} catch (ApiError e) {
+				throw e;
 			} catch (Exception e) {
 				throw new ApiError(Response.Status.FORBIDDEN, "Failed to store the avatar in the database.");
 			}
@@ -179,6 +196,30 @@ public class PlayerApi {
 		return ResponseSurrogate.of(players);
 	}
 
+	/**
+	 * Gets the players with the most points of the organisation associated with the given API key,
+	 * sorted by their points in descending order. The points of each player are the sum of the points
+	 * of her/his events, so the leaderboard can be rebuilt by replaying them.
+	 * If the API key is not valid an analogous message is returned.
+	 * In the response the players' password and avatar isn't returned because of security
+	 * reasons respectively overhead.
+	 *
+	 * @param count
+	 *           Optionally the count of players that should be returned can be passed. The default value is 10.
+	 * @param apiKey
+	 *            The valid query parameter API key affiliated to one specific organisation.
+	 * @return A Response as List of Players in JSON.
+	 */
+	@GET
+	@Path("/leaderboard")
+	@TypeHint(Player[].class)
+	public Response getLeaderboard(@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") @DefaultValue("10") String count,
+			@QueryParam("apiKey") @ValidApiKey String apiKey) {
+
+		List<Player> players = playerDao.getLeaderboard(apiKey, ValidateUtils.requireGreaterThanZero(count));
+		return ResponseSurrogate.of(players);
+	}
+
 	/**
 	 * This method gets one specific player who is identified by the given id and the API key.
 	 * If the API key is not valid an analogous message is returned. It is also checked, if the 
@@ -276,7 +317,7 @@ public class PlayerApi {
 		// not: id -> generated & belongsTo -> fixed
 		switch (attribute) {
 		case "password":
-			player.setPassword(value);
+			player.setPassword(SecurityTools.hashPassword(value));
 			break;
 
 		case "reference":
@@ -297,7 +338,9 @@ public class PlayerApi {
 
 		case "avatar":
 			try {
-				player.setAvatar(ImageUtils.imageToByte(value));
+				player.setAvatarHash(assetDao.store(ImageIngestion.fetch(value)));
+			} catch (ApiError e) {
+				throw e;
 			} catch (Exception e) {
 				throw new ApiError(Response.Status.FORBIDDEN, "Failed to store the avatar in the database.");
 			} 
@@ -498,11 +541,76 @@ public class PlayerApi {
 		Player player = playerDao.getPlayer(playerId, apiKey);
 		ValidateUtils.requireNotNull(playerId, player);
 		
-		String b64= ImageUtils.encodeByteArrayToBase64(player.getAvatar());
+		String b64= ImageUtils.encodeByteArrayToBase64(assetDao.getContent(player.getAvatarHash()));
 		
 		return ResponseSurrogate.of(b64);
 	}
 
+	/**
+	 * Returns the avatar of a player as raw image with its content type, so it can be shown and 
+	 * cached by a browser. The hash of the avatar is sent as ETag, if the client already has the 
+	 * current avatar only the status 304 (not modified) is returned.
+	 * If the API key is not valid an analogous message is returned. It is also checked, if the id 
+	 * is a positive number otherwise a message for an invalid number is returned.
+	 * 
+	 * @param id
+	 *          Required path parameter as integer which uniquely identify the {@link Player}.
+	 * @param size
+	 *           Optionally the size in pixels in which the avatar is shown. If no size is passed the 
+	 *           original image is returned.
+	 * @param apiKey
+	 *           The valid query parameter API key affiliated to one specific organisation, 
+	 *           to which this player belongs to.
+	 * @param request
+	 *           The request with the ETag of the client's version of the avatar.
+	 * @return Response of the avatar as image.
+	 */
+	@GET
+	@Path("{id}/avatar/image")
+	@Produces({ "image/png", "image/jpeg" })
+	public Response getAvatarImage(@PathParam("id") @NotNull @ValidPositiveDigit String id,
+			@QueryParam("size") @ValidPositiveDigit(message = "Size must be a valid number") String size,
+			@QueryParam("apiKey") @ValidApiKey String apiKey, @Context Request request) {
+		LOGGER.debug("get player's avatar as image");
+
+		int playerId = ValidateUtils.requireGreaterThanZero(id);
+		Player player = playerDao.getPlayer(playerId, apiKey);
+		ValidateUtils.requireNotNull(playerId, player);
+
+		return AssetApi.image(request, player.getAvatarHash(), AssetApi.sizeOf(size), assetDao);
+	}
+
+	/**
+	 * Uploads a new avatar of a player. The image is sent as body of the request with the content 
+	 * type image/png or image/jpeg, so it doesn't have to be fetched from an URL.
+	 * If the API key is not valid an analogous message is returned. It is also checked, if the id 
+	 * is a positive number otherwise a message for an invalid number is returned.
+	 * 
+	 * @param id
+	 *          Required path parameter as integer which uniquely identify the {@link Player}.
+	 * @param apiKey
+	 *           The valid query parameter API key affiliated to one specific organisation, 
+	 *           to which this player belongs to.
+	 * @param image
+	 *           The content of the new avatar.
+	 * @return Response of Player in JSON.
+	 */
+	@PUT
+	@Path("{id}/avatar")
+	@Consumes({ "image/png", "image/jpeg" })
+	@TypeHint(Player.class)
+	public Response uploadAvatar(@PathParam("id") @NotNull @ValidPositiveDigit String id, @QueryParam("apiKey") @ValidApiKey String apiKey,
+			InputStream image) {
+		LOGGER.debug("upload player's avatar");
+
+		int playerId = ValidateUtils.requireGreaterThanZero(id);
+		Player player = playerDao.getPlayer(playerId, apiKey);
+		ValidateUtils.requireNotNull(playerId, player);
+
+		player.setAvatarHash(assetDao.store(ImageIngestion.read(image)));
+		return ResponseSurrogate.updated(player);
+	}
+
 	/**
 	 * Deactivates a player with the associated id and API key. So this player cannot complete a task
 	 * until she/he is set active again.
@@ -618,6 +726,9 @@ public class PlayerApi {
 	 * id. If the API key is not valid an analogous message is returned. It is also checked, 
 	 * if the player id is a positive number otherwise a message for an invalid number is 
 	 * returned.
+	 * Old finished tasks are compacted, so one finished task can stand for several finished tasks 
+	 * of the same task. Then it contains their number and the dates of the first and the last of 
+	 * them. Each single finished task can still be requested with the player's history.
 	 * 
 	 * @param id
 	 *          Required path parameter as integer which uniquely identify the {@link Player}.
@@ -637,6 +748,41 @@ public class PlayerApi {
 		return ResponseSurrogate.of(fTasks);
 	}
 
+	/**
+	 * Returns one page of the archived tasks of the player of the passed id, the latest first. 
+	 * These are the single finished tasks which were compacted because they are older than the 
+	 * retention period. If the API key is not valid an analogous message is returned. It is also 
+	 * checked, if the player id is a positive number otherwise a message for an invalid number is 
+	 * returned.
+	 * 
+	 * @param id
+	 *          Required path parameter as integer which uniquely identify the {@link Player}.
+	 * @param page
+	 *          Optionally the number of the requested page, starting with 0. The default value is 0. 
+	 * @param count
+	 *          Optionally the count of archived tasks on one page. The default value is 100. 
+	 * @param apiKey
+	 *         The valid query parameter API key affiliated to one specific organisation, 
+	 *         to which this player belongs to.
+	 * @return Response as List of ArchivedTasks in JSON.
+	 */
+	@GET
+	@Path("/{id}/history")
+	@TypeHint(ArchivedTask[].class)
+	public Response getPlayerHistory(@PathParam("id") @NotNull @ValidPositiveDigit String id,
+			@QueryParam("page") @ValidPositiveDigit(message = "Page must be a valid number") @DefaultValue("0") String page,
+			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") @DefaultValue("100") String count,
+			@QueryParam("apiKey") @ValidApiKey String apiKey) {
+
+		int playerId = ValidateUtils.requireGreaterThanZero(id);
+		Player player = playerDao.getPlayer(playerId, apiKey);
+		ValidateUtils.requireNotNull(playerId, player);
+
+		int pageSize = ValidateUtils.requireGreaterThanZero(count);
+		List<ArchivedTask> history = taskDao.getArchivedTasks(playerId, ValidateUtils.requirePage(page, pageSize), pageSize);
+		return ResponseSurrogate.of(history);
+	}
+
 	/**
 	 * Returns a list of all awarded badges associated with the player of the passed id.
 	 * If the API key is not valid an analogous message is returned. It is also checked, 
@@ -828,7 +974,7 @@ public class PlayerApi {
 		if(!reference.equals("null") && !password.equals("null")){
 			try {
 				Player player = playerDao.getPlayerByReference(reference, apiKey);
-				if(player.getPassword().equals(password)){
+				if(checkPassword(player, password, apiKey)){
 					return ResponseSurrogate.of(player);
 				}else{
 					throw new ApiError(Response.Status.FORBIDDEN, "Credentials are wrong.");
@@ -844,6 +990,31 @@ public class PlayerApi {
 	
 	
 	
+	/**
+	 * Checks the hashed password a player has sent. Players which were created before the 
+	 * passwords were salted have the sent hash stored as it is, so it is compared directly and 
+	 * replaced by a salted hash if it matches.
+	 * 
+	 * @param player
+	 * 			The player whose password is checked.
+	 * @param password
+	 * 			The hashed password which was sent.
+	 * @param apiKey
+	 * 			The API key of the player's organisation.
+	 * @return True if the password matches, otherwise false.
+	 */
+	private boolean checkPassword(Player player, String password, String apiKey) {
+		String stored = player.getPassword();
+		if (!SecurityTools.isSalted(stored)) {
+			if (!MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8))) {
+				return false;
+			}
+			player.setPassword(SecurityTools.hashPassword(password));
+			return true;
+		}
+		return SecurityTools.checkPassword("player:" + apiKey + ":" + player.getReference(), password, stored);
+	}
+	
 	/**
 	 * Gets a list of all contacts a player has.
 	 * In the response the players' password and avatar isn't returned because of security 
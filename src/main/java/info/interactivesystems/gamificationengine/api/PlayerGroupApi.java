@@ -4,6 +4,7 @@ import info.interactivesystems.gamificationengine.api.exeption.ApiError;
 import info.interactivesystems.gamificationengine.api.validation.ValidApiKey;
 import info.interactivesystems.gamificationengine.api.validation.ValidListOfDigits;
 import info.interactivesystems.gamificationengine.api.validation.ValidPositiveDigit;
+import info.interactivesystems.gamificationengine.dao.AssetDAO;
 import info.interactivesystems.gamificationengine.dao.OrganisationDAO;
 import info.interactivesystems.gamificationengine.dao.PlayerDAO;
 import info.interactivesystems.gamificationengine.dao.PlayerGroupDAO;
@@ -14,14 +15,17 @@ import info.interactivesystems.gamificationengine.entities.goal.FinishedGoal;
 import info.interactivesystems.gamificationengine.entities.rewards.Achievement;
 import info.interactivesystems.gamificationengine.entities.rewards.Badge;
 import info.interactivesystems.gamificationengine.entities.rewards.PermanentReward;
+import info.interactivesystems.gamificationengine.utils.ImageIngestion;
 import info.interactivesystems.gamificationengine.utils.ImageUtils;
 import info.interactivesystems.gamificationengine.utils.StringUtils;
 
+import java.io.InputStream;
 import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -30,7 +34,9 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import org.slf4j.Logger;
@@ -56,6 +62,8 @@ public class PlayerGroupApi {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(PlayerGroupApi.class);
 
+	@Inject
+	AssetDAO assetDao;
 	@Inject
 	OrganisationDAO organisationDao;
 	@Inject
@@ -101,7 +109,7 @@ public class PlayerGroupApi {
 
 		group.setBelongsTo(organisation);
 		if (logoPath != null) {
-			group.setGroupLogo(ImageUtils.imageToByte(logoPath));
+			group.setGroupLogoHash(assetDao.store(ImageIngestion.fetch(logoPath)));
 		}
 
 		groupDao.insertGroup(group);
@@ -209,7 +217,7 @@ public class PlayerGroupApi {
 			break;
 
 		case "logo":
-			plGroup.setGroupLogo(ImageUtils.imageToByte(value));
+			plGroup.setGroupLogoHash(assetDao.store(ImageIngestion.fetch(value)));
 			break;
 		}
 
@@ -298,10 +306,75 @@ public class PlayerGroupApi {
 			throw new ApiError(Response.Status.NOT_FOUND, "No such PlayerGroup: " + id);
 		}
 		
-		String b64 = ImageUtils.encodeByteArrayToBase64(group.getGroupLogo());
+		String b64 = ImageUtils.encodeByteArrayToBase64(assetDao.getContent(group.getGroupLogoHash()));
 		
 		return ResponseSurrogate.of(b64);
 	}
+
+	/**
+	 * Returns the logo of a group as raw image with its content type, so it can be shown and 
+	 * cached by a browser. The hash of the logo is sent as ETag, if the client already has the 
+	 * current logo only the status 304 (not modified) is returned.
+	 * If the API key is not valid an analogous message is returned. It is also checked, if the id 
+	 * is a positive number otherwise a message for an invalid number is returned.
+	 * 
+	 * @param id
+	 *          Required path parameter as integer which uniquely identify the {@link PlayerGroup}.
+	 * @param size
+	 *           Optionally the size in pixels in which the logo is shown. If no size is passed the 
+	 *           original image is returned.
+	 * @param apiKey
+	 *           The valid query parameter API key affiliated to one specific organisation, 
+	 *           to which this group of players belongs to.
+	 * @param request
+	 *           The request with the ETag of the client's version of the logo.
+	 * @return Response of the logo as image.
+	 */
+	@GET
+	@Path("{id}/avatar/image")
+	@Produces({ "image/png", "image/jpeg" })
+	public Response getAvatarImage(@PathParam("id") @NotNull @ValidPositiveDigit String id,
+			@QueryParam("size") @ValidPositiveDigit(message = "Size must be a valid number") String size,
+			@QueryParam("apiKey") @ValidApiKey String apiKey, @Context Request request) {
+		LOGGER.debug("get groups's avatar as image");
+
+		int groupId = ValidateUtils.requireGreaterThanZero(id);
+		PlayerGroup group = groupDao.getPlayerGroup(groupId, apiKey);
+		ValidateUtils.requireNotNull(groupId, group);
+
+		return AssetApi.image(request, group.getGroupLogoHash(), AssetApi.sizeOf(size), assetDao);
+	}
+
+	/**
+	 * Uploads a new logo of a group. The image is sent as body of the request with the content 
+	 * type image/png or image/jpeg, so it doesn't have to be fetched from an URL.
+	 * If the API key is not valid an analogous message is returned. It is also checked, if the id 
+	 * is a positive number otherwise a message for an invalid number is returned.
+	 * 
+	 * @param id
+	 *          Required path parameter as integer which uniquely identify the {@link PlayerGroup}.
+	 * @param apiKey
+	 *           The valid query parameter API key affiliated to one specific organisation, 
+	 *           to which this group of players belongs to.
+	 * @param image
+	 *           The content of the new logo.
+	 * @return Response of PlayerGroup in JSON.
+	 */
+	@PUT
+	@Path("{id}/avatar")
+	@Consumes({ "image/png", "image/jpeg" })
+	@TypeHint(PlayerGroup.class)
+	public Response uploadAvatar(@PathParam("id") @NotNull @ValidPositiveDigit String id, @QueryParam("apiKey") @ValidApiKey String apiKey,
+			InputStream image) {
+		LOGGER.debug("upload group's avatar");
+
+		int groupId = ValidateUtils.requireGreaterThanZero(id);
+		PlayerGroup group = groupDao.getPlayerGroup(groupId, apiKey);
+		ValidateUtils.requireNotNull(groupId, group);
+
+		group.setGroupLogoHash(assetDao.store(ImageIngestion.read(image)));
+		return ResponseSurrogate.updated(group);
+	}
 	
 	/**
 	 * Returns the current amount of points associated with the group of players of the passed id. If 
@@ -16,7 +16,7 @@ import info.interactivesystems.gamificationengine.entities.present.Present;
 import info.interactivesystems.gamificationengine.entities.present.PresentAccepted;
 import info.interactivesystems.gamificationengine.entities.present.PresentArchived;
 import info.interactivesystems.gamificationengine.entities.present.TextMessage;
-import info.interactivesystems.gamificationengine.utils.ImageUtils;
+import info.interactivesystems.gamificationengine.utils.ImageIngestion;
 import info.interactivesystems.gamificationengine.utils.StringUtils;
 
 import java.net.MalformedURLException;
@@ -24,13 +24,13 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -115,7 +115,7 @@ public class PresentApi {
 		receivers = receiverList(receiverIds, apiKey);
 		
 		for (Player player : receivers) {
-			LOGGER.debug("Receivers: " + player.getId());
+			LOGGER.debug("Receivers: {}", player.getId());
 		} 
 		
 		TextMessage message = new TextMessage();
@@ -177,7 +177,7 @@ public class PresentApi {
 		
 		receivers = receiverList(receiverIds, apiKey);
 		for (Player player : receivers) {
-			LOGGER.debug("Receivers: " + player.getId());
+			LOGGER.debug("Receivers: {}", player.getId());
 		} 
 		
 		ImageMessage iMessage = new ImageMessage();
@@ -187,7 +187,7 @@ public class PresentApi {
 		iMessage.setMessage(textMessage);
 		try {
 			new URL(imagePath);
-			iMessage.setImageIcon(ImageUtils.imageToByte(imagePath));
+			iMessage.setImageIcon(ImageIngestion.fetch(imagePath));
 		} catch (MalformedURLException e) {
 			throw new ApiError(Response.Status.FORBIDDEN, "no valid url was transferred");
 		}
@@ -222,10 +222,16 @@ public class PresentApi {
 	/**
 	 * This method returns all already accepted messages of a specific player's current presents.  
 	 * If the API key is not valid an analogous message is returned.
+	 * If a count is passed, only one page of the presents ordered by the point of time they were 
+	 * accepted is returned.
 	 * 
 	 * @param playerId
 	 *            The id of the player who owns the board with the current presents. This field 
 	 *            must not be null.
+	 * @param page
+	 *           Optionally the number of the requested page, starting with 0. The default value is 0. 
+	 * @param count
+	 *           Optionally the count of presents on one page. If no count is passed, all presents are returned. 
 	 * @param apiKey
 	 *            The valid query parameter API key affiliated to one specific organisation, 
 	 *            to which the messages belongs to.
@@ -237,6 +243,8 @@ public class PresentApi {
 	@TypeHint(PresentAccepted[].class)
 	public Response getCurrentBoardMessages(
 			@PathParam("playerId") @NotNull @ValidPositiveDigit(message = "The player id must be a valid number") String playerId,
+			@QueryParam("page") @ValidPositiveDigit(message = "Page must be a valid number") @DefaultValue("0") String page,
+			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") String count,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
 		LOGGER.debug("getboardMessages called");
@@ -245,16 +253,8 @@ public class PresentApi {
 		Player player = playerDao.getPlayer(playId, apiKey);
 		ValidateUtils.requireNotNull(playId, player);
 		
-		Board board = boardDao.getBoard(Integer.valueOf(playerId), apiKey);
-		if (board == null) {
-			board = new Board();
-			board.setOwner(player);
-			board.setBelongsTo(player.getBelongsTo());
-			boardDao.persist(board);
-		}
-
-		List<PresentAccepted> presents = board.getCurrentPresents();
-		
+		int pageSize = pageSize(count);
+		List<PresentAccepted> presents = boardDao.getCurrentPresents(playId, ValidateUtils.requirePage(page, pageSize), pageSize, apiKey);
 		return ResponseSurrogate.of(presents);
 	}
 	
@@ -262,10 +262,16 @@ public class PresentApi {
 	/**
 	 * This method returns all text messages of a specific player's current presents. 
 	 * If the API key is not valid an analogous message is returned.
+	 * If a count is passed, only one page of the text messages ordered by the point of time they were 
+	 * accepted is returned.
 	 * 
 	 * @param playerId
 	 *            The id of the player who owns the board with the current presents. This field 
 	 *            must not be null.
+	 * @param page
+	 *           Optionally the number of the requested page, starting with 0. The default value is 0. 
+	 * @param count
+	 *           Optionally the count of text messages on one page. If no count is passed, all text messages are returned. 
 	 * @param apiKey
 	 *            The valid query parameter API key affiliated to one specific organisation, 
 	 *            to which the text messages belongs to.
@@ -276,6 +282,8 @@ public class PresentApi {
 	@TypeHint(TextMessage[].class)
 	public Response getCurrentTextMessage(
 			@PathParam("playerId") @NotNull @ValidPositiveDigit(message = "The player id must be a valid number") String playerId,
+			@QueryParam("page") @ValidPositiveDigit(message = "Page must be a valid number") @DefaultValue("0") String page,
+			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") String count,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
 		LOGGER.debug("getMessages called");
@@ -284,27 +292,25 @@ public class PresentApi {
 		Player player = playerDao.getPlayer(playId, apiKey);
 		ValidateUtils.requireNotNull(playId, player);
 		
-		Board board = boardDao.getBoard(Integer.valueOf(playerId), apiKey);
-		if (board == null) {
-			board = new Board();
-			board.setOwner(player);
-			board.setBelongsTo(player.getBelongsTo());
-			boardDao.persist(board);
-		}
-
-		List<PresentAccepted> presents = board.getCurrentPresents();
-		List<TextMessage> currentTextMessages = board.filterTextMessages(presents); 
-
+		int pageSize = pageSize(count);
+		List<TextMessage> currentTextMessages = boardDao.getCurrentPresents(playId, TextMessage.class,
+				ValidateUtils.requirePage(page, pageSize), pageSize, apiKey);
 		return ResponseSurrogate.of(currentTextMessages);
 	}
 
 	/**
 	 * This method returns all image messages of a specific player's current presents.
 	 * If the API key is not valid an analogous message is returned.
+	 * If a count is passed, only one page of the image messages ordered by the point of time they were 
+	 * accepted is returned.
 	 * 
 	 * @param playerId
 	 *            The id of the player who owns the board with the current presents. This field 
 	 *            must not be null.
+	 * @param page
+	 *           Optionally the number of the requested page, starting with 0. The default value is 0. 
+	 * @param count
+	 *           Optionally the count of image messages on one page. If no count is passed, all image messages are returned. 
 	 * @param apiKey
 	 *            The valid query parameter API key affiliated to one specific organisation, 
 	 *            to which the image messages belongs to.
@@ -315,6 +321,8 @@ public class PresentApi {
 	@TypeHint(ImageMessage[].class)
 	public Response getCurrentImageMessages(
 			@PathParam("playerId") @NotNull @ValidPositiveDigit(message = "The player id must be a valid number") String playerId,
+			@QueryParam("page") @ValidPositiveDigit(message = "Page must be a valid number") @DefaultValue("0") String page,
+			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") String count,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
 		LOGGER.debug("getImageMessages called");
@@ -323,17 +331,9 @@ public class PresentApi {
 		Player player = playerDao.getPlayer(playId, apiKey);
 		ValidateUtils.requireNotNull(playId, player);
 		
-		Board board = boardDao.getBoard(Integer.valueOf(playerId), apiKey);
-		if (board == null) {
-			board = new Board();
-			board.setOwner(player);
-			board.setBelongsTo(player.getBelongsTo());
-			boardDao.persist(board);
-		}
-
-		List<PresentAccepted> presents = board.getCurrentPresents();
-		List<ImageMessage> currentImageMessages = board.filterImageMessages(presents); 
-
+		int pageSize = pageSize(count);
+		List<ImageMessage> currentImageMessages = boardDao.getCurrentPresents(playId, ImageMessage.class,
+				ValidateUtils.requirePage(page, pageSize), pageSize, apiKey);
 		return ResponseSurrogate.of(currentImageMessages);
 	}
 	
@@ -363,46 +363,22 @@ public class PresentApi {
 		Present present = presentDao.getPresent(presId, apiKey);
 		ValidateUtils.requireNotNull(presId, present);
 		
-		LOGGER.debug("Receivers player: " + present.getId());
-		
-		Set<Player> receiverSet = new HashSet<Player>(present.getReceiver());
-		List<Player> receivers = new ArrayList<>();
-		receivers.addAll(receiverSet);
-		
+		List<Player> receivers = new ArrayList<>(new HashSet<Player>(present.getReceiver()));
 		List<Board> boards = boardDao.getBoards(receivers, apiKey);
 
-		LOGGER.debug("List Boards Receivers: ");
-		for (Board b : boards) {
-			LOGGER.debug("Copy Receivers: " + b.getOwner().getId());
-		} 
-		
-		List<Player> copyRecievers = new ArrayList<Player>(receivers);
-		copyRecievers.removeAll(boards.stream().map(Board::getOwner).collect(Collectors.toList()));
-		if (!copyRecievers.isEmpty()) {
-			for (Player player : copyRecievers) {
-				Board board = new Board();
-				board.setOwner(player);
-				board.setBelongsTo(organisation);
-				boardDao.persist(board);
-				boards.add(board);
-			}
-		}
-
-		LOGGER.debug("present id: " + present.getId());
+		// every receiver needs a board, the missing ones are created at once
+		receivers.removeAll(boards.stream().map(Board::getOwner).collect(Collectors.toList()));
+		List<Board> newBoards = new ArrayList<>();
 		for (Player player : receivers) {
-			LOGGER.debug("receivers are: " + player.getId());
-		}
-
-		for (Player player : receivers) {
-			LOGGER.debug("receivers are: " + player.getId());
-		}
-
-		for (Board board : boards) {
-			LOGGER.debug("board: " + board.getId());
-			board.add(present);
+			Board board = new Board();
+			board.setOwner(player);
+			board.setBelongsTo(organisation);
+			newBoards.add(board);
 		}
+		boardDao.insertBoards(newBoards);
+		boards.addAll(newBoards);
 
-		presentDao.insert(boards);
+		presentDao.deliver(present, boards);
 		return ResponseSurrogate.created(present);
 	}
 
@@ -435,7 +411,7 @@ public class PresentApi {
 		Present present = presentDao.getPresent(presId, apiKey);
 		ValidateUtils.requireNotNull(presId, present);
 		
-		LOGGER.debug("present id: " + present.getId());
+		LOGGER.debug("present id: {}", present.getId());
 
 		Player player = playerDao.getPlayer(playId, apiKey);
 		ValidateUtils.requireNotNull(playId, player);
@@ -443,7 +419,7 @@ public class PresentApi {
 		Board board = boardDao.getBoard(Integer.valueOf(playerId), apiKey);
 		board.checkBoardExists(board);
 		
-		LOGGER.debug("Board " + board.getId());
+		LOGGER.debug("Board {}", board.getId());
 
 		board.acceptAndCreateAcceptedPresent(present);
 
@@ -479,7 +455,7 @@ public class PresentApi {
 			throw new ApiError(Response.Status.NOT_FOUND, "No present to deny.");
 		}
 
-		LOGGER.debug("present id: " + present.getId());
+		LOGGER.debug("present id: {}", present.getId());
 
 		Player player = playerDao.getPlayer(Integer.valueOf(playerId), apiKey);
 		if(player == null){
@@ -491,7 +467,7 @@ public class PresentApi {
 			throw new ApiError(Response.Status.NOT_FOUND, "Player hasn't a board with presents that can be accepted.");
 		}
 		
-		LOGGER.debug("Board " + board.getId());
+		LOGGER.debug("Board {}", board.getId());
 
 		board.denyPresent(present);
 
@@ -527,7 +503,7 @@ public class PresentApi {
 			throw new ApiError(Response.Status.NOT_FOUND, "No present to archive.");
 		}
 
-		LOGGER.debug("present id: " + accPresent.getId());
+		LOGGER.debug("present id: {}", accPresent.getId());
 
 		Player player = playerDao.getPlayer(Integer.valueOf(playerId), apiKey);
 		if(player == null){
@@ -547,9 +523,15 @@ public class PresentApi {
 	 * This method returns all presents of a player's inbox associated with the given API key and so 
 	 * all presents who belong to the associated organisation. If the API key is not valid an analogous
 	 * message is returned.
+	 * If a count is passed, only one page of the presents ordered by the point of time they were 
+	 * received is returned.
 	 * 
 	 * @param playerId
 	 *            The id of the player whose presents are returned. This field must not be null.
+	 * @param page
+	 *           Optionally the number of the requested page, starting with 0. The default value is 0. 
+	 * @param count
+	 *           Optionally the count of presents on one page. If no count is passed, all presents are returned. 
 	 * @param apiKey
 	 *            The valid query parameter API key affiliated to one specific organisation, 
 	 *            to which this present belongs to.
@@ -559,6 +541,8 @@ public class PresentApi {
 	@Path("/{playerId}/inbox")
 	@TypeHint(Present[].class)
 	public Response getInbox(@PathParam("playerId") @NotNull @ValidPositiveDigit(message = "The player id must be a valid number") String playerId,
+			@QueryParam("page") @ValidPositiveDigit(message = "Page must be a valid number") @DefaultValue("0") String page,
+			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") String count,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
 		LOGGER.debug("get inbox");
@@ -567,18 +551,9 @@ public class PresentApi {
 		if(player == null){
 			throw new ApiError(Response.Status.FORBIDDEN, "a player with this id doesn't exist");
 		}
-		
-		Board board = boardDao.getBoard(Integer.valueOf(playerId), apiKey);
-		if (board == null) {
-			board = new Board();
-			board.setOwner(player);
-			board.setBelongsTo(player.getBelongsTo());
-		}
-		LOGGER.debug("Board " + board.getId());
 
-		List<Present> presents = board.getInBox();
-		
-		boardDao.persist(board);
+		int pageSize = pageSize(count);
+		List<Present> presents = boardDao.getInBox(player.getId(), ValidateUtils.requirePage(page, pageSize), pageSize, apiKey);
 		return ResponseSurrogate.of(presents);
 	}
 
@@ -586,9 +561,15 @@ public class PresentApi {
 	/**
 	 * This method returns all already archived messages of a specific player's presents.  
 	 * If the API key is not valid an analogous message is returned.
+	 * If a count is passed, only one page of the messages ordered by the point of time they were 
+	 * archived is returned.
 	 * 
 	 * @param playerId
 	 *            The id of the player who owns the board. This field must not be null.
+	 * @param page
+	 *           Optionally the number of the requested page, starting with 0. The default value is 0. 
+	 * @param count
+	 *           Optionally the count of messages on one page. If no count is passed, all messages are returned. 
 	 * @param apiKey
 	 *            The valid query parameter API key affiliated to one specific organisation, 
 	 *            to which the messages belongs to.
@@ -599,6 +580,8 @@ public class PresentApi {
 	@TypeHint(PresentArchived[].class)
 	public Response getArchiveMessages(
 			@PathParam("playerId") @NotNull @ValidPositiveDigit(message = "The player id must be a valid number") String playerId,
+			@QueryParam("page") @ValidPositiveDigit(message = "Page must be a valid number") @DefaultValue("0") String page,
+			@QueryParam("count") @ValidPositiveDigit(message = "Count must be a valid number") String count,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
 		LOGGER.debug("get archived Messages called");
@@ -607,17 +590,9 @@ public class PresentApi {
 		if(player == null){
 			throw new ApiError(Response.Status.FORBIDDEN, "a player with this id doesn't exist");
 		}
-		
-		Board board = boardDao.getBoard(Integer.valueOf(playerId), apiKey);
-		if (board == null) {
-			board = new Board();
-			board.setOwner(player);
-			board.setBelongsTo(player.getBelongsTo());
-			boardDao.persist(board);
-		}
 
-		List<PresentArchived> presents = board.getArchive();
-		
+		int pageSize = pageSize(count);
+		List<PresentArchived> presents = boardDao.getArchive(player.getId(), ValidateUtils.requirePage(page, pageSize), pageSize, apiKey);
 		return ResponseSurrogate.of(presents);
 	}
 	
@@ -736,4 +711,11 @@ public class PresentApi {
 		
 		return ResponseSurrogate.deleted(archPresent);
 	}
+
+	/**
+	 * Converts the optional count of a paged request, no count means that all entries are returned.
+	 */
+	private int pageSize(String count) {
+		return count == null ? 0 : ValidateUtils.requireGreaterThanZero(count);
+	}
 }
@@ -1,17 +1,30 @@
 package info.interactivesystems.gamificationengine.api;
 
-import java.io.ByteArrayOutputStream;
+import info.interactivesystems.gamificationengine.api.exeption.ApiError;
+import info.interactivesystems.gamificationengine.api.validation.ValidApiKey;
+import info.interactivesystems.gamificationengine.api.validation.ValidPositiveDigit;
+import info.interactivesystems.gamificationengine.utils.QrCodeCache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import javax.ejb.Stateless;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
-
-import net.glxn.qrgen.QRCode;
-import net.glxn.qrgen.image.ImageType;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,30 +38,120 @@ public class QrApi {
 	private static final Logger LOGGER = LoggerFactory.getLogger(QrApi.class);
 
 	/**
-	 * Creates a QR code from any content.
-	 * 
+	 * The smallest and largest size of a QR code in pixels.
+	 */
+	static final int MIN_SIZE = 32;
+	static final int MAX_SIZE = 1024;
+
+	/**
+	 * The maximal number of QR codes which are rendered by one batch request and their largest
+	 * size in pixels. The codes of a batch are rendered while the request is answered, so a batch
+	 * is limited to a few megabytes of images.
+	 */
+	static final int MAX_BATCH = 100;
+	static final int MAX_BATCH_SIZE = 512;
+
+	/**
+	 * The number of seconds a client may cache a QR code, this is one year because the image
+	 * of a content never changes.
+	 */
+	private static final int MAX_AGE = 365 * 24 * 60 * 60;
+
+	private static final QrCodeCache CACHE = new QrCodeCache(1000, 16 * 1024 * 1024);
+
+	/**
+	 * Creates a QR code from any content. The rendered codes are cached, so codes which are
+	 * requested again and again, like the codes of check-in stations, are only rendered once.
+	 * If the client already has the code, only the status 304 (not modified) is returned.
+	 *
 	 * @param content
-	 *            The content that should be presented as a QR code. This field must 
+	 *            The content that should be presented as a QR code. This field must
 	 *            not be null.
+	 * @param size
+	 *            Optionally the width and height of the image in pixels, between 32 and 1024.
+	 *            The default value is 125.
+	 * @param request
+	 *            The request with the ETag of the client's version of the code.
 	 * @return QrCode as download.
 	 */
 	@GET
 	@Path("/{content}")
-	public Response getQrCode(@PathParam("content") String content) {
+	public Response getQrCode(@PathParam("content") String content,
+			@QueryParam("size") @ValidPositiveDigit(message = "Size must be a valid number") @DefaultValue("125") String size,
+			@Context Request request) {
 		LOGGER.debug("GetQrCode called");
 
-		// create QRCode from "content"
-		ByteArrayOutputStream out = QRCode.from(content).to(ImageType.PNG).stream();
-
-		// return QRCode as image
-		ResponseBuilder response = Response.ok(out.toByteArray()); // convert to
-																	// byte
-																	// array
-		response.header("Content-Disposition", "attachment; filename=test.png"); // file
-																					// name
-																					// of
-																					// image
-		return response.build();
+		int pixels = requireSize(size);
+		EntityTag tag = new EntityTag(QrCodeCache.etag(content, pixels));
+		CacheControl cacheControl = new CacheControl();
+		cacheControl.setMaxAge(MAX_AGE);
+
+		ResponseBuilder response = request.evaluatePreconditions(tag);
+		if (response == null) {
+			response = Response.ok(CACHE.get(content, pixels));
+			response.header("Content-Disposition", "attachment; filename=test.png"); // file name of image
+		}
+		return response.tag(tag).cacheControl(cacheControl).build();
 	}
 
+	/**
+	 * Creates the QR codes of many contents at once, for example to print them. The codes are
+	 * returned as ZIP archive with one PNG image for each content, numbered in the order of the
+	 * contents. The archive also contains the file index.txt, which lists the number and the
+	 * content of each code. Unlike a single code, a batch can only be requested with the API key
+	 * of an organisation, so its requests are limited like the other requests of the organisation.
+	 *
+	 * @param contents
+	 *            The contents of the QR codes, at least one and at most 100.
+	 * @param size
+	 *            Optionally the width and height of the images in pixels, between 32 and 512.
+	 *            The default value is 125.
+	 * @param apiKey
+	 *            The valid query parameter API key affiliated to one specific organisation.
+	 * @return ZIP archive of the QrCodes as download.
+	 */
+	@POST
+	@Path("/batch")
+	@Produces("application/zip")
+	public Response getQrCodes(@QueryParam("content") List<String> contents,
+			@QueryParam("size") @ValidPositiveDigit(message = "Size must be a valid number") @DefaultValue("125") String size,
+			@QueryParam("apiKey") @ValidApiKey String apiKey) {
+		LOGGER.debug("GetQrCodes called");
+
+		int pixels = requireSize(size);
+		if (pixels > MAX_BATCH_SIZE) {
+			throw new ApiError(Response.Status.BAD_REQUEST, "The size of a batch has to be between %d and %d", MIN_SIZE, MAX_BATCH_SIZE);
+		}
+		if (contents == null || contents.isEmpty() || contents.size() > MAX_BATCH) {
+			throw new ApiError(Response.Status.BAD_REQUEST, "Between 1 and %d contents have to be passed", MAX_BATCH);
+		}
+
+		StreamingOutput zip = out -> {
+			ZipOutputStream zipOut = new ZipOutputStream(out);
+			StringBuilder index = new StringBuilder();
+			for (int i = 0; i < contents.size(); i++) {
+				String name = (i + 1) + ".png";
+				index.append(name).append('\t').append(contents.get(i)).append('\n');
+
+				// the codes of a batch are printed once, so they don't displace the cached codes
+				zipOut.putNextEntry(new ZipEntry(name));
+				zipOut.write(QrCodeCache.render(contents.get(i), pixels));
+				zipOut.closeEntry();
+			}
+			zipOut.putNextEntry(new ZipEntry("index.txt"));
+			zipOut.write(index.toString().getBytes(StandardCharsets.UTF_8));
+			zipOut.closeEntry();
+			zipOut.finish();
+		};
+
+		return Response.ok(zip).header("Content-Disposition", "attachment; filename=qrcodes.zip").build();
+	}
+
+	private static int requireSize(String size) {
+		int pixels = ValidateUtils.requireGreaterThanZero(size);
+		if (pixels < MIN_SIZE || pixels > MAX_SIZE) {
+			throw new ApiError(Response.Status.BAD_REQUEST, "The size has to be between %d and %d", MIN_SIZE, MAX_SIZE);
+		}
+		return pixels;
+	}
 }
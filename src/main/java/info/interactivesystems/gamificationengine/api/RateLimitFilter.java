@@ -0,0 +1,119 @@
+package info.interactivesystems.gamificationengine.api;
+
+import info.interactivesystems.gamificationengine.api.exeption.Notification;
+import info.interactivesystems.gamificationengine.utils.LoadShedder;
+import info.interactivesystems.gamificationengine.utils.RateLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Protects the engine from organisations which send too many requests. The requests of each API
+ * key are limited by a token bucket, the requests of methods which are marked as
+ * {@link WriteHeavy} by a second, lower one. While the engine answers too slowly, a share of
+ * all requests is rejected. Only the latency of requests with an API key which aren't write heavy
+ * is averaged for this, because write heavy requests and administrative requests without an API
+ * key, like replaying the events of an organisation, are slow anyway. Rejected requests get the
+ * status 429 (too many requests) and the header Retry-After. A request which is rejected by one of the limits doesn't count for the
+ * other one.
+ * <p>
+ * The filter runs after the {@link MetricsFilter}, so rejected requests are recorded as well.
+ * The limits can be configured with the system properties
+ * <ul>
+ * <li>gamificationengine.rateLimit.requestsPerSecond (default 50),</li>
+ * <li>gamificationengine.rateLimit.burst (default 100),</li>
+ * <li>gamificationengine.rateLimit.writesPerSecond (default 10),</li>
+ * <li>gamificationengine.rateLimit.writeBurst (default 20) and</li>
+ * <li>gamificationengine.rateLimit.latencyMillis (average latency from which on requests are
+ * rejected, default 2000).</li>
+ * </ul>
+ */
+@Provider
+@Priority(Priorities.USER)
+public class RateLimitFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RateLimitFilter.class);
+
+	static final int TOO_MANY_REQUESTS = 429;
+
+	static final String START = RateLimitFilter.class.getName() + ".start";
+
+	private static final RateLimiter REQUESTS = new RateLimiter(
+			Integer.getInteger("gamificationengine.rateLimit.requestsPerSecond", 50),
+			Integer.getInteger("gamificationengine.rateLimit.burst", 100));
+	private static final RateLimiter WRITES = new RateLimiter(
+			Integer.getInteger("gamificationengine.rateLimit.writesPerSecond", 10),
+			Integer.getInteger("gamificationengine.rateLimit.writeBurst", 20));
+	private static final LoadShedder SHEDDER = new LoadShedder(
+			TimeUnit.MILLISECONDS.toNanos(Integer.getInteger("gamificationengine.rateLimit.latencyMillis", 2000)));
+
+	@Context
+	ResourceInfo resourceInfo;
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) {
+		long now = System.nanoTime();
+		if (SHEDDER.shed()) {
+			LOGGER.warn("Request rejected, the average latency is {} ms", TimeUnit.NANOSECONDS.toMillis(SHEDDER.getAverageNanos()));
+			requestContext.abortWith(tooManyRequests("The engine is overloaded, please try again later.", TimeUnit.SECONDS.toNanos(1)));
+			return;
+		}
+
+		String apiKey = requestContext.getUriInfo().getQueryParameters().getFirst("apiKey");
+		boolean writeHeavy = resourceInfo.getResourceMethod() != null
+				&& resourceInfo.getResourceMethod().isAnnotationPresent(WriteHeavy.class);
+		if (apiKey != null) {
+			// both limits are checked before a request is taken from either bucket
+			long wait = REQUESTS.peek(apiKey, now);
+			if (wait == 0 && writeHeavy) {
+				wait = WRITES.peek(apiKey, now);
+			}
+			if (wait == 0) {
+				wait = REQUESTS.acquire(apiKey, now);
+			}
+			if (wait == 0 && writeHeavy) {
+				wait = WRITES.acquire(apiKey, now);
+				if (wait > 0) {
+					// a concurrent request has taken the last write in the meantime
+					REQUESTS.release(apiKey);
+				}
+			}
+			if (wait > 0) {
+				requestContext.abortWith(tooManyRequests("Too many requests for this API key.", wait));
+				return;
+			}
+		}
+		if (apiKey != null && !writeHeavy) {
+			requestContext.setProperty(START, now);
+		}
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		Object start = requestContext.getProperty(START);
+		if (start != null) {
+			SHEDDER.record(System.nanoTime() - (Long) start);
+		}
+	}
+
+	private static Response tooManyRequests(String message, long waitNanos) {
+		// Retry-After is given in whole seconds, rounded up
+		long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+		Response error = ResponseSurrogate.of(Response.Status.BAD_REQUEST, null, Notification.of(message));
+		return Response.fromResponse(error).status(TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, seconds).build();
+	}
+}
@@ -3,6 +3,7 @@ package info.interactivesystems.gamificationengine.api;
 import info.interactivesystems.gamificationengine.api.exeption.ApiError;
 import info.interactivesystems.gamificationengine.api.validation.ValidApiKey;
 import info.interactivesystems.gamificationengine.api.validation.ValidPositiveDigit;
+import info.interactivesystems.gamificationengine.dao.AssetDAO;
 import info.interactivesystems.gamificationengine.dao.GoalDAO;
 import info.interactivesystems.gamificationengine.dao.OrganisationDAO;
 import info.interactivesystems.gamificationengine.dao.RewardDAO;
@@ -14,8 +15,10 @@ import info.interactivesystems.gamificationengine.entities.rewards.Coins;
 import info.interactivesystems.gamificationengine.entities.rewards.Points;
 import info.interactivesystems.gamificationengine.entities.rewards.ReceiveLevel;
 import info.interactivesystems.gamificationengine.entities.rewards.Reward;
+import info.interactivesystems.gamificationengine.utils.ImageIngestion;
 import info.interactivesystems.gamificationengine.utils.ImageUtils;
 
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
@@ -24,6 +27,7 @@ import java.util.List;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -32,7 +36,9 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import org.slf4j.Logger;
@@ -60,6 +66,8 @@ public class RewardApi {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(RewardApi.class);
 
+	@Inject
+	AssetDAO assetDao;
 	@Inject
 	OrganisationDAO organisationDao;
 	@Inject
@@ -147,12 +155,12 @@ public class RewardApi {
 		
 		LOGGER.debug("createNewReward called");
 
-		LOGGER.debug("apiKey: " + apiKey);
-		LOGGER.debug("type: " + type);
-		LOGGER.debug("name: " + name);
-		LOGGER.debug("amount: " + amount);
-		LOGGER.debug("icon: " + url);
-		LOGGER.debug("description: " + description);
+		LOGGER.debug("apiKey: {}", apiKey);
+		LOGGER.debug("type: {}", type);
+		LOGGER.debug("name: {}", name);
+		LOGGER.debug("amount: {}", amount);
+		LOGGER.debug("icon: {}", url);
+		LOGGER.debug("description: {}", description);
 
 		Organisation organisation = organisationDao.getOrganisationByApiKey(apiKey);
 
@@ -236,7 +244,7 @@ public class RewardApi {
 			try {
 				URL icon = new URL(url);
 				reward.setIconURL(icon);
-				reward.setImageIcon(ImageUtils.imageToByte(url));
+				reward.setImageIconHash(assetDao.store(ImageIngestion.fetch(url)));
 			} catch (MalformedURLException e) {
 				throw new ApiError(Response.Status.FORBIDDEN, "no valid url was transferred");
 			}
@@ -283,7 +291,7 @@ public class RewardApi {
 			try {
 				URL icon = new URL(url);
 				reward.setIconURL(icon);
-				reward.setImageIcon(ImageUtils.imageToByte(url));
+				reward.setImageIconHash(assetDao.store(ImageIngestion.fetch(url)));
 			} catch (MalformedURLException e) {
 				throw new ApiError(Response.Status.FORBIDDEN, "no valid url was transferred");
 			}
@@ -436,7 +444,7 @@ public class RewardApi {
 			throw new ApiError(Response.Status.NOT_FOUND, "No such Achievement: " + reward);
 		}
 		
-		String b64 = ImageUtils.encodeByteArrayToBase64(((Achievement) reward).getImageIcon());
+		String b64 = ImageUtils.encodeByteArrayToBase64(assetDao.getContent(((Achievement) reward).getImageIconHash()));
 		return ResponseSurrogate.of(b64);
 	}
 
@@ -467,19 +475,158 @@ public class RewardApi {
 			throw new ApiError(Response.Status.NOT_FOUND, "No such Badge: " + reward);
 		}
 		
-		String b64 = ImageUtils.encodeByteArrayToBase64(((Badge) reward).getImageIcon());
+		String b64 = ImageUtils.encodeByteArrayToBase64(assetDao.getContent(((Badge) reward).getImageIconHash()));
 		
 		return ResponseSurrogate.of(b64);
 
 	}
 
+	/**
+	 * Returns the icon of an achievement as raw image with its content type, so it can be shown 
+	 * and cached by a browser. The hash of the icon is sent as ETag, if the client already has the 
+	 * current icon only the status 304 (not modified) is returned.
+	 * If the API key is not valid an analogous message is returned. It is also checked, if the id 
+	 * is a positive number otherwise a message for an invalid number is returned.
+	 * 
+	 * @param rewardId
+	 *            The required reward id.
+	 * @param size
+	 *           Optionally the size in pixels in which the icon is shown. If no size is passed the 
+	 *           original image is returned.
+	 * @param apiKey
+	 *            The valid query parameter API key affiliated to one specific organisation, 
+	 *            to which this reward belongs to.
+	 * @param request
+	 *            The request with the ETag of the client's version of the icon.
+	 * @return Response of the icon as image.
+	 */
+	@GET
+	@Path("/achievement/{id}/icon")
+	@Produces({ "image/png", "image/jpeg" })
+	public Response getAchievementIconImage(@PathParam("id") @NotNull @ValidPositiveDigit String rewardId,
+			@QueryParam("size") @ValidPositiveDigit(message = "Size must be a valid number") String size,
+			@QueryParam("apiKey") @ValidApiKey String apiKey, @Context Request request) {
+		LOGGER.debug("getAchievement icon as image called");
+
+		Reward reward = rewardDao.getReward(ValidateUtils.requireGreaterThanZero(rewardId), apiKey);
+
+		if (!(reward instanceof Achievement)) {
+			throw new ApiError(Response.Status.NOT_FOUND, "No such Achievement: " + rewardId);
+		}
+
+		return AssetApi.image(request, ((Achievement) reward).getImageIconHash(), AssetApi.sizeOf(size), assetDao);
+	}
+
+	/**
+	 * Returns the icon of a badge as raw image with its content type, so it can be shown and 
+	 * cached by a browser. The hash of the icon is sent as ETag, if the client already has the 
+	 * current icon only the status 304 (not modified) is returned.
+	 * If the API key is not valid an analogous message is returned. It is also checked, if the id 
+	 * is a positive number otherwise a message for an invalid number is returned.
+	 * 
+	 * @param rewardId
+	 *            The required reward id.
+	 * @param size
+	 *           Optionally the size in pixels in which the icon is shown. If no size is passed the 
+	 *           original image is returned.
+	 * @param apiKey
+	 *            The valid query parameter API key affiliated to one specific organisation, 
+	 *            to which this reward belongs to.
+	 * @param request
+	 *            The request with the ETag of the client's version of the icon.
+	 * @return Response of the icon as image.
+	 */
+	@GET
+	@Path("/badge/{id}/icon")
+	@Produces({ "image/png", "image/jpeg" })
+	public Response getBadgeIconImage(@PathParam("id") @NotNull @ValidPositiveDigit String rewardId,
+			@QueryParam("size") @ValidPositiveDigit(message = "Size must be a valid number") String size,
+			@QueryParam("apiKey") @ValidApiKey String apiKey, @Context Request request) {
+		LOGGER.debug("getBadge icon as image called");
+
+		Reward reward = rewardDao.getReward(ValidateUtils.requireGreaterThanZero(rewardId), apiKey);
+
+		if (!(reward instanceof Badge)) {
+			throw new ApiError(Response.Status.NOT_FOUND, "No such Badge: " + rewardId);
+		}
+
+		return AssetApi.image(request, ((Badge) reward).getImageIconHash(), AssetApi.sizeOf(size), assetDao);
+	}
+
+	/**
+	 * Uploads a new icon of an achievement. The image is sent as body of the request with the content 
+	 * type image/png or image/jpeg, so it doesn't have to be fetched from an URL.
+	 * If the API key is not valid an analogous message is returned. It is also checked, if the id 
+	 * is a positive number otherwise a message for an invalid number is returned.
+	 * 
+	 * @param rewardId
+	 *            The required reward id.
+	 * @param apiKey
+	 *            The valid query parameter API key affiliated to one specific organisation, 
+	 *            to which this reward belongs to.
+	 * @param image
+	 *            The content of the new icon.
+	 * @return Response of Reward in JSON.
+	 */
+	@PUT
+	@Path("/achievement/{id}/icon")
+	@Consumes({ "image/png", "image/jpeg" })
+	@TypeHint(Achievement.class)
+	public Response uploadAchievementIcon(@PathParam("id") @NotNull @ValidPositiveDigit String rewardId,
+			@QueryParam("apiKey") @ValidApiKey String apiKey, InputStream image) {
+		LOGGER.debug("upload achievement icon called");
+
+		Reward reward = rewardDao.getReward(ValidateUtils.requireGreaterThanZero(rewardId), apiKey);
+
+		if (!(reward instanceof Achievement)) {
+			throw new ApiError(Response.Status.NOT_FOUND, "No such Achievement: " + rewardId);
+		}
+
+		((Achievement) reward).setImageIconHash(assetDao.store(ImageIngestion.read(image)));
+		return ResponseSurrogate.updated(reward);
+	}
+
+	/**
+	 * Uploads a new icon of a badge. The image is sent as body of the request with the content 
+	 * type image/png or image/jpeg, so it doesn't have to be fetched from an URL.
+	 * If the API key is not valid an analogous message is returned. It is also checked, if the id 
+	 * is a positive number otherwise a message for an invalid number is returned.
+	 * 
+	 * @param rewardId
+	 *            The required reward id.
+	 * @param apiKey
+	 *            The valid query parameter API key affiliated to one specific organisation, 
+	 *            to which this reward belongs to.
+	 * @param image
+	 *            The content of the new icon.
+	 * @return Response of Reward in JSON.
+	 */
+	@PUT
+	@Path("/badge/{id}/icon")
+	@Consumes({ "image/png", "image/jpeg" })
+	@TypeHint(Badge.class)
+	public Response uploadBadgeIcon(@PathParam("id") @NotNull @ValidPositiveDigit String rewardId,
+			@QueryParam("apiKey") @ValidApiKey String apiKey, InputStream image) {
+		LOGGER.debug("upload badge icon called");
+
+		Reward reward = rewardDao.getReward(ValidateUtils.requireGreaterThanZero(rewardId), apiKey);
+
+		if (!(reward instanceof Badge)) {
+			throw new ApiError(Response.Status.NOT_FOUND, "No such Badge: " + rewardId);
+		}
+
+		((Badge) reward).setImageIconHash(assetDao.store(ImageIngestion.read(image)));
+		return ResponseSurrogate.updated(reward);
+	}
+
 	/**
 	 * With this method the fields of one specific achievement can be changed. For this the 
 	 * reward id, the API key of the specific organisation, the name of the field and the 
 	 * new field's value are needed.  
 	 * To modify the name and description the new string has to be transfered with the attribute 
 	 * field. For a new icon the path of the new image is needed in the attribute parameter. 
-	 * The format of the image has to be .jpg or .png. 
+	 * The format of the image has to be .jpg or .png. The time to live is the number of days 
+	 * after which an obtained reward expires, an empty value or 0 means it never expires. 
 	 * If the API key is not valid an analogous message is returned. It is also checked, if 
 	 * the id is a positive number otherwise a message for an invalid number is returned.
 	 * 
@@ -488,7 +635,7 @@ public class RewardApi {
 	 * @param attribute
 	 *            The name of the attribute which should be modified. This parameter is required. 
 	 *            The following names of attributes can be used to change the associated field:
-	 *            "name", "description" and "icon".
+	 *            "name", "description", "icon" and "timeToLive".
 	 * @param value
 	 *            The new value of the attribute. This parameter is required.
 	 * @param apiKey
@@ -503,7 +650,7 @@ public class RewardApi {
 			@QueryParam("attribute") @NotNull String attribute, @QueryParam("value") @NotNull String value,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
-		LOGGER.debug("change " + attribute + "of Achivement in " + value);
+		LOGGER.debug("change {} of Achivement in {}", attribute, value);
 
 		int rId = ValidateUtils.requireGreaterThanZero(rewardId);
 		Reward reward = rewardDao.getReward(rId, apiKey);
@@ -523,11 +670,15 @@ public class RewardApi {
 				((Achievement) reward).setDescription(value);
 				break;
 
+			case "timeToLive":
+				((Achievement) reward).setTimeToLive(requireTimeToLive(value));
+				break;
+
 			case "icon":
 				try {
 					URL icon = new URL(value);
 					((Achievement) reward).setIconURL(icon);
-					((Achievement) reward).setImageIcon(ImageUtils.imageToByte(value));
+					((Achievement) reward).setImageIconHash(assetDao.store(ImageIngestion.fetch(value)));
 				} catch (MalformedURLException e) {
 					throw new ApiError(Response.Status.FORBIDDEN, "no valid url was transferred");
 				}
@@ -548,7 +699,8 @@ public class RewardApi {
 	 * new field's value are needed.  
 	 * To modify the name and description the new string has to be transfered with the attribute 
 	 * field. For a new icon the path of the new image is needed in the attribute parameter. 
-	 * The format of the image has to be .jpg or .png. 
+	 * The format of the image has to be .jpg or .png. The time to live is the number of days 
+	 * after which an obtained reward expires, an empty value or 0 means it never expires. 
 	 * If the API key is not valid an analogous message is returned. It is also checked, if 
 	 * the id is a positive number otherwise a message for an invalid number is returned.
 	 * 
@@ -557,7 +709,7 @@ public class RewardApi {
 	 * @param attribute
 	 *            The name of the attribute which should be modified. This parameter is required.
 	 *            The following names of attributes can be used to change the associated field:
-	 *            "name", "description" and "icon".
+	 *            "name", "description", "icon" and "timeToLive".
 	 * @param value
 	 *            The new value of the attribute. This parameter is required.
 	 * @param apiKey
@@ -571,7 +723,7 @@ public class RewardApi {
 	public Response changeBadge(@PathParam("id") @NotNull @ValidPositiveDigit String rewardId, @QueryParam("attribute") @NotNull String attribute,
 			@QueryParam("value") @NotNull String value, @QueryParam("apiKey") @ValidApiKey String apiKey) {
 
-		LOGGER.debug("change " + attribute + "of Badge in " + value);
+		LOGGER.debug("change {} of Badge in {}", attribute, value);
 
 		int rId = ValidateUtils.requireGreaterThanZero(rewardId);
 		Reward reward = rewardDao.getReward(rId, apiKey);
@@ -590,11 +742,15 @@ public class RewardApi {
 				((Badge) reward).setDescription(value);
 				break;
 
+			case "timeToLive":
+				((Badge) reward).setTimeToLive(requireTimeToLive(value));
+				break;
+
 			case "icon":
 				try {
 					URL icon = new URL(value);
 					((Badge) reward).setIconURL(icon);
-					((Badge) reward).setImageIcon(ImageUtils.imageToByte(value));
+					((Badge) reward).setImageIconHash(assetDao.store(ImageIngestion.fetch(value)));
 				} catch (MalformedURLException e) {
 					throw new ApiError(Response.Status.FORBIDDEN, "no valid url was transferred");
 				}
@@ -636,7 +792,7 @@ public class RewardApi {
 			@QueryParam("attribute") @NotNull String attribute, @QueryParam("value") @NotNull String value,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
-		LOGGER.debug("change " + attribute + "of points in " + value);
+		LOGGER.debug("change {} of points in {}", attribute, value);
 
 		int rId = ValidateUtils.requireGreaterThanZero(rewardId);
 		Reward reward = rewardDao.getReward(rId, apiKey);
@@ -688,7 +844,7 @@ public class RewardApi {
 			@QueryParam("attribute") @NotNull String attribute, @QueryParam("value") @NotNull String value,
 			@QueryParam("apiKey") @ValidApiKey String apiKey) {
 
-		LOGGER.debug("change " + attribute + "of coins in " + value);
+		LOGGER.debug("change {} of coins in {}", attribute, value);
 
 		int rId = ValidateUtils.requireGreaterThanZero(rewardId);
 		Reward reward = rewardDao.getReward(rId, apiKey);
@@ -739,7 +895,7 @@ public class RewardApi {
 	public Response changeLevel(@PathParam("id") @NotNull @ValidPositiveDigit String rewardId, @QueryParam("attribute") String attribute,
 			@QueryParam("value") String value, @QueryParam("apiKey") @ValidApiKey String apiKey) {
 
-		LOGGER.debug("change " + attribute + "of ReceiveLevel in " + value);
+		LOGGER.debug("change {} of ReceiveLevel in {}", attribute, value);
 
 		int rId = ValidateUtils.requireGreaterThanZero(rewardId);
 		Reward reward = rewardDao.getReward(rId, apiKey);
@@ -797,4 +953,19 @@ public class RewardApi {
 		return ResponseSurrogate.deleted(reward);
 	}
 
+	/**
+	 * Parses the time to live of a reward. An empty value or 0 means that the reward never 
+	 * expires, otherwise the value has to be a positive number of days.
+	 * 
+	 * @param value
+	 *           The passed time to live or null if the value was empty.
+	 * @return The time to live in days or 0.
+	 */
+	private static int requireTimeToLive(String value) {
+		if (value == null || "0".equals(value)) {
+			return 0;
+		}
+		return ValidateUtils.requireGreaterThanZero(value);
+	}
+
 }
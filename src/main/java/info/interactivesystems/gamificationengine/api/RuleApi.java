@@ -110,7 +110,7 @@ public class RuleApi {
 			}
 		}
 
-		LOGGER.debug("Tasks: " + tasks);
+		LOGGER.debug("Tasks: {}", tasks);
 
 		switch (type) {
 		case "DoAllTasksRule":
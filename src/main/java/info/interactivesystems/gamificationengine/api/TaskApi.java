@@ -21,6 +21,9 @@ import info.interactivesystems.gamificationengine.entities.goal.TaskRule;
 import info.interactivesystems.gamificationengine.entities.marketPlace.MarketPlace;
 import info.interactivesystems.gamificationengine.entities.marketPlace.Offer;
 import info.interactivesystems.gamificationengine.entities.task.Task;
+import info.interactivesystems.gamificationengine.utils.CompletionLog;
+import info.interactivesystems.gamificationengine.utils.CompletionTrace;
+import info.interactivesystems.gamificationengine.utils.CompletionTrace.Stage;
 import info.interactivesystems.gamificationengine.utils.LocalDateTimeUtil;
 import info.interactivesystems.gamificationengine.utils.OfferMarketPlace;
 import info.interactivesystems.gamificationengine.utils.StringUtils;
@@ -36,6 +39,7 @@ import javax.validation.constraints.NotNull;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -76,6 +80,12 @@ public class TaskApi {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(TaskApi.class);
 
+	/**
+	 * The header which requests the trace of a task completion and which contains the trace in
+	 * the response.
+	 */
+	static final String TRACE_HEADER = "X-Completion-Trace";
+
 	@Inject
 	OrganisationDAO organisationDao;
 	@Inject
@@ -171,9 +181,9 @@ public class TaskApi {
 		List<Task> tasks = taskDao.getTasks(apiKey);
 
 		for (Task t : tasks) {
-			LOGGER.debug("Task: " + t.getTaskName());
+			LOGGER.debug("Task: {}", t.getTaskName());
 			for (Role r : t.getAllowedFor()) {
-				LOGGER.debug("Role: " + r.getId());
+				LOGGER.debug("Role: {}", r.getId());
 			}
 		}
 		return ResponseSurrogate.of(tasks);
@@ -241,15 +251,24 @@ public class TaskApi {
 	 * @param apiKey
 	 *           The valid query parameter API key affiliated to one specific organisation, 
 	 *           to which this task belongs to.
+	 * @param traced
+	 *           Optionally the header X-Completion-Trace can be set to true, then the response
+	 *           contains this header with the number of rules, goals and rewards and the time
+	 *           of each stage of the completion in milliseconds.
 	 * @return Response of Task in JSON.
 	 */
 	@POST
 	@Path("/{id}/complete/{playerId}")
+	@WriteHeavy
 	@TypeHint(Task.class)
 	public Response completeTask(@PathParam("id") @NotNull @ValidPositiveDigit(message = "The task id must be a valid number") String id,
 			@PathParam("playerId") @NotNull @ValidPositiveDigit(message = "The player id must be a valid number") String playerId,
-			@QueryParam("finishedDate") String finishedDate, @QueryParam("apiKey") @ValidApiKey String apiKey) {
+			@QueryParam("finishedDate") String finishedDate, @QueryParam("apiKey") @ValidApiKey String apiKey,
+			@HeaderParam(TRACE_HEADER) @DefaultValue("false") boolean traced) {
 		
+		CompletionTrace trace = new CompletionTrace();
+		long start = trace.start();
+
 		// find player by id and organisation
 		LOGGER.debug("Get Player");
 		int pId = ValidateUtils.requireGreaterThanZero(playerId);
@@ -260,24 +279,37 @@ public class TaskApi {
 		int taskId = ValidateUtils.requireGreaterThanZero(id);
 		Task task = taskDao.getTask(taskId, apiKey);
 		ValidateUtils.requireNotNull(taskId, task);
+		trace.stop(Stage.LOAD, start);
 		
-		LOGGER.debug("TaskName: " + task.getTaskName());
+		LOGGER.debug("TaskName: {}", task.getTaskName());
 
 		if (finishedDate == null || "".equals(finishedDate)) {
 			LOGGER.debug("No Date passed.");
-			task.completeTask(player, ruleDao, goalDao, groupDao, null, apiKey);
+			task.completeTask(player, ruleDao, goalDao, groupDao, null, apiKey, trace);
 		} else {
-			LOGGER.debug("Date passed: " + finishedDate);
+			LOGGER.debug("Date passed: {}", finishedDate);
 			LocalDateTime dateTime = LocalDateTimeUtil.formatDateAndTime(finishedDate);
-			task.completeTask(player, ruleDao, goalDao, groupDao, dateTime, apiKey);
+			task.completeTask(player, ruleDao, goalDao, groupDao, dateTime, apiKey, trace);
 		}
 		
-		List<OfferMarketPlace> taskOffers = MarketPlace.getAllOfferMarketPlaces(marketPlDao, task, apiKey);
+		start = trace.start();
+		List<OfferMarketPlace> taskOffers = marketPlDao.getOfferMarketPlacesForUpdate(task, apiKey);
 		if(!taskOffers.isEmpty()){
 			MarketPlace.completeAssociatedOffers(taskOffers, player, marketPlDao, playerDao, apiKey);
 		}
-		
-		return ResponseSurrogate.created(task);
+		trace.stop(Stage.OFFERS, start);
+
+		start = trace.start();
+		playerDao.applyBalance(player);
+		trace.stop(Stage.BALANCE, start);
+
+		trace.record(task.getBelongsTo().getId());
+		CompletionLog.log(task.getBelongsTo(), task, player, trace);
+		Response response = ResponseSurrogate.created(task);
+		if (traced) {
+			response = Response.fromResponse(response).header(TRACE_HEADER, trace.toString()).build();
+		}
+		return response;
 	}
 
 	/**
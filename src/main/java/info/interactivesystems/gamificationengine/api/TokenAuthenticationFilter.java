@@ -0,0 +1,67 @@
+package info.interactivesystems.gamificationengine.api;
+
+import info.interactivesystems.gamificationengine.api.exeption.ApiError;
+import info.interactivesystems.gamificationengine.dao.OrganisationDAO;
+import info.interactivesystems.gamificationengine.entities.Organisation;
+import info.interactivesystems.gamificationengine.utils.ApiKeyCache;
+import info.interactivesystems.gamificationengine.utils.SessionToken;
+
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Authenticates requests which send a session token in the header
+ * "Authorization: Bearer &lt;token&gt;". After the token is verified, the current API key of
+ * its organisation is looked up and the token is placed as the request property
+ * {@link SessionToken#PROPERTY}. The API key replaces the query parameter apiKey, so all requests
+ * which need an API key can be authenticated by the token instead. Requests without a token still
+ * have to pass the API key. The API keys are cached for one minute, so a token is rejected at the
+ * latest one minute after its organisation is deleted. When a new API key is generated, the cached
+ * key is removed at once.
+ */
+@Provider
+@PreMatching
+public class TokenAuthenticationFilter implements ContainerRequestFilter {
+
+	private static final String BEARER = "Bearer ";
+
+	/**
+	 * The API keys of the organisations whose tokens were verified recently.
+	 */
+	static final ApiKeyCache API_KEYS = new ApiKeyCache(10000, 60 * 1000);
+
+	@Inject
+	OrganisationDAO organisationDao;
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) {
+		String authorization = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
+		if (authorization == null || !authorization.startsWith(BEARER)) {
+			return;
+		}
+
+		SessionToken token = SessionToken.verify(authorization.substring(BEARER.length()).trim());
+		if (token == null) {
+			throw new ApiError(Response.Status.UNAUTHORIZED, "The token is not valid or has expired.");
+		}
+		String apiKey = API_KEYS.get(token.getOrganisationId());
+		if (apiKey == null) {
+			Organisation organisation = organisationDao.getOrganisation(token.getOrganisationId());
+			if (organisation == null) {
+				throw new ApiError(Response.Status.UNAUTHORIZED, "The token is not valid or has expired.");
+			}
+			apiKey = organisation.getApiKey();
+			API_KEYS.put(token.getOrganisationId(), apiKey);
+		}
+		token = token.withApiKey(apiKey);
+
+		requestContext.setProperty(SessionToken.PROPERTY, token);
+		requestContext.setRequestUri(requestContext.getUriInfo().getRequestUriBuilder()
+				.replaceQueryParam("apiKey", token.getApiKey()).build());
+	}
+}
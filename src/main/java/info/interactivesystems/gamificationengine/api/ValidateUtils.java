@@ -50,13 +50,42 @@ public class ValidateUtils {
 
 	/**
 	 * Parses the assigned String to an integer and validates it whether it is
-	 * greater than zero. Supposes a valid string digit was passed.
+	 * greater than zero. Supposes a valid string digit was passed, a number which 
+	 * is too large for an integer is rejected.
 	 * 
 	 * @param id
 	 *         The String of id that is tested.
 	 * @return Validated integer identity.
 	 */
 	public static int requireGreaterThanZero(String id) {
-		return requireGreaterThanZero(Integer.valueOf(id));
+		try {
+			return requireGreaterThanZero(Integer.parseInt(id));
+		} catch (NumberFormatException e) {
+			throw new ApiError(Response.Status.BAD_REQUEST, "transferred integer is not a valid number: %s", id);
+		}
+	}
+
+	/**
+	 * Parses the assigned String to the number of a page and validates it. The 
+	 * page has to be zero or greater and its first element must not exceed the 
+	 * range of an integer.
+	 * 
+	 * @param page
+	 *         The String of the page number that is tested, starting with 0.
+	 * @param count
+	 *         The number of elements on one page.
+	 * @return Validated page number.
+	 */
+	public static int requirePage(String page, int count) {
+		int number;
+		try {
+			number = Integer.parseInt(page);
+		} catch (NumberFormatException e) {
+			throw new ApiError(Response.Status.BAD_REQUEST, "page is not a valid number: %s", page);
+		}
+		if (number < 0 || (long) number * count > Integer.MAX_VALUE) {
+			throw new ApiError(Response.Status.BAD_REQUEST, "page is out of range: %s", page);
+		}
+		return number;
 	}
 }
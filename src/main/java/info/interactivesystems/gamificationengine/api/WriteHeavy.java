@@ -0,0 +1,19 @@
+package info.interactivesystems.gamificationengine.api;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a resource method whose requests write a lot to the data base, like completing a task.
+ * The requests of these methods are limited by a separate, lower rate for each organisation, see
+ * {@link RateLimitFilter}.
+ */
+@Target(METHOD)
+@Retention(RUNTIME)
+@Documented
+public @interface WriteHeavy {
+}
@@ -7,12 +7,14 @@ import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 import info.interactivesystems.gamificationengine.dao.OrganisationDAO;
+import info.interactivesystems.gamificationengine.utils.SessionToken;
 
 import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Constraint;
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
@@ -20,7 +22,8 @@ import javax.validation.Payload;
 
 /**
  * The annotated {@code CharSequence} will be checked for existence in the
- * data base.
+ * data base. The API key of a request which was authenticated by a session 
+ * token was already verified by the token, so it isn't looked up again.
  * 
  * Note: {@code null} elements are considered as invalid.
  */
@@ -35,12 +38,19 @@ public @interface ValidApiKey {
 		@Inject
 		OrganisationDAO organisationDao;
 
+		@Inject
+		HttpServletRequest request;
+
 		@Override
 		public void initialize(ValidApiKey constraintAnnotation) {
 		}
 
 		@Override
 		public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+			SessionToken token = request == null ? null : (SessionToken) request.getAttribute(SessionToken.PROPERTY);
+			if (token != null && value != null && token.getApiKey().contentEquals(value)) {
+				return true;
+			}
 			return organisationDao.checkApiKey(value);
 		}
 	}
@@ -1,19 +1,20 @@
 package info.interactivesystems.gamificationengine.dao;
 
 import info.interactivesystems.gamificationengine.entities.Account;
+import info.interactivesystems.gamificationengine.utils.SecurityTools;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
-import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
-import javax.persistence.Query;
 
 /**
  * Data access for an account.
  */
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class AccountDAO extends AbstractDAO<Account> {
 
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
@@ -32,43 +33,26 @@ public class AccountDAO extends AbstractDAO<Account> {
 	}
 
 	/**
-	 * Gets an account by its email address and password.
+	 * Gets an account by its email address, but only if the passed password matches the 
+	 * account's password. The account is loaded with one lookup of its email address and the 
+	 * password is verified against the salted hash. If the account's password is still hashed 
+	 * with an older method, it is hashed again with the current one.
 	 * 
 	 * @param email
 	 * 			The valid email address that is unique.
 	 * @param password
-	 * 			The password which is associated to the given email address.
-	 * @return The Account that is associated with the email address
-	 * 		   or null if not found.
-	 */
-	public Account getAccount(String email, String password) {
-		
-		Query query = em.createQuery("select entity from Account entity where entity.email=:email and entity.password=:password", Account.class);
-		query.setParameter("email", email);
-		query.setParameter("password", password);
-		
-		return (Account) query.getResultList().get(0);
-	}
-
-	
-	/**
-	 * Checks if email and password match.
-	 * 
-	 * @param email
-	 *            The email address of an account.
-	 * @param password
-	 *            The password of an account.
-	 * @return Boolean value that is true if email and password match and false if not.
+	 * 			The password which was sent.
+	 * @return The Account that is associated with the email address or null if no such account 
+	 * 		   exists or the password is wrong.
 	 */
-	public boolean checkCredentials(String email, String password) {
-		try {
-			Query query = em.createQuery("select entity from Account entity where entity.email=:email and entity.password=:password");
-			query.setParameter("email", email);
-			query.setParameter("password", password);
-			query.getSingleResult();
-			return true;
-		} catch (NoResultException e) {
-			return false;
+	public Account authenticate(String email, String password) {
+		Account account = getAccount(email);
+		if (account == null || !SecurityTools.checkPassword(email, password, account.getPassword())) {
+			return null;
+		}
+		if (SecurityTools.needsRehash(account.getPassword())) {
+			account.setPassword(SecurityTools.hashPassword(password));
 		}
+		return account;
 	}
 }
@@ -0,0 +1,160 @@
+package info.interactivesystems.gamificationengine.dao;
+
+import info.interactivesystems.gamificationengine.entities.Asset;
+import info.interactivesystems.gamificationengine.entities.AssetVariant;
+import info.interactivesystems.gamificationengine.jobs.ThumbnailGenerator;
+
+import java.util.List;
+
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.interceptor.Interceptors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Data access for the content-addressed store of binary assets like avatars, logos and icons.
+ */
+@Named
+@Stateless
+@Interceptors(QueryMetrics.class)
+public class AssetDAO {
+
+	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
+	private EntityManager em;
+
+	@Inject
+	ThumbnailGenerator thumbnails;
+
+	/**
+	 * Stores the passed content as an asset and returns its hash. If an asset with the same
+	 * content is already stored, it is reused, so each content is only stored once. The insert
+	 * is ignored by the data base if the asset exists, so two requests that store the same
+	 * content at the same time don't fail. For a new image the smaller variants are generated 
+	 * in the background.
+	 *
+	 * @param content
+	 *            The binary content that should be stored.
+	 * @return The hash of the content which references the asset or null if no content was passed.
+	 */
+	public String store(byte[] content) {
+		if (content == null) {
+			return null;
+		}
+		Asset asset = Asset.of(content);
+		if (insert(asset) && asset.getContentType().startsWith("image/")) {
+			thumbnails.generate(asset.getHash(), content);
+		}
+		return asset.getHash();
+	}
+
+	/**
+	 * Stores the variant of an image with the passed size. 
+	 *
+	 * @param originalHash
+	 *            The hash of the image.
+	 * @param size
+	 *            The length of the variant's longer side in pixels.
+	 * @param content
+	 *            The content of the variant.
+	 */
+	public void storeVariant(String originalHash, int size, byte[] content) {
+		Asset variant = Asset.of(content);
+		insert(variant);
+		em.persist(new AssetVariant(originalHash, size, variant.getHash()));
+	}
+
+	/**
+	 * Gets the hash of an image's variant with the passed size.
+	 *
+	 * @param originalHash
+	 *            The hash of the image.
+	 * @param size
+	 *            The length of the variant's longer side in pixels.
+	 * @return The hash of the variant or null if no variant with this size exists.
+	 */
+	public String getVariantHash(String originalHash, int size) {
+		List<String> hashes = em
+				.createQuery("select v.variantHash from AssetVariant v where v.originalHash = :hash and v.size = :size", String.class)
+				.setParameter("hash", originalHash).setParameter("size", size).getResultList();
+		return hashes.isEmpty() ? null : hashes.get(0);
+	}
+
+	private boolean insert(Asset asset) {
+		return em.createNativeQuery("insert ignore into asset (hash, content_type, size, content) values (?, ?, ?, ?)")
+				.setParameter(1, asset.getHash()).setParameter(2, asset.getContentType())
+				.setParameter(3, asset.getSize()).setParameter(4, asset.getContent()).executeUpdate() > 0;
+	}
+
+	/**
+	 * Gets the asset with the passed hash.
+	 *
+	 * @param hash
+	 *            The hash of the asset's content.
+	 * @return The {@link Asset} or null if no asset with this hash exists.
+	 */
+	public Asset getAsset(String hash) {
+		if (hash == null) {
+			return null;
+		}
+		return em.find(Asset.class, hash);
+	}
+
+	/**
+	 * Gets the content of the asset with the passed hash.
+	 *
+	 * @param hash
+	 *            The hash of the asset's content.
+	 * @return The content as byte[] or null if no asset with this hash exists.
+	 */
+	public byte[] getContent(String hash) {
+		Asset asset = getAsset(hash);
+		return asset == null ? null : asset.getContent();
+	}
+
+	/**
+	 * Checks whether a table of the data base still contains the passed column.
+	 *
+	 * @param table
+	 *            The name of the table.
+	 * @param column
+	 *            The name of the column.
+	 * @return True if the column exists, otherwise false.
+	 */
+	public boolean hasColumn(String table, String column) {
+		Number columns = (Number) em
+				.createNativeQuery("select count(*) from information_schema.columns where table_schema = database() "
+						+ "and table_name = ? and column_name = ?").setParameter(1, table).setParameter(2, column)
+				.getSingleResult();
+		return columns.intValue() > 0;
+	}
+
+	/**
+	 * Moves binary contents which are still stored in a column of an entity's table to the store
+	 * of assets. The column is cleared and the hash of the asset is stored in the hash column
+	 * of the row instead.
+	 *
+	 * @param table
+	 *            The table of the entities.
+	 * @param column
+	 *            The column which contains the binary contents.
+	 * @param hashColumn
+	 *            The column which references the asset.
+	 * @param count
+	 *            The maximal number of rows that are moved.
+	 * @return The number of moved rows.
+	 */
+	public int moveToAssets(String table, String column, String hashColumn, int count) {
+		@SuppressWarnings("unchecked")
+		List<Object[]> rows = em.createNativeQuery("select id, " + column + " from " + table + " where " + column + " is not null")
+				.setMaxResults(count).getResultList();
+
+		for (Object[] row : rows) {
+			String hash = store((byte[]) row[1]);
+			em.createNativeQuery("update " + table + " set " + hashColumn + " = ?, " + column + " = null where id = ?")
+					.setParameter(1, hash).setParameter(2, row[0]).executeUpdate();
+		}
+		return rows.size();
+	}
+}
@@ -2,20 +2,26 @@ package info.interactivesystems.gamificationengine.dao;
 
 import info.interactivesystems.gamificationengine.entities.Player;
 import info.interactivesystems.gamificationengine.entities.present.Board;
+import info.interactivesystems.gamificationengine.entities.present.Present;
+import info.interactivesystems.gamificationengine.entities.present.PresentAccepted;
+import info.interactivesystems.gamificationengine.entities.present.PresentArchived;
 
 import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
 /**
  * Data access for a board.
  */
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class BoardDAO extends AbstractDAO<Board> {
 
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
@@ -61,4 +67,106 @@ public class BoardDAO extends AbstractDAO<Board> {
 		query.setParameter("apiKey", apiKey);
 		return query.getResultList();
 	}
+
+	/**
+	 * Returns one page of the presents in the in-box of a player's board. The presents are loaded 
+	 * by one query, so the other presents of the board are not loaded. The in-box doesn't store 
+	 * when a present was received, so the presents are ordered by their ids.
+	 * 
+	 * @param playerId
+	 *            The player who owns the board.
+	 * @param page
+	 *            The number of the requested page, starting with 0.
+	 * @param count
+	 *            The maximal number of presents on one page. If count is 0 all presents are returned.
+	 * @param apiKey
+	 *             The API key of the organisation to which the board belongs to. 
+	 * @return A {@link List} of {@link Present}s in the order they were created.
+	 */
+	public List<Present> getInBox(int playerId, int page, int count, String apiKey) {
+		return getPage(em.createQuery("select p from Board b join b.inBox p where b.owner.id = :playerId "
+				+ "and b.belongsTo.apiKey = :apiKey order by p.id", Present.class), playerId, page, count, apiKey);
+	}
+
+	/**
+	 * Returns one page of the accepted presents of a player's board.
+	 * 
+	 * @param playerId
+	 *            The player who owns the board.
+	 * @param page
+	 *            The number of the requested page, starting with 0.
+	 * @param count
+	 *            The maximal number of presents on one page. If count is 0 all presents are returned.
+	 * @param apiKey
+	 *             The API key of the organisation to which the board belongs to. 
+	 * @return A {@link List} of {@link PresentAccepted}s in the order they were accepted.
+	 */
+	public List<PresentAccepted> getCurrentPresents(int playerId, int page, int count, String apiKey) {
+		return getPage(em.createQuery("select a from Board b join b.currentPresents a where b.owner.id = :playerId "
+				+ "and b.belongsTo.apiKey = :apiKey order by a.id", PresentAccepted.class), playerId, page, count, apiKey);
+	}
+
+	/**
+	 * Returns one page of the accepted presents of a player's board which are of the passed type, 
+	 * like all text messages. The presents are filtered by the data base.
+	 * 
+	 * @param playerId
+	 *            The player who owns the board.
+	 * @param type
+	 *            The type of the requested presents.
+	 * @param page
+	 *            The number of the requested page, starting with 0.
+	 * @param count
+	 *            The maximal number of presents on one page. If count is 0 all presents are returned.
+	 * @param apiKey
+	 *             The API key of the organisation to which the board belongs to. 
+	 * @return A {@link List} of the presents in the order they were accepted.
+	 */
+	public <T extends Present> List<T> getCurrentPresents(int playerId, Class<T> type, int page, int count, String apiKey) {
+		TypedQuery<T> query = em.createQuery("select p from Board b join b.currentPresents a join a.present p "
+				+ "where b.owner.id = :playerId and b.belongsTo.apiKey = :apiKey and type(p) = :type order by a.id", type);
+		query.setParameter("type", type);
+		return getPage(query, playerId, page, count, apiKey);
+	}
+
+	/**
+	 * Returns one page of the archived presents of a player's board.
+	 * 
+	 * @param playerId
+	 *            The player who owns the board.
+	 * @param page
+	 *            The number of the requested page, starting with 0.
+	 * @param count
+	 *            The maximal number of presents on one page. If count is 0 all presents are returned.
+	 * @param apiKey
+	 *             The API key of the organisation to which the board belongs to. 
+	 * @return A {@link List} of {@link PresentArchived}s in the order they were archived.
+	 */
+	public List<PresentArchived> getArchive(int playerId, int page, int count, String apiKey) {
+		return getPage(em.createQuery("select a from Board b join b.archive a where b.owner.id = :playerId "
+				+ "and b.belongsTo.apiKey = :apiKey order by a.id", PresentArchived.class), playerId, page, count, apiKey);
+	}
+
+	private <T> List<T> getPage(TypedQuery<T> query, int playerId, int page, int count, String apiKey) {
+		query.setParameter("playerId", playerId);
+		query.setParameter("apiKey", apiKey);
+		if (count > 0) {
+			query.setFirstResult(page * count);
+			query.setMaxResults(count);
+		}
+		return query.getResultList();
+	}
+
+	/**
+	 * Stores several new boards in the data base. The boards are written with one flush.
+	 * 
+	 * @param boards
+	 *            The boards that should be stored in the data base.
+	 */
+	public void insertBoards(List<Board> boards) {
+		for (Board board : boards) {
+			em.persist(board);
+		}
+		em.flush();
+	}
 }
@@ -4,18 +4,23 @@ import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
+import info.interactivesystems.gamificationengine.entities.Player;
 import info.interactivesystems.gamificationengine.entities.donationCall.Donation;
 import info.interactivesystems.gamificationengine.entities.donationCall.DonationCall;
+import info.interactivesystems.gamificationengine.utils.DonorTotal;
+import info.interactivesystems.gamificationengine.utils.Progress;
 
 /**
  * Data access for a Donation.
  */
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class DonationDAO {
 
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
@@ -44,6 +49,58 @@ public class DonationDAO {
 		em.persist(donation);
 	}
 	
+	/**
+	 * Adds a donated amount of coins to the current amount of a call for donations. The amount 
+	 * is added with one relative update of the data base, so parallel donations aren't lost. 
+	 * The donation is only accepted if the goal of the call for donations isn't reached yet. 
+	 * Afterwards the current amount and the information if the goal is reached are set to the 
+	 * stored values.
+	 * 
+	 * @param dCall
+	 *            The call for donations to which the amount is donated.
+	 * @param amount
+	 *            The amount of donated coins.
+	 * @return True if the donation was accepted, false if the goal was already reached.
+	 */
+	public boolean donate(DonationCall dCall, int amount) {
+		Query update = em.createQuery("update DonationCall dC set dC.currentAmount = dC.currentAmount + :amount "
+				+ "where dC.id = :id and dC.currentAmount < dC.goalAmount");
+		update.setParameter("amount", amount);
+		update.setParameter("id", dCall.getId());
+		boolean accepted = update.executeUpdate() > 0;
+
+		if (accepted) {
+			em.createQuery("update DonationCall dC set dC.goalReached = true where dC.id = :id and dC.currentAmount >= dC.goalAmount")
+					.setParameter("id", dCall.getId()).executeUpdate();
+		}
+
+		Object[] state = (Object[]) em.createQuery("select dC.currentAmount, dC.goalReached from DonationCall dC where dC.id = :id")
+				.setParameter("id", dCall.getId()).getSingleResult();
+		dCall.setCurrentAmount((Integer) state[0]);
+		dCall.setGoalReached((Boolean) state[1]);
+
+		return accepted;
+	}
+
+	/**
+	 * Gets the progress of a call for donations without loading the call itself.
+	 * 
+	 * @param donationCallId
+	 *            The id of the call for donations.
+	 * @param apiKey
+	 *           The API key of the organisation to which the call for donations belongs to. 
+	 * @return The {@link Progress} of the call for donations or null if it doesn't exist. 
+	 */
+	public Progress getProgress(int donationCallId, String apiKey) {
+		Query query = em.createQuery("select new info.interactivesystems.gamificationengine.utils.Progress(dC.currentAmount, dC.goalAmount) "
+				+ "from DonationCall dC where dC.belongsTo.apiKey=:apiKey and dC.id = :id");
+		List list = QueryUtils.configureQuery(query, donationCallId, apiKey);
+		if (list.isEmpty()) {
+			return null;
+		}
+		return ((Progress) list.get(0));
+	}
+
 	/**
 	 * Gets a specific call for donations from the data base.
 	 * 
@@ -115,6 +172,29 @@ public class DonationDAO {
 		return (List<Donation>)query.getResultList();
 	}
 
+	/**
+	 * Gets one page of the donations for a specific call for donations. The donations are ordered 
+	 * by the point of time they were made.
+	 * 
+	 * @param dCall
+	 *            The call for donations whose donations are requested.
+	 * @param page
+	 *            The number of the requested page, starting with 0.
+	 * @param count
+	 *            The maximal number of donations on one page.
+	 * @param apiKey
+	 *           The API key of the organisation to which the donations belong to. 
+	 * @return A {@link List} of at most count {@link Donation}s.
+	 */
+	public List<Donation> getDonationsForDonationCall(DonationCall dCall, int page, int count, String apiKey) {
+		Query query = em.createQuery("select d from Donation d where d.donationCall=:donationCall and d.belongsTo.apiKey=:apiKey order by d.id");
+		query.setParameter("donationCall", dCall);
+		query.setParameter("apiKey", apiKey);
+		query.setFirstResult(page * count);
+		query.setMaxResults(count);
+		return (List<Donation>)query.getResultList();
+	}
+
 	/**
 	 * Removes a donation from the data base.
 	 * 
@@ -127,4 +207,67 @@ public class DonationDAO {
 			em.remove(donation);
 		}
 	}
+
+	/**
+	 * Gets all players who have donated to a specific call for donations. Each player is 
+	 * contained only once, even if she/he has donated several times. 
+	 * 
+	 * @param dCall
+	 *            The call for donations whose donors are requested.
+	 * @param apiKey
+	 *           The API key of the organisation to which the donations belong to. 
+	 * @return A {@link List} of {@link Player}s who have donated to the call for donations.
+	 */
+	public List<Player> getDonors(DonationCall dCall, String apiKey) {
+		Query query = em.createQuery("select distinct d.player from Donation d where d.donationCall=:donationCall and d.belongsTo.apiKey=:apiKey");
+		query.setParameter("donationCall", dCall);
+		query.setParameter("apiKey", apiKey);
+		return (List<Player>)query.getResultList();
+	}
+
+	/**
+	 * Gets one page of the players who have donated to a specific call for donations. Each player 
+	 * is contained only once. The players are ordered by their ids.
+	 * 
+	 * @param dCall
+	 *            The call for donations whose donors are requested.
+	 * @param page
+	 *            The number of the requested page, starting with 0.
+	 * @param count
+	 *            The maximal number of donors on one page.
+	 * @param apiKey
+	 *           The API key of the organisation to which the donations belong to. 
+	 * @return A {@link List} of at most count {@link Player}s.
+	 */
+	public List<Player> getDonors(DonationCall dCall, int page, int count, String apiKey) {
+		Query query = em.createQuery("select distinct p from Donation d join d.player p where d.donationCall=:donationCall "
+				+ "and d.belongsTo.apiKey=:apiKey order by p.id");
+		query.setParameter("donationCall", dCall);
+		query.setParameter("apiKey", apiKey);
+		query.setFirstResult(page * count);
+		query.setMaxResults(count);
+		return (List<Player>)query.getResultList();
+	}
+
+	/**
+	 * Gets the donors of a specific call for donations with the sum of their donations, the 
+	 * highest sum first. The sums are computed by one grouped query of the data base.  
+	 * 
+	 * @param dCall
+	 *            The call for donations whose donors are requested.
+	 * @param count
+	 *            The maximal number of returned donors.
+	 * @param apiKey
+	 *           The API key of the organisation to which the donations belong to. 
+	 * @return A {@link List} of at most count {@link DonorTotal}s.
+	 */
+	public List<DonorTotal> getTopDonors(DonationCall dCall, int count, String apiKey) {
+		Query query = em.createQuery("select new info.interactivesystems.gamificationengine.utils.DonorTotal(p.id, p.nickname, sum(d.amount), count(d)) "
+				+ "from Donation d join d.player p where d.donationCall=:donationCall and d.belongsTo.apiKey=:apiKey "
+				+ "group by p.id, p.nickname order by sum(d.amount) desc, p.id");
+		query.setParameter("donationCall", dCall);
+		query.setParameter("apiKey", apiKey);
+		query.setMaxResults(count);
+		return (List<DonorTotal>)query.getResultList();
+	}
 }
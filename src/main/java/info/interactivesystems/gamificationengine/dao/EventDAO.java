@@ -0,0 +1,116 @@
+package info.interactivesystems.gamificationengine.dao;
+
+import info.interactivesystems.gamificationengine.entities.event.BalanceProjection;
+import info.interactivesystems.gamificationengine.entities.event.GameEvent;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ejb.Stateless;
+import javax.inject.Named;
+import javax.interceptor.Interceptors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+/**
+ * Data-access to the event log of players and groups, which is read to rebuild their balances.
+ * The events are written by {@link PlayerDAO#applyBalance} and {@link PlayerGroupDAO#applyBalance}.
+ */
+@Named
+@Stateless
+@Interceptors(QueryMetrics.class)
+public class EventDAO {
+
+	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
+	private EntityManager em;
+
+	/**
+	 * Gets the ids of the players or groups of one partition of an organisation which have
+	 * events. The owners are partitioned by the remainder of their id.
+	 *
+	 * @param organisationId
+	 *            The id of the organisation.
+	 * @param owner
+	 *            Whether the ids of players or of groups are requested.
+	 * @param partitions
+	 *            The number of partitions.
+	 * @param partition
+	 *            The partition, from 0 to partitions - 1.
+	 * @return The ids of the owners in ascending order.
+	 */
+	public List<Integer> getOwnerIds(int organisationId, GameEvent.Owner owner, int partitions, int partition) {
+		Query query = em.createQuery("select distinct e.ownerId from GameEvent e where e.belongsTo.id = :organisation "
+				+ "and e.owner = :owner and mod(e.ownerId, :partitions) = :partition order by e.ownerId", Integer.class);
+		query.setParameter("organisation", organisationId);
+		query.setParameter("owner", owner);
+		query.setParameter("partitions", partitions);
+		query.setParameter("partition", partition);
+
+		return query.getResultList();
+	}
+
+	/**
+	 * Gets all events of the passed players or groups.
+	 *
+	 * @param owner
+	 *            Whether the events of players or of groups are requested.
+	 * @param ownerIds
+	 *            The ids of the players or groups.
+	 * @return The events ordered by their owner and sequence number.
+	 */
+	public List<GameEvent> getEvents(GameEvent.Owner owner, List<Integer> ownerIds) {
+		Query query = em.createQuery("select e from GameEvent e where e.owner = :owner and e.ownerId in (:ownerIds) "
+				+ "order by e.ownerId, e.sequenceNumber", GameEvent.class);
+		query.setParameter("owner", owner);
+		query.setParameter("ownerIds", ownerIds);
+
+		return query.getResultList();
+	}
+
+	/**
+	 * Gets the stored points, coins and last sequence numbers of the passed players or groups.
+	 *
+	 * @param owner
+	 *            Whether the balances of players or of groups are requested.
+	 * @param ownerIds
+	 *            The ids of the players or groups.
+	 * @return The points, coins and sequence number of each owner, by the id of the owner.
+	 */
+	public Map<Integer, int[]> getBalances(GameEvent.Owner owner, List<Integer> ownerIds) {
+		Query query = em.createQuery("select o.id, o.points, o.coins, o.eventSequence from " + entity(owner)
+				+ " o where o.id in (:ownerIds)");
+		query.setParameter("ownerIds", ownerIds);
+
+		Map<Integer, int[]> balances = new HashMap<>();
+		for (Object row : query.getResultList()) {
+			Object[] values = (Object[]) row;
+			balances.put((Integer) values[0], new int[] { (Integer) values[1], (Integer) values[2], (Integer) values[3] });
+		}
+		return balances;
+	}
+
+	/**
+	 * Replaces the balance of a player or group with its projection. The balance is only replaced
+	 * if no event was stored since the projection was rebuilt.
+	 *
+	 * @param projection
+	 *            The rebuilt state of the player or group.
+	 * @return True if the balance was replaced, false if new events were stored meanwhile.
+	 */
+	public boolean storeProjection(BalanceProjection projection) {
+		Query update = em.createQuery("update " + entity(projection.getOwner())
+				+ " o set o.points = :points, o.coins = :coins where o.id = :id and o.eventSequence = :sequence");
+		update.setParameter("points", projection.getPoints());
+		update.setParameter("coins", projection.getCoins());
+		update.setParameter("id", projection.getOwnerId());
+		update.setParameter("sequence", projection.getSequence());
+
+		return update.executeUpdate() > 0;
+	}
+
+	private static String entity(GameEvent.Owner owner) {
+		return owner == GameEvent.Owner.PLAYER ? "Player" : "PlayerGroup";
+	}
+}
@@ -0,0 +1,59 @@
+package info.interactivesystems.gamificationengine.dao;
+
+import info.interactivesystems.gamificationengine.entities.Organisation;
+import info.interactivesystems.gamificationengine.entities.event.GameEvent;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Appends the events of players and groups to the event log. The events are written by the
+ * data access objects of players and groups together with the balance, after the relative update
+ * of the balance has reserved their sequence numbers.
+ */
+final class EventLog {
+
+	private EventLog() {
+	}
+
+	/**
+	 * Stores new events of a player or group. If these are the owner's first events and the owner
+	 * already had points or coins, this balance is stored as opening event with the sequence
+	 * number 0, so the events add up to the owner's balance.
+	 *
+	 * @param em
+	 *            The entity manager of the current transaction.
+	 * @param organisation
+	 *            The organisation of the owner.
+	 * @param owner
+	 *            Whether the events belong to a player or to a group.
+	 * @param ownerId
+	 *            The id of the player or group.
+	 * @param events
+	 *            The new events in the order they happened.
+	 * @param lastSequence
+	 *            The sequence number of the last of the new events.
+	 * @param points
+	 *            The owner's points before the new events.
+	 * @param coins
+	 *            The owner's coins before the new events.
+	 */
+	static void append(EntityManager em, Organisation organisation, GameEvent.Owner owner, int ownerId,
+			List<GameEvent> events, int lastSequence, int points, int coins) {
+		if (events.isEmpty()) {
+			return;
+		}
+
+		int sequence = lastSequence - events.size();
+		if (sequence == 0 && (points != 0 || coins != 0)) {
+			GameEvent opening = GameEvent.of(GameEvent.Type.BALANCE_OPENED, 0, points, coins);
+			opening.assign(organisation, owner, ownerId, 0);
+			em.persist(opening);
+		}
+		for (GameEvent event : events) {
+			event.assign(organisation, owner, ownerId, ++sequence);
+			em.persist(event);
+		}
+	}
+}
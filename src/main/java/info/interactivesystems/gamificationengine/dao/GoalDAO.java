@@ -1,19 +1,25 @@
 package info.interactivesystems.gamificationengine.dao;
 
 import info.interactivesystems.gamificationengine.entities.goal.FinishedGoal;
+import info.interactivesystems.gamificationengine.entities.goal.GetPointsRule;
 import info.interactivesystems.gamificationengine.entities.goal.Goal;
 import info.interactivesystems.gamificationengine.entities.goal.GoalRule;
+import info.interactivesystems.gamificationengine.entities.goal.TaskRule;
+import info.interactivesystems.gamificationengine.entities.task.Task;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class GoalDAO {
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
 	private EntityManager em;
@@ -83,6 +89,47 @@ public class GoalDAO {
 	
 
 
+	/**
+	 * Gets the ids of the players who may have completed a goal without having obtained it, because
+	 * they have finished at least one task of the goal's rule or have reached the points of the rule. 
+	 * Players who have already finished a goal that isn't repeatable are left out. Only these players 
+	 * have to be re-evaluated after the goal was changed, see {@link Goal#reevaluate}.
+	 * 
+	 * @param goal
+	 *            The goal whose players are requested.
+	 * @param apiKey
+	 *           The API key of the organisation to which the goal belongs to. 
+	 * @return The ids of the players in ascending order, an empty list for goals of groups.
+	 */
+	public List<Integer> getReevaluationCandidates(Goal goal, String apiKey) {
+		String notFinished = goal.isRepeatable() ? "" : " and not exists (select fg.id from FinishedGoal fg where fg.goal = :goal and fg.player.id = %s)";
+		Query query;
+
+		if (goal.isPlayerGroupGoal()) {
+			return new ArrayList<>();
+		} else if (goal.getRule() instanceof TaskRule) {
+			List<Task> tasks = ((TaskRule) goal.getRule()).getTasks();
+			if (tasks.isEmpty()) {
+				return new ArrayList<>();
+			}
+			query = em.createQuery("select distinct ft.player.id from FinishedTask ft where ft.player.belongsTo.apiKey = :apiKey "
+					+ "and ft.task in (:tasks)" + String.format(notFinished, "ft.player.id") + " order by ft.player.id", Integer.class);
+			query.setParameter("tasks", tasks);
+		} else if (goal.getRule() instanceof GetPointsRule) {
+			query = em.createQuery("select p.id from Player p where p.belongsTo.apiKey = :apiKey and p.points >= :points"
+					+ String.format(notFinished, "p.id") + " order by p.id", Integer.class);
+			query.setParameter("points", ((GetPointsRule) goal.getRule()).getPoints());
+		} else {
+			return new ArrayList<>();
+		}
+
+		query.setParameter("apiKey", apiKey);
+		if (!goal.isRepeatable()) {
+			query.setParameter("goal", goal);
+		}
+		return query.getResultList();
+	}
+
 	/**
 	 * Gets all goals which belong to the specific passed API key.
 	 * 
@@ -1,21 +1,29 @@
 package info.interactivesystems.gamificationengine.dao;
 
 import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.Role;
 import info.interactivesystems.gamificationengine.entities.marketPlace.Bid;
 import info.interactivesystems.gamificationengine.entities.marketPlace.MarketPlace;
 import info.interactivesystems.gamificationengine.entities.marketPlace.Offer;
 import info.interactivesystems.gamificationengine.entities.task.Task;
+import info.interactivesystems.gamificationengine.utils.OfferMarketPlace;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class MarketPlaceDAO {
 
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
@@ -112,6 +120,57 @@ public class MarketPlaceDAO {
 		return (List<Offer>)query.getResultList();
 	}
 	
+	/**
+	 * Gets all offers which contain a specific task together with the ids of the marketplaces 
+	 * on which they are offered. The offers and their marketplaces are resolved by one join over 
+	 * the offers of the marketplaces, so no marketplace has to be loaded.
+	 * 
+	 * @param task
+	 * 			The task, which all returned offers contain.
+	 * @param apiKey
+	 * 			The valid query parameter API key affiliated to one specific organisation, 
+	 *          to which the offer belongs to.
+	 * @return A List of all offers with the passed task and the ids of their marketplaces.
+	 */
+	public List<OfferMarketPlace> getOfferMarketPlaces(Task task, String apiKey) {
+		Query query = em.createQuery("select new info.interactivesystems.gamificationengine.utils.OfferMarketPlace(o, m.id) "
+				+ "from MarketPlace m join m.offers o where o.task=:task and m.belongsTo.apiKey=:apiKey");
+		query.setParameter("task", task);
+		query.setParameter("apiKey", apiKey);
+
+		return (List<OfferMarketPlace>)query.getResultList();
+	}
+
+	/**
+	 * Gets all offers which contain a specific task together with the ids of the marketplaces 
+	 * on which they are offered. The offers are locked until the end of the current transaction, 
+	 * so their prizes can't be raised by bids until they are settled.
+	 * 
+	 * @param task
+	 * 			The task, which all returned offers contain.
+	 * @param apiKey
+	 * 			The valid query parameter API key affiliated to one specific organisation, 
+	 *          to which the offer belongs to.
+	 * @return A List of all offers with the passed task and the ids of their marketplaces.
+	 */
+	public List<OfferMarketPlace> getOfferMarketPlacesForUpdate(Task task, String apiKey) {
+		Query lock = em.createQuery("select o from Offer o where o.task=:task and o.belongsTo.apiKey=:apiKey", Offer.class);
+		lock.setParameter("task", task);
+		lock.setParameter("apiKey", apiKey);
+		lock.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+		List<Offer> offers = lock.getResultList();
+
+		if (offers.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		Query query = em.createQuery("select new info.interactivesystems.gamificationengine.utils.OfferMarketPlace(o, m.id) "
+				+ "from MarketPlace m join m.offers o where o in :offers");
+		query.setParameter("offers", offers);
+
+		return (List<OfferMarketPlace>)query.getResultList();
+	}
+
 	/**
 	 * Gets a specific offer from the data base by its id.
 	 * 
@@ -130,6 +189,53 @@ public class MarketPlaceDAO {
 		return ((Offer) list.get(0));
 	}
 
+	/**
+	 * Gets a specific offer from the data base by its id and locks it until the end of the current 
+	 * transaction. Bids on this offer wait until then, so the prize and the bids of the offer can't 
+	 * change in the meantime.
+	 * 
+	 * @param offerId
+	 *            The id of the requested offer.
+	 * @param apiKey 
+	 * 			The API key of the organisation to which the offer belongs to.
+	 * @return The locked {@link Offer} that is associated with the passed id.
+	 */
+	public Offer getOfferForUpdate(int offerId, String apiKey) {
+		Query query = em.createQuery("select o from Offer o where o.belongsTo.apiKey=:apiKey and o.id =:id", Offer.class);
+		query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+		List list = QueryUtils.configureQuery(query, offerId, apiKey);
+		if (list.isEmpty()) {
+			return null;
+		}
+		return ((Offer) list.get(0));
+	}
+
+	/**
+	 * Raises the prize of an offer by the passed amount. The prize is changed by a relative update 
+	 * in the data base, which also locks the offer until the end of the transaction. So concurrent 
+	 * bids on the same offer are serialized and no raise gets lost. Afterwards the passed offer 
+	 * contains the stored prize.
+	 * 
+	 * @param offer
+	 *            The offer whose prize is raised.
+	 * @param amount
+	 *            The amount of coins by which the prize is raised. A negative amount lowers the prize.
+	 * @return True if the offer still exists and its prize was changed, otherwise false.
+	 */
+	public boolean raisePrize(Offer offer, int amount) {
+		int updated = em.createQuery("update Offer o set o.prize = o.prize + :amount where o.id = :id")
+				.setParameter("amount", amount).setParameter("id", offer.getId()).executeUpdate();
+
+		if (updated == 0) {
+			return false;
+		}
+
+		Integer prize = (Integer) em.createQuery("select o.prize from Offer o where o.id = :id")
+				.setParameter("id", offer.getId()).getSingleResult();
+		offer.setPrize(prize);
+		return true;
+	}
+
 	/**
 	 * Gets all Offers which can be found on the marketplaces of an organisation.
 	 * 
@@ -179,6 +285,164 @@ public class MarketPlaceDAO {
 		return ((MarketPlace) list.get(0));
 	}
 
+	/**
+	 * Gets the marketplaces with the passed ids from the data base.
+	 * 
+	 * @param ids
+	 * 			The ids of the requested marketplaces.
+	 * @param apiKey
+	 * 			The API key of the organisation to which the marketplaces belongs to.
+	 * @return The {@link List} of the requested {@link MarketPlace}s.
+	 */
+	public List<MarketPlace> getMarketplaces(Collection<Integer> ids, String apiKey) {
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		Query query = em.createQuery("select m from MarketPlace m where m.belongsTo.apiKey=:apiKey and m.id in :ids", MarketPlace.class);
+		query.setParameter("apiKey", apiKey);
+		query.setParameter("ids", ids);
+
+		return query.getResultList();
+	}
+
+	/**
+	 * Gets all marketplaces on which at least one of the passed offers is offered.
+	 * 
+	 * @param offers
+	 * 			The offers whose marketplaces are requested.
+	 * @return The {@link List} of {@link MarketPlace}s which contain at least one of the offers.
+	 */
+	public List<MarketPlace> getMarketplacesOfOffers(List<Offer> offers) {
+		if (offers.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		Query query = em.createQuery("select distinct m from MarketPlace m join m.offers o where o in :offers", MarketPlace.class);
+		query.setParameter("offers", offers);
+
+		return query.getResultList();
+	}
+
+	/**
+	 * Gets the offers of all organisations whose end date has passed, the earliest end date first. 
+	 * The offers are locked until the end of the current transaction, so no bids can be given 
+	 * for them while they are expired. 
+	 * 
+	 * @param now
+	 * 			The point of time at which the offers are expired.
+	 * @param count
+	 * 			The maximal number of returned offers.
+	 * @return A {@link List} of at most count expired {@link Offer}s.
+	 */
+	public List<Offer> getExpiredOffers(LocalDateTime now, int count) {
+		Query query = em.createQuery("select o from Offer o where o.endDate <= :now order by o.endDate, o.id", Offer.class);
+		query.setParameter("now", now);
+		query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+		query.setMaxResults(count);
+
+		return query.getResultList();
+	}
+
+	/**
+	 * Checks if a marketplace with the passed id exists in the organisation which is associated with 
+	 * the API key. In contrast to {@link #getMarketplace(int, String)} the offers of the marketplace 
+	 * are not loaded. 
+	 * 
+	 * @param id
+	 * 			The id of the requested marketplace.
+	 * @param apiKey
+	 * 			The API key of the organisation to which the marketplaces belongs to.
+	 * @return The id of the marketplace or null if no such marketplace exists.
+	 */
+	public Integer getMarketplaceId(int id, String apiKey) {
+		Query query = em.createQuery("select m.id from MarketPlace m where m.belongsTo.apiKey=:apiKey and m.id = :id");
+		List list = QueryUtils.configureQuery(query, id, apiKey);
+		if (list.isEmpty()) {
+			return null;
+		}
+		return ((Integer) list.get(0));
+	}
+
+	/**
+	 * Gets the offers of a marketplace. If roles are passed only those offers are returned whose 
+	 * task can be completed by at least one of these roles.
+	 * 
+	 * @param marketId
+	 * 			The id of the marketplace whose offers are requested.
+	 * @param roles
+	 * 			The roles of which at least one has to be allowed to complete the task of an offer. 
+	 * 			If null is passed the offers are not filtered by roles. 
+	 * @param count
+	 * 			The maximal number of returned offers. If count is 0 all offers are returned.
+	 * @param apiKey
+	 * 			The API key of the organisation to which the marketplaces belongs to.
+	 * @return A {@link List} of {@link Offer}s ordered by their ids.
+	 */
+	public List<Offer> getOffers(int marketId, List<Role> roles, int count, String apiKey) {
+		return getOffers(marketId, roles, "o.id", count, apiKey);
+	}
+
+	/**
+	 * Gets the most recent offers of a marketplace, recent first. If roles are passed only those 
+	 * offers are returned whose task can be completed by at least one of these roles.
+	 * 
+	 * @param marketId
+	 * 			The id of the marketplace whose offers are requested.
+	 * @param roles
+	 * 			The roles of which at least one has to be allowed to complete the task of an offer. 
+	 * 			If null is passed the offers are not filtered by roles. 
+	 * @param count
+	 * 			The maximal number of returned offers. If count is 0 all offers are returned.
+	 * @param apiKey
+	 * 			The API key of the organisation to which the marketplaces belongs to.
+	 * @return A {@link List} of {@link Offer}s ordered by their date of creation.
+	 */
+	public List<Offer> getRecentOffers(int marketId, List<Role> roles, int count, String apiKey) {
+		return getOffers(marketId, roles, "o.offerDate desc, o.id desc", count, apiKey);
+	}
+
+	/**
+	 * Gets the offers of a marketplace with the highest prize, highest prize first. If roles are passed 
+	 * only those offers are returned whose task can be completed by at least one of these roles.
+	 * 
+	 * @param marketId
+	 * 			The id of the marketplace whose offers are requested.
+	 * @param roles
+	 * 			The roles of which at least one has to be allowed to complete the task of an offer. 
+	 * 			If null is passed the offers are not filtered by roles. 
+	 * @param count
+	 * 			The maximal number of returned offers. If count is 0 all offers are returned.
+	 * @param apiKey
+	 * 			The API key of the organisation to which the marketplaces belongs to.
+	 * @return A {@link List} of {@link Offer}s ordered by their prize.
+	 */
+	public List<Offer> getHighestOffers(int marketId, List<Role> roles, int count, String apiKey) {
+		return getOffers(marketId, roles, "o.prize desc, o.id desc", count, apiKey);
+	}
+
+	private List<Offer> getOffers(int marketId, List<Role> roles, String orderBy, int count, String apiKey) {
+		if (roles != null && roles.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		String jpql = "select o from MarketPlace m join m.offers o where m.id = :id and m.belongsTo.apiKey = :apiKey";
+		if (roles != null) {
+			jpql += " and exists (select t from Task t join t.allowedFor r where t = o.task and r in :roles)";
+		}
+
+		Query query = em.createQuery(jpql + " order by " + orderBy, Offer.class);
+		query.setParameter("id", marketId);
+		query.setParameter("apiKey", apiKey);
+		if (roles != null) {
+			query.setParameter("roles", roles);
+		}
+		if (count > 0) {
+			query.setMaxResults(count);
+		}
+		return query.getResultList();
+	}
+
 	/**
 	 * Removes a marketplace from the data base.
 	 * 
@@ -217,7 +481,8 @@ public class MarketPlaceDAO {
 	}
 	
 	/**
-	 * Removes several offers from the data base.
+	 * Removes several offers and their bids from the data base. The offers and bids are deleted 
+	 * with one statement each. The offers have to be removed from their marketplaces before.
 	 * 
 	 * @param offers
 	 * 			The list of offers that should be removes from the data base.
@@ -225,14 +490,39 @@ public class MarketPlaceDAO {
 	 * 			The API key of the organisation to which the offer belongs to. 
 	 */
 	public void deleteOffers(List<Offer> offers, String apiKey) {
-		
-		for (Offer offer : offers) {
-			Offer offer2 = getOffer(offer.getId(), apiKey);
-			
-			if (offer2 != null) {
-				em.remove(offer2);
-			}
+		if (offers.isEmpty()) {
+			return;
 		}
+
+		// the removals from the marketplaces have to be stored first
+		em.flush();
+
+		em.createQuery("delete from Bid b where b.offer in :offers and b.belongsTo in "
+				+ "(select org from Organisation org where org.apiKey=:apiKey)")
+				.setParameter("offers", offers).setParameter("apiKey", apiKey).executeUpdate();
+		em.createQuery("delete from Offer o where o in :offers and o.belongsTo in "
+				+ "(select org from Organisation org where org.apiKey=:apiKey)")
+				.setParameter("offers", offers).setParameter("apiKey", apiKey).executeUpdate();
+	}
+
+	/**
+	 * Removes several offers and their bids from the data base regardless of the organisation they 
+	 * belong to. This is used by the background jobs. The offers have to be removed from their 
+	 * marketplaces before.
+	 * 
+	 * @param offers
+	 * 			The list of offers that should be removes from the data base.
+	 */
+	public void deleteOffers(List<Offer> offers) {
+		if (offers.isEmpty()) {
+			return;
+		}
+
+		// the removals from the marketplaces have to be stored first
+		em.flush();
+
+		em.createQuery("delete from Bid b where b.offer in :offers").setParameter("offers", offers).executeUpdate();
+		em.createQuery("delete from Offer o where o in :offers").setParameter("offers", offers).executeUpdate();
 	}
 
 	/**
@@ -6,6 +6,7 @@ import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
@@ -16,6 +17,7 @@ import javax.persistence.Query;
  */
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class OrganisationDAO {
 
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
@@ -1,11 +1,16 @@
 package info.interactivesystems.gamificationengine.dao;
 
 import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.event.GameEvent;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
@@ -17,6 +22,7 @@ import javax.persistence.Query;
  */
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class PlayerDAO {
 
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
@@ -135,4 +141,88 @@ public class PlayerDAO {
 
 		return player;
 	}
+
+	/**
+	 * Writes the changes of points and coins a player has earned or spent since 
+	 * she/he was loaded to the data base. The values are added to the stored ones 
+	 * with one relative update, so that concurrent requests for the same player 
+	 * don't lose each other's changes. The stored amount of coins never becomes 
+	 * negative. Afterwards the player's points and coins are set to the stored values. 
+	 * The player's new events are appended to the event log by the same update: the 
+	 * update reserves their sequence numbers and locks the player until the end of the 
+	 * transaction, so the events of a player are numbered without gaps. 
+	 * 
+	 * @param player
+	 *            The player whose balance should be stored.
+	 * @return True if the balance was stored, false if the player hasn't enough coins 
+	 *         any more for the spent amount. In this case nothing is changed and the 
+	 *         new events are dropped. 
+	 */
+	public boolean applyBalance(Player player) {
+		List<GameEvent> events = player.takePendingEvents();
+		if (player.getId() == 0) {
+			// not stored yet, so the values are inserted with the player
+			player.reconcileBalance(player.getPoints(), player.getCoins());
+			return true;
+		}
+		if (player.getPointsDelta() == 0 && player.getCoinsDelta() == 0 && events.isEmpty()) {
+			return true;
+		}
+
+		Query update = em.createQuery("update Player p set p.points = p.points + :points, p.coins = p.coins + :coins, "
+				+ "p.eventSequence = p.eventSequence + :events where p.id = :id and p.coins + :coins >= 0");
+		update.setParameter("points", player.getPointsDelta());
+		update.setParameter("coins", player.getCoinsDelta());
+		update.setParameter("events", events.size());
+		update.setParameter("id", player.getId());
+		boolean applied = update.executeUpdate() > 0;
+
+		Object[] balance = (Object[]) em.createQuery("select p.points, p.coins, p.eventSequence from Player p where p.id = :id")
+				.setParameter("id", player.getId()).getSingleResult();
+		if (applied) {
+			int last = (Integer) balance[2];
+			EventLog.append(em, player.getBelongsTo(), GameEvent.Owner.PLAYER, player.getId(), events, last,
+					(Integer) balance[0] - player.getPointsDelta(), (Integer) balance[1] - player.getCoinsDelta());
+		}
+		player.reconcileBalance((Integer) balance[0], (Integer) balance[1]);
+		player.setEventSequence((Integer) balance[2]);
+
+		return applied;
+	}
+
+	/**
+	 * Writes the changes of points and coins of several players to the data base, see 
+	 * {@link #applyBalance(Player)}. Each update locks its player until the end of the 
+	 * transaction, so the players are updated in the order of their ids. Then two transactions 
+	 * which update the same players, like two refunds, can't deadlock each other.
+	 * 
+	 * @param players
+	 *            The players whose balances should be stored. A player may be contained 
+	 *            several times.
+	 */
+	public void applyBalances(Collection<Player> players) {
+		List<Player> sorted = new ArrayList<>(players);
+		sorted.sort(Comparator.comparingInt(Player::getId));
+		for (Player player : sorted) {
+			applyBalance(player);
+		}
+	}
+
+	/**
+	 * Gets the players with the most points of an organisation. The points are the 
+	 * projection of the players' events, see {@link EventLog}.
+	 * 
+	 * @param apiKey
+	 *            The API key of the organisation to which the players belong to.
+	 * @param limit
+	 *            The maximal number of players.
+	 * @return A {@link List} of {@link Player}s sorted by their points in descending order.
+	 */
+	public List<Player> getLeaderboard(String apiKey, int limit) {
+		Query query = em.createQuery("select p from Player p where p.belongsTo.apiKey=:apiKey order by p.points desc, p.id", Player.class);
+		query.setParameter("apiKey", apiKey);
+		query.setMaxResults(limit);
+
+		return query.getResultList();
+	}
 }
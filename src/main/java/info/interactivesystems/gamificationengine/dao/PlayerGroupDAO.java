@@ -1,17 +1,20 @@
 package info.interactivesystems.gamificationengine.dao;
 
 import info.interactivesystems.gamificationengine.entities.PlayerGroup;
+import info.interactivesystems.gamificationengine.entities.event.GameEvent;
 
 import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class PlayerGroupDAO {
 
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
@@ -80,4 +83,40 @@ public class PlayerGroupDAO {
 		}
 		return plGroup;
 	}
+
+	/**
+	 * Writes the changes of points and coins a group has earned since it was loaded
+	 * to the data base. The values are added to the stored ones with one relative 
+	 * update, so that concurrent requests don't lose each other's changes. Afterwards 
+	 * the group's points and coins are set to the stored values. The group's new 
+	 * events are appended to the event log, numbered by the same update.
+	 * 
+	 * @param group
+	 *            The group of players whose balance should be stored.
+	 */
+	public void applyBalance(PlayerGroup group) {
+		List<GameEvent> events = group.takePendingEvents();
+		if (group.getId() == 0) {
+			group.reconcileBalance(group.getPoints(), group.getCoins());
+			return;
+		}
+		if (group.getPointsDelta() == 0 && group.getCoinsDelta() == 0 && events.isEmpty()) {
+			return;
+		}
+
+		Query update = em.createQuery("update PlayerGroup g set g.points = g.points + :points, g.coins = g.coins + :coins, "
+				+ "g.eventSequence = g.eventSequence + :events where g.id = :id");
+		update.setParameter("points", group.getPointsDelta());
+		update.setParameter("coins", group.getCoinsDelta());
+		update.setParameter("events", events.size());
+		update.setParameter("id", group.getId());
+		update.executeUpdate();
+
+		Object[] balance = (Object[]) em.createQuery("select g.points, g.coins, g.eventSequence from PlayerGroup g where g.id = :id")
+				.setParameter("id", group.getId()).getSingleResult();
+		EventLog.append(em, group.getBelongsTo(), GameEvent.Owner.GROUP, group.getId(), events, (Integer) balance[2],
+				(Integer) balance[0] - group.getPointsDelta(), (Integer) balance[1] - group.getCoinsDelta());
+		group.reconcileBalance((Integer) balance[0], (Integer) balance[1]);
+		group.setEventSequence((Integer) balance[2]);
+	}
 }
@@ -6,12 +6,14 @@ import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class PlayerLevelDAO {
 
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
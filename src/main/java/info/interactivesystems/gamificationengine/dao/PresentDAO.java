@@ -6,17 +6,26 @@ import info.interactivesystems.gamificationengine.entities.present.PresentAccept
 import info.interactivesystems.gamificationengine.entities.present.PresentArchived;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnitUtil;
 import javax.persistence.Query;
 
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class PresentDAO {
 
+	/**
+	 * The maximal number of boards whose in-box rows are inserted by one statement.
+	 */
+	private static final int BATCH_SIZE = 500;
+
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
 	private EntityManager em;
 
@@ -34,15 +43,39 @@ public class PresentDAO {
 	}
 
 	/**
-	 * Stores a list of boards in the data base.
+	 * Delivers a present to the in-boxes of the passed boards. The present is not added to the 
+	 * loaded lists of the boards, which would load each whole in-box, but the rows of the in-boxes 
+	 * are inserted by a bulk statement. A board whose in-box already contains the present doesn't 
+	 * get it a second time. Boards whose in-boxes are loaded, like new boards, are detached 
+	 * afterwards, so a later load of such a board contains the present. Refreshing them instead 
+	 * would cost one select for each board.
 	 * 
-	 * @param boardList
-	 * 			The list of boards that should be stored in the data base.
+	 * @param present
+	 * 			The present that is delivered. It has to be stored in the data base.
+	 * @param boards
+	 * 			The boards to whose in-boxes the present is added. They have to be stored in the data base.
 	 */
-	public void insert(List<Board> boardList) {
-		for (Board b : boardList) {
-			em.persist(b);
-			em.flush();
+	public void deliver(Present present, List<Board> boards) {
+		if (boards.isEmpty()) {
+			return;
+		}
+		em.flush();
+
+		List<Integer> boardIds = boards.stream().map(Board::getId).collect(Collectors.toList());
+		for (int from = 0; from < boardIds.size(); from += BATCH_SIZE) {
+			em.createNativeQuery("insert into board_in_box (board, in_box) select b.id, :present from board b "
+					+ "where b.id in (:boards) and not exists "
+					+ "(select 1 from board_in_box i where i.board = b.id and i.in_box = :present)")
+					.setParameter("present", present.getId())
+					.setParameter("boards", boardIds.subList(from, Math.min(from + BATCH_SIZE, boardIds.size())))
+					.executeUpdate();
+		}
+
+		PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+		for (Board board : boards) {
+			if (util.isLoaded(board, "inBox")) {
+				em.detach(board);
+			}
 		}
 	}
 
@@ -0,0 +1,23 @@
+package info.interactivesystems.gamificationengine.dao;
+
+import info.interactivesystems.gamificationengine.utils.QueryBudget;
+
+import org.hibernate.EmptyInterceptor;
+
+/**
+ * Counts each SQL statement which Hibernate prepares in the {@link QueryBudget} of the current
+ * request. So not only the queries of the data access methods are counted, but also the
+ * statements of loops inside a data access method and the loads of eager and lazy associations,
+ * which are the usual source of N+1 queries. The interceptor is registered for the persistence
+ * unit with the property hibernate.ejb.interceptor.
+ */
+public class QueryCounter extends EmptyInterceptor {
+
+	private static final long serialVersionUID = 6094226738385406314L;
+
+	@Override
+	public String onPrepareStatement(String sql) {
+		QueryBudget.count(sql);
+		return sql;
+	}
+}
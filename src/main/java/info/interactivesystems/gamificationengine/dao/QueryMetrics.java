@@ -0,0 +1,39 @@
+package info.interactivesystems.gamificationengine.dao;
+
+import info.interactivesystems.gamificationengine.utils.Metrics;
+
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.InvocationContext;
+
+/**
+ * Records the count, the errors and the latency of each call of a data access method in
+ * {@link Metrics#QUERIES}. Nearly every data access method runs one query, so the metrics show
+ * which queries are run most often and which ones are slow. The statements themselves are counted
+ * by the {@link QueryCounter}.
+ */
+public class QueryMetrics {
+
+	@AroundInvoke
+	public Object record(InvocationContext invocation) throws Exception {
+		String dao = daoName(invocation.getTarget().getClass());
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			Object result = invocation.proceed();
+			failed = false;
+			return result;
+		} finally {
+			Metrics.QUERIES.record(dao, invocation.getMethod().getName(), System.nanoTime() - start, failed);
+		}
+	}
+
+	/**
+	 * Gets the name of a data access object. Inherited methods are labeled with the class which
+	 * was called, the suffix of a proxy class of the container is cut off.
+	 */
+	static String daoName(Class<?> target) {
+		String name = target.getSimpleName();
+		int proxy = name.indexOf('$');
+		return proxy > 0 ? name.substring(0, proxy) : name;
+	}
+}
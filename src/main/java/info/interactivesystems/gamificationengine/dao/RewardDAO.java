@@ -1,17 +1,21 @@
 package info.interactivesystems.gamificationengine.dao;
 
 import info.interactivesystems.gamificationengine.entities.rewards.Reward;
+import info.interactivesystems.gamificationengine.entities.rewards.RewardGrant;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class RewardDAO {
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
 	private EntityManager em;
@@ -93,8 +97,39 @@ public class RewardDAO {
 		Reward reward = getReward(id, apiKey);
 		
 		if(reward!=null){
+			em.createQuery("delete from RewardGrant g where g.reward = :reward").setParameter("reward", reward).executeUpdate();
 			em.remove(reward);
 		}
 		return reward;
 	}
+
+	/**
+	 * Gets the grants of permanent rewards of all organisations whose expiry date has passed, 
+	 * the earliest expiry date first. 
+	 * 
+	 * @param now
+	 * 			The point of time at which the rewards are expired.
+	 * @param count
+	 * 			The maximal number of returned grants.
+	 * @return A {@link List} of at most count expired {@link RewardGrant}s.
+	 */
+	public List<RewardGrant> getExpiredRewardGrants(LocalDateTime now, int count) {
+		Query query = em.createQuery("select g from RewardGrant g where g.expiryDate <= :now order by g.expiryDate, g.id", RewardGrant.class);
+		query.setParameter("now", now);
+		query.setMaxResults(count);
+		return query.getResultList();
+	}
+
+	/**
+	 * Removes several grants of rewards from the data base with one statement.
+	 * 
+	 * @param grants
+	 * 			The grants which should be deleted.
+	 */
+	public void deleteRewardGrants(List<RewardGrant> grants) {
+		if (grants.isEmpty()) {
+			return;
+		}
+		em.createQuery("delete from RewardGrant g where g in :grants").setParameter("grants", grants).executeUpdate();
+	}
 }
@@ -1,17 +1,23 @@
 package info.interactivesystems.gamificationengine.dao;
 
+import info.interactivesystems.gamificationengine.entities.task.ArchivedTask;
+import info.interactivesystems.gamificationengine.entities.task.FinishedTask;
 import info.interactivesystems.gamificationengine.entities.task.Task;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.inject.Named;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
 @Named
 @Stateless
+@Interceptors(QueryMetrics.class)
 public class TaskDAO {
 	
 	@PersistenceContext(unitName = PersistenceUnit.PROJECT)
@@ -122,4 +128,97 @@ public class TaskDAO {
 		query.setParameter("apiKey", apiKey);
 		return query.getResultList();
 	}
+
+	/**
+	 * Gets the ids of players who have at least the passed number of finished tasks that were 
+	 * finished before the passed date and aren't compacted yet. The players are ordered by their ids.
+	 * 
+	 * @param before
+	 * 			Only the tasks which were finished before this date are counted.
+	 * @param minimum
+	 * 			The minimal number of these finished tasks a player must have.
+	 * @param afterId
+	 * 			Only players with a greater id than this are returned.
+	 * @param limit
+	 * 			The maximal number of returned ids.
+	 * @return A List of the ids of the players.
+	 */
+	public List<Integer> getPlayersToCompact(LocalDateTime before, long minimum, int afterId, int limit) {
+		Query query = em.createQuery("select fT.player.id from FinishedTask fT where fT.occurrences is null and fT.finishedDate<:before "
+				+ "and fT.player.id>:afterId group by fT.player.id having count(fT)>=:minimum order by fT.player.id");
+		query.setParameter("before", before);
+		query.setParameter("afterId", afterId);
+		query.setParameter("minimum", minimum);
+		query.setMaxResults(limit);
+		return query.getResultList();
+	}
+
+	/**
+	 * Compacts the finished tasks of a player which were finished before the passed date. They 
+	 * are moved to the archive and replaced by finished tasks that count them, see 
+	 * {@link FinishedTask#compact(List, java.util.Collection)}. Finished tasks which were already 
+	 * compacted are compacted again with them.
+	 * 
+	 * @param playerId
+	 * 			The id of the player whose finished tasks are compacted.
+	 * @param before
+	 * 			Only the tasks which were finished before this date are compacted.
+	 * @return The number of finished tasks which were moved to the archive.
+	 */
+	public int compactFinishedTasks(int playerId, LocalDateTime before) {
+		List<FinishedTask> finishedTasks = em.createQuery("select fT from FinishedTask fT where fT.player.id=:playerId "
+				+ "and fT.finishedDate<:before order by fT.finishedDate", FinishedTask.class)
+				.setParameter("playerId", playerId).setParameter("before", before).getResultList();
+
+		List<LocalDateTime> goalDates = new ArrayList<>();
+		goalDates.addAll(em.createQuery("select fG.finishedDate from FinishedGoal fG where fG.player.id=:playerId", LocalDateTime.class)
+				.setParameter("playerId", playerId).getResultList());
+		goalDates.addAll(em.createQuery("select fG.finishedDate from PlayerGroup g join g.players p join g.finishedGoals fG "
+				+ "where p.id=:playerId", LocalDateTime.class).setParameter("playerId", playerId).getResultList());
+
+		List<FinishedTask> compacted = FinishedTask.compact(finishedTasks, goalDates);
+		if (compacted.size() == finishedTasks.size()) {
+			return 0;
+		}
+
+		int archived = 0;
+		for (FinishedTask fTask : finishedTasks) {
+			if (!fTask.isCompacted()) {
+				em.persist(ArchivedTask.of(fTask));
+				archived++;
+			}
+		}
+		for (FinishedTask fTask : finishedTasks) {
+			// the player cascades persist to her/his finished tasks, so a removed task which is 
+			// still in the list would be stored again when the player is flushed
+			fTask.getPlayer().getFinishedTasks().remove(fTask);
+			em.remove(fTask);
+		}
+		for (FinishedTask fTask : compacted) {
+			// no events are recorded, the tasks were already completed
+			fTask.getPlayer().getFinishedTasks().add(fTask);
+			em.persist(fTask);
+		}
+		return archived;
+	}
+
+	/**
+	 * Gets the archived tasks of a player, the latest first.
+	 * 
+	 * @param playerId
+	 * 			The id of the player whose archived tasks are requested.
+	 * @param page
+	 * 			The page of archived tasks which is requested, starting with 0.
+	 * @param count
+	 * 			The number of archived tasks of each page.
+	 * @return A List of {@link ArchivedTask}s of the player.
+	 */
+	public List<ArchivedTask> getArchivedTasks(int playerId, int page, int count) {
+		Query query = em.createQuery("select aT from ArchivedTask aT where aT.playerId=:playerId order by aT.finishedDate desc, aT.id desc",
+				ArchivedTask.class);
+		query.setParameter("playerId", playerId);
+		query.setFirstResult(page * count);
+		query.setMaxResults(count);
+		return query.getResultList();
+	}
 }
@@ -1,5 +1,7 @@
 package info.interactivesystems.gamificationengine.entities;
 
+import info.interactivesystems.gamificationengine.utils.SecurityTools;
+
 import java.io.Serializable;
 
 import javax.persistence.Entity;
@@ -123,13 +125,13 @@ public class Account implements Serializable {
 	}
 	
 	/**
-	 * Checks if the passed password is equal to the hashed password.
+	 * Checks if the passed password matches the hashed password.
 	 * 
 	 * @param checkPassword
 	 * 			The password that should be checked.
 	 * @return Returns a boolean value if the passed password is equal to the hashed password (true) else false.
 	 */
 	public boolean checkPassword(String checkPassword) {
-		return this.password.equals(checkPassword);
+		return SecurityTools.verifyPassword(checkPassword, this.password);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package info.interactivesystems.gamificationengine.entities;
+
+import info.interactivesystems.gamificationengine.utils.ImageUtils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * An asset is a binary content like the avatar of a player, the logo of a group or the icon of
+ * a badge or achievement. The content is identified by its SHA-256 hash, so equal images are
+ * only stored once and the entities only reference the hash of their image. Because the content
+ * of an asset never changes, the hash can also be used as ETag when the asset is requested.
+ */
+@Entity
+@JsonIgnoreProperties({ "content" })
+public class Asset {
+
+	@Id
+	@Column(length = 64)
+	private String hash;
+
+	@NotNull
+	private String contentType;
+
+	private int size;
+
+	@Lob
+	@Column(columnDefinition = "MEDIUMBLOB", length = 3000000)
+	private byte[] content;
+
+	public Asset() {
+	}
+
+	/**
+	 * Creates an asset of the passed content. The hash of the content is computed and the content
+	 * type is detected.
+	 *
+	 * @param content
+	 *            The binary content of the asset.
+	 * @return The new asset.
+	 */
+	public static Asset of(byte[] content) {
+		Asset asset = new Asset();
+		asset.hash = hash(content);
+		asset.contentType = ImageUtils.contentType(content);
+		asset.size = content.length;
+		asset.content = content;
+		return asset;
+	}
+
+	/**
+	 * Computes the SHA-256 hash of the passed content as hexadecimal string.
+	 *
+	 * @param content
+	 *            The content that is hashed.
+	 * @return The hash of the content.
+	 */
+	public static String hash(byte[] content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+	}
+
+	/**
+	 * Gets the SHA-256 hash of the asset's content which identifies the asset.
+	 *
+	 * @return The hash as hexadecimal string.
+	 */
+	public String getHash() {
+		return hash;
+	}
+
+	/**
+	 * Gets the media type of the asset's content, for example image/png.
+	 *
+	 * @return The content type of the asset.
+	 */
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * Gets the number of bytes of the asset's content.
+	 *
+	 * @return The size of the content.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the binary content of the asset.
+	 *
+	 * @return The content as byte[].
+	 */
+	public byte[] getContent() {
+		return content;
+	}
+}
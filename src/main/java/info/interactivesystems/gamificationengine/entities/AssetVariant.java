@@ -0,0 +1,89 @@
+package info.interactivesystems.gamificationengine.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.validation.constraints.NotNull;
+
+/**
+ * An asset variant references a smaller version of an image, like a thumbnail of an avatar.
+ * Both the image and its variant are stored as assets, the variant connects the hash of the
+ * image with the hash of its version with a specific size.
+ */
+@Entity
+@Table(uniqueConstraints = { @UniqueConstraint(columnNames = { "originalHash", "size" }) })
+public class AssetVariant {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private int id;
+
+	@NotNull
+	@Column(length = 64)
+	private String originalHash;
+
+	private int size;
+
+	@NotNull
+	@Column(length = 64)
+	private String variantHash;
+
+	public AssetVariant() {
+	}
+
+	/**
+	 * Creates the variant of an image with the passed size.
+	 *
+	 * @param originalHash
+	 *            The hash of the image.
+	 * @param size
+	 *            The length of the variant's longer side in pixels.
+	 * @param variantHash
+	 *            The hash of the variant.
+	 */
+	public AssetVariant(String originalHash, int size, String variantHash) {
+		this.originalHash = originalHash;
+		this.size = size;
+		this.variantHash = variantHash;
+	}
+
+	/**
+	 * Gets the id of the variant.
+	 *
+	 * @return The id of the variant.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the hash of the image of which this is a variant.
+	 *
+	 * @return The hash of the image.
+	 */
+	public String getOriginalHash() {
+		return originalHash;
+	}
+
+	/**
+	 * Gets the length of the variant's longer side in pixels.
+	 *
+	 * @return The size of the variant.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the hash of the variant in the store of assets.
+	 *
+	 * @return The hash of the variant.
+	 */
+	public String getVariantHash() {
+		return variantHash;
+	}
+}
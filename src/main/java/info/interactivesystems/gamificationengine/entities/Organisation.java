@@ -45,6 +45,8 @@ public class Organisation implements Serializable {
 	@Column(unique = true)
 	private String apiKey;
 
+	private boolean completionLog;
+
 	public Organisation(String name) {
 		super();
 		this.name = name;
@@ -135,6 +137,27 @@ public class Organisation implements Serializable {
 		this.apiKey = apiKey;
 	}
 
+	/**
+	 * Checks whether the completions of the organisation's tasks are written to the completion
+	 * event log.
+	 * 
+	 * @return True if the completions are logged, otherwise false.
+	 */
+	public boolean isCompletionLog() {
+		return completionLog;
+	}
+
+	/**
+	 * Sets whether the completions of the organisation's tasks are written to the completion
+	 * event log.
+	 * 
+	 * @param completionLog
+	 *			 True if the completions should be logged, otherwise false.
+	 */
+	public void setCompletionLog(boolean completionLog) {
+		this.completionLog = completionLog;
+	}
+
 	/**
 	 * Adds a new manager's account to the organisation's list of accounts.
 	 * 
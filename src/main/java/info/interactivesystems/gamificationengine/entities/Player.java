@@ -1,11 +1,14 @@
 package info.interactivesystems.gamificationengine.entities;
 
 import info.interactivesystems.gamificationengine.entities.donationCall.DonationCall;
+import info.interactivesystems.gamificationengine.entities.event.GameEvent;
 import info.interactivesystems.gamificationengine.entities.goal.FinishedGoal;
 import info.interactivesystems.gamificationengine.entities.goal.Goal;
 import info.interactivesystems.gamificationengine.entities.rewards.Achievement;
 import info.interactivesystems.gamificationengine.entities.rewards.Badge;
 import info.interactivesystems.gamificationengine.entities.rewards.PermanentReward;
+import info.interactivesystems.gamificationengine.entities.rewards.Reward;
+import info.interactivesystems.gamificationengine.entities.rewards.RewardGrant;
 import info.interactivesystems.gamificationengine.entities.task.FinishedTask;
 
 import java.util.ArrayList;
@@ -20,10 +23,10 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.Lob;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -41,7 +44,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
  * player has.
  */
 @Entity
-@JsonIgnoreProperties({ "belongsTo", "password", "avatar", "contactList" })
+@JsonIgnoreProperties({ "belongsTo", "password", "contactList", "pointsDelta", "coinsDelta", "rewardGrants", "eventSequence",
+		"pendingEvents" })
 public class Player {
 
 	@Id
@@ -67,16 +71,41 @@ public class Player {
 
 	private boolean isActive;
 
-	@Lob
-	@Column(columnDefinition = "MEDIUMBLOB", length = 3000000)
-	private byte[] avatar;
+	// hash of the avatar in the store of assets
+	@Column(length = 64)
+	private String avatarHash;
 
 	@ManyToMany(cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
 	private List<PermanentReward> rewards;
 
+	// when the permanent rewards were obtained, only loaded on demand
+	@OneToMany(mappedBy = "player", cascade = { CascadeType.PERSIST, CascadeType.REMOVE })
+	private List<RewardGrant> rewardGrants;
+
+	/**
+	 * Points and coins are only changed by relative updates of the data base (see 
+	 * {@link info.interactivesystems.gamificationengine.dao.PlayerDAO#applyBalance(Player)}), 
+	 * so a flush of a stale player never overwrites a concurrent change.
+	 */
+	@Column(updatable = false)
 	private int points;
+	@Column(updatable = false)
 	private int coins;
 
+	// Changes of points and coins which are not yet written to the data base.
+	@Transient
+	private int pointsDelta;
+	@Transient
+	private int coinsDelta;
+
+	// the sequence number of the player's last event, only changed by relative updates
+	@Column(updatable = false)
+	private int eventSequence;
+
+	// Events which are not yet written to the data base.
+	@Transient
+	private List<GameEvent> pendingEvents = new ArrayList<>();
+
 	// @ManyToOne(cascade = CascadeType.PERSIST)
 	// private PlayerLevel level;
 
@@ -133,6 +162,7 @@ public class Player {
 		finishedGoals = new ArrayList<>();
 		belongsToRoles = new ArrayList<>();
 		contactList = new ArrayList<>();
+		rewardGrants = new ArrayList<>();
 		setActive(true);
 	}
 
@@ -172,7 +202,23 @@ public class Player {
 	 */
 	public void awardPoints(int points) {
 		this.points += points;
+		this.pointsDelta += points;
+		record(GameEvent.of(GameEvent.Type.POINTS_AWARDED, 0, points, 0));
+	}
 
+	/**
+	 * The amount of points of a reward will be added to the player's current 
+	 * points and the granted reward is recorded as event.
+	 * 
+	 * @param points
+	 *            The amount of points which is added to the player's current points.
+	 * @param reward
+	 *            The reward of the points.
+	 */
+	public void awardPoints(int points, Reward reward) {
+		this.points += points;
+		this.pointsDelta += points;
+		record(GameEvent.of(GameEvent.Type.REWARD_GRANTED, reward.getId(), points, 0));
 	}
 
 	/**
@@ -185,6 +231,23 @@ public class Player {
 	 */
 	public void awardCoins(int amount) {
 		coins += amount;
+		coinsDelta += amount;
+		record(GameEvent.of(GameEvent.Type.COINS_AWARDED, 0, 0, amount));
+	}
+
+	/**
+	 * The amount of coins of a reward will be added to the player's current 
+	 * coins and the granted reward is recorded as event.
+	 * 
+	 * @param amount
+	 *            The amount of coins which is added to the player's current coins.
+	 * @param reward
+	 *            The reward of the coins.
+	 */
+	public void awardCoins(int amount, Reward reward) {
+		coins += amount;
+		coinsDelta += amount;
+		record(GameEvent.of(GameEvent.Type.REWARD_GRANTED, reward.getId(), 0, amount));
 	}
 	
 
@@ -244,6 +307,84 @@ public class Player {
 	public void setPoints(int points) {
 		this.points = points;
 	}
+
+	/**
+	 * Gets the amount of points the player has earned since her/his balance was 
+	 * written to the data base the last time.
+	 * 
+	 * @return The not yet stored change of points as int.
+	 */
+	public int getPointsDelta() {
+		return pointsDelta;
+	}
+
+	/**
+	 * Gets the amount of coins the player has earned (positive) or spent (negative) 
+	 * since her/his balance was written to the data base the last time.
+	 * 
+	 * @return The not yet stored change of coins as int.
+	 */
+	public int getCoinsDelta() {
+		return coinsDelta;
+	}
+
+	/**
+	 * Replaces the player's points and coins with the values stored in the data base 
+	 * and resets the not yet stored changes. 
+	 * 
+	 * @param points
+	 *            The current amount of points in the data base.
+	 * @param coins
+	 *            The current amount of coins in the data base.
+	 */
+	public void reconcileBalance(int points, int coins) {
+		this.points = points;
+		this.coins = coins;
+		this.pointsDelta = 0;
+		this.coinsDelta = 0;
+	}
+
+	/**
+	 * Gets the sequence number of the player's last stored event.
+	 * 
+	 * @return The sequence number as int, 0 if no event was stored yet.
+	 */
+	public int getEventSequence() {
+		return eventSequence;
+	}
+
+	/**
+	 * Sets the sequence number of the player's last stored event.
+	 * 
+	 * @param eventSequence
+	 *            The sequence number of the last event in the data base.
+	 */
+	public void setEventSequence(int eventSequence) {
+		this.eventSequence = eventSequence;
+	}
+
+	/**
+	 * Records an event of the player, which is written to the data base together 
+	 * with her/his balance.
+	 * 
+	 * @param event
+	 *            The new event.
+	 */
+	public void record(GameEvent event) {
+		pendingEvents.add(event);
+	}
+
+	/**
+	 * Gets the events of the player which are not yet written to the data base 
+	 * and forgets them.
+	 * 
+	 * @return The list of new events in the order they happened.
+	 */
+	public List<GameEvent> takePendingEvents() {
+		List<GameEvent> events = pendingEvents;
+		pendingEvents = new ArrayList<>();
+		return events;
+	}
 	
 	
 	/**
@@ -343,22 +484,22 @@ public class Player {
 
 
 	/**
-	 * Gets the avatar of a player as byte[].
+	 * Gets the hash of the player's avatar, which references the image in the store of assets.
 	 * 
-	 * @return The player's avatar as byte[].
+	 * @return The hash of the player's avatar or null if the player has no avatar.
 	 */
-	public byte[] getAvatar() {
-		return avatar;
+	public String getAvatarHash() {
+		return avatarHash;
 	}
 
 	/**
-	 * Sets player's transferred byte[] as the current avatar.
+	 * Sets the hash of the player's current avatar in the store of assets.
 	 * 
-	 * @param avatar
-	 *            The new avatar of the player
+	 * @param avatarHash
+	 *            The hash of the new avatar of the player.
 	 */
-	public void setAvatar(byte[] avatar) {
-		this.avatar = avatar;
+	public void setAvatarHash(String avatarHash) {
+		this.avatarHash = avatarHash;
 	}
 
 	/**
@@ -481,6 +622,7 @@ public class Player {
 	 */
 	public void addFinishedTask(FinishedTask task) {
 		finishedTasks.add(task);
+		record(GameEvent.of(GameEvent.Type.TASK_COMPLETED, task.getTask().getId(), 0, 0));
 	}
 
 	/**
@@ -492,6 +634,7 @@ public class Player {
 	 */
 	public void addFinishedGoal(FinishedGoal goal) {
 		finishedGoals.add(goal);
+		record(GameEvent.of(GameEvent.Type.GOAL_FINISHED, goal.getGoal().getId(), 0, 0));
 	}
 
 	/**
@@ -502,18 +645,23 @@ public class Player {
 	 *           added to the player's list of finished goals.
 	 */
 	public void addFinishedGoal(List<FinishedGoal> fGoalsList) {
-		finishedGoals.addAll(fGoalsList);
+		for (FinishedGoal goal : fGoalsList) {
+			addFinishedGoal(goal);
+		}
 	}
 
 	/**
 	 * Adds the transfered permanent reward like a Badge or Achievement to all 
 	 * already obtained rewards.
+	 * The point of time is recorded, so the reward can expire after its time to live.
 	 * 
 	 * @param reward
 	 *            The permanent reward that was just obtained.
 	 */
 	public void addPermanentReward(PermanentReward reward) {
 		rewards.add(reward);
+		rewardGrants.add(RewardGrant.of(this, reward));
+		record(GameEvent.of(GameEvent.Type.REWARD_GRANTED, reward.getId(), 0, 0));
 	}
 
 	/**
@@ -536,10 +684,18 @@ public class Player {
 		return returnList;
 	}
 
-	
+	/**
+	 * If the player has enough coins the passed amount is subtracted of her/his 
+	 * current amount of coins, for example to make a bid or to create an offer.
+	 * 
+	 * @param amount
+	 *            The amount of coins the player spends.
+	 */
 	public void spent(int amount) {
 		if (enoughPrize(amount)) {
 			this.coins -= amount;
+			this.coinsDelta -= amount;
+			record(GameEvent.of(GameEvent.Type.COINS_SPENT, 0, 0, -amount));
 		}
 	}
 	
@@ -561,7 +717,9 @@ public class Player {
 	public boolean donate(DonationCall dCall, int amount) {
 		if (enoughPrize(amount)) {
 			this.coins -= amount;
-			return dCall.donate(amount, this);
+			this.coinsDelta -= amount;
+			record(GameEvent.of(GameEvent.Type.COINS_SPENT, dCall.getId(), 0, -amount));
+			return dCall.donate(amount);
 		}
 		return false;
 	}
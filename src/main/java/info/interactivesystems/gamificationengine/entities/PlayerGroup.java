@@ -3,11 +3,14 @@ package info.interactivesystems.gamificationengine.entities;
 import info.interactivesystems.gamificationengine.api.GoalApi;
 import info.interactivesystems.gamificationengine.api.ValidateUtils;
 import info.interactivesystems.gamificationengine.dao.PlayerDAO;
+import info.interactivesystems.gamificationengine.entities.event.GameEvent;
 import info.interactivesystems.gamificationengine.entities.goal.FinishedGoal;
 import info.interactivesystems.gamificationengine.entities.goal.Goal;
 import info.interactivesystems.gamificationengine.entities.rewards.Achievement;
 import info.interactivesystems.gamificationengine.entities.rewards.Badge;
 import info.interactivesystems.gamificationengine.entities.rewards.PermanentReward;
+import info.interactivesystems.gamificationengine.entities.rewards.Reward;
+import info.interactivesystems.gamificationengine.entities.rewards.RewardGrant;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,10 +23,10 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.Lob;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 
 import org.slf4j.Logger;
@@ -41,7 +44,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
  * Like a player, a group can be assigned an image as a logo.
  */
 @Entity
-@JsonIgnoreProperties({ "belongsTo", "groupLogo" })
+@JsonIgnoreProperties({ "belongsTo", "pointsDelta", "coinsDelta", "rewardGrants", "eventSequence", "pendingEvents" })
 public class PlayerGroup {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(GoalApi.class);
@@ -66,20 +69,42 @@ public class PlayerGroup {
 	@ManyToMany(cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
 	private List<PermanentReward> rewards;
 
+	// when the permanent rewards were obtained, only loaded on demand
+	@OneToMany(mappedBy = "playerGroup", cascade = { CascadeType.PERSIST, CascadeType.REMOVE })
+	private List<RewardGrant> rewardGrants;
+
+	// only changed by relative updates, see PlayerGroupDAO#applyBalance(PlayerGroup)
+	@Column(updatable = false)
 	private int coins;
+	@Column(updatable = false)
 	private int points;
 
+	// Changes of coins and points which are not yet written to the data base.
+	@Transient
+	private int coinsDelta;
+	@Transient
+	private int pointsDelta;
+
+	// the sequence number of the group's last event, only changed by relative updates
+	@Column(updatable = false)
+	private int eventSequence;
+
+	// Events which are not yet written to the data base.
+	@Transient
+	private List<GameEvent> pendingEvents = new ArrayList<>();
+
 	private int levelIndex;
 	private String levelLabel;
 
-	@Lob
-	@Column(columnDefinition = "MEDIUMBLOB", length = 3000000)
-	private byte[] groupLogo;
+	// hash of the logo in the store of assets
+	@Column(length = 64)
+	private String groupLogoHash;
 
 	
 	public PlayerGroup() {
 		players = new ArrayList<>();
 		finishedGoals = new ArrayList<>();
+		rewardGrants = new ArrayList<>();
 	}
 	
 
@@ -200,22 +225,22 @@ public class PlayerGroup {
 	}
 
 	/**
-	 * Gets the logo of a group as a byte[].
+	 * Gets the hash of the group's logo, which references the image in the store of assets.
 	 * 
-	 * @return Byte[] of the group's image's content.
+	 * @return The hash of the group's logo or null if the group has no logo.
 	 */
-	public byte[] getGroupLogo() {
-		return groupLogo;
+	public String getGroupLogoHash() {
+		return groupLogoHash;
 	}
 
 	/**
-	 * Sets the new logo of a group.
+	 * Sets the hash of the group's new logo in the store of assets.
 	 * 
-	 * @param groupLogo
-	 *            Byte[] of the image's content.
+	 * @param groupLogoHash
+	 *            The hash of the image.
 	 */
-	public void setGroupLogo(byte[] groupLogo) {
-		this.groupLogo = groupLogo;
+	public void setGroupLogoHash(String groupLogoHash) {
+		this.groupLogoHash = groupLogoHash;
 	}
 
 	/**
@@ -234,6 +259,7 @@ public class PlayerGroup {
 	/**
 	 * Adds a permanent reward like a Badge or Achievement to the list of all
 	 * already obtained rewards.
+	 * The point of time is recorded, so the reward can expire after its time to live.
 	 * 
 	 * @param reward
 	 *            The permanent reward object that was just obtained and should 
@@ -241,28 +267,127 @@ public class PlayerGroup {
 	 */
 	public void addPermanentReward(PermanentReward reward) {
 		rewards.add(reward);
+		rewardGrants.add(RewardGrant.of(this, reward));
+		record(GameEvent.of(GameEvent.Type.REWARD_GRANTED, reward.getId(), 0, 0));
+	}
+
+	/**
+	 * Adds a just finished goal to the group's list of finished goals.
+	 * 
+	 * @param goal
+	 *            The just finished goal that should be added to the list.
+	 */
+	public void addFinishedGoal(FinishedGoal goal) {
+		finishedGoals.add(goal);
+		record(GameEvent.of(GameEvent.Type.GOAL_FINISHED, goal.getGoal().getId(), 0, 0));
 	}
 
 	/**
 	 * Raises the current amount of coins a group owns by adding the amount 
-	 * of earned coins. 
+	 * of earned coins of a reward. 
 	 *           
 	 * @param amount
 	 *  		The amount of coins that should be added passed as int.
+	 * @param reward
+	 *          The reward of the coins.
 	 */
-	public void awardCoins(int amount) {
+	public void awardCoins(int amount, Reward reward) {
 		setCoins(getCoins() + amount);
+		coinsDelta += amount;
+		record(GameEvent.of(GameEvent.Type.REWARD_GRANTED, reward.getId(), 0, amount));
 	}
 
 	/**
 	 * Raises the current amount of points a group owns by adding the amount 
-	 * of earned coins. 
+	 * of earned points of a reward. 
 	 *           
 	 * @param amount
-	 *            The amount of coins that should be added passed as int.
+	 *            The amount of points that should be added passed as int.
+	 * @param reward
+	 *            The reward of the points.
 	 */
-	public void awardPoints(int amount) {
+	public void awardPoints(int amount, Reward reward) {
 		this.points = this.points + amount;
+		this.pointsDelta += amount;
+		record(GameEvent.of(GameEvent.Type.REWARD_GRANTED, reward.getId(), amount, 0));
+	}
+
+	/**
+	 * Gets the amount of points the group has earned since its balance was written 
+	 * to the data base the last time.
+	 * 
+	 * @return The not yet stored change of points as int.
+	 */
+	public int getPointsDelta() {
+		return pointsDelta;
+	}
+
+	/**
+	 * Gets the amount of coins the group has earned since its balance was written 
+	 * to the data base the last time.
+	 * 
+	 * @return The not yet stored change of coins as int.
+	 */
+	public int getCoinsDelta() {
+		return coinsDelta;
+	}
+
+	/**
+	 * Replaces the group's points and coins with the values stored in the data base 
+	 * and resets the not yet stored changes.
+	 * 
+	 * @param points
+	 *            The current amount of points in the data base.
+	 * @param coins
+	 *            The current amount of coins in the data base.
+	 */
+	public void reconcileBalance(int points, int coins) {
+		this.points = points;
+		this.coins = coins;
+		this.pointsDelta = 0;
+		this.coinsDelta = 0;
+	}
+
+	/**
+	 * Gets the sequence number of the group's last stored event.
+	 * 
+	 * @return The sequence number as int, 0 if no event was stored yet.
+	 */
+	public int getEventSequence() {
+		return eventSequence;
+	}
+
+	/**
+	 * Sets the sequence number of the group's last stored event.
+	 * 
+	 * @param eventSequence
+	 *            The sequence number of the last event in the data base.
+	 */
+	public void setEventSequence(int eventSequence) {
+		this.eventSequence = eventSequence;
+	}
+
+	/**
+	 * Records an event of the group, which is written to the data base together 
+	 * with its balance.
+	 * 
+	 * @param event
+	 *            The new event.
+	 */
+	public void record(GameEvent event) {
+		pendingEvents.add(event);
+	}
+
+	/**
+	 * Gets the events of the group which are not yet written to the data base 
+	 * and forgets them.
+	 * 
+	 * @return The list of new events in the order they happened.
+	 */
+	public List<GameEvent> takePendingEvents() {
+		List<GameEvent> events = pendingEvents;
+		pendingEvents = new ArrayList<>();
+		return events;
 	}
 
 	/**
@@ -444,10 +569,10 @@ public class PlayerGroup {
 		List<Player> players = new ArrayList<>();
 
 		for (String playerIdString : playerIdList) {
-			LOGGER.debug("Player To Add: " + playerIdString);
+			LOGGER.debug("Player To Add: {}", playerIdString);
 			Player player = playerDao.getPlayer(ValidateUtils.requireGreaterThanZero(playerIdString), apiKey);
 			if (player != null) {
-				LOGGER.debug("Player added: " + player.getId());
+				LOGGER.debug("Player added: {}", player.getId());
 				players.add(player);
 			}
 		}
@@ -4,12 +4,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.CascadeType;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.validation.constraints.NotNull;
@@ -17,7 +17,6 @@ import javax.validation.constraints.NotNull;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import info.interactivesystems.gamificationengine.entities.Organisation;
-import info.interactivesystems.gamificationengine.entities.Player;
 
 /**
  * A DonationCall represents a call for donations. This could be a real world purpose like a real donation for a
@@ -45,14 +44,22 @@ public class DonationCall {
 	@NotNull
 	private int goalAmount;
 
+	/**
+	 * The current amount and if the goal is reached are only changed by relative updates 
+	 * of the data base (see {@link info.interactivesystems.gamificationengine.dao.DonationDAO#donate(DonationCall, int)}), 
+	 * so parallel donations don't overwrite each other.
+	 */
+	@Column(updatable = false)
 	private int currentAmount;
 
-	@ManyToMany(cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
-	private List<Player> donors;
-
-	@OneToMany(cascade = {CascadeType.PERSIST, CascadeType.REMOVE}, fetch = FetchType.EAGER, mappedBy="donationCall")
+	/**
+	 * The donations are only loaded when they are needed. The donors of a call for donations 
+	 * are the players of these donations.  
+	 */
+	@OneToMany(cascade = {CascadeType.PERSIST, CascadeType.REMOVE}, fetch = FetchType.LAZY, mappedBy="donationCall")
 	private List<Donation> donations;
 	
+	@Column(updatable = false)
 	private boolean goalReached;
 
 	public DonationCall() {
@@ -60,7 +67,6 @@ public class DonationCall {
 		currentAmount = 0;
 		
 		donations = new ArrayList<>();
-		donors = new ArrayList<>();
 	}
 
 	/**
@@ -178,25 +184,6 @@ public class DonationCall {
 		this.currentAmount = currentAmount;
 	}
 
-	/**
-	 * Gets all players who have done a donation to this call for donations.
-	 * 
-	 * @return List of player who donated to this call for donations.
-	 */
-	public List<Player> getDonors() {
-		return donors;
-	}
-
-	/**
-	 * Sets the list of players who have done a donation.
-	 * 
-	 * @param donors
-	 *            All players who has donated to the call for donations as a list.
-	 */
-	public void setDonors(List<Player> donors) {
-		this.donors = donors;
-	}
-
 	/**
 	 * Gets the value if the DonationCall is reached.
 	 * 
@@ -232,20 +219,16 @@ public class DonationCall {
 	}
 
 	/**
-	 * A Player can donate an amount of his obtained coins to the call for donations. If a player
-	 * donate she/he is added to a list of donors and the donation is added to the DonationCall's 
-	 * current amount.
+	 * A Player can donate an amount of his obtained coins to the call for donations. The 
+	 * donation is added to the DonationCall's current amount. 
 	 * 
 	 * @param amount
 	 *            The amount of coins which the player donates.
-	 * @param player
-	 *            The player who donates.
 	 * @return Boolean value if with the latest donation the predetermined goal is reached (true) 
 	 * 		   or not (false).
 	 */
-	public boolean donate(int amount, Player player) {
+	public boolean donate(int amount) {
 		this.currentAmount += amount;
-		this.donors.add(player);
 
 		return this.checkIsReached();
 	}
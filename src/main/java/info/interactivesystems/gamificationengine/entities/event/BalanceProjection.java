@@ -0,0 +1,149 @@
+package info.interactivesystems.gamificationengine.entities.event;
+
+/**
+ * The state of one player or group which is rebuilt from its events. The events are applied in
+ * the order of their sequence numbers and the points and coins are summed up, so the projection
+ * is the balance the player or group should have. An event which doesn't follow its predecessor
+ * means that the log of the owner is incomplete, so nothing can be rebuilt from it.
+ */
+public class BalanceProjection {
+
+	private final GameEvent.Owner owner;
+	private final int ownerId;
+
+	private int sequence;
+	private int events;
+	private int points;
+	private int coins;
+	private int tasks;
+	private int goals;
+	private int rewards;
+
+	/**
+	 * Creates an empty projection of a player or group.
+	 *
+	 * @param owner
+	 *            Whether the projection belongs to a player or to a group.
+	 * @param ownerId
+	 *            The id of the player or group.
+	 */
+	public BalanceProjection(GameEvent.Owner owner, int ownerId) {
+		this.owner = owner;
+		this.ownerId = ownerId;
+	}
+
+	/**
+	 * Applies the next event of the owner.
+	 *
+	 * @param event
+	 *            The event which follows the last applied event.
+	 * @throws IllegalStateException
+	 *             If the event doesn't follow the last applied event.
+	 */
+	public void apply(GameEvent event) {
+		int expected = event.getType() == GameEvent.Type.BALANCE_OPENED && events == 0 ? 0 : sequence + 1;
+		if (event.getSequenceNumber() != expected) {
+			throw new IllegalStateException("event " + event.getSequenceNumber() + " of " + owner + " " + ownerId
+					+ " doesn't follow event " + sequence);
+		}
+
+		sequence = event.getSequenceNumber();
+		events++;
+		points += event.getPoints();
+		coins += event.getCoins();
+		switch (event.getType()) {
+		case TASK_COMPLETED:
+			tasks++;
+			break;
+		case GOAL_FINISHED:
+			goals++;
+			break;
+		case REWARD_GRANTED:
+			rewards++;
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Gets whether the projection belongs to a player or to a group.
+	 *
+	 * @return The kind of the owner.
+	 */
+	public GameEvent.Owner getOwner() {
+		return owner;
+	}
+
+	/**
+	 * Gets the id of the player or group.
+	 *
+	 * @return The id of the owner as int.
+	 */
+	public int getOwnerId() {
+		return ownerId;
+	}
+
+	/**
+	 * Gets the sequence number of the last applied event.
+	 *
+	 * @return The sequence number as int.
+	 */
+	public int getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Gets the number of applied events.
+	 *
+	 * @return The number of events as int.
+	 */
+	public int getEvents() {
+		return events;
+	}
+
+	/**
+	 * Gets the sum of the points of all applied events.
+	 *
+	 * @return The points as int.
+	 */
+	public int getPoints() {
+		return points;
+	}
+
+	/**
+	 * Gets the sum of the coins of all applied events.
+	 *
+	 * @return The coins as int.
+	 */
+	public int getCoins() {
+		return coins;
+	}
+
+	/**
+	 * Gets the number of completed tasks.
+	 *
+	 * @return The number of tasks as int.
+	 */
+	public int getTasks() {
+		return tasks;
+	}
+
+	/**
+	 * Gets the number of finished goals.
+	 *
+	 * @return The number of goals as int.
+	 */
+	public int getGoals() {
+		return goals;
+	}
+
+	/**
+	 * Gets the number of granted rewards.
+	 *
+	 * @return The number of rewards as int.
+	 */
+	public int getRewards() {
+		return rewards;
+	}
+}
@@ -0,0 +1,227 @@
+package info.interactivesystems.gamificationengine.entities.event;
+
+import info.interactivesystems.gamificationengine.entities.Organisation;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * An event records one change of the state of a player or a group of players, like a completed
+ * task, a finished goal, a granted reward or spent coins. The events are only appended and never
+ * changed, so the points and coins of a player or group can be rebuilt and audited by replaying
+ * them in the order of their sequence numbers.
+ * The events of each player and each group are numbered without gaps, starting with 1. The event
+ * with the sequence number 0 holds the balance the player or group had when the first event was
+ * written, if it wasn't zero.
+ */
+@Entity
+@Table(uniqueConstraints = { @UniqueConstraint(columnNames = { "owner", "ownerId", "sequenceNumber" }) },
+		indexes = { @Index(columnList = "belongsTo_id, owner, ownerId") })
+@JsonIgnoreProperties({ "belongsTo" })
+public class GameEvent {
+
+	/**
+	 * The kinds of owners of events.
+	 */
+	public enum Owner {
+		PLAYER, GROUP
+	}
+
+	/**
+	 * The kinds of events.
+	 */
+	public enum Type {
+		/** The balance before the first event, always with the sequence number 0. */
+		BALANCE_OPENED,
+		/** A task was completed, the subject is the task. */
+		TASK_COMPLETED,
+		/** A goal was finished, the subject is the goal. */
+		GOAL_FINISHED,
+		/** A reward was granted, the subject is the reward. */
+		REWARD_GRANTED,
+		/** Coins were earned without a reward, like the prize of an offer or a refund. */
+		COINS_AWARDED,
+		/** Points were earned without a reward. */
+		POINTS_AWARDED,
+		/** Coins were spent, like for a bid or a donation. */
+		COINS_SPENT
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private long id;
+
+	@NotNull
+	@ManyToOne
+	private Organisation belongsTo;
+
+	@NotNull
+	@Enumerated(EnumType.STRING)
+	private Owner owner;
+
+	private int ownerId;
+
+	private int sequenceNumber;
+
+	@NotNull
+	@Enumerated(EnumType.STRING)
+	private Type type;
+
+	private int subjectId;
+
+	private int points;
+
+	private int coins;
+
+	@NotNull
+	private LocalDateTime occurredAt;
+
+	public GameEvent() {
+	}
+
+	/**
+	 * Creates a new event which happens now. The owner and the sequence number are set when the
+	 * event is stored.
+	 *
+	 * @param type
+	 *            The kind of the event.
+	 * @param subjectId
+	 *            The id of the task, goal or reward of the event or 0 if the event has no subject.
+	 * @param points
+	 *            The change of points.
+	 * @param coins
+	 *            The change of coins, negative if coins were spent.
+	 * @return The new event.
+	 */
+	public static GameEvent of(Type type, int subjectId, int points, int coins) {
+		GameEvent event = new GameEvent();
+		event.type = type;
+		event.subjectId = subjectId;
+		event.points = points;
+		event.coins = coins;
+		event.occurredAt = LocalDateTime.now();
+		return event;
+	}
+
+	/**
+	 * Gets the id of the event. The ids grow in the order in which the events were stored.
+	 *
+	 * @return The id of the event as long.
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the organisation of the owner of the event.
+	 *
+	 * @return The organisation as an object.
+	 */
+	public Organisation getBelongsTo() {
+		return belongsTo;
+	}
+
+	/**
+	 * Gets whether the event belongs to a player or to a group.
+	 *
+	 * @return The kind of the owner.
+	 */
+	public Owner getOwner() {
+		return owner;
+	}
+
+	/**
+	 * Gets the id of the player or group the event belongs to.
+	 *
+	 * @return The id of the owner as int.
+	 */
+	public int getOwnerId() {
+		return ownerId;
+	}
+
+	/**
+	 * Sets the owner and the sequence number of the event before it is stored.
+	 *
+	 * @param belongsTo
+	 *            The organisation of the owner.
+	 * @param owner
+	 *            Whether the event belongs to a player or to a group.
+	 * @param ownerId
+	 *            The id of the player or group.
+	 * @param sequenceNumber
+	 *            The position of the event in the events of the owner.
+	 */
+	public void assign(Organisation belongsTo, Owner owner, int ownerId, int sequenceNumber) {
+		this.belongsTo = belongsTo;
+		this.owner = owner;
+		this.ownerId = ownerId;
+		this.sequenceNumber = sequenceNumber;
+	}
+
+	/**
+	 * Gets the position of the event in the events of its owner.
+	 *
+	 * @return The sequence number as int.
+	 */
+	public int getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	/**
+	 * Gets the kind of the event.
+	 *
+	 * @return The type of the event.
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Gets the id of the task, goal or reward of the event.
+	 *
+	 * @return The id of the subject or 0 if the event has no subject.
+	 */
+	public int getSubjectId() {
+		return subjectId;
+	}
+
+	/**
+	 * Gets the change of points.
+	 *
+	 * @return The points as int.
+	 */
+	public int getPoints() {
+		return points;
+	}
+
+	/**
+	 * Gets the change of coins.
+	 *
+	 * @return The coins as int, negative if coins were spent.
+	 */
+	public int getCoins() {
+		return coins;
+	}
+
+	/**
+	 * Gets the point of time when the event happened.
+	 *
+	 * @return The date and time of the event.
+	 */
+	public LocalDateTime getOccurredAt() {
+		return occurredAt;
+	}
+}
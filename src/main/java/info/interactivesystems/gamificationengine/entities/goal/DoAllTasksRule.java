@@ -44,24 +44,28 @@ public class DoAllTasksRule extends TaskRule {
 	public List<Task> getCompletedTasks(List<FinishedTask> finishedPlayerTasks, LocalDateTime lastDate) {
 
 		List<Task> completedTasks = new ArrayList<>();
-		List<Task> finishedTasks;
+		Map<Task, Long> finishedTasks;
 
-		LOGGER.debug("Last Date: " + lastDate);
-		LOGGER.debug("Temp Tasks List last item: " + finishedPlayerTasks.get((finishedPlayerTasks.size() - 1)).getFinishedDate());
+		LOGGER.debug("Last Date: {}", lastDate);
+		if (LOGGER.isDebugEnabled() && !finishedPlayerTasks.isEmpty()) {
+			LOGGER.debug("Temp Tasks List last item: {}", finishedPlayerTasks.get(finishedPlayerTasks.size() - 1).getFinishedDate());
+		}
 
 		if (lastDate != null) {
 			// grouping and counting finished tasks
 			finishedTasks = finishedPlayerTasks.stream().filter(o -> tasks.contains(o.getTask()) && o.getFinishedDate().isAfter(lastDate))
-					.map(FinishedTask::getTask).collect(Collectors.toList());
+					.collect(Collectors.groupingBy(FinishedTask::getTask, Collectors.summingLong(FinishedTask::getOccurrences)));
 		} else {
 			// grouping and counting finished tasks
-			finishedTasks = finishedPlayerTasks.stream().filter(o -> tasks.contains(o.getTask())).map(FinishedTask::getTask)
-					.collect(Collectors.toList());
+			finishedTasks = finishedPlayerTasks.stream().filter(o -> tasks.contains(o.getTask()))
+					.collect(Collectors.groupingBy(FinishedTask::getTask, Collectors.summingLong(FinishedTask::getOccurrences)));
 		}
 
 		for (Task task : tasks) {
-			if (finishedTasks.remove(task)) {
-				LOGGER.debug("Completed Task: " + task.getTaskName());
+			// each finished task only completes one task of the rule
+			if (finishedTasks.getOrDefault(task, 0L) > 0) {
+				finishedTasks.merge(task, -1L, Long::sum);
+				LOGGER.debug("Completed Task: {}", task.getTaskName());
 				completedTasks.add(task);
 			}
 		}
@@ -112,20 +116,22 @@ public class DoAllTasksRule extends TaskRule {
 		Map<String, Long> tasksToComplete = tasks.stream().collect(Collectors.groupingBy(Task::getTaskName, Collectors.counting()));
 
 		LOGGER.debug(" Rule = DoALLTasksRule! ");
-		LOGGER.debug("Last Date: " + lastDate);
-		LOGGER.debug("Temp Tasks List last item: " + finishedPlayerTasks.get((finishedPlayerTasks.size() - 1)).getFinishedDate());
+		LOGGER.debug("Last Date: {}", lastDate);
+		if (LOGGER.isDebugEnabled() && !finishedPlayerTasks.isEmpty()) {
+			LOGGER.debug("Temp Tasks List last item: {}", finishedPlayerTasks.get(finishedPlayerTasks.size() - 1).getFinishedDate());
+		}
 
 		if (lastDate != null) {
 
 			// grouping and counting finished tasks after last finishedDate
 			finishedTasks = finishedPlayerTasks.stream().filter(o -> tasks.contains(o.getTask()) && o.getFinishedDate().isAfter(lastDate))
-					.collect(Collectors.groupingBy(o -> o.getTask().getTaskName(), Collectors.counting()));
+					.collect(Collectors.groupingBy(o -> o.getTask().getTaskName(), Collectors.summingLong(FinishedTask::getOccurrences)));
 
 		} else {
 
 			// grouping and counting finished tasks
 			finishedTasks = finishedPlayerTasks.stream().filter(o -> tasks.contains(o.getTask()))
-					.collect(Collectors.groupingBy(o -> o.getTask().getTaskName(), Collectors.counting()));
+					.collect(Collectors.groupingBy(o -> o.getTask().getTaskName(), Collectors.summingLong(FinishedTask::getOccurrences)));
 
 		}
 
@@ -134,13 +140,13 @@ public class DoAllTasksRule extends TaskRule {
 			if (finishedTasks.containsKey(stringLongEntry.getKey())) {
 				if (finishedTasks.get(stringLongEntry.getKey()) < stringLongEntry.getValue()) {
 					// not enough finished tasks of this type
-					LOGGER.debug("not enough finished tasks of this type: " + stringLongEntry.getKey() + " -> "
-							+ finishedTasks.get(stringLongEntry.getKey()) + "/" + stringLongEntry.getValue());
+					LOGGER.debug("not enough finished tasks of this type: {} -> {}/{}", stringLongEntry.getKey(),
+							finishedTasks.get(stringLongEntry.getKey()), stringLongEntry.getValue());
 					return false;
 				}
 			} else {
 				// task is missing in finished tasks
-				LOGGER.debug("task is missing in finished tasks: " + stringLongEntry.getKey());
+				LOGGER.debug("task is missing in finished tasks: {}", stringLongEntry.getKey());
 				return false;
 			}
 		}
@@ -299,7 +299,7 @@ public class Goal {
 				// get finishedDate of last goal
 				LOGGER.debug("Goal: is repeatable");
 				lastDate = oldFinishedGoals.get(oldFinishedGoals.size() - 1).getFinishedDate();
-				LOGGER.debug("Goal: last finished: " + lastDate);
+				LOGGER.debug("Goal: last finished: {}", lastDate);
 			} else {
 				LOGGER.debug("Goal: is not repeatable -> break");
 				return null;
@@ -331,14 +331,45 @@ public class Goal {
 		return null;
 	}
 
+	/**
+	 * This method checks if a player has completed the goal with the tasks she/he has already finished 
+	 * or with her/his current points. It is used to re-evaluate the players after the goal was changed, 
+	 * for example when other roles are allowed to complete it. The player has to own one of the goal's 
+	 * roles, if the goal is restricted by roles. Goals of groups aren't re-evaluated.
+	 * 
+	 * @param player
+	 * 				The player whose finished tasks and points are checked.
+	 * @return The just finished goal when the player has completed it now, otherwise null is returned.
+	 */
+	public FinishedGoal reevaluate(Player player) {
+		if (isPlayerGroupGoal()) {
+			return null;
+		}
+		if (canCompletedBy != null && !canCompletedBy.isEmpty() && canCompletedBy.stream().noneMatch(r -> player.getBelongsToRoles().contains(r))) {
+			return null;
+		}
+
+		List<FinishedGoal> oldFinishedGoals = player.getFinishedGoalsByGoal(this);
+		if (rule instanceof TaskRule) {
+			return checkGoal(player, null, oldFinishedGoals, player.getFinishedTasks(), (TaskRule) rule);
+		}
+		if (rule instanceof GetPointsRule && oldFinishedGoals.isEmpty() && ((GetPointsRule) rule).checkRule(player)) {
+			FinishedGoal fGoal = new FinishedGoal();
+			fGoal.setGoal(this);
+			fGoal.setFinishedDate(LocalDateTime.now());
+			return fGoal;
+		}
+		return null;
+	}
+
 	public static void logGoalDetails(String name, String repeatable, String ruleId, String rewardIds, String roleIds, String isGroupGoal, String apiKey) {
 		LOGGER.debug("createNewGoal apiKey");
-		LOGGER.debug("apiKey: " + apiKey);
-		LOGGER.debug("name: " + name);
-		LOGGER.debug("repeatable: " + repeatable);
-		LOGGER.debug("ruleId: " + ruleId);
-		LOGGER.debug("rewardIds: " + rewardIds);
-		LOGGER.debug("rewardIds: " + roleIds);
+		LOGGER.debug("apiKey: {}", apiKey);
+		LOGGER.debug("name: {}", name);
+		LOGGER.debug("repeatable: {}", repeatable);
+		LOGGER.debug("ruleId: {}", ruleId);
+		LOGGER.debug("rewardIds: {}", rewardIds);
+		LOGGER.debug("rewardIds: {}", roleIds);
 	}
 
 	
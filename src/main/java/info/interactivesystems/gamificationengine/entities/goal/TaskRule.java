@@ -113,10 +113,10 @@ public abstract class TaskRule extends GoalRule {
 	
 	public static void logTaskRuleDetails(String type, String apiKey, String name, String description, String taskIds) {
 		LOGGER.debug("createNewTaskRule called");
-		LOGGER.debug("Type: " + type);
-		LOGGER.debug("ApiKey: " + apiKey);
-		LOGGER.debug("Name: " + name);
-		LOGGER.debug("Description: " + description);
-		LOGGER.debug("TaskIds: " + taskIds);
+		LOGGER.debug("Type: {}", type);
+		LOGGER.debug("ApiKey: {}", apiKey);
+		LOGGER.debug("Name: {}", name);
+		LOGGER.debug("Description: {}", description);
+		LOGGER.debug("TaskIds: {}", taskIds);
 	}
 }
@@ -4,16 +4,12 @@ import info.interactivesystems.gamificationengine.dao.MarketPlaceDAO;
 import info.interactivesystems.gamificationengine.dao.PlayerDAO;
 import info.interactivesystems.gamificationengine.entities.Organisation;
 import info.interactivesystems.gamificationengine.entities.Player;
-import info.interactivesystems.gamificationengine.entities.Role;
-import info.interactivesystems.gamificationengine.entities.task.Task;
 import info.interactivesystems.gamificationengine.utils.OfferMarketPlace;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
@@ -140,100 +136,34 @@ public class MarketPlace {
 	}
 	
 	/**
-	 * This method filters all existing offers in a marketplace by a passed role of a player.
-	 * So a list is returned which contains only offers which at least match one role of 
-	 * the player.
-	 *   
-	 * @param roles
-	 * 			The player whose roles are checked if they match an offer.
-	 * 			The list of Roles which are the hint for filtering.
-	 * @return The list of all offers which are in the marketplace and a player is allowed
-	 * 			to complete.
-	 */
-	public List<Offer> filterOfferByRole(List<Role> roles) {
-		List<Offer> matchingOffers = new ArrayList<>();
-		for (Offer offer : this.getOffers()) {
-			for (Role r : roles) {
-					if (offer.getTask().getAllowedFor().contains(r)) {
-					matchingOffers.add(offer);
-					break;
-				}
-			}
-		}
-		return matchingOffers;
-	}
-
-	/**
-	 * This method filters all matching offers to the player's roles and filters it by the
-	 * date so the latest offers are presented.  
-	 * A list with a specific count of offers are returned that are the latest and match at least one role of
-	 * the player. 
+	 * The coins of an offer are given back when the offer is removed without that its task was 
+	 * completed. Every player who has made a bid gets the coins of her/his bid back and the 
+	 * creator of the offer gets the rest of the prize, which is her/his initial bid.
+	 * The coins are only awarded, the balances have to be stored afterwards with 
+	 * {@link PlayerDAO#applyBalances(java.util.Collection)}.
 	 * 
-	 * @param matchingOffers
-	 * 			All offers which match at least one role of the player.
-	 * @param count
-	 * 			The number of offers that are returned with the list.
-	 * @return The list with the number of the second parameter and matching offers to the 
-	 * player's roles is returned.
-	 */
-	public List<Offer> filterOfferByDate(List<Offer> matchingOffers, int count) {
-		Comparator<Offer> byOfferDate = (o1, o2) -> o1.getOfferDate().compareTo(o2.getOfferDate());
-		return filterOfferByParam(matchingOffers, count, byOfferDate, true);
-	}
-
-	/**
-	 * This method filters all matching offers to the player's roles and filters it by the 
-	 * prize that can be earned. 
-	 * A list with x offers are returned that have the highest prize and match at least one 
-	 * role of the player. 
-	 * 
-	 * @param matchingOffers
-	 * 			All offers which match at least one role of the player.
-	 * @param count
-	 * 			The number of offers that are returned with the list.
-	 * @return The list with the number of the second parameter and matching offers to the 
-	 * player's roles is returned.
-	 */
-	public List<Offer> filterOffersByPrize(List<Offer> matchingOffers, int count) {
-		Comparator<Offer> byOfferPrize = (o1, o2) -> Integer.compare(o1.getPrize(), o2.getPrize());
-		return filterOfferByParam(matchingOffers, count, byOfferPrize, true);
-	}
-
-	/**
-	 * This method filters the offers thate are matching at least one role of the player
-	 * by the passed conditions.
-	 * 
-	 * @param matchingOffers
-	 * 			All offers which match at least one role of the player.
-	 * @param count
-	 * 			The number of offers that are returned with the list.
-	 * @param comp
-	 * 			The comparator which defines the filter method. This can be for example
-	 * 			compare the offers' prize or their dates of creation.
-	 * @param reverse
-	 * 			Boolean i the order of the result list should be reversed (true) or not 
-	 * 			(false).
-	 * @return The list of filtered offers.
+	 * @param offer
+	 * 			The offer whose coins are given back.
+	 * @param bids
+	 * 			All bids which were made for this offer.
+	 * @return The players who get coins back.
 	 */
-	private List<Offer> filterOfferByParam(List<Offer> matchingOffers, int count, Comparator<Offer> comp, boolean reverse) {
-		int toIndex;
-
-		if (reverse) {
-			Collections.sort(matchingOffers, Collections.reverseOrder(comp));
-		} else {
-			Collections.sort(matchingOffers, comp);
-		}
-
-		if (count < matchingOffers.size() && count >= 0) {
-			toIndex = count;
-		} else {
-			toIndex = matchingOffers.size();
+	public static List<Player> refundOffer(Offer offer, List<Bid> bids) {
+		List<Player> players = new ArrayList<>();
+		int sum = 0;
+		
+		for (Bid bid : bids) {
+			bid.getPlayer().awardCoins(bid.getPrize());
+			sum += bid.getPrize();
+			players.add(bid.getPlayer());
 		}
 
-		return matchingOffers.stream().limit(toIndex).collect(Collectors.toList());
+		Player owner = offer.getPlayer();
+		owner.awardCoins(offer.getPrize() - sum);
+		players.add(owner);
+		return players;
 	}
-	
-	
+
 	/**
 	 * Every prize of every offer in the passed list is added and obtained to the
 	 * player who has finished the task. Then every offer in the passed list is 
@@ -241,7 +171,7 @@ public class MarketPlace {
 	 * 
 	 * @param taskOffers
 	 * 			A list of offers that contain the same task. Additionally the list 
-	 * 			contains for each offer the id of the marketplace is  
+	 * 			contains for each offer the id of the marketplace where it is offered.
 	 * @param player
 	 * 			The player that has fulfilled the task.
 	 * @param marketPlDao
@@ -257,74 +187,27 @@ public class MarketPlace {
 		
 		int prizeReward = 0;
 		
-		HashSet<MarketPlace> marketPls = new HashSet<>();
-		List<Offer> offersToComplete = new ArrayList<>();
+		Set<Integer> marketIds = new HashSet<>();
 		List<Offer> offersToDelete = new ArrayList<>();
 		
 		for (OfferMarketPlace offerMarketPlace : taskOffers) {
-			offersToComplete.add(offerMarketPlace.getOffer());
-			marketPls.add(marketPlDao.getMarketplace(offerMarketPlace.getMarketPlaceId(), apiKey));	
-		}	
-		
-		for (MarketPlace places : marketPls) {
-			List<Offer> removeOffers = new ArrayList<>();
+			marketIds.add(offerMarketPlace.getMarketPlaceId());
 			
-			//Bids are deleted by cascading.
-			for (Offer offer2 : offersToComplete) {
-				if(places.offers.contains(offer2)){
-					prizeReward += offer2.getPrize();
-					removeOffers.add(offer2);
-					LOGGER.debug("Offer removed and prize = " + prizeReward);
-				}
+			Offer offer = offerMarketPlace.getOffer();
+			if (!offersToDelete.contains(offer)) {
+				prizeReward += offer.getPrize();
+				offersToDelete.add(offer);
 			}
-			offersToComplete.removeAll(removeOffers);
-			offersToDelete.addAll(removeOffers);
-			places.offers.removeAll(removeOffers);
-			marketPlDao.insertMarketPlace(places);
-			LOGGER.debug("MarketPlace updated " + places.getId());
+		}	
+		
+		for (MarketPlace place : marketPlDao.getMarketplaces(marketIds, apiKey)) {
+			place.offers.removeAll(offersToDelete);
 		}
 			
 		marketPlDao.deleteOffers(offersToDelete, apiKey);
 		
-		player.setCoins(player.getCoins() + prizeReward);
-			
-		LOGGER.debug("reward awarded: " + prizeReward + " coins" );
-		playerDao.insert(player);
-				
-	}
-	
-	/**
-	 * This methods creates an ArrayList of all offers that contains a specific 
-	 * task. Additionally to every offer the id of the marketplace is added where 
-	 * the offer can be find.
-	 *   
-	 * @param marketPlDao
-	 * 			The DAO to get the marketplace of the database.
-	 * @param task
-	 * 			All offers of the marketplaces are returned in the list that 
-	 * 			contains this task.
-	 * @param apiKey
-	 * 			The valid query parameter API key affiliated to one specific organisation, 
-	 *          to which the offer belongs to.
-	 * @return The List of all offers and their marketplace ids which contain the passed task.
-	 */
-	public static ArrayList<OfferMarketPlace> getAllOfferMarketPlaces(MarketPlaceDAO marketPlDao, Task task, String apiKey){
-		List<Offer> offers = marketPlDao.getOffersByTask(task, apiKey); 
-		
-		ArrayList<OfferMarketPlace> offList = new ArrayList<>();
-		
-		List<MarketPlace> markets = marketPlDao.getAllMarketPlaces(apiKey);
-		for (MarketPlace marketPlace : markets) {
-			List<Offer> marketOffers = marketPlace.getOffers();
-			
-			for (Offer offer : offers) {
-				if(marketOffers.contains(offer)){
-					OfferMarketPlace offMarP = new OfferMarketPlace(offer, marketPlace.getId());
-					offList.add(offMarP);
-				}
-			}
-		}
-		return offList;
+		player.awardCoins(prizeReward);
+		playerDao.applyBalance(player);
 	}
 	
 }
@@ -10,13 +10,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.CascadeType;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
 import org.hibernate.annotations.Fetch;
@@ -32,6 +35,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
  * The particular task is then also added to the player’s list of the finished tasks. 
  */
 @Entity
+@Table(indexes = { @Index(columnList = "offerDate"), @Index(columnList = "prize"), @Index(columnList = "endDate") })
 @JsonIgnoreProperties({ "belongsTo", "bids", "player" })
 public class Offer {
 
@@ -49,6 +53,10 @@ public class Offer {
 	private LocalDateTime endDate;
 	private LocalDateTime deadLine;
 
+	/**
+	 * The prize is only changed by relative updates, see MarketPlaceDAO#raisePrize(Offer, int).
+	 */
+	@Column(updatable = false)
 	private int prize;
 
 	@ManyToOne
@@ -271,20 +279,6 @@ public class Offer {
 		return getBelongsTo().getApiKey().equals(organisation.getApiKey());
 	}
 	
-	/**
-	 * When a player does give a bid, the coins of this bid is added to the current prize.
-	 * 
-	 * @param addPrize
-	 * 			Amount by which the current prize of the offer increase.
-	 * @return int
-	 * 			The new prize of the offer.
-	 * 		
-	 */
-	public int addPrize(String addPrize) {
-		this.prize = this.getPrize() + Integer.valueOf(addPrize);
-		return prize;
-	}
-	
 	/**
 	 * This method gets the ids of all offers which have to be deleted before a specific
 	 * task can be deleted. These ids are then passed to create a message in the
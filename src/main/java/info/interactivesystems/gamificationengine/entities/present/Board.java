@@ -13,6 +13,7 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
@@ -43,9 +44,11 @@ public class Board {
 
 	/**
 	 * Received presents are stored in the inBox-list. The player can decide if she/he wants to accept or deny each present.
+	 * The names of the columns are those of the naming strategy, they are stated because presents are delivered with 
+	 * SQL.
 	 */
 	@ManyToMany(cascade = CascadeType.PERSIST)
-	@JoinTable(name = "board_inBox")
+	@JoinTable(name = "board_inBox", joinColumns = @JoinColumn(name = "board"), inverseJoinColumns = @JoinColumn(name = "in_box"))
 	private List<Present> inBox;
 
 	/**
@@ -298,40 +301,6 @@ public class Board {
 		}
 	}
 	
-	/**
-	 * This method gets all message of the type TextMessage which were accepted by the player.
-	 *  
-	 * @param presents
-	 * 				All currently accepted presents of a player.
-	 * @return A list with all text messages of the list of accepted presents.
-	 */
-	public List<TextMessage> filterTextMessages(List<PresentAccepted> presents){
-		List<TextMessage> textMList = new ArrayList<>();
-		for (PresentAccepted present : presents) {
-			if (present.getPresent() instanceof TextMessage) {
-				textMList.add((TextMessage) present.getPresent());
-			}
-		}
-		return textMList;
-	}
-
-	/**
-	 * This method gets all message of the type ImageMessage which were accepted by the player.
-	 *  
-	 * @param presents
-	 * 				All currently accepted presents of a player.
-	 * @return A list with all text messages of the list of accepted presents.
-	 */
-	public List<ImageMessage> filterImageMessages(List<PresentAccepted> presents) {
-		List<ImageMessage> imMessageList = new ArrayList<>();
-		for (PresentAccepted present : presents) {
-			if (present.getPresent() instanceof ImageMessage) {
-				imMessageList.add((ImageMessage) present.getPresent());
-			}
-		}
-		return imMessageList;
-	}
-
 	/**
 	 * This method removes the passed present from the board's list of current presents.
 	 * 
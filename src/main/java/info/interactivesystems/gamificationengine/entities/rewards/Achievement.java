@@ -10,7 +10,6 @@ import java.net.URL;
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
-import javax.persistence.Lob;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
@@ -23,35 +22,34 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
  */
 @Entity
 @DiscriminatorValue("RewAchieve")
-@JsonIgnoreProperties({ "belongsTo", "imageIcon" })
+@JsonIgnoreProperties({ "belongsTo" })
 public class Achievement extends PermanentReward {
 
 
 	private URL iconURL;
 	
-	@Lob
-//	@Basic(fetch = FetchType.LAZY)
-	@Column(columnDefinition = "BLOB")
-	private byte[] imageIcon;
+	// hash of the icon in the store of assets
+	@Column(length = 64)
+	private String imageIconHash;
 
 
 	/**
-	 * Gets the achievement's icon as byte[].
+	 * Gets the hash of the achievement's icon, which references the image in the store of assets.
 	 * 
-	 * @return byte[] of the achievement's icon
+	 * @return The hash of the achievement's icon.
 	 */
-	public byte[] getImageIcon() {
-		return imageIcon;
+	public String getImageIconHash() {
+		return imageIconHash;
 	}
 
 	/**
-	 * Sets the byte[] as an icon of an achievement.
+	 * Sets the hash of the achievement's icon in the store of assets.
 	 * 
-	 * @param iconImage
-	 *            The icon that should be connected with the achievement.
+	 * @param imageIconHash
+	 *            The hash of the icon that should be connected with the achievement.
 	 */
-	public void setImageIcon(byte[] iconImage) {
-		this.imageIcon = iconImage;
+	public void setImageIconHash(String imageIconHash) {
+		this.imageIconHash = imageIconHash;
 	}
 
 
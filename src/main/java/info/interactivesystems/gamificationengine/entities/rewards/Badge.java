@@ -10,7 +10,6 @@ import java.net.URL;
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
-import javax.persistence.Lob;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
@@ -22,15 +21,15 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
  */
 @Entity
 @DiscriminatorValue("RewBadge")
-@JsonIgnoreProperties({ "belongsTo", "imageIcon" })
+@JsonIgnoreProperties({ "belongsTo" })
 public class Badge extends PermanentReward {
 
 
 	private URL iconURL;
 
-	@Lob
-	@Column(columnDefinition = "BLOB")
-	private byte[] imageIcon;
+	// hash of the icon in the store of assets
+	@Column(length = 64)
+	private String imageIconHash;
 
 
 
@@ -54,22 +53,22 @@ public class Badge extends PermanentReward {
 	}
 
 	/**
-	 * Gets the badge's icon as byte[].
+	 * Gets the hash of the badge's icon, which references the image in the store of assets.
 	 * 
-	 * @return Byte[] of the badge's icon that is stored in the database.
+	 * @return The hash of the badge's icon.
 	 */
-	public byte[] getImageIcon() {
-		return imageIcon;
+	public String getImageIconHash() {
+		return imageIconHash;
 	}
 
 	/**
-	 * Sets the byte[] as an icon of a badge that is stored in the database.
+	 * Sets the hash of the badge's icon in the store of assets.
 	 * 
-	 * @param icon
-	 *            The icon that should be connected with the badge as byte[].
+	 * @param imageIconHash
+	 *            The hash of the icon that should be connected with the badge.
 	 */
-	public void setImageIcon(byte[] icon) {
-		imageIcon = icon;
+	public void setImageIconHash(String imageIconHash) {
+		this.imageIconHash = imageIconHash;
 	}
 
 	/**
@@ -54,7 +54,7 @@ public class Coins extends VolatileReward {
 	 */
 	@Override
 	public void addReward(Player player, GoalDAO goalDao, RuleDAO ruleDao) {
-		player.awardCoins(amount);
+		player.awardCoins(amount, this);
 	}
 
 	/**
@@ -70,6 +70,6 @@ public class Coins extends VolatileReward {
 	 */
 	@Override
 	public void addReward(PlayerGroup group, GoalDAO goalDao, RuleDAO ruleDao) {
-		group.awardCoins(amount);
+		group.awardCoins(amount, this);
 	}
 }
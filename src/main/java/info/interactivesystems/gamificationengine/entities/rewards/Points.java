@@ -76,9 +76,9 @@ public class Points extends VolatileReward {
 		List<Reward> recievedRewards = new ArrayList<>();
 		List<Role> matchingRoles;
 
-		LOGGER.debug("Add points to player: " + amount);
+		LOGGER.debug("Add points to player: {}", amount);
 
-		player.awardPoints(amount);
+		player.awardPoints(amount, this);
 
 		LOGGER.debug("Points recieved -> check all points rules");
 
@@ -89,7 +89,7 @@ public class Points extends VolatileReward {
 		// for each completed rule
 		for (GetPointsRule rule : completedPointsRules) {
 
-			LOGGER.debug("PointsRule: " + rule.getName());
+			LOGGER.debug("PointsRule: {}", rule.getName());
 
 			// get goals which contain this rule
 			for (Goal goal : goalDao.getGoalsByRule(rule, apiKey)) {
@@ -100,7 +100,7 @@ public class Points extends VolatileReward {
 						LOGGER.debug("Pointsgoal is restricted by roles");
 						matchingRoles = goal.getCanCompletedBy().stream().filter(r -> {
 							if (player.getBelongsToRoles().contains(r)) {
-								LOGGER.debug("Player has required Role to Complete Pointgoal: " + r.getName());
+								LOGGER.debug("Player has required Role to Complete Pointgoal: {}", r.getName());
 								return true;
 							} else {
 								return false;
@@ -194,9 +194,9 @@ public class Points extends VolatileReward {
 		List<Reward> recievedRewards = new ArrayList<>();
 		List<Role> matchingRoles = new ArrayList<Role>();
 		
-		LOGGER.debug("Add points to group: " + amount);
+		LOGGER.debug("Add points to group: {}", amount);
 
-		group.awardPoints(amount);
+		group.awardPoints(amount, this);
 
 		LOGGER.debug("Group: Points recieved -> check all points rules");
 
@@ -208,7 +208,7 @@ public class Points extends VolatileReward {
 		// for each completed rule
 		for (GetPointsRule rule : completedPointsRules) {
 
-			LOGGER.debug("Group: PointsRule: " + rule.getName());
+			LOGGER.debug("Group: PointsRule: {}", rule.getName());
 
 			// get goals which contain this rule
 			for (Goal goal : goalDao.getGoalsByRule(rule, apiKey)) {
@@ -222,7 +222,7 @@ public class Points extends VolatileReward {
 								matchingRoles.addAll(goal.getCanCompletedBy().stream().filter(r -> {
 							
 								if (everyGroupPlayer.getBelongsToRoles().contains(r)) {
-									LOGGER.debug("Player has required Role to Complete Pointgoal: " + r.getName());
+									LOGGER.debug("Player has required Role to Complete Pointgoal: {}", r.getName());
 									return true;
 								} else {
 									return false;
@@ -266,7 +266,9 @@ public class Points extends VolatileReward {
 
 		LOGGER.debug("Group: add finishedGoals to group");
 		// add Goals to finishedGaolsList
-		group.getFinishedGoals().addAll(fGoalsList);
+		for (FinishedGoal fGoal : fGoalsList) {
+			group.addFinishedGoal(fGoal);
+		}
 
 		LOGGER.debug("Group: add Rewards to group");
 		// add Rewards to rewardList
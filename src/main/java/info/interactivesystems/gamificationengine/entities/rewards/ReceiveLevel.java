@@ -4,6 +4,7 @@ import info.interactivesystems.gamificationengine.dao.GoalDAO;
 import info.interactivesystems.gamificationengine.dao.RuleDAO;
 import info.interactivesystems.gamificationengine.entities.Player;
 import info.interactivesystems.gamificationengine.entities.PlayerGroup;
+import info.interactivesystems.gamificationengine.entities.event.GameEvent;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -77,6 +78,7 @@ public class ReceiveLevel extends VolatileReward {
 	public void addReward(Player player, GoalDAO goalDao, RuleDAO ruleDao) {
 		player.setLevelIndex(levelIndex);
 		player.setLevelLabel(levelLabel);
+		player.record(GameEvent.of(GameEvent.Type.REWARD_GRANTED, getId(), 0, 0));
 	}
 
 	/**
@@ -95,6 +97,7 @@ public class ReceiveLevel extends VolatileReward {
 	public void addReward(PlayerGroup group, GoalDAO goalDao, RuleDAO ruleDao) {
 		group.setLevelIndex(levelIndex);
 		group.setLevelLabel(levelLabel);
+		group.record(GameEvent.of(GameEvent.Type.REWARD_GRANTED, getId(), 0, 0));
 	}
 
 }
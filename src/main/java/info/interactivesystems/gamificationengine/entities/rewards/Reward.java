@@ -106,7 +106,8 @@ public abstract class Reward {
 	}
 
 	/**
-	 * Gets the information about how long the reward can exist.
+	 * Gets the information about how long the reward can exist. This is the number of days 
+	 * a permanent reward is kept after it was obtained, 0 means the reward never expires.
 	 * 
 	 * @return The value for how long the reward exist.
 	 */
@@ -115,7 +116,8 @@ public abstract class Reward {
 	}
 
 	/**
-	 * Sets the information about how long the reward can exist.
+	 * Sets the information about how long the reward can exist. This is the number of days 
+	 * a permanent reward is kept after it was obtained, 0 means the reward never expires.
 	 * 
 	 * @param timeToLive
 	 * 			Time how long the reward can exist as int.
@@ -0,0 +1,154 @@
+package info.interactivesystems.gamificationengine.entities.rewards;
+
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.PlayerGroup;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * A reward grant records when a player or a group of players has obtained a permanent reward. 
+ * If the reward has a time to live, the grant also contains the point of time when the reward 
+ * expires. Expired rewards are removed from the player's or group's rewards by the 
+ * RewardExpiryJob.
+ */
+@Entity
+@Table(indexes = { @Index(columnList = "expiryDate") })
+@JsonIgnoreProperties({ "player", "playerGroup" })
+public class RewardGrant {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private int id;
+
+	@ManyToOne
+	private Player player;
+
+	@ManyToOne
+	private PlayerGroup playerGroup;
+
+	@NotNull
+	@ManyToOne
+	private PermanentReward reward;
+
+	private LocalDateTime awardDate;
+
+	private LocalDateTime expiryDate;
+
+	public RewardGrant() {
+	}
+
+	/**
+	 * Creates a grant of the passed reward at the passed point of time. If the reward has 
+	 * a time to live the expiry date is computed from it.
+	 * 
+	 * @param reward
+	 *            The reward that was obtained.
+	 * @param awardDate
+	 *            The point of time when the reward was obtained.
+	 */
+	private RewardGrant(PermanentReward reward, LocalDateTime awardDate) {
+		this.reward = reward;
+		this.awardDate = awardDate;
+		if (reward.getTimeToLive() > 0) {
+			this.expiryDate = awardDate.plusDays(reward.getTimeToLive());
+		}
+	}
+
+	/**
+	 * Creates a grant of the passed reward to a player.
+	 * 
+	 * @param player
+	 *            The player who has obtained the reward.
+	 * @param reward
+	 *            The reward that was obtained.
+	 * @return The new grant.
+	 */
+	public static RewardGrant of(Player player, PermanentReward reward) {
+		RewardGrant grant = new RewardGrant(reward, LocalDateTime.now());
+		grant.player = player;
+		return grant;
+	}
+
+	/**
+	 * Creates a grant of the passed reward to a group of players.
+	 * 
+	 * @param group
+	 *            The group which has obtained the reward.
+	 * @param reward
+	 *            The reward that was obtained.
+	 * @return The new grant.
+	 */
+	public static RewardGrant of(PlayerGroup group, PermanentReward reward) {
+		RewardGrant grant = new RewardGrant(reward, LocalDateTime.now());
+		grant.playerGroup = group;
+		return grant;
+	}
+
+	/**
+	 * Gets the id of the grant.
+	 * 
+	 * @return The grant's id as int.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the player who has obtained the reward. If the reward was obtained by a group
+	 * null is returned.
+	 * 
+	 * @return The player who has obtained the reward.
+	 */
+	public Player getPlayer() {
+		return player;
+	}
+
+	/**
+	 * Gets the group which has obtained the reward. If the reward was obtained by a player
+	 * null is returned.
+	 * 
+	 * @return The group which has obtained the reward.
+	 */
+	public PlayerGroup getPlayerGroup() {
+		return playerGroup;
+	}
+
+	/**
+	 * Gets the reward that was obtained.
+	 * 
+	 * @return The obtained permanent reward.
+	 */
+	public PermanentReward getReward() {
+		return reward;
+	}
+
+	/**
+	 * Gets the point of time when the reward was obtained.
+	 * 
+	 * @return The date and time of the grant as LocalDateTime.
+	 */
+	public LocalDateTime getAwardDate() {
+		return awardDate;
+	}
+
+	/**
+	 * Gets the point of time when the reward expires. If the reward has no time to live 
+	 * null is returned.
+	 * 
+	 * @return The date and time when the reward expires as LocalDateTime.
+	 */
+	public LocalDateTime getExpiryDate() {
+		return expiryDate;
+	}
+}
@@ -0,0 +1,87 @@
+package info.interactivesystems.gamificationengine.entities.task;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+/**
+ * When old finished tasks of a player are compacted, each of them is moved to the archive. An
+ * archived task keeps the task and the date when the player has finished it, so the whole history
+ * of a player can still be requested although the rules only count the compacted finished tasks.
+ * Archived tasks are never changed.
+ */
+@Entity
+@Table(indexes = { @Index(columnList = "playerId, finishedDate") })
+public class ArchivedTask {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private int id;
+
+	private int playerId;
+
+	@NotNull
+	@ManyToOne
+	private Task task;
+
+	@NotNull
+	private LocalDateTime finishedDate;
+
+	/**
+	 * Creates the archived copy of a finished task.
+	 *
+	 * @param fTask
+	 * 			The finished task which is archived.
+	 * @return The new archived task, which isn't stored yet.
+	 */
+	public static ArchivedTask of(FinishedTask fTask) {
+		ArchivedTask archived = new ArchivedTask();
+		archived.playerId = fTask.getPlayer().getId();
+		archived.task = fTask.getTask();
+		archived.finishedDate = fTask.getFinishedDate();
+		return archived;
+	}
+
+	/**
+	 * Gets the id of the archived task.
+	 *
+	 * @return The int value of the archived task's id.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the id of the player who has finished the task.
+	 *
+	 * @return The id of the player.
+	 */
+	public int getPlayerId() {
+		return playerId;
+	}
+
+	/**
+	 * Gets the task which was finished.
+	 *
+	 * @return The {@link Task} object.
+	 */
+	public Task getTask() {
+		return task;
+	}
+
+	/**
+	 * Gets the date and time when the task was finished.
+	 *
+	 * @return The localDateTime when the task was finished.
+	 */
+	public LocalDateTime getFinishedDate() {
+		return finishedDate;
+	}
+}
@@ -1,6 +1,15 @@
 package info.interactivesystems.gamificationengine.entities.task;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -20,6 +29,8 @@ import info.interactivesystems.gamificationengine.entities.Player;
  * officially be done. If the task is the last one to fulfill a goal, the goal is also added 
  * to the player’s list of finished goals and the player will obtain all its associated 
  * rewards.
+ * Old finished tasks are compacted: all finished tasks of a player with the same task in the same 
+ * month are replaced by one finished task which counts them, see {@link #compact(List, Collection)}.
  */
 @Entity
 @JsonIgnoreProperties({ "player" })
@@ -39,6 +50,12 @@ public class FinishedTask {
 	@ManyToOne
 	private Player player;
 
+	// the number of finished tasks which were compacted into this one, null for a single task
+	private Integer occurrences;
+
+	// when the last of the compacted tasks was finished, null for a single task
+	private LocalDateTime lastFinishedDate;
+
 	/**
 	 * Before a finishedTask is removed from the dataBase it should have to be removed from the player's 
 	 * list of finished tasks.
@@ -128,4 +145,81 @@ public class FinishedTask {
 	public void setPlayer(Player player) {
 		this.player = player;
 	}
+
+	/**
+	 * Gets how many finished tasks this finished task stands for.
+	 * 
+	 * @return The number of compacted tasks or 1 if the finished task wasn't compacted.
+	 */
+	public int getOccurrences() {
+		return occurrences == null ? 1 : occurrences;
+	}
+
+	/**
+	 * Gets whether this finished task stands for several compacted finished tasks. In 
+	 * this case the finished date is the date of the first of them.
+	 * 
+	 * @return True if the finished task was compacted, otherwise false.
+	 */
+	public boolean isCompacted() {
+		return occurrences != null;
+	}
+
+	/**
+	 * Gets the date and time when the last of the compacted tasks was finished.
+	 * 
+	 * @return The localDateTime when the last task was finished, the finished date if the 
+	 * 		finished task wasn't compacted.
+	 */
+	public LocalDateTime getLastFinishedDate() {
+		return lastFinishedDate == null ? finishedDate : lastFinishedDate;
+	}
+
+	/**
+	 * Compacts finished tasks of one player. The finished tasks of the same task which were 
+	 * finished in the same month are replaced by one finished task that counts them. 
+	 * The rules compare the dates of finished tasks with the date when a goal was finished the 
+	 * last time. So the finished tasks which were finished before one of the passed dates and 
+	 * those which were finished afterwards are never compacted together. Then a rule that counts 
+	 * the finished tasks after one of these dates gets the same result from the compacted tasks, 
+	 * because either all or none of the tasks of a compacted task were finished after it.
+	 * 
+	 * @param finishedTasks
+	 * 			The finished tasks which should be compacted. They aren't changed.
+	 * @param goalDates
+	 * 			The dates when the player or one of her/his groups finished a goal.
+	 * @return The new compacted finished tasks, which aren't stored yet.
+	 */
+	public static List<FinishedTask> compact(List<FinishedTask> finishedTasks, Collection<LocalDateTime> goalDates) {
+		List<LocalDateTime> dates = new ArrayList<>(new TreeSet<>(goalDates));
+		Map<List<Object>, FinishedTask> compacted = new LinkedHashMap<>();
+
+		for (FinishedTask fTask : finishedTasks) {
+			LocalDateTime date = fTask.getFinishedDate();
+			// the number of goal dates before the finished task
+			int period = Collections.binarySearch(dates, date);
+			if (period < 0) {
+				period = -period - 1;
+			}
+			LocalDate month = date.toLocalDate().withDayOfMonth(1);
+
+			FinishedTask summary = compacted.computeIfAbsent(Arrays.asList(fTask.getTask(), month, period), k -> {
+				FinishedTask newSummary = new FinishedTask();
+				newSummary.setTask(fTask.getTask());
+				newSummary.setPlayer(fTask.getPlayer());
+				newSummary.setFinishedDate(date);
+				newSummary.lastFinishedDate = date;
+				newSummary.occurrences = 0;
+				return newSummary;
+			});
+			summary.occurrences += fTask.getOccurrences();
+			if (fTask.getFinishedDate().isBefore(summary.finishedDate)) {
+				summary.finishedDate = fTask.getFinishedDate();
+			}
+			if (fTask.getLastFinishedDate().isAfter(summary.lastFinishedDate)) {
+				summary.lastFinishedDate = fTask.getLastFinishedDate();
+			}
+		}
+		return new ArrayList<>(compacted.values());
+	}
 }
@@ -13,6 +13,8 @@ import info.interactivesystems.gamificationengine.entities.goal.Goal;
 import info.interactivesystems.gamificationengine.entities.goal.TaskRule;
 import info.interactivesystems.gamificationengine.entities.rewards.Points;
 import info.interactivesystems.gamificationengine.entities.rewards.Reward;
+import info.interactivesystems.gamificationengine.utils.CompletionTrace;
+import info.interactivesystems.gamificationengine.utils.CompletionTrace.Stage;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -230,9 +232,11 @@ public class Task implements Serializable {
 	 *            the value is null the date is set to now.
 	 * @param apiKey
 	 *          The API key of the organisation. 
+	 * @param trace
+	 *          The trace in which the time of each stage of the completion is recorded.
 	 */
 	public void completeTask(Player player, RuleDAO ruleDao, GoalDAO goalDao, PlayerGroupDAO groupDao,
-			LocalDateTime finishedDate, String apiKey) {
+			LocalDateTime finishedDate, String apiKey, CompletionTrace trace) {
 
 		if (!player.isActive()) {
 			throw new ApiError(Response.Status.FORBIDDEN, "Player is inactive!");
@@ -260,33 +264,44 @@ public class Task implements Serializable {
 		logPlayerDetails(player);
 
 		// check if task can be completed by player
+		long start = trace.start();
 		playerIsAllowed(player, task, matchingRoles);
+		trace.stop(Stage.ROLE_CHECK, start);
 		
 		List<FinishedTask> playerFinishedTasksList = player.getFinishedTasks();
-		playerFinishedTasksList.add(fTask);
+		player.addFinishedTask(fTask);
 
 		logTasks(player, playerFinishedTasksList);
 
 		// search all rules which contain this task
+		start = trace.start();
 		List<TaskRule> rules = ruleDao.getRulesByTask(task, apiKey);
+		trace.stop(Stage.RULE_LOOKUP, start);
+		trace.rulesMatched(rules.size());
 
-		LOGGER.debug("Rule count: " + rules.size());
+		LOGGER.debug("Rule count: {}", rules.size());
 
 		// for each rule...
 		for (TaskRule rule : rules) {
 
-			LOGGER.debug("Rule: " + rule.getName());
+			LOGGER.debug("Rule: {}", rule.getName());
 
 			// get goals which contain this rule
-			for (Goal goal : goalDao.getGoalsByRule(rule, apiKey)) {
+			start = trace.start();
+			List<Goal> goals = goalDao.getGoalsByRule(rule, apiKey);
+			trace.stop(Stage.GOAL_LOOKUP, start);
 
+			for (Goal goal : goals) {
+
+				long goalStart = trace.start();
+				trace.goalChecked();
 				logGoalandRoleNames(goal, player);
 
 				if (goal.getCanCompletedBy().size() > 0) {
 					LOGGER.debug("Goal is restricted by roles");
 					matchingRoles = goal.getCanCompletedBy().stream().filter(r -> {
 						if (player.getBelongsToRoles().contains(r)) {
-							LOGGER.debug("Player has required Role to Complete Goal: " + r.getName());
+							LOGGER.debug("Player has required Role to Complete Goal: {}", r.getName());
 							return true;
 						} else {
 							return false;
@@ -297,6 +312,7 @@ public class Task implements Serializable {
 						LOGGER.debug("Roles match -> proceed");
 					} else {
 						LOGGER.debug("Roles don't match -> goal can not be completed");
+						trace.stop(Stage.GOAL_CHECK, goalStart);
 						continue;
 					}
 				} else {
@@ -315,6 +331,7 @@ public class Task implements Serializable {
 					if (tempFinishedGoal != null) {
 						finishedPlayerGoalsList.add(tempFinishedGoal);
 					}
+					trace.stop(Stage.GOAL_CHECK, goalStart);
 				} else {
 
 					// get all groups from player
@@ -346,7 +363,7 @@ public class Task implements Serializable {
 							for(Player everyGroupPlayer : group.getPlayers()){
 									matchingGroupRoles.addAll(goal.getCanCompletedBy().stream().filter(r -> {
 										if (everyGroupPlayer.getBelongsToRoles().contains(r)) {
-											LOGGER.debug("Player has required Role to Complete Pointgoal: " + r.getName());
+											LOGGER.debug("Player has required Role to Complete Pointgoal: {}", r.getName());
 											return true;
 										} else {
 											return false;
@@ -369,32 +386,37 @@ public class Task implements Serializable {
 						FinishedGoal tempFinishedGoal = goal.checkGoal(null, group, groupFinishedGoals, groupFinishedTasksList, rule);
 						if (tempFinishedGoal != null) {
 							// add goal to finishedGoals list
-							groupFinishedGoals.add(tempFinishedGoal);
+							group.addFinishedGoal(tempFinishedGoal);
 							
 							// add rewards to group
 							for (Reward r : goal.getRewards()) {
 								LOGGER.debug("Add Reward to group");
+								trace.rewardGranted();
 								if(r instanceof Points){
 									((Points) r).addReward(group, goalDao, ruleDao);
 								} else {
 									r.addReward(group, goalDao, ruleDao);
 								}
 							}
+							groupDao.applyBalance(group);
 
 							//Control
-							for (PlayerGroup gr : playerGroups) {
-								LOGGER.debug("Group points are: " + gr.getPoints());
+							if (LOGGER.isDebugEnabled()) {
+								for (PlayerGroup gr : playerGroups) {
+									LOGGER.debug("Group points are: {}", gr.getPoints());
+								}
 							}
 							
 						}
 
 					}
-
+					trace.stop(Stage.GROUPS, goalStart);
 				}
 			}
 		}
 
 		// proceed with fGoalsList
+		start = trace.start();
 		LOGGER.debug("proceed with fGoalsList");
 		for (FinishedGoal fGoal : finishedPlayerGoalsList) {
 
@@ -405,14 +427,15 @@ public class Task implements Serializable {
 			// for each reward -> addReward
 			for (Reward reward : fGoal.getGoal().getRewards()) {
 
-				LOGGER.debug("Reward: " + reward.getId());
+				LOGGER.debug("Reward: {}", reward.getId());
 
 				// only add point rewards
 				if (reward instanceof Points) {
 					LOGGER.debug("Reward: instanceof Points -> get points");
 					Points r = (Points) reward;
-					LOGGER.debug("Reward Points: " + r.getAmount());
+					LOGGER.debug("Reward Points: {}", r.getAmount());
 					reward.addReward(player, goalDao, ruleDao);
+					trace.rewardGranted();
 					pointsRecieved = true;
 				} else {
 					// other awards will be added afterwards
@@ -429,62 +452,75 @@ public class Task implements Serializable {
 		LOGGER.debug("add Rewards to player");
 		// add Rewards to rewardList
 		for (Reward reward : recievedRewards) {
-			LOGGER.debug("Reward id : " + reward.getId());
+			LOGGER.debug("Reward id : {}", reward.getId());
 			reward.addReward(player, goalDao, ruleDao);
+			trace.rewardGranted();
 		}
+		trace.stop(Stage.REWARDS, start);
 
 		logPlayerDetails(player);
 	}
 
 	
 	private void logPlayerDetails(Player player) {
-		LOGGER.debug("Player Name: " + player.getNickname());
-		LOGGER.debug("Player Points: " + player.getPoints());
-		LOGGER.debug("Player Currency: " + player.getCoins());
-		LOGGER.debug("Player Tasks: " + player.getFinishedTasks().size());
-		LOGGER.debug("Player Goals: " + player.getFinishedGoals().size());
+		if (!LOGGER.isDebugEnabled()) {
+			return;
+		}
+		LOGGER.debug("Player Name: {}", player.getNickname());
+		LOGGER.debug("Player Points: {}", player.getPoints());
+		LOGGER.debug("Player Currency: {}", player.getCoins());
+		LOGGER.debug("Player Tasks: {}", player.getFinishedTasks().size());
+		LOGGER.debug("Player Goals: {}", player.getFinishedGoals().size());
 	}
 
 	private void logGoalandRoleNames(Goal goal, Player player) {
-		LOGGER.debug("Goal: " + goal.getName());
+		if (!LOGGER.isDebugEnabled()) {
+			return;
+		}
+		LOGGER.debug("Goal: {}", goal.getName());
 
 		// check if goal can be completed by player
 		LOGGER.debug("Player Roles:");
 		for (Role r : player.getBelongsToRoles()) {
-			LOGGER.debug("- " + r.getName());
+			LOGGER.debug("- {}", r.getName());
 		}
 
 		LOGGER.debug("Goal Roles:");
 		for (Role r : goal.getCanCompletedBy()) {
-			LOGGER.debug("- " + r.getName());
+			LOGGER.debug("- {}", r.getName());
 		}
 		
 	}
 
 	private void logTasks(Player player, List<FinishedTask> playerFinishedTasksList) {
-		LOGGER.debug("Player Tasks: " + player.getFinishedTasks().size());
-		LOGGER.debug("Player Tasks last item: " + player.getFinishedTasks().get(player.getFinishedTasks().size() - 1).getFinishedDate());
-		LOGGER.debug("Temp Tasks List: " + playerFinishedTasksList.size());
-		LOGGER.debug("Temp Tasks List last item: " + playerFinishedTasksList.get((playerFinishedTasksList.size() - 1)).getFinishedDate());
+		if (!LOGGER.isDebugEnabled()) {
+			return;
+		}
+		LOGGER.debug("Player Tasks: {}", player.getFinishedTasks().size());
+		LOGGER.debug("Player Tasks last item: {}", player.getFinishedTasks().get(player.getFinishedTasks().size() - 1).getFinishedDate());
+		LOGGER.debug("Temp Tasks List: {}", playerFinishedTasksList.size());
+		LOGGER.debug("Temp Tasks List last item: {}", playerFinishedTasksList.get((playerFinishedTasksList.size() - 1)).getFinishedDate());
 	}
 
 	public void playerIsAllowed(Player player, Task task, List<Role> matchingRoles){
 		
-		LOGGER.debug("Player Roles:");
-		for (Role r : player.getBelongsToRoles()) {
-			LOGGER.debug("- " + r.getName());
-		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Player Roles:");
+			for (Role r : player.getBelongsToRoles()) {
+				LOGGER.debug("- {}", r.getName());
+			}
 
-		LOGGER.debug("Task Roles:");
-		for (Role r : task.getAllowedFor()) {
-			LOGGER.debug("- " + r.getName());
+			LOGGER.debug("Task Roles:");
+			for (Role r : task.getAllowedFor()) {
+				LOGGER.debug("- {}", r.getName());
+			}
 		}
 
 		if (task.getAllowedFor().size() > 0) {
 			LOGGER.debug("Task is restricted by roles");
 			matchingRoles = task.getAllowedFor().stream().filter(r -> {
 				if (player.getBelongsToRoles().contains(r)) {
-					LOGGER.debug("Player has required Role to Complete Task: " + r.getName());
+					LOGGER.debug("Player has required Role to Complete Task: {}", r.getName());
 					return true;
 				} else {
 					return false;
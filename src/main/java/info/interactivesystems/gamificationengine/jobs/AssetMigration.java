@@ -0,0 +1,104 @@
+package info.interactivesystems.gamificationengine.jobs;
+
+import info.interactivesystems.gamificationengine.dao.AssetDAO;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Avatars, group logos and reward icons were stored in columns of the entities' tables before
+ * they were moved to the store of assets. When the engine is started, the contents which are
+ * still in the old columns are moved to the store of assets and referenced by their hash.
+ * The rows are moved in batches, each batch has its own transaction.
+ */
+@Singleton
+@Startup
+public class AssetMigration {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AssetMigration.class);
+
+	/**
+	 * The maximal number of rows which are moved in one transaction.
+	 */
+	static final int BATCH_SIZE = 100;
+
+	/**
+	 * The table, the old column and the hash column of each kind of asset.
+	 */
+	private static final String[][] COLUMNS = {
+		{ "player", "avatar", "avatar_hash" },
+		{ "player_group", "group_logo", "group_logo_hash" },
+		{ "reward", "image_icon", "image_icon_hash" }
+	};
+
+	@Resource
+	SessionContext context;
+
+	@Inject
+	AssetDAO assetDao;
+
+	/**
+	 * Moves the contents of all old columns to the store of assets.
+	 */
+	@PostConstruct
+	@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+	public void migrate() {
+		AssetMigration self = context.getBusinessObject(AssetMigration.class);
+
+		for (String[] columns : COLUMNS) {
+			if (!self.hasColumn(columns[0], columns[1])) {
+				continue;
+			}
+
+			int moved = 0;
+			int batch;
+			do {
+				batch = self.moveBatch(columns[0], columns[1], columns[2]);
+				moved += batch;
+			} while (batch == BATCH_SIZE);
+
+			if (moved > 0) {
+				LOGGER.info("{} contents of {}.{} moved to the assets", moved, columns[0], columns[1]);
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the old column still exists.
+	 *
+	 * @param table
+	 *            The table of the entities.
+	 * @param column
+	 *            The old column of the contents.
+	 * @return True if the column exists, otherwise false.
+	 */
+	@TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+	public boolean hasColumn(String table, String column) {
+		return assetDao.hasColumn(table, column);
+	}
+
+	/**
+	 * Moves one batch of contents to the store of assets.
+	 *
+	 * @param table
+	 *            The table of the entities.
+	 * @param column
+	 *            The old column of the contents.
+	 * @param hashColumn
+	 *            The column which references the asset.
+	 * @return The number of moved rows.
+	 */
+	@TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+	public int moveBatch(String table, String column, String hashColumn) {
+		return assetDao.moveToAssets(table, column, hashColumn, BATCH_SIZE);
+	}
+}
@@ -0,0 +1,288 @@
+package info.interactivesystems.gamificationengine.jobs;
+
+import info.interactivesystems.gamificationengine.dao.EventDAO;
+import info.interactivesystems.gamificationengine.entities.event.BalanceProjection;
+import info.interactivesystems.gamificationengine.entities.event.GameEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.annotation.Resource;
+import javax.ejb.AsyncResult;
+import javax.ejb.Asynchronous;
+import javax.ejb.EJBException;
+import javax.ejb.SessionContext;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rebuilds the points and coins of the players and groups of an organisation from their events.
+ * The players and groups are divided into partitions by their id and the partitions are replayed
+ * in parallel. Each partition reads the events of {@value #BATCH_SIZE} owners at once, because
+ * the events of one owner must be applied in order, but the owners are independent of each other.
+ * <p>
+ * A balance which differs from its projection is reported and, if requested, replaced by the
+ * projection. A balance is left alone if new events were stored while it was replayed or if the
+ * events of its owner have a gap. The number of partitions is set by the system property
+ * gamificationengine.replay.partitions (default 4).
+ */
+@Stateless
+public class EventReplay {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(EventReplay.class);
+
+	static final int PARTITIONS = Integer.getInteger("gamificationengine.replay.partitions", 4);
+
+	/**
+	 * The maximal number of players or groups whose events are read at once.
+	 */
+	static final int BATCH_SIZE = 100;
+
+	@Resource
+	SessionContext context;
+
+	@Inject
+	EventDAO eventDao;
+
+	/**
+	 * Replays the events of all players and groups of an organisation.
+	 *
+	 * @param organisationId
+	 *            The id of the organisation.
+	 * @param apply
+	 *            Whether differing balances are replaced by their projections or only reported.
+	 * @return The summed up report of all partitions.
+	 */
+	@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+	public Report replay(int organisationId, boolean apply) {
+		EventReplay self = context.getBusinessObject(EventReplay.class);
+
+		List<Future<Report>> partitions = new ArrayList<>();
+		for (GameEvent.Owner owner : GameEvent.Owner.values()) {
+			for (int partition = 0; partition < PARTITIONS; partition++) {
+				partitions.add(self.replayPartition(organisationId, owner, partition, apply));
+			}
+		}
+
+		Report report = new Report();
+		try {
+			for (Future<Report> partition : partitions) {
+				report.add(partition.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EJBException(e);
+		} catch (ExecutionException e) {
+			throw new EJBException(e);
+		}
+
+		LOGGER.info("events of organisation {} replayed: {}", organisationId, report);
+		return report;
+	}
+
+	/**
+	 * Replays the events of the players or groups of one partition. Every batch of owners is read
+	 * and stored in a transaction of its own, see {@link #replayBatch(GameEvent.Owner, List, boolean)}.
+	 *
+	 * @param organisationId
+	 *            The id of the organisation.
+	 * @param owner
+	 *            Whether the events of players or of groups are replayed.
+	 * @param partition
+	 *            The partition, from 0 to {@link #PARTITIONS} - 1.
+	 * @param apply
+	 *            Whether differing balances are replaced by their projections.
+	 * @return The report of the partition.
+	 */
+	@Asynchronous
+	@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+	public Future<Report> replayPartition(int organisationId, GameEvent.Owner owner, int partition, boolean apply) {
+		EventReplay self = context.getBusinessObject(EventReplay.class);
+		Report report = new Report();
+		List<Integer> ownerIds = eventDao.getOwnerIds(organisationId, owner, PARTITIONS, partition);
+
+		for (int from = 0; from < ownerIds.size(); from += BATCH_SIZE) {
+			List<Integer> batch = new ArrayList<>(ownerIds.subList(from, Math.min(ownerIds.size(), from + BATCH_SIZE)));
+			report.add(self.replayBatch(owner, batch, apply));
+		}
+		return new AsyncResult<>(report);
+	}
+
+	/**
+	 * Replays the events of one batch of players or groups in a transaction of its own, so the
+	 * balances are compared with the events of the same state and a failing batch doesn't undo
+	 * the others.
+	 *
+	 * @param owner
+	 *            Whether the events of players or of groups are replayed.
+	 * @param ownerIds
+	 *            The ids of the players or groups, at most {@link #BATCH_SIZE}.
+	 * @param apply
+	 *            Whether differing balances are replaced by their projections.
+	 * @return The report of the batch.
+	 */
+	@TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+	public Report replayBatch(GameEvent.Owner owner, List<Integer> ownerIds, boolean apply) {
+		Report report = new Report();
+		List<BalanceProjection> projections = project(owner, eventDao.getEvents(owner, ownerIds), report);
+		Map<Integer, int[]> balances = eventDao.getBalances(owner, ownerIds);
+
+		for (BalanceProjection projection : projections) {
+			int[] balance = balances.get(projection.getOwnerId());
+			if (balance == null) {
+				// the player or group was deleted
+				continue;
+			}
+			if (balance[2] != projection.getSequence()) {
+				report.skipped++;
+				continue;
+			}
+			if (balance[0] == projection.getPoints() && balance[1] == projection.getCoins()) {
+				continue;
+			}
+
+			LOGGER.warn("{} {} has {} points and {} coins, its events add up to {} points and {} coins", owner,
+					projection.getOwnerId(), balance[0], balance[1], projection.getPoints(), projection.getCoins());
+			if (!apply) {
+				report.differing++;
+			} else if (eventDao.storeProjection(projection)) {
+				report.differing++;
+				report.corrected++;
+			} else {
+				report.skipped++;
+			}
+		}
+		return report;
+	}
+
+	/**
+	 * Applies the events of several owners to one projection for each owner. The events of an
+	 * owner whose log has a gap are ignored.
+	 *
+	 * @param owner
+	 *            Whether the events belong to players or to groups.
+	 * @param events
+	 *            The events ordered by owner and sequence number.
+	 * @param report
+	 *            The report to which the replayed owners and events are added.
+	 * @return The projections of the owners without gaps in their events.
+	 */
+	static List<BalanceProjection> project(GameEvent.Owner owner, List<GameEvent> events, Report report) {
+		List<BalanceProjection> projections = new ArrayList<>();
+		BalanceProjection projection = null;
+		boolean broken = false;
+
+		for (GameEvent event : events) {
+			if (projection == null || projection.getOwnerId() != event.getOwnerId()) {
+				projection = new BalanceProjection(owner, event.getOwnerId());
+				projections.add(projection);
+				report.owners++;
+				broken = false;
+			}
+			if (broken) {
+				continue;
+			}
+			try {
+				projection.apply(event);
+				report.events++;
+			} catch (IllegalStateException e) {
+				LOGGER.warn("{} not replayed: {}", owner, e.getMessage());
+				projections.remove(projection);
+				report.broken++;
+				broken = true;
+			}
+		}
+		return projections;
+	}
+
+	/**
+	 * The numbers of a replay.
+	 */
+	public static class Report {
+
+		int owners;
+		int events;
+		int differing;
+		int corrected;
+		int skipped;
+		int broken;
+
+		void add(Report other) {
+			owners += other.owners;
+			events += other.events;
+			differing += other.differing;
+			corrected += other.corrected;
+			skipped += other.skipped;
+			broken += other.broken;
+		}
+
+		/**
+		 * Gets the number of replayed players and groups.
+		 *
+		 * @return The number of owners.
+		 */
+		public int getOwners() {
+			return owners;
+		}
+
+		/**
+		 * Gets the number of applied events.
+		 *
+		 * @return The number of events.
+		 */
+		public int getEvents() {
+			return events;
+		}
+
+		/**
+		 * Gets the number of balances which differ from their projections.
+		 *
+		 * @return The number of differing balances.
+		 */
+		public int getDiffering() {
+			return differing;
+		}
+
+		/**
+		 * Gets the number of balances which were replaced by their projections.
+		 *
+		 * @return The number of corrected balances.
+		 */
+		public int getCorrected() {
+			return corrected;
+		}
+
+		/**
+		 * Gets the number of balances which were left alone because new events were stored
+		 * meanwhile.
+		 *
+		 * @return The number of skipped balances.
+		 */
+		public int getSkipped() {
+			return skipped;
+		}
+
+		/**
+		 * Gets the number of players and groups whose events have a gap.
+		 *
+		 * @return The number of broken logs.
+		 */
+		public int getBroken() {
+			return broken;
+		}
+
+		@Override
+		public String toString() {
+			return owners + " owners, " + events + " events, " + differing + " differing, " + corrected
+					+ " corrected, " + skipped + " skipped, " + broken + " broken";
+		}
+	}
+}
@@ -0,0 +1,363 @@
+package info.interactivesystems.gamificationengine.jobs;
+
+import info.interactivesystems.gamificationengine.dao.GoalDAO;
+import info.interactivesystems.gamificationengine.dao.PlayerDAO;
+import info.interactivesystems.gamificationengine.dao.RuleDAO;
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.goal.FinishedGoal;
+import info.interactivesystems.gamificationengine.entities.goal.Goal;
+import info.interactivesystems.gamificationengine.entities.rewards.Reward;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Resource;
+import javax.ejb.AsyncResult;
+import javax.ejb.Asynchronous;
+import javax.ejb.SessionContext;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Re-evaluates the players of an organisation after one of its goals was changed, for example
+ * when other roles are allowed to complete it. Every player who has completed the goal with the
+ * tasks she/he has already finished or with her/his points now obtains the goal and its rewards.
+ * <p>
+ * Only the players who have finished a task of the goal's rule or have reached its points are
+ * loaded. They are divided into chunks of {@value #CHUNK_SIZE} players, each chunk is
+ * re-evaluated asynchronously in a transaction of its own and at most as many chunks as the
+ * system property gamificationengine.reevaluation.workers (default 4) are re-evaluated at the
+ * same time. The progress and throughput of the latest re-evaluation of each goal can be
+ * requested while it runs.
+ */
+@Stateless
+public class GoalReevaluationJob {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GoalReevaluationJob.class);
+
+	static final int WORKERS = Integer.getInteger("gamificationengine.reevaluation.workers", 4);
+
+	/**
+	 * The maximal number of players who are re-evaluated in one transaction.
+	 */
+	static final int CHUNK_SIZE = 200;
+
+	private static final ConcurrentMap<Integer, Status> RUNS = new ConcurrentHashMap<>();
+
+	@Resource
+	SessionContext context;
+
+	@Inject
+	GoalDAO goalDao;
+
+	@Inject
+	RuleDAO ruleDao;
+
+	@Inject
+	PlayerDAO playerDao;
+
+	/**
+	 * Starts the re-evaluation of a goal in the background.
+	 *
+	 * @param goalId
+	 *            The id of the changed goal.
+	 * @param apiKey
+	 *            The API key of the organisation to which the goal belongs to.
+	 * @return The status of the new re-evaluation or null if the goal is already re-evaluated.
+	 */
+	public Status start(int goalId, String apiKey) {
+		Status status = new Status(goalId);
+		Status previous = RUNS.get(goalId);
+		if (previous != null && previous.isRunning() || !replace(goalId, previous, status)) {
+			return null;
+		}
+
+		context.getBusinessObject(GoalReevaluationJob.class).reevaluate(goalId, apiKey, status);
+		return status;
+	}
+
+	private static boolean replace(int goalId, Status previous, Status status) {
+		return previous == null ? RUNS.putIfAbsent(goalId, status) == null : RUNS.replace(goalId, previous, status);
+	}
+
+	/**
+	 * Gets the status of the latest re-evaluation of a goal.
+	 *
+	 * @param goalId
+	 *            The id of the goal.
+	 * @return The status or null if the goal wasn't re-evaluated since the engine was started.
+	 */
+	public static Status getStatus(int goalId) {
+		return RUNS.get(goalId);
+	}
+
+	/**
+	 * Starts the re-evaluation of a goal whose change may qualify players, like new roles which 
+	 * are allowed to complete it. The event is observed after the transaction which has changed 
+	 * the goal was committed, so the re-evaluation loads the changed goal.
+	 *
+	 * @param change
+	 *            The change of the goal.
+	 */
+	public void goalChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) GoalChanged change) {
+		if (start(change.goalId, change.apiKey) == null) {
+			LOGGER.warn("goal {} was changed while it is re-evaluated, it has to be re-evaluated again", change.goalId);
+		}
+	}
+
+	/**
+	 * Re-evaluates all candidates of a goal in chunks.
+	 *
+	 * @param goalId
+	 *            The id of the changed goal.
+	 * @param apiKey
+	 *            The API key of the organisation to which the goal belongs to.
+	 * @param status
+	 *            The status which is updated after each chunk.
+	 */
+	@Asynchronous
+	@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+	public void reevaluate(int goalId, String apiKey, Status status) {
+		GoalReevaluationJob self = context.getBusinessObject(GoalReevaluationJob.class);
+		try {
+			Goal goal = goalDao.getGoal(goalId, apiKey);
+			if (goal == null) {
+				return;
+			}
+			List<Integer> playerIds = goalDao.getReevaluationCandidates(goal, apiKey);
+			status.players = playerIds.size();
+
+			Deque<Future<Integer>> running = new ArrayDeque<>();
+			Deque<Integer> sizes = new ArrayDeque<>();
+			for (int from = 0; from < playerIds.size(); from += CHUNK_SIZE) {
+				if (running.size() == WORKERS) {
+					await(running.poll(), sizes.poll(), status);
+				}
+				List<Integer> chunk = new ArrayList<>(playerIds.subList(from, Math.min(playerIds.size(), from + CHUNK_SIZE)));
+				running.add(self.reevaluateChunk(goalId, apiKey, chunk));
+				sizes.add(chunk.size());
+			}
+			while (!running.isEmpty()) {
+				await(running.poll(), sizes.poll(), status);
+			}
+		} finally {
+			status.finish();
+			LOGGER.info("goal {} re-evaluated: {}", goalId, status);
+		}
+	}
+
+	private static void await(Future<Integer> chunk, int size, Status status) {
+		try {
+			status.chunkDone(size, chunk.get());
+		} catch (ExecutionException e) {
+			LOGGER.warn("chunk of {} players of goal {} not re-evaluated", size, status.goalId, e.getCause());
+			status.chunkFailed(size);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			status.chunkFailed(size);
+		}
+	}
+
+	/**
+	 * Re-evaluates one chunk of players. Every player who has completed the goal obtains it and
+	 * its rewards, the new balances and events are stored with the players.
+	 *
+	 * @param goalId
+	 *            The id of the changed goal.
+	 * @param apiKey
+	 *            The API key of the organisation to which the goal belongs to.
+	 * @param playerIds
+	 *            The ids of the players of the chunk.
+	 * @return The number of players who have obtained the goal.
+	 */
+	@Asynchronous
+	@TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+	public Future<Integer> reevaluateChunk(int goalId, String apiKey, List<Integer> playerIds) {
+		Goal goal = goalDao.getGoal(goalId, apiKey);
+		int granted = 0;
+
+		for (Player player : playerDao.getPlayers(playerIds, apiKey)) {
+			FinishedGoal fGoal = goal.reevaluate(player);
+			if (fGoal == null) {
+				continue;
+			}
+
+			fGoal.setPlayer(player);
+			player.addFinishedGoal(fGoal);
+			for (Reward reward : goal.getRewards()) {
+				reward.addReward(player, goalDao, ruleDao);
+			}
+			playerDao.applyBalance(player);
+			granted++;
+		}
+		return new AsyncResult<>(granted);
+	}
+
+	/**
+	 * The event that a goal was changed in a way which may qualify players, see 
+	 * {@link GoalReevaluationJob#goalChanged(GoalChanged)}.
+	 */
+	public static class GoalChanged {
+
+		private final int goalId;
+		private final String apiKey;
+
+		/**
+		 * Creates the event of a changed goal.
+		 *
+		 * @param goalId
+		 *            The id of the changed goal.
+		 * @param apiKey
+		 *            The API key of the organisation to which the goal belongs to.
+		 */
+		public GoalChanged(int goalId, String apiKey) {
+			this.goalId = goalId;
+			this.apiKey = apiKey;
+		}
+
+		/**
+		 * Gets the id of the changed goal.
+		 *
+		 * @return The goal's id.
+		 */
+		public int getGoalId() {
+			return goalId;
+		}
+
+		/**
+		 * Gets the API key of the organisation to which the goal belongs to.
+		 *
+		 * @return The API key.
+		 */
+		public String getApiKey() {
+			return apiKey;
+		}
+	}
+
+	/**
+	 * The progress and throughput of the re-evaluation of one goal.
+	 */
+	public static class Status {
+
+		private final int goalId;
+		private final long started = System.nanoTime();
+		private volatile long finished;
+		private volatile boolean running = true;
+		private volatile int players;
+		private final AtomicInteger processed = new AtomicInteger();
+		private final AtomicInteger granted = new AtomicInteger();
+		private final AtomicInteger failed = new AtomicInteger();
+
+		Status(int goalId) {
+			this.goalId = goalId;
+		}
+
+		void chunkDone(int size, int grantedPlayers) {
+			processed.addAndGet(size);
+			granted.addAndGet(grantedPlayers);
+		}
+
+		void chunkFailed(int size) {
+			processed.addAndGet(size);
+			failed.addAndGet(size);
+		}
+
+		void finish() {
+			finished = System.nanoTime();
+			running = false;
+		}
+
+		/**
+		 * Gets the id of the re-evaluated goal.
+		 *
+		 * @return The id of the goal.
+		 */
+		public int getGoalId() {
+			return goalId;
+		}
+
+		/**
+		 * Gets whether the re-evaluation is still running.
+		 *
+		 * @return True if it is running, otherwise false.
+		 */
+		public boolean isRunning() {
+			return running;
+		}
+
+		/**
+		 * Gets the number of players who are re-evaluated.
+		 *
+		 * @return The number of candidates, 0 until they are determined.
+		 */
+		public int getPlayers() {
+			return players;
+		}
+
+		/**
+		 * Gets the number of players who were already re-evaluated.
+		 *
+		 * @return The number of processed players.
+		 */
+		public int getProcessed() {
+			return processed.get();
+		}
+
+		/**
+		 * Gets the number of players who have obtained the goal.
+		 *
+		 * @return The number of players.
+		 */
+		public int getGranted() {
+			return granted.get();
+		}
+
+		/**
+		 * Gets the number of players whose chunk failed and who weren't changed.
+		 *
+		 * @return The number of players.
+		 */
+		public int getFailed() {
+			return failed.get();
+		}
+
+		/**
+		 * Gets the time since the re-evaluation was started, or its duration if it is finished.
+		 *
+		 * @return The time in milliseconds.
+		 */
+		public long getElapsedMillis() {
+			return ((running ? System.nanoTime() : finished) - started) / 1000000;
+		}
+
+		/**
+		 * Gets the number of re-evaluated players per second.
+		 *
+		 * @return The throughput.
+		 */
+		public double getPlayersPerSecond() {
+			long millis = getElapsedMillis();
+			return millis == 0 ? 0 : processed.get() * 1000.0 / millis;
+		}
+
+		@Override
+		public String toString() {
+			return getProcessed() + " of " + players + " players, " + getGranted() + " granted, " + getFailed()
+					+ " failed, " + getElapsedMillis() + " ms";
+		}
+	}
+}
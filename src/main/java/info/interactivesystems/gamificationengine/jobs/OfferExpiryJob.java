@@ -0,0 +1,99 @@
+package info.interactivesystems.gamificationengine.jobs;
+
+import info.interactivesystems.gamificationengine.dao.MarketPlaceDAO;
+import info.interactivesystems.gamificationengine.dao.PlayerDAO;
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.marketPlace.MarketPlace;
+import info.interactivesystems.gamificationengine.entities.marketPlace.Offer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Resource;
+import javax.ejb.Schedule;
+import javax.ejb.SessionContext;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Offers whose end date has passed are expired by this job in the background. Every player 
+ * who has made a bid for an expired offer gets her/his coins back, the creator of the offer gets 
+ * her/his initial bid back and the offer is removed from its marketplaces. So the offers of the 
+ * marketplaces only contain offers that can still be completed.
+ * The expired offers are processed in batches, the earliest end date first. Each batch has its 
+ * own transaction, so the offers are locked only for a short time.
+ */
+@Stateless
+public class OfferExpiryJob {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OfferExpiryJob.class);
+
+	/**
+	 * The maximal number of offers which are expired in one transaction.
+	 */
+	static final int BATCH_SIZE = 100;
+
+	@Resource
+	SessionContext context;
+
+	@Inject
+	MarketPlaceDAO marketPlDao;
+
+	@Inject
+	PlayerDAO playerDao;
+
+	/**
+	 * Expires all offers whose end date has passed. This method is called by the container 
+	 * every minute.
+	 */
+	@Schedule(hour = "*", minute = "*", persistent = false)
+	@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+	public void expireOffers() {
+		LocalDateTime now = LocalDateTime.now();
+		OfferExpiryJob self = context.getBusinessObject(OfferExpiryJob.class);
+
+		int expired = 0;
+		int batch;
+		do {
+			batch = self.expireBatch(now);
+			expired += batch;
+		} while (batch == BATCH_SIZE);
+
+		if (expired > 0) {
+			LOGGER.info("{} offers expired", expired);
+		}
+	}
+
+	/**
+	 * Expires one batch of offers whose end date is before the passed point of time. The bids 
+	 * are given back, the offers are removed from their marketplaces and deleted with their bids.
+	 * 
+	 * @param now
+	 * 			The point of time at which the offers are expired.
+	 * @return The number of expired offers.
+	 */
+	@TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+	public int expireBatch(LocalDateTime now) {
+		List<Offer> offers = marketPlDao.getExpiredOffers(now, BATCH_SIZE);
+
+		// the balances of all offers of the batch are stored together, in the order of the players' ids
+		List<Player> players = new ArrayList<>();
+		for (Offer offer : offers) {
+			players.addAll(MarketPlace.refundOffer(offer, offer.getBids()));
+		}
+		playerDao.applyBalances(players);
+
+		for (MarketPlace market : marketPlDao.getMarketplacesOfOffers(offers)) {
+			market.getOffers().removeAll(offers);
+		}
+
+		marketPlDao.deleteOffers(offers);
+		return offers.size();
+	}
+}
@@ -0,0 +1,89 @@
+package info.interactivesystems.gamificationengine.jobs;
+
+import info.interactivesystems.gamificationengine.dao.RewardDAO;
+import info.interactivesystems.gamificationengine.entities.rewards.RewardGrant;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.annotation.Resource;
+import javax.ejb.Schedule;
+import javax.ejb.SessionContext;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Permanent rewards like badges and achievements can have a time to live. When it has passed 
+ * since a player or a group has obtained the reward, this job removes the reward from the 
+ * player's or group's rewards in the background. 
+ * The expired grants are processed in batches, the earliest expiry date first. Each batch has 
+ * its own transaction.
+ */
+@Stateless
+public class RewardExpiryJob {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RewardExpiryJob.class);
+
+	/**
+	 * The maximal number of grants which are expired in one transaction.
+	 */
+	static final int BATCH_SIZE = 100;
+
+	@Resource
+	SessionContext context;
+
+	@Inject
+	RewardDAO rewardDao;
+
+	/**
+	 * Removes all rewards whose time to live has passed. This method is called by the 
+	 * container every ten minutes.
+	 */
+	@Schedule(hour = "*", minute = "*/10", persistent = false)
+	@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+	public void expireRewards() {
+		LocalDateTime now = LocalDateTime.now();
+		RewardExpiryJob self = context.getBusinessObject(RewardExpiryJob.class);
+
+		int expired = 0;
+		int batch;
+		do {
+			batch = self.expireBatch(now);
+			expired += batch;
+		} while (batch == BATCH_SIZE);
+
+		if (expired > 0) {
+			LOGGER.info("{} rewards expired", expired);
+		}
+	}
+
+	/**
+	 * Expires one batch of reward grants whose expiry date is before the passed point of time. 
+	 * The rewards are removed from the players and groups and the grants are deleted.
+	 * 
+	 * @param now
+	 * 			The point of time at which the rewards are expired.
+	 * @return The number of expired grants.
+	 */
+	@TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+	public int expireBatch(LocalDateTime now) {
+		List<RewardGrant> grants = rewardDao.getExpiredRewardGrants(now, BATCH_SIZE);
+
+		for (RewardGrant grant : grants) {
+			if (grant.getPlayer() != null) {
+				grant.getPlayer().getRewards().remove(grant.getReward());
+			}
+			if (grant.getPlayerGroup() != null) {
+				grant.getPlayerGroup().getRewards().remove(grant.getReward());
+			}
+		}
+
+		rewardDao.deleteRewardGrants(grants);
+		return grants.size();
+	}
+}
@@ -0,0 +1,95 @@
+package info.interactivesystems.gamificationengine.jobs;
+
+import info.interactivesystems.gamificationengine.dao.TaskDAO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.annotation.Resource;
+import javax.ejb.Schedule;
+import javax.ejb.SessionContext;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compacts the old finished tasks of long-lived players every night. The tasks a player has
+ * finished earlier than the number of days of the system property
+ * gamificationengine.compaction.retentionDays (default 90) are moved to the archive and replaced
+ * by one finished task for each task and month, which counts them. So the rules evaluate only a
+ * few rows for the old history of a player, while the archive still holds every finished task.
+ * <p>
+ * Only players with at least as many of these finished tasks as the system property
+ * gamificationengine.compaction.minimumTasks (default 50) are compacted. Each player is compacted
+ * in a transaction of its own.
+ */
+@Stateless
+public class TaskHistoryCompaction {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TaskHistoryCompaction.class);
+
+	static final int RETENTION_DAYS = Integer.getInteger("gamificationengine.compaction.retentionDays", 90);
+
+	static final int MINIMUM_TASKS = Integer.getInteger("gamificationengine.compaction.minimumTasks", 50);
+
+	/**
+	 * The maximal number of players who are loaded at once.
+	 */
+	static final int BATCH_SIZE = 100;
+
+	@Resource
+	SessionContext context;
+
+	@Inject
+	TaskDAO taskDao;
+
+	/**
+	 * Compacts the finished tasks of all players which are older than the retention period. This
+	 * method is called by the container every night.
+	 */
+	@Schedule(hour = "3", minute = "30", persistent = false)
+	@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+	public void compactHistory() {
+		LocalDateTime before = LocalDateTime.now().minusDays(RETENTION_DAYS);
+		TaskHistoryCompaction self = context.getBusinessObject(TaskHistoryCompaction.class);
+
+		int players = 0;
+		int archived = 0;
+		int lastId = 0;
+		List<Integer> playerIds;
+		do {
+			playerIds = taskDao.getPlayersToCompact(before, MINIMUM_TASKS, lastId, BATCH_SIZE);
+			for (int playerId : playerIds) {
+				try {
+					archived += self.compactPlayer(playerId, before);
+					players++;
+				} catch (RuntimeException e) {
+					LOGGER.warn("finished tasks of player {} not compacted", playerId, e);
+				}
+				lastId = playerId;
+			}
+		} while (playerIds.size() == BATCH_SIZE);
+
+		if (players > 0) {
+			LOGGER.info("{} finished tasks of {} players archived", archived, players);
+		}
+	}
+
+	/**
+	 * Compacts the finished tasks of one player which were finished before the passed date.
+	 *
+	 * @param playerId
+	 *            The id of the player.
+	 * @param before
+	 *            Only the tasks which were finished before this date are compacted.
+	 * @return The number of finished tasks which were moved to the archive.
+	 */
+	@TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+	public int compactPlayer(int playerId, LocalDateTime before) {
+		return taskDao.compactFinishedTasks(playerId, before);
+	}
+}
@@ -0,0 +1,105 @@
+package info.interactivesystems.gamificationengine.jobs;
+
+import info.interactivesystems.gamificationengine.dao.AssetDAO;
+import info.interactivesystems.gamificationengine.utils.ImageUtils;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.ejb.Asynchronous;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * When a new image is stored, smaller variants of it are generated by this bean, so clients
+ * can request an avatar or icon in the size they show it. The variants are generated
+ * asynchronously after the image was stored, so the request which has uploaded the image
+ * doesn't wait for them. Because decoding and scaling images needs a lot of memory and
+ * computing time, only a few images are scaled at the same time. The threads for asynchronous
+ * calls are shared with other beans, so an image waits only a short time for its turn. If many
+ * images are stored at once, the variants of the remaining ones aren't generated and the images
+ * themselves are returned for every size.
+ */
+@Stateless
+public class ThumbnailGenerator {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailGenerator.class);
+
+	/**
+	 * The sizes of the variants in pixels, this is the length of the longer side.
+	 */
+	public static final int[] SIZES = { 32, 64, 128, 256 };
+
+	/**
+	 * The maximal number of images which are scaled at the same time.
+	 */
+	static final int WORKERS = 2;
+
+	/**
+	 * The time in seconds an image waits until it can be scaled.
+	 */
+	static final long WAIT_SECONDS = 5;
+
+	private static final Semaphore SCALING_PERMITS = new Semaphore(WORKERS);
+
+	@Inject
+	AssetDAO assetDao;
+
+	/**
+	 * Generates and stores the variants of an image in all sizes which are smaller than the
+	 * image. If the image cannot be scaled or too many images are scaled at the moment, no 
+	 * variants are stored and the image itself is returned for every size.
+	 *
+	 * @param hash
+	 *            The hash of the image.
+	 * @param content
+	 *            The content of the image.
+	 */
+	@Asynchronous
+	@TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+	public void generate(String hash, byte[] content) {
+		try {
+			if (!SCALING_PERMITS.tryAcquire(WAIT_SECONDS, TimeUnit.SECONDS)) {
+				LOGGER.warn("no variants of asset {} generated: too many images are scaled", hash);
+				return;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		try {
+			for (int size : SIZES) {
+				byte[] variant = ImageUtils.resize(content, size);
+				if (variant != null) {
+					assetDao.storeVariant(hash, size, variant);
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn("no variants of asset {} generated: {}", hash, e.getMessage());
+		} finally {
+			SCALING_PERMITS.release();
+		}
+	}
+
+	/**
+	 * Gets the size of the smallest variant which is at least as large as the requested size.
+	 *
+	 * @param size
+	 *            The requested size in pixels.
+	 * @return The size of the variant or 0 if the requested size is larger than all variants.
+	 */
+	public static int variantSize(int size) {
+		for (int variantSize : SIZES) {
+			if (variantSize >= size) {
+				return variantSize;
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,103 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A short-lived cache of the API keys of organisations. A session token only contains the id of
+ * its organisation, so without the cache the API key would be loaded from the data base for each
+ * request which sends a token. When the API key of an organisation changes, its entry has to be
+ * removed by {@link #evict(int)}. Changes which aren't made by this server, like the deletion of
+ * an organisation in the data base, are seen once the entry has expired.
+ */
+public class ApiKeyCache {
+
+	private final int maxEntries;
+	private final long timeToLiveMillis;
+
+	// insertion order, so the first entry is the oldest one
+	private final LinkedHashMap<Integer, Entry> apiKeys = new LinkedHashMap<>();
+
+	/**
+	 * Creates a cache with the passed bounds.
+	 *
+	 * @param maxEntries
+	 *            The maximal number of API keys in the cache.
+	 * @param timeToLiveMillis
+	 *            The time in milliseconds an API key is taken from the cache.
+	 */
+	public ApiKeyCache(int maxEntries, long timeToLiveMillis) {
+		this.maxEntries = maxEntries;
+		this.timeToLiveMillis = timeToLiveMillis;
+	}
+
+	/**
+	 * Gets the cached API key of an organisation.
+	 *
+	 * @param organisationId
+	 *            The id of the organisation.
+	 * @return The API key or null if it isn't cached or has expired.
+	 */
+	public synchronized String get(int organisationId) {
+		Entry entry = apiKeys.get(organisationId);
+		if (entry == null || entry.expiry <= System.currentTimeMillis()) {
+			return null;
+		}
+		return entry.apiKey;
+	}
+
+	/**
+	 * Adds the API key of an organisation which was loaded from the data base. Expired keys and,
+	 * if the cache is full, the oldest keys are removed.
+	 *
+	 * @param organisationId
+	 *            The id of the organisation.
+	 * @param apiKey
+	 *            The current API key of the organisation.
+	 */
+	public synchronized void put(int organisationId, String apiKey) {
+		long now = System.currentTimeMillis();
+		apiKeys.remove(organisationId);
+		apiKeys.put(organisationId, new Entry(apiKey, now + timeToLiveMillis));
+
+		Iterator<Entry> oldest = apiKeys.values().iterator();
+		while (oldest.hasNext()) {
+			Entry entry = oldest.next();
+			if (entry.expiry > now && apiKeys.size() <= maxEntries) {
+				break;
+			}
+			oldest.remove();
+		}
+	}
+
+	/**
+	 * Removes the API key of an organisation, for example because a new key was generated.
+	 *
+	 * @param organisationId
+	 *            The id of the organisation.
+	 */
+	public synchronized void evict(int organisationId) {
+		apiKeys.remove(organisationId);
+	}
+
+	/**
+	 * Gets the number of API keys in the cache.
+	 *
+	 * @return The number of cached API keys.
+	 */
+	public synchronized int size() {
+		return apiKeys.size();
+	}
+
+	private static class Entry {
+
+		final String apiKey;
+		final long expiry;
+
+		Entry(String apiKey, long expiry) {
+			this.apiKey = apiKey;
+			this.expiry = expiry;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import info.interactivesystems.gamificationengine.entities.Organisation;
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.task.Task;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes one compact line for each completion of a task to the logger
+ * "gamificationengine.completions", like
+ * {@code organisation=3 task=17 player=42 rules=2;goals=3;rewards=1;load=0.412;...}.
+ * Only the completions of organisations which have turned the log on are written, so the
+ * completions of one organisation can be examined without logging all completions. A
+ * completion which isn't logged doesn't allocate anything.
+ */
+public final class CompletionLog {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger("gamificationengine.completions");
+
+	private CompletionLog() {
+	}
+
+	/**
+	 * Logs a completion if the log is turned on for the organisation of the task.
+	 *
+	 * @param organisation
+	 *            The organisation to which the task belongs.
+	 * @param task
+	 *            The completed task.
+	 * @param player
+	 *            The player who completed the task.
+	 * @param trace
+	 *            The trace of the completion.
+	 */
+	public static void log(Organisation organisation, Task task, Player player, CompletionTrace trace) {
+		if (organisation.isCompletionLog() && LOGGER.isInfoEnabled()) {
+			LOGGER.info("organisation={} task={} player={} {}", organisation.getId(), task.getId(), player.getId(), trace);
+		}
+	}
+}
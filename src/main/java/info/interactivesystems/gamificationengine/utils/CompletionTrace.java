@@ -0,0 +1,188 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import java.util.Locale;
+
+/**
+ * Traces the completion of one task. The time of each stage of the completion is summed up and
+ * the rules, goals and rewards are counted, so a slow completion can be traced back to the rules
+ * and goals of an organisation. When the completion is done, the trace is recorded in
+ * {@link Metrics#COMPLETION_STAGES} and {@link Metrics#COMPLETION_ITEMS}.
+ */
+public class CompletionTrace {
+
+	/**
+	 * The stages of a completion.
+	 */
+	public enum Stage {
+		/** Loading the player and the task. */
+		LOAD("load"),
+		/** Checking whether the player's roles allow to complete the task. */
+		ROLE_CHECK("roleCheck"),
+		/** Looking up the rules of the task. */
+		RULE_LOOKUP("ruleLookup"),
+		/** Looking up the goals of each rule. */
+		GOAL_LOOKUP("goalLookup"),
+		/** Checking the roles and the rules of the goals of the player. */
+		GOAL_CHECK("goalCheck"),
+		/** Checking the goals of the player's groups and awarding the groups. */
+		GROUPS("groups"),
+		/** Awarding the player's rewards. */
+		REWARDS("rewards"),
+		/** Completing the offers of the task. */
+		OFFERS("offers"),
+		/** Storing the player's points and coins. */
+		BALANCE("balance");
+
+		private final String label;
+
+		Stage(String label) {
+			this.label = label;
+		}
+
+		/**
+		 * Gets the name of the stage as used in metrics and headers.
+		 *
+		 * @return The name of the stage.
+		 */
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	private final long[] nanos = new long[Stage.values().length];
+	private final boolean[] entered = new boolean[Stage.values().length];
+	private int rules;
+	private int goals;
+	private int rewards;
+
+	/**
+	 * Starts timing a stage.
+	 *
+	 * @return The start time, which is passed to {@link #stop(Stage, long)}.
+	 */
+	public long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Stops timing a stage and adds the time to the stage.
+	 *
+	 * @param stage
+	 *            The stage which was timed.
+	 * @param start
+	 *            The start time returned by {@link #start()}.
+	 */
+	public void stop(Stage stage, long start) {
+		nanos[stage.ordinal()] += System.nanoTime() - start;
+		entered[stage.ordinal()] = true;
+	}
+
+	/**
+	 * Counts the rules which contain the task.
+	 *
+	 * @param count
+	 *            The number of rules.
+	 */
+	public void rulesMatched(int count) {
+		rules += count;
+	}
+
+	/**
+	 * Counts one goal which was checked.
+	 */
+	public void goalChecked() {
+		goals++;
+	}
+
+	/**
+	 * Counts one reward which was awarded to the player or a group.
+	 */
+	public void rewardGranted() {
+		rewards++;
+	}
+
+	/**
+	 * Gets the summed up time of a stage.
+	 *
+	 * @param stage
+	 *            The stage.
+	 * @return The time in nanoseconds.
+	 */
+	public long getNanos(Stage stage) {
+		return nanos[stage.ordinal()];
+	}
+
+	/**
+	 * Gets the number of rules which contain the task.
+	 *
+	 * @return The number of rules.
+	 */
+	public int getRules() {
+		return rules;
+	}
+
+	/**
+	 * Gets the number of checked goals.
+	 *
+	 * @return The number of goals.
+	 */
+	public int getGoals() {
+		return goals;
+	}
+
+	/**
+	 * Gets the number of awarded rewards.
+	 *
+	 * @return The number of rewards.
+	 */
+	public int getRewards() {
+		return rewards;
+	}
+
+	/**
+	 * Gets whether a stage was entered. A completion which fails early or whose task isn't part
+	 * of any rule doesn't enter the later stages.
+	 *
+	 * @param stage
+	 *            The stage.
+	 * @return True if the stage was timed at least once, otherwise false.
+	 */
+	public boolean isEntered(Stage stage) {
+		return entered[stage.ordinal()];
+	}
+
+	/**
+	 * Records the trace in the metrics of the organisation. Only the stages which were entered
+	 * are recorded, so they don't count as stages without any time.
+	 *
+	 * @param organisationId
+	 *            The id of the organisation to which the task belongs.
+	 */
+	public void record(int organisationId) {
+		String organisation = Integer.toString(organisationId);
+		for (Stage stage : Stage.values()) {
+			if (entered[stage.ordinal()]) {
+				Metrics.COMPLETION_STAGES.record(organisation, stage.getLabel(), nanos[stage.ordinal()], false);
+			}
+		}
+		Metrics.COMPLETION_ITEMS.recordValue(organisation, "rules", rules, false);
+		Metrics.COMPLETION_ITEMS.recordValue(organisation, "goals", goals, false);
+		Metrics.COMPLETION_ITEMS.recordValue(organisation, "rewards", rewards, false);
+	}
+
+	/**
+	 * Formats the trace as header value, like
+	 * {@code rules=2;goals=3;rewards=1;load=0.412;roleCheck=0.003;...} with the times in
+	 * milliseconds.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder trace = new StringBuilder();
+		trace.append("rules=").append(rules).append(";goals=").append(goals).append(";rewards=").append(rewards);
+		for (Stage stage : Stage.values()) {
+			trace.append(';').append(stage.getLabel()).append('=')
+					.append(String.format(Locale.ROOT, "%.3f", nanos[stage.ordinal()] / 1000000.0));
+		}
+		return trace.toString();
+	}
+}
@@ -0,0 +1,105 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A short-lived cache of credentials which were verified successfully. Verifying a password
+ * against its salted hash is slow on purpose, so a client which sends the same credentials with
+ * each request would be slowed down by every request. For a while after a successful
+ * verification the same credentials are accepted without hashing the password again.
+ * The cache only contains a digest of the credentials together with the stored hash, so a
+ * changed password isn't accepted from the cache.
+ */
+public class CredentialCache {
+
+	private final int maxEntries;
+	private final long timeToLiveMillis;
+
+	// insertion order, so the first entry is the oldest one
+	private final LinkedHashMap<String, Long> verified = new LinkedHashMap<>();
+
+	/**
+	 * Creates a cache with the passed bounds.
+	 *
+	 * @param maxEntries
+	 *            The maximal number of verified credentials in the cache.
+	 * @param timeToLiveMillis
+	 *            The time in milliseconds verified credentials are accepted from the cache.
+	 */
+	public CredentialCache(int maxEntries, long timeToLiveMillis) {
+		this.maxEntries = maxEntries;
+		this.timeToLiveMillis = timeToLiveMillis;
+	}
+
+	/**
+	 * Checks whether the passed credentials were verified a short time ago.
+	 *
+	 * @param principal
+	 *            The name of the account or player.
+	 * @param password
+	 *            The password which was sent.
+	 * @param stored
+	 *            The stored hash of the password.
+	 * @return True if the credentials were verified and haven't expired yet, otherwise false.
+	 */
+	public synchronized boolean isVerified(String principal, String password, String stored) {
+		Long expiry = verified.get(key(principal, password, stored));
+		return expiry != null && expiry > System.currentTimeMillis();
+	}
+
+	/**
+	 * Adds credentials which were verified successfully to the cache. Expired credentials and, if
+	 * the cache is full, the oldest credentials are removed.
+	 *
+	 * @param principal
+	 *            The name of the account or player.
+	 * @param password
+	 *            The password which was sent.
+	 * @param stored
+	 *            The stored hash of the password.
+	 */
+	public synchronized void verified(String principal, String password, String stored) {
+		long now = System.currentTimeMillis();
+		String key = key(principal, password, stored);
+		verified.remove(key);
+		verified.put(key, now + timeToLiveMillis);
+
+		Iterator<Map.Entry<String, Long>> oldest = verified.entrySet().iterator();
+		while (oldest.hasNext()) {
+			Map.Entry<String, Long> entry = oldest.next();
+			if (entry.getValue() > now && verified.size() <= maxEntries) {
+				break;
+			}
+			oldest.remove();
+		}
+	}
+
+	/**
+	 * Gets the number of verified credentials in the cache.
+	 *
+	 * @return The number of cached credentials.
+	 */
+	public synchronized int size() {
+		return verified.size();
+	}
+
+	private static String key(String principal, String password, String stored) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(principal.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(password.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(stored.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package info.interactivesystems.gamificationengine.utils;
+
+/**
+ * Utility Class to have the summed up donations of one donor for a call for donations. 
+ * The sums are computed by the data base, so the single donations don't have to be loaded.
+ */
+public class DonorTotal {
+
+	private int playerId;
+	private String nickname;
+	private long amount;
+	private long donations;
+
+	public DonorTotal(int playerId, String nickname, long amount, long donations) {
+		this.playerId = playerId;
+		this.nickname = nickname;
+		this.amount = amount;
+		this.donations = donations;
+	}
+
+	/**
+	 * Gets the id of the player who has donated.
+	 * 
+	 * @return The id of the donor as int.
+	 */
+	public int getPlayerId() {
+		return playerId;
+	}
+
+	/**
+	 * Gets the nickname of the player who has donated.
+	 * 
+	 * @return The nickname of the donor as String.
+	 */
+	public String getNickname() {
+		return nickname;
+	}
+
+	/**
+	 * Gets the amount of coins the player has donated in total.
+	 * 
+	 * @return The sum of all donations of the player as long.
+	 */
+	public long getAmount() {
+		return amount;
+	}
+
+	/**
+	 * Gets how many times the player has donated.
+	 * 
+	 * @return The number of donations of the player as long.
+	 */
+	public long getDonations() {
+		return donations;
+	}
+}
@@ -0,0 +1,183 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import info.interactivesystems.gamificationengine.api.exeption.ApiError;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.ws.rs.core.Response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the images of avatars, logos, icons and image messages, either from an URL or from the
+ * body of an upload. Images from an URL are fetched in the thread of the request, but only a few
+ * of them at once, so slow hosts cannot occupy more than a few threads of the engine. The time to
+ * connect to the host, the time of each read and the time of the whole download are limited as
+ * well as the size and the dimensions of the images. The limits can be configured with the system
+ * properties
+ * <ul>
+ * <li>gamificationengine.image.connectTimeout (milliseconds, default 2000),</li>
+ * <li>gamificationengine.image.readTimeout (milliseconds, default 5000),</li>
+ * <li>gamificationengine.image.downloadTimeout (milliseconds of the whole download, default
+ * 10000),</li>
+ * <li>gamificationengine.image.maxBytes (default 3000000, the size of the asset column),</li>
+ * <li>gamificationengine.image.maxPixels (length of the longer side, default 4096) and</li>
+ * <li>gamificationengine.image.fetchers (number of images fetched at once, default 4).</li>
+ * </ul>
+ */
+public final class ImageIngestion {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageIngestion.class);
+
+	static final int CONNECT_TIMEOUT = Integer.getInteger("gamificationengine.image.connectTimeout", 2000);
+	static final int READ_TIMEOUT = Integer.getInteger("gamificationengine.image.readTimeout", 5000);
+	static final int MAX_BYTES = Integer.getInteger("gamificationengine.image.maxBytes", 3000000);
+	static final int MAX_PIXELS = Integer.getInteger("gamificationengine.image.maxPixels", 4096);
+	static final int DOWNLOAD_TIMEOUT = Integer.getInteger("gamificationengine.image.downloadTimeout", 10000);
+	static final int FETCHERS = Integer.getInteger("gamificationengine.image.fetchers", 4);
+
+	/**
+	 * The permits of the images which are fetched at the moment, more fetches are rejected.
+	 */
+	private static final Semaphore FETCHES = new Semaphore(FETCHERS);
+
+	private ImageIngestion() {
+	}
+
+	/**
+	 * Fetches the image which is located by the passed URL. Only http and https URLs are
+	 * accepted and the image has to be a .png or .jpg file. If the host doesn't answer in time,
+	 * the image is too large or too many images are fetched at the moment, an exception is
+	 * thrown.
+	 *
+	 * @param fileLocation
+	 *            The URL of the image.
+	 * @return byte[] of the image content.
+	 */
+	public static byte[] fetch(String fileLocation) {
+		URL url;
+		try {
+			url = new URL(fileLocation);
+		} catch (MalformedURLException e) {
+			throw new ApiError(Response.Status.FORBIDDEN, "No valid url was transferred");
+		}
+		if (!url.getProtocol().equals("http") && !url.getProtocol().equals("https")) {
+			throw new ApiError(Response.Status.FORBIDDEN, "No valid url was transferred");
+		}
+
+		if (!FETCHES.tryAcquire()) {
+			throw new ApiError(Response.Status.SERVICE_UNAVAILABLE, "Too many images are fetched at the moment, try again later");
+		}
+		try {
+			return checkImage(download(url, System.currentTimeMillis() + DOWNLOAD_TIMEOUT));
+		} catch (SocketTimeoutException e) {
+			throw new ApiError(Response.Status.GATEWAY_TIMEOUT, "The image couldn't be fetched in time");
+		} catch (IOException e) {
+			LOGGER.debug("image {} couldn't be fetched: {}", fileLocation, e.getMessage());
+			throw new ApiError(Response.Status.FORBIDDEN, "No valid url was transferred");
+		} finally {
+			FETCHES.release();
+		}
+	}
+
+	/**
+	 * Reads an uploaded image from the passed stream. The image has to be a PNG or JPEG image
+	 * and must not exceed the maximal size.
+	 *
+	 * @param in
+	 *            The body of the upload.
+	 * @return byte[] of the image content.
+	 */
+	public static byte[] read(InputStream in) {
+		try {
+			return checkImage(readBounded(in, Long.MAX_VALUE));
+		} catch (IOException e) {
+			throw new ApiError(Response.Status.BAD_REQUEST, "The image couldn't be read");
+		}
+	}
+
+	private static byte[] download(URL url, long deadline) throws IOException {
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(CONNECT_TIMEOUT);
+		connection.setReadTimeout(READ_TIMEOUT);
+		if (connection instanceof HttpURLConnection) {
+			HttpURLConnection http = (HttpURLConnection) connection;
+			if (http.getResponseCode() != HttpURLConnection.HTTP_OK) {
+				throw new IOException("Status " + http.getResponseCode());
+			}
+		}
+		if (connection.getContentLengthLong() > MAX_BYTES) {
+			throw tooLarge();
+		}
+		try (InputStream in = connection.getInputStream()) {
+			return readBounded(in, deadline);
+		}
+	}
+
+	/**
+	 * Reads the stream until its end. The read timeout only limits each read, so a host which
+	 * sends a few bytes now and then is stopped by the deadline of the whole download. As the
+	 * deadline is checked after each read, a download takes at most one read timeout longer.
+	 */
+	private static byte[] readBounded(InputStream in, long deadline) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new SocketTimeoutException("Download not finished in time");
+			}
+			if (out.size() + read > MAX_BYTES) {
+				throw tooLarge();
+			}
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Checks that the content is a PNG or JPEG image whose dimensions don't exceed the maximum.
+	 * Only the header of the image is read, the image isn't decoded.
+	 */
+	private static byte[] checkImage(byte[] content) {
+		if (!ImageUtils.contentType(content).startsWith("image/")) {
+			throw new ApiError(Response.Status.FORBIDDEN, "The image format has to be .png or .jpg");
+		}
+		try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+			if (!readers.hasNext()) {
+				throw new ApiError(Response.Status.FORBIDDEN, "The image format has to be .png or .jpg");
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(in);
+				if (reader.getWidth(0) > MAX_PIXELS || reader.getHeight(0) > MAX_PIXELS) {
+					throw new ApiError(Response.Status.FORBIDDEN, "The image must not be larger than %d pixels", MAX_PIXELS);
+				}
+			} finally {
+				reader.dispose();
+			}
+		} catch (IOException e) {
+			throw new ApiError(Response.Status.FORBIDDEN, "The image couldn't be read");
+		}
+		return content;
+	}
+
+	private static ApiError tooLarge() {
+		return new ApiError(Response.Status.REQUEST_ENTITY_TOO_LARGE, "The image must not be larger than %d bytes", MAX_BYTES);
+	}
+}
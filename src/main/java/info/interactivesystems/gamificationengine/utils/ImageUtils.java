@@ -1,14 +1,13 @@
 package info.interactivesystems.gamificationengine.utils;
 
-import info.interactivesystems.gamificationengine.api.exeption.ApiError;
-
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.net.URL;
 
 import javax.imageio.ImageIO;
-import javax.ws.rs.core.Response;
 
 import org.apache.commons.codec.binary.Base64;
 import org.slf4j.Logger;
@@ -18,38 +17,6 @@ public class ImageUtils {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(ImageUtils.class);
 	
-	/**
-	 * The passed String represents an URL. With this URL a byte[] is created from the image file that was passed as a String that
-	 * represents an URL. The format of the image has to be .jpg or .png. Otherwise 
-	 * an exception is thrown with the hint, that the URL was not valid.
-	 * 
-	 * @param fileLocation
-	 * 			The path an image can be located. This is an URL.
-	 * @return byte[] of the image content.
-	 */
-	public static byte[] imageToByte(String fileLocation) {
-		BufferedImage originalImage;
-		byte[] byteImage = null;
-
-		String format = fileLocation.substring(fileLocation.lastIndexOf(".") + 1);
-
-		if (format.equals("png") || format.equals("jpg")) {
-			try {
-				URL fileImage = new URL(fileLocation);
-				originalImage = ImageIO.read(fileImage);
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				ImageIO.write(originalImage, format, baos);
-				byteImage = baos.toByteArray();
-				 
-			} catch (IOException e) {
-				throw new ApiError(Response.Status.FORBIDDEN, "No valid url was transferred");
-			}
-		}else{
-			throw new ApiError(Response.Status.FORBIDDEN, "The image format has to be .png or .jpg");
-		}
-		return byteImage;
-	}
-	
 	/**
 	 * The passed byte array is Base64-encoded to ensure that the data is transmitted 
 	 * correctly as String.  
@@ -62,4 +29,70 @@ public class ImageUtils {
 		String b64 = Base64.encodeBase64String(bytes);
 		return b64;
 	}
+
+	/**
+	 * Detects the media type of the passed image content by its first bytes. Images are either 
+	 * PNG or JPEG files, other content is typed as binary data.
+	 * 
+	 * @param bytes
+	 * 			The content of the image.
+	 * @return The media type of the content, for example image/png.
+	 */
+	public static String contentType(byte[] bytes) {
+		if (bytes.length >= 4 && (bytes[0] & 0xff) == 0x89 && bytes[1] == 'P' && bytes[2] == 'N' && bytes[3] == 'G') {
+			return "image/png";
+		}
+		if (bytes.length >= 3 && (bytes[0] & 0xff) == 0xff && (bytes[1] & 0xff) == 0xd8 && (bytes[2] & 0xff) == 0xff) {
+			return "image/jpeg";
+		}
+		return "application/octet-stream";
+	}
+
+	/**
+	 * Creates a smaller variant of the passed image whose longer side has the passed size. The 
+	 * proportions of the image are kept and the variant has the same format as the image. The 
+	 * image is halved step by step before the last step, so the variant stays sharp.
+	 * 
+	 * @param bytes
+	 * 			The content of a PNG or JPEG image.
+	 * @param size
+	 * 			The length of the variant's longer side in pixels.
+	 * @return The content of the variant or null if the image isn't larger than the size.
+	 * @throws IOException
+	 * 			If the image cannot be read or written.
+	 */
+	public static byte[] resize(byte[] bytes, int size) throws IOException {
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+		if (image == null) {
+			throw new IOException("The content is no readable image");
+		}
+		int longerSide = Math.max(image.getWidth(), image.getHeight());
+		if (longerSide <= size) {
+			return null;
+		}
+
+		boolean png = contentType(bytes).equals("image/png");
+		int width = Math.max(1, image.getWidth() * size / longerSide);
+		int height = Math.max(1, image.getHeight() * size / longerSide);
+
+		BufferedImage scaled = image;
+		int currentWidth = image.getWidth();
+		int currentHeight = image.getHeight();
+		do {
+			currentWidth = Math.max(width, currentWidth / 2);
+			currentHeight = Math.max(height, currentHeight / 2);
+
+			BufferedImage step = new BufferedImage(currentWidth, currentHeight, png ? BufferedImage.TYPE_INT_ARGB
+					: BufferedImage.TYPE_INT_RGB);
+			Graphics2D graphics = step.createGraphics();
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.drawImage(scaled, 0, 0, currentWidth, currentHeight, null);
+			graphics.dispose();
+			scaled = step;
+		} while (currentWidth != width || currentHeight != height);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(scaled, png ? "png" : "jpg", out);
+		return out.toByteArray();
+	}
 }
@@ -0,0 +1,141 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies with a high dynamic range. The latencies are counted in microseconds
+ * in buckets whose width grows with the latency: each power of two is divided into
+ * {@value #SUB_BUCKETS} buckets, so a quantile is off by at most 1/{@value #SUB_BUCKETS} of its
+ * value, from one microsecond up to several hours. Recording a latency only increments two
+ * counters and never locks, so a histogram can be updated by every request.
+ */
+public class LatencyHistogram {
+
+	static final int SUB_BUCKETS = 16;
+	private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+	/**
+	 * The largest latency in microseconds, about 19 hours. Larger latencies are counted as this.
+	 */
+	private static final long MAX_MICROS = (1L << 36) - 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(index(MAX_MICROS) + 1);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sumMicros = new LongAdder();
+
+	/**
+	 * Records one latency.
+	 *
+	 * @param nanos
+	 *            The latency in nanoseconds.
+	 */
+	public void record(long nanos) {
+		recordValue(nanos / 1000);
+	}
+
+	/**
+	 * Records a value which isn't a latency, like the number of queries of a request. The
+	 * quantiles and the sum are then given in the unit of the values instead of microseconds.
+	 *
+	 * @param value
+	 *            The value to record.
+	 */
+	public void recordValue(long value) {
+		long bounded = Math.min(MAX_MICROS, Math.max(0, value));
+		counts.incrementAndGet(index(bounded));
+		count.increment();
+		sumMicros.add(bounded);
+	}
+
+	/**
+	 * Gets the number of recorded latencies.
+	 *
+	 * @return The count.
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Gets the sum of all recorded latencies.
+	 *
+	 * @return The sum in microseconds.
+	 */
+	public long getSumMicros() {
+		return sumMicros.sum();
+	}
+
+	/**
+	 * Gets the latency below which the passed share of latencies lies. The histogram may be
+	 * recorded meanwhile, so the quantile is approximate in two respects.
+	 *
+	 * @param quantile
+	 *            The share between 0 and 1, like 0.99.
+	 * @return The upper bound of the bucket of the quantile in microseconds, 0 if nothing was
+	 *         recorded.
+	 */
+	public long quantileMicros(double quantile) {
+		long total = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			total += counts.get(i);
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return upperBound(i);
+			}
+		}
+		return MAX_MICROS;
+	}
+
+	/**
+	 * Gets the number of latencies up to the passed bound, like the bucket of a histogram in the
+	 * text exposition format. The latencies of the bucket of the bound are counted, so the bound
+	 * is off by at most 1/{@value #SUB_BUCKETS} of its value.
+	 *
+	 * @param micros
+	 *            The upper bound in microseconds, or in the unit of the values.
+	 * @return The number of latencies up to the bound.
+	 */
+	public long countAtMost(long micros) {
+		int last = index(Math.min(MAX_MICROS, Math.max(0, micros)));
+		long seen = 0;
+		for (int i = 0; i <= last; i++) {
+			seen += counts.get(i);
+		}
+		return seen;
+	}
+
+	/**
+	 * Computes the bucket of a latency. Latencies below {@value #SUB_BUCKETS} microseconds have
+	 * buckets of their own, larger ones are divided by their highest bit into groups of
+	 * {@value #SUB_BUCKETS} buckets.
+	 */
+	static int index(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		int magnitude = 63 - Long.numberOfLeadingZeros(micros) - SUB_BITS;
+		int sub = (int) (micros >>> magnitude) - SUB_BUCKETS;
+		return (magnitude + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Computes the largest latency of a bucket.
+	 */
+	static long upperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int magnitude = index / SUB_BUCKETS - 1;
+		long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+		return ((sub + 1) << magnitude) - 1;
+	}
+}
@@ -0,0 +1,78 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejects a part of the requests while the engine answers too slowly. The latency of the
+ * answered requests is averaged exponentially. As long as the average is above the threshold, a
+ * share of the requests is rejected which grows with the latency, up to nine of ten requests.
+ * Because some requests are still answered, the average adapts when the load decreases.
+ */
+public class LoadShedder {
+
+	/**
+	 * The weight of the latest latency in the average.
+	 */
+	private static final double WEIGHT = 0.05;
+
+	/**
+	 * The largest share of requests which is rejected.
+	 */
+	static final double MAX_SHARE = 0.9;
+
+	private final long thresholdNanos;
+	private final AtomicLong averageNanos = new AtomicLong();
+
+	/**
+	 * Creates a shedder with the passed threshold.
+	 *
+	 * @param thresholdNanos
+	 *            The average latency in nanoseconds from which on requests are rejected.
+	 */
+	public LoadShedder(long thresholdNanos) {
+		this.thresholdNanos = thresholdNanos;
+	}
+
+	/**
+	 * Adds the latency of an answered request to the average.
+	 *
+	 * @param nanos
+	 *            The latency of the request in nanoseconds.
+	 */
+	public void record(long nanos) {
+		averageNanos.updateAndGet(average -> average + (long) ((nanos - average) * WEIGHT));
+	}
+
+	/**
+	 * Gets the share of requests which is currently rejected.
+	 *
+	 * @return The share between 0 and {@link #MAX_SHARE}.
+	 */
+	public double share() {
+		long average = averageNanos.get();
+		if (average <= thresholdNanos) {
+			return 0;
+		}
+		return Math.min(MAX_SHARE, (average - thresholdNanos) / (double) thresholdNanos);
+	}
+
+	/**
+	 * Decides whether a request is rejected.
+	 *
+	 * @return True if the request should be rejected, otherwise false.
+	 */
+	public boolean shed() {
+		double share = share();
+		return share > 0 && ThreadLocalRandom.current().nextDouble() < share;
+	}
+
+	/**
+	 * Gets the average latency of the answered requests.
+	 *
+	 * @return The average in nanoseconds.
+	 */
+	public long getAverageNanos() {
+		return averageNanos.get();
+	}
+}
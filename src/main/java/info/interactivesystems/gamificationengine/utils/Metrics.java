@@ -0,0 +1,245 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the counts and latencies of the requests of each route and of the calls of each data
+ * access method, the number of queries of the requests of each route and the stages of task
+ * completions of each organisation. The metrics are written in the text exposition format of
+ * Prometheus, as histograms with cumulative buckets, so the quantiles can be computed over any
+ * time window and across the nodes of a cluster.
+ * <p>
+ * The metrics of the task completions are labeled with the organisation. Only the first
+ * organisations up to the number of the system property gamificationengine.metrics.organisations
+ * (default 20) get series of their own, the completions of all other organisations are counted
+ * together with the label value {@value #OTHER}. So the number of series stays bounded however
+ * many organisations there are.
+ */
+public final class Metrics {
+
+	/**
+	 * The upper bounds of the buckets of latencies in seconds.
+	 */
+	private static final double[] SECONDS_BUCKETS = { 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+	/**
+	 * The upper bounds of the buckets of other values, like numbers of queries.
+	 */
+	private static final double[] VALUE_BUCKETS = { 0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000 };
+
+	/**
+	 * The metrics of the requests, by HTTP method and templated path.
+	 */
+	public static final Metrics REQUESTS = new Metrics("gamificationengine_http_requests",
+			"Requests by route", "method", "route");
+
+	/**
+	 * The number of queries of the requests, by HTTP method and templated path. The requests over
+	 * the query budget are counted as errors.
+	 */
+	public static final Metrics REQUEST_QUERIES = new Metrics("gamificationengine_http_request_queries",
+			"Queries per request by route", "method", "route", "", "_over_budget_total",
+			"Requests over the query budget by route");
+
+	/**
+	 * The metrics of the data access methods, by data access object and method.
+	 */
+	public static final Metrics QUERIES = new Metrics("gamificationengine_dao_calls",
+			"Calls of data access methods", "dao", "method");
+
+	static final int ORGANISATIONS = Integer.getInteger("gamificationengine.metrics.organisations", 20);
+
+	/**
+	 * The label value of the first labels beyond the limit.
+	 */
+	static final String OTHER = "other";
+
+	/**
+	 * The time of the stages of task completions, by organisation and stage.
+	 */
+	public static final Metrics COMPLETION_STAGES = new Metrics("gamificationengine_completion_stage",
+			"Stages of task completions by organisation", "organisation", "stage", "_seconds", null, ORGANISATIONS);
+
+	/**
+	 * The number of rules, goals and rewards of task completions, by organisation.
+	 */
+	public static final Metrics COMPLETION_ITEMS = new Metrics("gamificationengine_completion_items",
+			"Rules, goals and rewards of task completions by organisation", "organisation", "item", "", null,
+			ORGANISATIONS);
+
+	private static final String SECONDS = "_seconds";
+	private static final String ERRORS = "_errors_total";
+
+	private final String name;
+	private final String help;
+	private final String firstLabel;
+	private final String secondLabel;
+	private final String unit;
+	private final String errors;
+	private final String errorHelp;
+	private final int firstLimit;
+	private final Set<String> firstValues = ConcurrentHashMap.newKeySet();
+	private final ConcurrentMap<String, Series> series = new ConcurrentHashMap<>();
+
+	Metrics(String name, String help, String firstLabel, String secondLabel) {
+		this(name, help, firstLabel, secondLabel, SECONDS, ERRORS);
+	}
+
+	/**
+	 * Creates metrics with the passed names.
+	 *
+	 * @param unit
+	 *            The suffix of the histogram, "_seconds" for latencies or "" for other values.
+	 * @param errors
+	 *            The suffix of the error counter or null if no errors are counted.
+	 */
+	Metrics(String name, String help, String firstLabel, String secondLabel, String unit, String errors) {
+		this(name, help, firstLabel, secondLabel, unit, errors, "Failed " + help.toLowerCase(), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates metrics with the passed names and an own description of the error counter.
+	 *
+	 * @param errorHelp
+	 *            The description of the error counter.
+	 */
+	Metrics(String name, String help, String firstLabel, String secondLabel, String unit, String errors, String errorHelp) {
+		this(name, help, firstLabel, secondLabel, unit, errors, errorHelp, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates metrics with the passed names and a bounded number of values of the first label.
+	 *
+	 * @param firstLimit
+	 *            The maximal number of values of the first label, further values are recorded
+	 *            as {@value #OTHER}.
+	 */
+	Metrics(String name, String help, String firstLabel, String secondLabel, String unit, String errors, int firstLimit) {
+		this(name, help, firstLabel, secondLabel, unit, errors, "Failed " + help.toLowerCase(), firstLimit);
+	}
+
+	private Metrics(String name, String help, String firstLabel, String secondLabel, String unit, String errors,
+			String errorHelp, int firstLimit) {
+		this.name = name;
+		this.help = help;
+		this.firstLabel = firstLabel;
+		this.secondLabel = secondLabel;
+		this.unit = unit;
+		this.errors = errors;
+		this.errorHelp = errorHelp;
+		this.firstLimit = firstLimit;
+	}
+
+	/**
+	 * Records one request or call.
+	 *
+	 * @param first
+	 *            The value of the first label, like the HTTP method.
+	 * @param second
+	 *            The value of the second label, like the route.
+	 * @param nanos
+	 *            The latency in nanoseconds.
+	 * @param failed
+	 *            Whether the request or call failed.
+	 */
+	public void record(String first, String second, long nanos, boolean failed) {
+		Series entry = series(first, second);
+		entry.latency.record(nanos);
+		if (failed) {
+			entry.errors.increment();
+		}
+	}
+
+	/**
+	 * Records one value which isn't a latency, like the number of queries of a request.
+	 *
+	 * @param first
+	 *            The value of the first label, like the HTTP method.
+	 * @param second
+	 *            The value of the second label, like the route.
+	 * @param value
+	 *            The value to record.
+	 * @param failed
+	 *            Whether the value is counted as error.
+	 */
+	public void recordValue(String first, String second, long value, boolean failed) {
+		Series entry = series(first, second);
+		entry.latency.recordValue(value);
+		if (failed) {
+			entry.errors.increment();
+		}
+	}
+
+	private Series series(String first, String second) {
+		if (!firstValues.contains(first)) {
+			// the limit may be exceeded by a few concurrent values
+			if (firstValues.size() < firstLimit) {
+				firstValues.add(first);
+			} else {
+				first = OTHER;
+			}
+		}
+		String labels = firstLabel + "=\"" + escape(first) + "\"," + secondLabel + "=\"" + escape(second) + "\"";
+		return series.computeIfAbsent(labels, k -> new Series());
+	}
+
+	/**
+	 * Writes the metrics in the text exposition format.
+	 *
+	 * @param out
+	 *            The builder to which the metrics are appended.
+	 */
+	public void writeTo(StringBuilder out) {
+		Map<String, Series> sorted = new TreeMap<>(series);
+		String histogram = name + unit;
+		boolean seconds = SECONDS.equals(unit);
+		double[] buckets = seconds ? SECONDS_BUCKETS : VALUE_BUCKETS;
+
+		out.append("# HELP ").append(histogram).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(histogram).append(" histogram\n");
+		for (Map.Entry<String, Series> entry : sorted.entrySet()) {
+			LatencyHistogram latency = entry.getValue().latency;
+			// the buckets are capped by the count, which is read first
+			long count = latency.getCount();
+			for (double bucket : buckets) {
+				long bound = seconds ? Math.round(bucket * 1000000) : (long) bucket;
+				out.append(histogram).append("_bucket{").append(entry.getKey()).append(",le=\"").append(bucket)
+						.append("\"} ").append(Math.min(count, latency.countAtMost(bound))).append('\n');
+			}
+			out.append(histogram).append("_bucket{").append(entry.getKey()).append(",le=\"+Inf\"} ").append(count)
+					.append('\n');
+			out.append(histogram).append("_sum{").append(entry.getKey()).append("} ")
+					.append(format(latency.getSumMicros())).append('\n');
+			out.append(histogram).append("_count{").append(entry.getKey()).append("} ").append(count).append('\n');
+		}
+
+		if (errors == null) {
+			return;
+		}
+		String counter = name + errors;
+		out.append("# HELP ").append(counter).append(' ').append(errorHelp).append('\n');
+		out.append("# TYPE ").append(counter).append(" counter\n");
+		for (Map.Entry<String, Series> entry : sorted.entrySet()) {
+			out.append(counter).append('{').append(entry.getKey()).append("} ")
+					.append(entry.getValue().errors.sum()).append('\n');
+		}
+	}
+
+	private String format(long value) {
+		return SECONDS.equals(unit) ? Double.toString(value / 1000000.0) : Long.toString(value);
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private static class Series {
+		final LatencyHistogram latency = new LatencyHistogram();
+		final LongAdder errors = new LongAdder();
+	}
+}
@@ -0,0 +1,111 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import info.interactivesystems.gamificationengine.entities.Asset;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.glxn.qrgen.QRCode;
+import net.glxn.qrgen.image.ImageType;
+
+/**
+ * A bounded cache of rendered QR codes. QR codes of check-in stations are requested again and
+ * again with the same content, so each code is only rendered once as long as it is requested
+ * frequently. The codes which weren't requested for the longest time are removed when the
+ * cache holds too many codes or bytes.
+ */
+public class QrCodeCache {
+
+	private final int maxEntries;
+	private final long maxBytes;
+
+	// access order, so the first entry is the least recently used one
+	private final LinkedHashMap<String, byte[]> codes = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+
+	/**
+	 * Creates a cache with the passed bounds.
+	 *
+	 * @param maxEntries
+	 *            The maximal number of codes in the cache.
+	 * @param maxBytes
+	 *            The maximal number of bytes of all codes in the cache.
+	 */
+	public QrCodeCache(int maxEntries, long maxBytes) {
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Gets the PNG image of the QR code with the passed content and size. If the code isn't
+	 * cached, it is rendered and added to the cache.
+	 *
+	 * @param content
+	 *            The content of the QR code.
+	 * @param size
+	 *            The width and height of the image in pixels.
+	 * @return The PNG image of the code.
+	 */
+	public byte[] get(String content, int size) {
+		String key = size + ":" + content;
+		synchronized (this) {
+			byte[] png = codes.get(key);
+			if (png != null) {
+				return png;
+			}
+		}
+
+		// rendered outside of the lock, so other codes can be read meanwhile
+		byte[] png = render(content, size);
+		synchronized (this) {
+			byte[] previous = codes.put(key, png);
+			bytes += png.length - (previous == null ? 0 : previous.length);
+
+			Iterator<Map.Entry<String, byte[]>> eldest = codes.entrySet().iterator();
+			while (codes.size() > 1 && (codes.size() > maxEntries || bytes > maxBytes)) {
+				bytes -= eldest.next().getValue().length;
+				eldest.remove();
+			}
+		}
+		return png;
+	}
+
+	/**
+	 * Gets the number of codes in the cache.
+	 *
+	 * @return The number of cached codes.
+	 */
+	public synchronized int size() {
+		return codes.size();
+	}
+
+	/**
+	 * Renders the QR code with the passed content and size as PNG image, without caching it.
+	 *
+	 * @param content
+	 *            The content of the QR code.
+	 * @param size
+	 *            The width and height of the image in pixels.
+	 * @return The PNG image of the code.
+	 */
+	public static byte[] render(String content, int size) {
+		return QRCode.from(content).withSize(size, size).to(ImageType.PNG).stream().toByteArray();
+	}
+
+	/**
+	 * Computes the ETag of a QR code. The same content and size always give the same image, so
+	 * the ETag is computed from them and the code doesn't need to be rendered to answer a
+	 * conditional request.
+	 *
+	 * @param content
+	 *            The content of the QR code.
+	 * @param size
+	 *            The width and height of the image in pixels.
+	 * @return The ETag of the code.
+	 */
+	public static String etag(String content, int size) {
+		return Asset.hash((size + ":" + content).getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,125 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements of the current request, which are reported by the
+ * {@link info.interactivesystems.gamificationengine.dao.QueryCounter} when Hibernate prepares
+ * them. A request is handled by one thread, so the statements are counted per thread between
+ * {@link #begin()} and {@link #end()}. Statements which are run outside of a request, for example
+ * by the background jobs, aren't counted.
+ * <p>
+ * A request which runs more queries than the budget of the system property
+ * gamificationengine.queryBudget (default 20) is reported as over budget. A request which runs
+ * the same statement at least gamificationengine.queryBudget.repeated (default 10) times is
+ * reported as N+1 query, because the statement is most likely run once for each item of a list,
+ * like the load of a lazy association.
+ */
+public final class QueryBudget {
+
+	public static final int BUDGET = Integer.getInteger("gamificationengine.queryBudget", 20);
+	public static final int REPEATED = Integer.getInteger("gamificationengine.queryBudget.repeated", 10);
+
+	private static final ThreadLocal<Report> CURRENT = new ThreadLocal<>();
+
+	private QueryBudget() {
+	}
+
+	/**
+	 * Starts counting the queries of a request on the current thread.
+	 */
+	public static void begin() {
+		CURRENT.set(new Report());
+	}
+
+	/**
+	 * Counts one query of the current request, if queries are counted on this thread.
+	 *
+	 * @param query
+	 *            The SQL of the statement.
+	 */
+	public static void count(String query) {
+		Report report = CURRENT.get();
+		if (report != null) {
+			report.count(query);
+		}
+	}
+
+	/**
+	 * Stops counting the queries of the current request.
+	 *
+	 * @return The counted queries or null if no queries were counted on this thread.
+	 */
+	public static Report end() {
+		Report report = CURRENT.get();
+		CURRENT.remove();
+		return report;
+	}
+
+	/**
+	 * The queries of one request.
+	 */
+	public static class Report {
+
+		private final Map<String, Integer> queries = new HashMap<>();
+		private int total;
+
+		void count(String query) {
+			queries.merge(query, 1, Integer::sum);
+			total++;
+		}
+
+		/**
+		 * Gets the number of all queries.
+		 *
+		 * @return The number of queries.
+		 */
+		public int getTotal() {
+			return total;
+		}
+
+		/**
+		 * Checks whether more queries were run than the budget allows.
+		 *
+		 * @return True if the request is over budget, otherwise false.
+		 */
+		public boolean isOverBudget() {
+			return total > BUDGET;
+		}
+
+		/**
+		 * Gets the statement which was run most often, if it was run at least
+		 * {@link QueryBudget#REPEATED} times.
+		 *
+		 * @return The SQL of the statement or null if no statement was repeated that often.
+		 */
+		public String getRepeatedQuery() {
+			String repeated = null;
+			int max = REPEATED - 1;
+			for (Map.Entry<String, Integer> query : queries.entrySet()) {
+				if (query.getValue() > max) {
+					repeated = query.getKey();
+					max = query.getValue();
+				}
+			}
+			return repeated;
+		}
+
+		/**
+		 * Gets how often a statement was run.
+		 *
+		 * @param query
+		 *            The SQL of the statement.
+		 * @return The number of runs.
+		 */
+		public int getCount(String query) {
+			return queries.getOrDefault(query, 0);
+		}
+
+		@Override
+		public String toString() {
+			return total + " queries " + queries;
+		}
+	}
+}
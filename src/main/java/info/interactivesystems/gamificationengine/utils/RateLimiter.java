@@ -0,0 +1,153 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the rate of requests for each key, like an API key, with a token bucket. Each bucket
+ * holds up to a burst of requests and is refilled at a constant rate. The buckets are kept in a
+ * concurrent map and are updated by compare and set, so no lock is held for a request.
+ * <p>
+ * A bucket only stores the time at which it will be full again (the theoretical arrival time
+ * of the generic cell rate algorithm), a request takes one token by moving this time forward.
+ * Once there are many buckets, each new key removes a few of the buckets which are full again,
+ * so the number of buckets stays bounded without scanning all of them at once.
+ */
+public class RateLimiter {
+
+	/**
+	 * The number of buckets from which on idle buckets are removed.
+	 */
+	private static final int CLEANUP_SIZE = 10000;
+
+	/**
+	 * The number of buckets which are checked for each new key. As more than one bucket is
+	 * checked, the idle buckets are removed faster than new keys arrive.
+	 */
+	private static final int SWEEP_SIZE = 4;
+
+	private final long interval;
+	private final long tolerance;
+	private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+	/**
+	 * The position of the sweep over the buckets, it is continued by each new key.
+	 */
+	private Iterator<AtomicLong> sweep;
+	private final ReentrantLock sweepLock = new ReentrantLock();
+
+	/**
+	 * Creates a limiter with the passed rate.
+	 *
+	 * @param perSecond
+	 *            The number of requests per second and key.
+	 * @param burst
+	 *            The number of requests of a key which may be sent at once.
+	 */
+	public RateLimiter(double perSecond, int burst) {
+		this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+		this.tolerance = interval * Math.max(0, burst - 1);
+	}
+
+	/**
+	 * Takes one request from the bucket of the passed key.
+	 *
+	 * @param key
+	 *            The key whose rate is limited.
+	 * @param now
+	 *            The current time in nanoseconds, see {@link System#nanoTime()}.
+	 * @return 0 if the request is allowed, otherwise the number of nanoseconds until the next
+	 *         request of the key is allowed.
+	 */
+	public long acquire(String key, long now) {
+		AtomicLong bucket = buckets.get(key);
+		if (bucket == null) {
+			if (buckets.size() >= CLEANUP_SIZE) {
+				sweepIdle(now);
+			}
+			bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+		}
+
+		while (true) {
+			long full = bucket.get();
+			long next = Math.max(full, now) + interval;
+			long wait = next - now - tolerance - interval;
+			if (wait > 0) {
+				return wait;
+			}
+			if (bucket.compareAndSet(full, next)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the bucket of the passed key holds a request, without taking it.
+	 *
+	 * @param key
+	 *            The key whose rate is limited.
+	 * @param now
+	 *            The current time in nanoseconds, see {@link System#nanoTime()}.
+	 * @return 0 if a request would be allowed, otherwise the number of nanoseconds until the next
+	 *         request of the key is allowed.
+	 */
+	public long peek(String key, long now) {
+		AtomicLong bucket = buckets.get(key);
+		if (bucket == null) {
+			return 0;
+		}
+		return Math.max(0, Math.max(bucket.get(), now) - now - tolerance);
+	}
+
+	/**
+	 * Puts back a request which was taken by {@link #acquire(String, long)}, because the request
+	 * was rejected by another limit.
+	 *
+	 * @param key
+	 *            The key whose request is put back.
+	 */
+	public void release(String key) {
+		AtomicLong bucket = buckets.get(key);
+		if (bucket != null) {
+			bucket.addAndGet(-interval);
+		}
+	}
+
+	/**
+	 * Gets the number of keys which have a bucket.
+	 *
+	 * @return The number of buckets.
+	 */
+	public int size() {
+		return buckets.size();
+	}
+
+	/**
+	 * Continues the sweep over the buckets and removes those which are full again, they behave
+	 * like new buckets. If another thread is sweeping, nothing is done.
+	 */
+	private void sweepIdle(long now) {
+		if (!sweepLock.tryLock()) {
+			return;
+		}
+		try {
+			for (int i = 0; i < SWEEP_SIZE; i++) {
+				if (sweep == null || !sweep.hasNext()) {
+					sweep = buckets.values().iterator();
+					if (!sweep.hasNext()) {
+						return;
+					}
+				}
+				if (sweep.next().get() <= now) {
+					sweep.remove();
+				}
+			}
+		} finally {
+			sweepLock.unlock();
+		}
+	}
+}
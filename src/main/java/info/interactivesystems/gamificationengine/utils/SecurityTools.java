@@ -1,17 +1,61 @@
 package info.interactivesystems.gamificationengine.utils;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
 import java.util.Base64;
 import java.util.UUID;
 
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
 import javax.ws.rs.core.Response;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import info.interactivesystems.gamificationengine.api.exeption.ApiError;
 
 public class SecurityTools {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(SecurityTools.class);
+
+	private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+	private static final String PREFIX = "$pbkdf2-sha256$";
+	private static final int SALT_BYTES = 16;
+	private static final int HASH_BITS = 256;
+
+	/**
+	 * The smallest number of iterations of a password hash, also on slow machines.
+	 */
+	static final int MIN_ITERATIONS = 10000;
+
+	/**
+	 * The number of iterations of new password hashes. It can be set with the system property
+	 * gamificationengine.password.iterations, otherwise it is benchmarked so that hashing one
+	 * password takes about gamificationengine.password.targetMillis (default 50) milliseconds.
+	 */
+	static final int ITERATIONS;
+	static {
+		Integer configured = Integer.getInteger("gamificationengine.password.iterations");
+		if (configured != null) {
+			ITERATIONS = Math.max(MIN_ITERATIONS, configured);
+		} else {
+			ITERATIONS = benchmarkIterations(Integer.getInteger("gamificationengine.password.targetMillis", 50));
+			LOGGER.info("Passwords are hashed with {} iterations", ITERATIONS);
+		}
+	}
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	/**
+	 * Credentials which were verified in the last five minutes are accepted without hashing 
+	 * the password again.
+	 */
+	private static final CredentialCache VERIFIED = new CredentialCache(10000, 5 * 60 * 1000);
+
 	private SecurityTools() {
 	}
 
@@ -27,7 +71,8 @@ public class SecurityTools {
 	}
 
 	/**
-	 * Encodes a password to a encoded password with SHA 512.
+	 * Encodes a password to a encoded password with SHA 512. New passwords are hashed with
+	 * {@link #hashPassword(String)}, this unsalted hash is only used to verify older passwords.
 	 * @param plainText
 	 * 			The original password.
 	 * @return An encoded password.
@@ -48,4 +93,157 @@ public class SecurityTools {
 	       
 	}
 	
+	/**
+	 * Hashes a password with a random salt and the configured number of iterations. The 
+	 * returned string contains the number of iterations, the salt and the hash, so the password 
+	 * can be verified even if the number of iterations is changed later.
+	 * 
+	 * @param password
+	 * 			The original password.
+	 * @return The salted hash of the password.
+	 */
+	public static String hashPassword(String password) {
+		byte[] salt = new byte[SALT_BYTES];
+		RANDOM.nextBytes(salt);
+		byte[] hash = pbkdf2(password, salt, ITERATIONS);
+
+		Base64.Encoder encoder = Base64.getEncoder();
+		return PREFIX + ITERATIONS + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+	}
+
+	/**
+	 * Verifies a password against its stored hash. Besides the salted hashes also the unsalted 
+	 * SHA-512 hashes of older versions are verified, these should be replaced by a salted hash 
+	 * after the password was verified, see {@link #needsRehash(String)}. A malformed salted hash 
+	 * doesn't verify any password.
+	 * 
+	 * @param password
+	 * 			The password which was sent.
+	 * @param stored
+	 * 			The stored hash of the password.
+	 * @return True if the password matches the hash, otherwise false.
+	 */
+	public static boolean verifyPassword(String password, String stored) {
+		if (password == null || stored == null) {
+			return false;
+		}
+		if (!stored.startsWith(PREFIX)) {
+			return MessageDigest.isEqual(encryptWithSHA512(password).getBytes(StandardCharsets.UTF_8),
+					stored.getBytes(StandardCharsets.UTF_8));
+		}
+
+		String[] parts = stored.substring(PREFIX.length()).split("\\$");
+		byte[] salt;
+		byte[] expected;
+		int iterations;
+		try {
+			if (parts.length != 3) {
+				throw new IllegalArgumentException("Wrong number of parts");
+			}
+			Base64.Decoder decoder = Base64.getDecoder();
+			salt = decoder.decode(parts[1]);
+			expected = decoder.decode(parts[2]);
+			iterations = Integer.parseInt(parts[0]);
+			if (iterations < 1 || salt.length == 0) {
+				throw new IllegalArgumentException("No iterations or salt");
+			}
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn("A stored password hash is malformed: {}", e.getMessage());
+			return false;
+		}
+		return MessageDigest.isEqual(pbkdf2(password, salt, iterations), expected);
+	}
+
+	/**
+	 * Checks the credentials of an account or player. Credentials which were verified a short 
+	 * time ago are accepted without hashing the password again, so clients which send their 
+	 * credentials with every request aren't slowed down.
+	 * 
+	 * @param principal
+	 * 			The name of the account or player, for example the email address.
+	 * @param password
+	 * 			The password which was sent.
+	 * @param stored
+	 * 			The stored hash of the password.
+	 * @return True if the password matches the hash, otherwise false.
+	 */
+	public static boolean checkPassword(String principal, String password, String stored) {
+		if (password == null || stored == null) {
+			return false;
+		}
+		if (VERIFIED.isVerified(principal, password, stored)) {
+			return true;
+		}
+		if (!verifyPassword(password, stored)) {
+			return false;
+		}
+		VERIFIED.verified(principal, password, stored);
+		return true;
+	}
+
+	/**
+	 * Checks whether a stored hash was created by {@link #hashPassword(String)}. Otherwise it is 
+	 * an unsalted hash of an older version.
+	 * 
+	 * @param stored
+	 * 			The stored hash of a password.
+	 * @return True if the hash is salted, otherwise false.
+	 */
+	public static boolean isSalted(String stored) {
+		return stored != null && stored.startsWith(PREFIX);
+	}
+
+	/**
+	 * Checks whether a stored hash should be replaced, because it is an unsalted hash or has 
+	 * less iterations than currently configured. A malformed salted hash should be replaced as 
+	 * well.
+	 * 
+	 * @param stored
+	 * 			The stored hash of a password.
+	 * @return True if the password should be hashed again, otherwise false.
+	 */
+	public static boolean needsRehash(String stored) {
+		if (!isSalted(stored)) {
+			return true;
+		}
+		int end = stored.indexOf('$', PREFIX.length());
+		try {
+			return end < 0 || Integer.parseInt(stored.substring(PREFIX.length(), end)) < ITERATIONS;
+		} catch (NumberFormatException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Measures how many iterations of the password hash can be done in the passed time on this 
+	 * machine.
+	 * 
+	 * @param targetMillis
+	 * 			The time hashing one password should take.
+	 * @return The number of iterations, at least {@link #MIN_ITERATIONS}.
+	 */
+	static int benchmarkIterations(int targetMillis) {
+		byte[] salt = new byte[SALT_BYTES];
+		int probe = MIN_ITERATIONS;
+		// the first run warms up the JIT
+		pbkdf2("benchmark", salt, probe);
+		long start = System.nanoTime();
+		pbkdf2("benchmark", salt, probe);
+		long nanos = Math.max(1, System.nanoTime() - start);
+
+		long iterations = probe * (targetMillis * 1000000L) / nanos;
+		return (int) Math.max(MIN_ITERATIONS, Math.min(Integer.MAX_VALUE, iterations));
+	}
+
+	private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+		PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+		try {
+			return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+		} catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+			// a missing algorithm is an error of the server, not of the request
+			throw new IllegalStateException("The password cannot be hashed with " + ALGORITHM, e);
+		} finally {
+			spec.clearPassword();
+		}
+	}
 }
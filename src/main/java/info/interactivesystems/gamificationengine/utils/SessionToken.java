@@ -0,0 +1,181 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A signed session token of an organisation. The token contains the id of the organisation, the
+ * time it expires and a random nonce, together with an HMAC of these values. The token can be
+ * read by everyone who holds it, so it never contains the API key of the organisation: the key
+ * is looked up by the organisation's id when the token is used, see
+ * {@link #withApiKey(String)}.
+ * <p>
+ * The tokens are signed with the secret of the system property gamificationengine.token.secret.
+ * If it isn't set, a random secret is created at startup, then tokens are only valid until the
+ * engine is restarted and only on the server which issued them. A token is valid for
+ * gamificationengine.token.ttlSeconds (default 3600) seconds.
+ */
+public class SessionToken {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SessionToken.class);
+
+	/**
+	 * The name of the request property which holds the token of an authenticated request.
+	 */
+	public static final String PROPERTY = "gamificationengine.tenant";
+
+	static final int TTL_SECONDS = Integer.getInteger("gamificationengine.token.ttlSeconds", 3600);
+
+	private static final String ALGORITHM = "HmacSHA256";
+	private static final SecureRandom RANDOM = new SecureRandom();
+	private static final byte[] SECRET;
+	static {
+		String configured = System.getProperty("gamificationengine.token.secret");
+		if (configured != null) {
+			SECRET = configured.getBytes(StandardCharsets.UTF_8);
+		} else {
+			SECRET = new byte[32];
+			RANDOM.nextBytes(SECRET);
+			LOGGER.warn("No token secret is configured, session tokens are only valid until the next restart");
+		}
+	}
+
+	private final int organisationId;
+	private final String apiKey;
+	private final long expires;
+	private final String token;
+
+	private SessionToken(int organisationId, String apiKey, long expires, String token) {
+		this.organisationId = organisationId;
+		this.apiKey = apiKey;
+		this.expires = expires;
+		this.token = token;
+	}
+
+	/**
+	 * Issues a new token for an organisation.
+	 *
+	 * @param organisationId
+	 *            The id of the organisation.
+	 * @return The signed token.
+	 */
+	public static SessionToken issue(int organisationId) {
+		return issue(organisationId, System.currentTimeMillis() + TTL_SECONDS * 1000L, SECRET);
+	}
+
+	static SessionToken issue(int organisationId, long expires, byte[] secret) {
+		byte[] nonce = new byte[16];
+		RANDOM.nextBytes(nonce);
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		String payload = organisationId + ":" + expires + ":" + encoder.encodeToString(nonce);
+		String token = encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "."
+				+ encoder.encodeToString(sign(payload, secret));
+		return new SessionToken(organisationId, null, expires, token);
+	}
+
+	/**
+	 * Verifies the signature and the expiry of a token.
+	 *
+	 * @param token
+	 *            The token which was sent.
+	 * @return The verified token without the API key or null if the token is malformed, wrongly 
+	 *         signed or expired.
+	 */
+	public static SessionToken verify(String token) {
+		return verify(token, System.currentTimeMillis(), SECRET);
+	}
+
+	static SessionToken verify(String token, long now, byte[] secret) {
+		int dot = token.indexOf('.');
+		if (dot < 0) {
+			return null;
+		}
+		try {
+			Base64.Decoder decoder = Base64.getUrlDecoder();
+			String payload = new String(decoder.decode(token.substring(0, dot)), StandardCharsets.UTF_8);
+			if (!MessageDigest.isEqual(sign(payload, secret), decoder.decode(token.substring(dot + 1)))) {
+				return null;
+			}
+			String[] parts = payload.split(":", 3);
+			long expires = Long.parseLong(parts[1]);
+			if (parts.length < 3 || expires <= now) {
+				return null;
+			}
+			return new SessionToken(Integer.parseInt(parts[0]), null, expires, token);
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	private static byte[] sign(String payload, byte[] secret) {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(new SecretKeySpec(secret, ALGORITHM));
+			return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
+			throw new IllegalStateException("Tokens cannot be signed", e);
+		}
+	}
+
+	/**
+	 * Gets the id of the organisation the token was issued for.
+	 *
+	 * @return The organisation's id.
+	 */
+	public int getOrganisationId() {
+		return organisationId;
+	}
+
+	/**
+	 * Creates a copy of this token with the API key of its organisation, which was looked up
+	 * after the token was verified.
+	 *
+	 * @param organisationApiKey
+	 *            The current API key of the token's organisation.
+	 * @return The token with the API key.
+	 */
+	public SessionToken withApiKey(String organisationApiKey) {
+		return new SessionToken(organisationId, organisationApiKey, expires, token);
+	}
+
+	/**
+	 * Gets the API key of the organisation the token was issued for. It isn't part of the
+	 * token and only set by {@link #withApiKey(String)}.
+	 *
+	 * @return The organisation's API key or null if it wasn't looked up yet.
+	 */
+	@JsonIgnore
+	public String getApiKey() {
+		return apiKey;
+	}
+
+	/**
+	 * Gets the time the token expires.
+	 *
+	 * @return The expiry in milliseconds since the epoch.
+	 */
+	public long getExpires() {
+		return expires;
+	}
+
+	/**
+	 * Gets the signed token, which is sent in the header "Authorization: Bearer &lt;token&gt;".
+	 *
+	 * @return The token.
+	 */
+	public String getToken() {
+		return token;
+	}
+}
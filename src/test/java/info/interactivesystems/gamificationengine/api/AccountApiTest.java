@@ -93,7 +93,8 @@ public class AccountApiTest {
 		ResponseSurrogate<Account> entity = (ResponseSurrogate<Account>) response.getEntity();
 
 		assertThat(entity.content.getEmail()).isEqualTo(email);
-		assertThat(entity.content.getPassword()).isEqualTo(SecurityTools.encryptWithSHA512(password));
+		assertThat(entity.content.getPassword()).isNotEqualTo(password);
+		assertThat(SecurityTools.verifyPassword(password, entity.content.getPassword())).isTrue();
 	}
 
 	@Test
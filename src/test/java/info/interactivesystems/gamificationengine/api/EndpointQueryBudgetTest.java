@@ -0,0 +1,185 @@
+package info.interactivesystems.gamificationengine.api;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import info.interactivesystems.gamificationengine.dao.BoardDAO;
+import info.interactivesystems.gamificationengine.dao.GoalDAO;
+import info.interactivesystems.gamificationengine.dao.MarketPlaceDAO;
+import info.interactivesystems.gamificationengine.dao.OrganisationDAO;
+import info.interactivesystems.gamificationengine.dao.PlayerDAO;
+import info.interactivesystems.gamificationengine.dao.PlayerGroupDAO;
+import info.interactivesystems.gamificationengine.dao.PresentDAO;
+import info.interactivesystems.gamificationengine.dao.RecordingEntityManager;
+import info.interactivesystems.gamificationengine.dao.RuleDAO;
+import info.interactivesystems.gamificationengine.dao.TaskDAO;
+import info.interactivesystems.gamificationengine.entities.Organisation;
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.goal.DoAnyTaskRule;
+import info.interactivesystems.gamificationengine.entities.marketPlace.Bid;
+import info.interactivesystems.gamificationengine.entities.marketPlace.Offer;
+import info.interactivesystems.gamificationengine.entities.present.Board;
+import info.interactivesystems.gamificationengine.entities.present.Present;
+import info.interactivesystems.gamificationengine.entities.present.TextMessage;
+import info.interactivesystems.gamificationengine.entities.task.Task;
+import info.interactivesystems.gamificationengine.utils.QueryBudget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs endpoints with the real data access objects and counts their statements like the
+ * {@link QueryBudget} does for a request. The statements which Hibernate runs on its own, like
+ * the loads of lazy associations, aren't seen, see {@link RecordingEntityManager}.
+ */
+public class EndpointQueryBudgetTest {
+
+	private static final String BALANCE = "select p.points, p.coins, p.eventSequence from Player p";
+
+	private RecordingEntityManager em;
+	private Organisation organisation;
+
+	@Before
+	public void setUp() {
+		em = new RecordingEntityManager();
+		organisation = new Organisation("organisation");
+		organisation.setId(1);
+	}
+
+	@After
+	public void tearDown() {
+		// stops counting if a request failed
+		QueryBudget.end();
+	}
+
+	private Player player(int id) {
+		Player player = new Player();
+		player.setId(id);
+		player.setActive(true);
+		player.setBelongsTo(organisation);
+		return player;
+	}
+
+	private static List<Object> balance(int points, int coins, int sequence) {
+		return Collections.singletonList(new Object[] { points, coins, sequence });
+	}
+
+	private QueryBudget.Report run(Runnable request) {
+		QueryBudget.begin();
+		request.run();
+		return QueryBudget.end();
+	}
+
+	@Test
+	public void testCompleteTaskRunsOneGoalQueryPerRule() {
+		Player player = player(1);
+		Task task = new Task();
+		task.setId(2);
+		task.setBelongsTo(organisation);
+		task.setAllowedFor(new ArrayList<>());
+		List<Object> rules = new ArrayList<>();
+		for (int id = 1; id <= 3; id++) {
+			DoAnyTaskRule rule = new DoAnyTaskRule();
+			rule.setId(id);
+			rule.setTasks(Arrays.asList(task));
+			rules.add(rule);
+		}
+		em.returning("select p from Player p", Arrays.asList(player))
+				.returning("select t from Task t", Arrays.asList(task))
+				.returning("select r from GoalRule r", rules)
+				.returning(BALANCE, balance(0, 0, 1));
+
+		TaskApi taskApi = new TaskApi();
+		taskApi.playerDao = em.inject(new PlayerDAO());
+		taskApi.taskDao = em.inject(new TaskDAO());
+		taskApi.ruleDao = em.inject(new RuleDAO());
+		taskApi.goalDao = em.inject(new GoalDAO());
+		taskApi.groupDao = em.inject(new PlayerGroupDAO());
+		taskApi.marketPlDao = em.inject(new MarketPlaceDAO());
+
+		QueryBudget.Report report = run(() -> taskApi.completeTask("2", "1", null, "apiKey", false));
+
+		// player, task, rules, a goal query per rule, offers, balance update, balance and event
+		assertThat(report.getTotal()).isEqualTo(10);
+		assertThat(report.getCount("select g from Goal g where g.rule.id =:ruleId and g.belongsTo.apiKey=:apiKey")).isEqualTo(3);
+		assertThat(report.getCount("insert GameEvent")).isEqualTo(1);
+		assertThat(report.getRepeatedQuery()).isNull();
+		assertThat(report.isOverBudget()).isFalse();
+	}
+
+	@Test
+	public void testSendCreatesMissingBoardsWithoutReloadingThem() {
+		List<Player> receivers = new ArrayList<>();
+		List<Object> boards = new ArrayList<>();
+		for (int id = 1; id <= 8; id++) {
+			Player player = player(id);
+			receivers.add(player);
+			if (id <= 5) {
+				Board board = new Board();
+				board.setOwner(player);
+				boards.add(board);
+			}
+		}
+		Present present = new TextMessage();
+		present.setId(3);
+		present.setReceiver(receivers);
+		em.returning("select entity from Organisation entity", Arrays.asList(organisation))
+				.returning("select p from Present p", Arrays.asList(present))
+				.returning("select entity from Board entity", boards);
+
+		PresentApi presentApi = new PresentApi();
+		presentApi.organisationDao = em.inject(new OrganisationDAO());
+		presentApi.presentDao = em.inject(new PresentDAO());
+		presentApi.boardDao = em.inject(new BoardDAO());
+
+		QueryBudget.Report report = run(() -> presentApi.send("3", "apiKey"));
+
+		// organisation, present, boards, an insert per missing board, one delivery
+		assertThat(report.getTotal()).isEqualTo(7);
+		assertThat(report.getCount("insert Board")).isEqualTo(3);
+		assertThat(report.getCount("select Board")).isEqualTo(0);
+		assertThat(report.getRepeatedQuery()).isNull();
+	}
+
+	@Test
+	public void testDeleteOfferUpdatesEachRefundedPlayerOnce() {
+		Offer offer = new Offer();
+		offer.setId(4);
+		offer.setPrize(40);
+		offer.setPlayer(player(1));
+		List<Object> bids = new ArrayList<>();
+		for (int id = 2; id <= 4; id++) {
+			Bid bid = new Bid();
+			bid.setPlayer(player(id));
+			bid.setPrize(10);
+			bids.add(bid);
+		}
+		em.returning("select o from Offer o", Arrays.asList(offer))
+				.returning("select b from Bid b", bids)
+				.returning(BALANCE, balance(0, 10, 5));
+
+		MarketPlaceApi marketPlaceApi = new MarketPlaceApi();
+		marketPlaceApi.playerDao = em.inject(new PlayerDAO());
+		marketPlaceApi.marketPlDao = em.inject(new MarketPlaceDAO());
+
+		QueryBudget.Report report = run(() -> {
+			Response response = marketPlaceApi.deleteOffer("4", "apiKey");
+			assertThat(response.getStatus()).isEqualTo(Response.Status.OK.getStatusCode());
+		});
+
+		// offer, bids, the owner and three bidders with update, balance and event each,
+		// marketplaces, offer and delete
+		assertThat(report.getCount("update Player p set p.points = p.points + :points, p.coins = p.coins + :coins, "
+				+ "p.eventSequence = p.eventSequence + :events where p.id = :id and p.coins + :coins >= 0")).isEqualTo(4);
+		assertThat(report.getCount("delete Offer")).isEqualTo(1);
+		assertThat(report.getTotal()).isEqualTo(17);
+		assertThat(report.getRepeatedQuery()).isNull();
+	}
+}
@@ -0,0 +1,60 @@
+package info.interactivesystems.gamificationengine.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import info.interactivesystems.gamificationengine.dao.GoalDAO;
+import info.interactivesystems.gamificationengine.dao.RoleDAO;
+import info.interactivesystems.gamificationengine.entities.goal.Goal;
+import info.interactivesystems.gamificationengine.jobs.GoalReevaluationJob.GoalChanged;
+
+import java.util.ArrayList;
+
+import javax.enterprise.event.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class GoalApiTest {
+
+	private GoalApi goalApi;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		goalApi = new GoalApi();
+		goalApi.goalDao = mock(GoalDAO.class);
+		goalApi.roleDao = mock(RoleDAO.class);
+		goalApi.goalChanged = mock(Event.class);
+
+		Goal goal = new Goal();
+		goal.setId(4);
+		when(goalApi.goalDao.getGoal(eq(4), anyString())).thenReturn(goal);
+		when(goalApi.roleDao.getRoles(anyListOf(Integer.class), anyString())).thenReturn(new ArrayList<>());
+	}
+
+	@Test
+	public void testChangedRolesStartReevaluation() {
+		goalApi.changeGoalAttributes("4", "roles", "1,2", "apiKey");
+
+		ArgumentCaptor<GoalChanged> change = ArgumentCaptor.forClass(GoalChanged.class);
+		verify(goalApi.goalChanged).fire(change.capture());
+		assertThat(change.getValue().getGoalId()).isEqualTo(4);
+		assertThat(change.getValue().getApiKey()).isEqualTo("apiKey");
+	}
+
+	@Test
+	public void testChangedNameDoesNotStartReevaluation() {
+		goalApi.changeGoalAttributes("4", "goalName", "new name", "apiKey");
+
+		verify(goalApi.goalChanged, never()).fire(any(GoalChanged.class));
+	}
+}
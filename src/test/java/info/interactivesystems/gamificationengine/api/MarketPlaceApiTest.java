@@ -0,0 +1,198 @@
+package info.interactivesystems.gamificationengine.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import info.interactivesystems.gamificationengine.api.exeption.ApiError;
+import info.interactivesystems.gamificationengine.dao.MarketPlaceDAO;
+import info.interactivesystems.gamificationengine.dao.OrganisationDAO;
+import info.interactivesystems.gamificationengine.dao.PlayerDAO;
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.marketPlace.Bid;
+import info.interactivesystems.gamificationengine.entities.marketPlace.Offer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class MarketPlaceApiTest {
+
+	private static final int OFFER_ID = 3;
+
+	private MarketPlaceApi marketPlaceApi;
+	private Offer offer;
+
+	@Before
+	public void setUp() {
+		marketPlaceApi = new MarketPlaceApi();
+		marketPlaceApi.organisationDao = mock(OrganisationDAO.class);
+		marketPlaceApi.playerDao = mock(PlayerDAO.class);
+		marketPlaceApi.marketPlDao = mock(MarketPlaceDAO.class);
+
+		offer = new Offer();
+		offer.setId(OFFER_ID);
+		when(marketPlaceApi.marketPlDao.getOffer(eq(OFFER_ID), anyString())).thenReturn(offer);
+	}
+
+	private void mockPlayer(int coins, boolean enoughCoinsStored) {
+		// each request loads its own copy of the player
+		when(marketPlaceApi.playerDao.getPlayer(eq(1), anyString())).thenAnswer(invocation -> {
+			Player player = new Player();
+			player.setId(1);
+			player.reconcileBalance(0, coins);
+			return player;
+		});
+		when(marketPlaceApi.playerDao.applyBalance(any(Player.class))).thenReturn(enoughCoinsStored);
+	}
+
+	@Test
+	public void testBidRaisesPrizeWithRelativeUpdate() {
+		mockPlayer(10, true);
+		when(marketPlaceApi.marketPlDao.raisePrize(offer, 4)).thenReturn(true);
+
+		Response response = marketPlaceApi.giveABid("1", Integer.toString(OFFER_ID), "4", "apiKey");
+
+		assertThat(response.getStatus()).isEqualTo(Response.Status.CREATED.getStatusCode());
+		verify(marketPlaceApi.marketPlDao).raisePrize(offer, 4);
+		verify(marketPlaceApi.marketPlDao, never()).raisePrize(offer, -4);
+		verify(marketPlaceApi.marketPlDao).insertBid(any(Bid.class));
+	}
+
+	@Test
+	public void testRaiseIsTakenBackWithoutEnoughStoredCoins() {
+		// the loaded player has enough coins, but a concurrent request has spent them meanwhile
+		mockPlayer(10, false);
+		when(marketPlaceApi.marketPlDao.raisePrize(any(Offer.class), anyInt())).thenReturn(true);
+
+		try {
+			marketPlaceApi.giveABid("1", Integer.toString(OFFER_ID), "4", "apiKey");
+			throw new AssertionError("bid without enough coins was accepted");
+		} catch (ApiError e) {
+			assertThat(e.getResponse().getStatus()).isEqualTo(Response.Status.FORBIDDEN.getStatusCode());
+		}
+
+		verify(marketPlaceApi.marketPlDao).raisePrize(offer, 4);
+		verify(marketPlaceApi.marketPlDao).raisePrize(offer, -4);
+		verify(marketPlaceApi.marketPlDao, never()).insertBid(any(Bid.class));
+	}
+
+	@Test
+	public void testBidOnDeletedOfferIsRejected() {
+		mockPlayer(10, true);
+		when(marketPlaceApi.marketPlDao.raisePrize(offer, 4)).thenReturn(false);
+
+		try {
+			marketPlaceApi.giveABid("1", Integer.toString(OFFER_ID), "4", "apiKey");
+			throw new AssertionError("bid on a deleted offer was accepted");
+		} catch (ApiError e) {
+			assertThat(e.getResponse().getStatus()).isEqualTo(Response.Status.NOT_FOUND.getStatusCode());
+		}
+
+		verify(marketPlaceApi.marketPlDao, never()).insertBid(any(Bid.class));
+		verify(marketPlaceApi.playerDao, never()).applyBalance(any(Player.class));
+	}
+
+	@Test
+	public void testConcurrentBidsOnlyUseRelativeUpdates() throws Exception {
+		mockPlayer(1000, true);
+		when(marketPlaceApi.marketPlDao.raisePrize(offer, 1)).thenReturn(true);
+		int bidders = 8;
+		int bids = 50;
+
+		ExecutorService executor = Executors.newFixedThreadPool(bidders);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger created = new AtomicInteger();
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < bidders; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int j = 0; j < bids; j++) {
+						if (marketPlaceApi.giveABid("1", Integer.toString(OFFER_ID), "1", "apiKey").getStatus() == 201) {
+							created.incrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// every bid raised the stored prize by its own amount, the loaded offer is never written
+		assertThat(created.get()).isEqualTo(bidders * bids);
+		verify(marketPlaceApi.marketPlDao, times(bidders * bids)).raisePrize(offer, 1);
+		verify(marketPlaceApi.marketPlDao, times(bidders * bids)).insertBid(any(Bid.class));
+		verify(marketPlaceApi.marketPlDao, never()).insertOffer(any(Offer.class));
+	}
+
+	/**
+	 * Measures the bids per second of 64 concurrent bidders on one offer. The stored prize is
+	 * simulated by one row which each bid locks for its relative update, like the data base does.
+	 * The result depends on the machine, so the benchmark is run manually.
+	 */
+	@Ignore("benchmark, run manually")
+	@Test
+	public void benchmarkBidsOnHotOffer() throws Exception {
+		mockPlayer(1000000, true);
+		AtomicInteger prize = new AtomicInteger();
+		when(marketPlaceApi.marketPlDao.raisePrize(any(Offer.class), anyInt())).thenAnswer(invocation -> {
+			synchronized (prize) {
+				prize.addAndGet((Integer) invocation.getArguments()[1]);
+			}
+			return true;
+		});
+		int bidders = 64;
+		int bids = 200;
+
+		ExecutorService executor = Executors.newFixedThreadPool(bidders);
+		CountDownLatch start = new CountDownLatch(1);
+		long duration;
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < bidders; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int j = 0; j < bids; j++) {
+						marketPlaceApi.giveABid("1", Integer.toString(OFFER_ID), "1", "apiKey");
+					}
+					return null;
+				}));
+			}
+			long begin = System.nanoTime();
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			duration = System.nanoTime() - begin;
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(prize.get()).isEqualTo(bidders * bids);
+		System.out.printf("%d bidders: %.0f bids/s%n", bidders, bidders * bids / (duration / (double) TimeUnit.SECONDS.toNanos(1)));
+	}
+}
@@ -0,0 +1,60 @@
+package info.interactivesystems.gamificationengine.api;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import info.interactivesystems.gamificationengine.api.exeption.ApiError;
+import info.interactivesystems.gamificationengine.utils.CompletionTrace;
+import info.interactivesystems.gamificationengine.utils.CompletionTrace.Stage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.Test;
+
+public class MetricsApiTest {
+
+	@Test
+	public void testMetricsNeedPassword() {
+		assertThat(MetricsApi.isAuthorized(basic("prometheus:secret"), "secret")).isTrue();
+		assertThat(MetricsApi.isAuthorized(basic(":secret"), "secret")).isTrue();
+		assertThat(MetricsApi.isAuthorized(basic("prometheus:wrong"), "secret")).isFalse();
+		assertThat(MetricsApi.isAuthorized(basic("secret"), "secret")).isFalse();
+		assertThat(MetricsApi.isAuthorized("Basic %%%", "secret")).isFalse();
+		assertThat(MetricsApi.isAuthorized(null, "secret")).isFalse();
+	}
+
+	@Test
+	public void testMetricsAreDisabledWithoutPassword() {
+		assertThat(MetricsApi.isAuthorized(basic("prometheus:"), null)).isFalse();
+	}
+
+	@Test
+	public void testCompletionsAreExposed() {
+		CompletionTrace trace = new CompletionTrace();
+		trace.stop(Stage.RULE_LOOKUP, trace.start());
+		trace.rulesMatched(2);
+		trace.record(43);
+
+		System.setProperty(MetricsApi.PASSWORD, "secret");
+		String text;
+		try {
+			text = new MetricsApi().metrics(basic("prometheus:secret"));
+		} finally {
+			System.clearProperty(MetricsApi.PASSWORD);
+		}
+
+		assertThat(text).contains("# TYPE gamificationengine_http_requests_seconds histogram\n");
+		assertThat(text).contains("gamificationengine_completion_stage_seconds_count{organisation=\"43\",stage=\"ruleLookup\"} 1\n");
+		assertThat(text).contains("gamificationengine_completion_items_sum{organisation=\"43\",item=\"rules\"} 2\n");
+		assertThat(text).doesNotContain("organisation=\"43\",stage=\"goalCheck\"");
+	}
+
+	@Test(expected = ApiError.class)
+	public void testMetricsAreRejectedWithoutPassword() {
+		new MetricsApi().metrics(basic("prometheus:secret"));
+	}
+
+	private static String basic(String credentials) {
+		return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+	}
+}
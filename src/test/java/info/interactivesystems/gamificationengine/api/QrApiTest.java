@@ -0,0 +1,73 @@
+package info.interactivesystems.gamificationengine.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+import info.interactivesystems.gamificationengine.api.exeption.ApiError;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.junit.Test;
+
+public class QrApiTest {
+
+	private final QrApi qrApi = new QrApi();
+
+	private static int statusOf(Runnable call) {
+		try {
+			call.run();
+			fail("ApiError expected");
+			return 0;
+		} catch (ApiError e) {
+			return e.getResponse().getStatus();
+		}
+	}
+
+	@Test
+	public void testBatchDoesNotShadowCodeOfContentBatch() throws NoSuchMethodException {
+		assertThat(QrApi.class.getMethod("getQrCode", String.class, String.class, Request.class)
+				.isAnnotationPresent(GET.class)).isTrue();
+		assertThat(QrApi.class.getMethod("getQrCodes", List.class, String.class, String.class)
+				.isAnnotationPresent(GET.class)).isFalse();
+		assertThat(QrApi.class.getMethod("getQrCodes", List.class, String.class, String.class)
+				.isAnnotationPresent(POST.class)).isTrue();
+	}
+
+	@Test
+	public void testBatchIsZipWithIndex() throws IOException {
+		Response response = qrApi.getQrCodes(Arrays.asList("a", "b"), "64", "key");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		((StreamingOutput) response.getEntity()).write(out);
+		List<String> names = new ArrayList<>();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+				names.add(entry.getName());
+			}
+		}
+		assertThat(names).containsExactly("1.png", "2.png", "index.txt").inOrder();
+	}
+
+	@Test
+	public void testBatchIsLimited() {
+		List<String> contents = Collections.nCopies(QrApi.MAX_BATCH + 1, "code");
+
+		assertThat(statusOf(() -> qrApi.getQrCodes(contents, "125", "key"))).isEqualTo(400);
+		assertThat(statusOf(() -> qrApi.getQrCodes(Arrays.asList("code"), String.valueOf(QrApi.MAX_BATCH_SIZE + 1), "key")))
+				.isEqualTo(400);
+		assertThat(statusOf(() -> qrApi.getQrCodes(Collections.emptyList(), "125", "key"))).isEqualTo(400);
+	}
+}
@@ -0,0 +1,88 @@
+package info.interactivesystems.gamificationengine.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RateLimitFilterTest {
+
+	private final RateLimitFilter filter = new RateLimitFilter();
+	private final AtomicInteger rejected = new AtomicInteger();
+	private ContainerRequestContext request;
+	private MultivaluedMap<String, String> parameters;
+
+	@WriteHeavy
+	public void write() {
+	}
+
+	public void read() {
+	}
+
+	@Before
+	public void setUp() {
+		filter.resourceInfo = mock(ResourceInfo.class);
+
+		parameters = new MultivaluedHashMap<>();
+		parameters.putSingle("apiKey", UUID.randomUUID().toString());
+		UriInfo uriInfo = mock(UriInfo.class);
+		when(uriInfo.getQueryParameters()).thenReturn(parameters);
+		request = mock(ContainerRequestContext.class);
+		when(request.getUriInfo()).thenReturn(uriInfo);
+		doAnswer(invocation -> {
+			assertThat(((Response) invocation.getArguments()[0]).getStatus()).isEqualTo(RateLimitFilter.TOO_MANY_REQUESTS);
+			return rejected.incrementAndGet();
+		}).when(request).abortWith(any(Response.class));
+	}
+
+	private int send(String methodName, int requests) throws NoSuchMethodException {
+		Method method = RateLimitFilterTest.class.getMethod(methodName);
+		when(filter.resourceInfo.getResourceMethod()).thenReturn(method);
+		int before = rejected.get();
+		for (int i = 0; i < requests; i++) {
+			filter.filter(request);
+		}
+		return requests - (rejected.get() - before);
+	}
+
+	@Test
+	public void testRejectedWritesDoNotCountAsRequests() throws NoSuchMethodException {
+		// the default burst allows 20 writes and 100 requests of an API key
+		assertThat(send("write", 50)).isEqualTo(20);
+
+		assertThat(send("read", 80)).isEqualTo(80);
+	}
+
+	@Test
+	public void testOnlyOrdinaryRequestsAreTimed() throws NoSuchMethodException {
+		send("read", 1);
+		send("write", 1);
+		verify(request, times(1)).setProperty(eq(RateLimitFilter.START), anyLong());
+
+		// administrative requests are authenticated without an API key
+		parameters.clear();
+		send("read", 1);
+		verify(request, times(1)).setProperty(eq(RateLimitFilter.START), anyLong());
+		verify(request, never()).abortWith(any(Response.class));
+	}
+}
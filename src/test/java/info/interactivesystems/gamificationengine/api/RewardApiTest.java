@@ -0,0 +1,64 @@
+package info.interactivesystems.gamificationengine.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import info.interactivesystems.gamificationengine.api.exeption.ApiError;
+import info.interactivesystems.gamificationengine.dao.RewardDAO;
+import info.interactivesystems.gamificationengine.entities.rewards.Achievement;
+import info.interactivesystems.gamificationengine.entities.rewards.Badge;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class RewardApiTest {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private RewardApi rewardApi;
+	private Badge badge;
+	private Achievement achievement;
+
+	@Before
+	public void setUp() {
+		rewardApi = new RewardApi();
+		rewardApi.rewardDao = mock(RewardDAO.class);
+
+		badge = new Badge();
+		badge.setTimeToLive(30);
+		achievement = new Achievement();
+		achievement.setTimeToLive(30);
+		when(rewardApi.rewardDao.getReward(eq(1), anyString())).thenReturn(badge);
+		when(rewardApi.rewardDao.getReward(eq(2), anyString())).thenReturn(achievement);
+	}
+
+	@Test
+	public void testTimeToLiveIsChanged() {
+		rewardApi.changeBadge("1", "timeToLive", "7", "apiKey");
+		rewardApi.changeAchievement("2", "timeToLive", "14", "apiKey");
+
+		assertThat(badge.getTimeToLive()).isEqualTo(7);
+		assertThat(achievement.getTimeToLive()).isEqualTo(14);
+	}
+
+	@Test
+	public void testEmptyOrZeroTimeToLiveNeverExpires() {
+		rewardApi.changeBadge("1", "timeToLive", "", "apiKey");
+		rewardApi.changeAchievement("2", "timeToLive", "0", "apiKey");
+
+		assertThat(badge.getTimeToLive()).isEqualTo(0);
+		assertThat(achievement.getTimeToLive()).isEqualTo(0);
+	}
+
+	@Test
+	public void testNegativeTimeToLiveIsRejected() {
+		thrown.expect(ApiError.class);
+		rewardApi.changeBadge("1", "timeToLive", "-1", "apiKey");
+	}
+}
@@ -0,0 +1,84 @@
+package info.interactivesystems.gamificationengine.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import info.interactivesystems.gamificationengine.dao.AccountDAO;
+import info.interactivesystems.gamificationengine.dao.OrganisationDAO;
+import info.interactivesystems.gamificationengine.entities.Account;
+import info.interactivesystems.gamificationengine.entities.Organisation;
+import info.interactivesystems.gamificationengine.utils.SessionToken;
+
+import java.net.URI;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class TokenAuthenticationFilterTest {
+
+	private static final int ORGANISATION_ID = 5;
+
+	private TokenAuthenticationFilter filter;
+	private Organisation organisation;
+
+	@Before
+	public void setUp() {
+		TokenAuthenticationFilter.API_KEYS.evict(ORGANISATION_ID);
+		filter = new TokenAuthenticationFilter();
+		filter.organisationDao = mock(OrganisationDAO.class);
+		organisation = new Organisation("organisation");
+		organisation.setId(ORGANISATION_ID);
+		organisation.setApiKey("firstKey");
+		when(filter.organisationDao.getOrganisation(ORGANISATION_ID)).thenReturn(organisation);
+	}
+
+	private URI authenticate() {
+		ContainerRequestContext request = mock(ContainerRequestContext.class);
+		UriInfo uriInfo = mock(UriInfo.class);
+		when(request.getHeaderString(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + SessionToken.issue(ORGANISATION_ID).getToken());
+		when(request.getUriInfo()).thenReturn(uriInfo);
+		when(uriInfo.getRequestUriBuilder()).thenReturn(UriBuilder.fromUri("http://localhost/api/player/1"));
+
+		filter.filter(request);
+
+		ArgumentCaptor<URI> uri = ArgumentCaptor.forClass(URI.class);
+		verify(request).setRequestUri(uri.capture());
+		verify(request).setProperty(eq(SessionToken.PROPERTY), any(SessionToken.class));
+		return uri.getValue();
+	}
+
+	@Test
+	public void testApiKeyIsLoadedOncePerOrganisation() {
+		assertThat(authenticate().getQuery()).isEqualTo("apiKey=firstKey");
+		assertThat(authenticate().getQuery()).isEqualTo("apiKey=firstKey");
+
+		verify(filter.organisationDao, times(1)).getOrganisation(ORGANISATION_ID);
+	}
+
+	@Test
+	public void testGeneratedApiKeyIsUsedAtOnce() {
+		assertThat(authenticate().getQuery()).isEqualTo("apiKey=firstKey");
+
+		OrganisationApi organisationApi = new OrganisationApi();
+		organisationApi.organisationDao = filter.organisationDao;
+		organisationApi.accountDao = mock(AccountDAO.class);
+		when(organisationApi.accountDao.authenticate(anyString(), anyString())).thenReturn(new Account());
+		organisationApi.generateApiKey(Integer.toString(ORGANISATION_ID), "test@example.com", "password");
+
+		assertThat(authenticate().getQuery()).isEqualTo("apiKey=" + organisation.getApiKey());
+		assertThat(organisation.getApiKey()).isNotEqualTo("firstKey");
+		verify(filter.organisationDao, times(3)).getOrganisation(ORGANISATION_ID);
+	}
+}
@@ -1,6 +1,7 @@
 package info.interactivesystems.gamificationengine.api;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
 import info.interactivesystems.gamificationengine.api.exeption.ApiError;
 
@@ -51,4 +52,29 @@ public class ValidateUtilsTest {
 		ValidateUtils.requireGreaterThanZero("0");
 		ValidateUtils.requireGreaterThanZero("-1");
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testRequireGreaterThenZeroStringOverflow() {
+		thrown.expect(ApiError.class);
+		ValidateUtils.requireGreaterThanZero("99999999999");
+	}
+
+	@Test
+	public void testRequirePage() {
+		assertThat(ValidateUtils.requirePage("0", 10)).isEqualTo(0);
+		assertThat(ValidateUtils.requirePage("3", 10)).isEqualTo(3);
+		assertThat(ValidateUtils.requirePage("99999", 0)).isEqualTo(99999);
+	}
+
+	@Test
+	public void testRequirePageRejectsInvalidNumbers() {
+		for (String page : new String[] { "abc", "", "99999999999", "-1", "300000000" }) {
+			try {
+				ValidateUtils.requirePage(page, 10);
+				fail("ApiError expected for page " + page);
+			} catch (ApiError e) {
+				assertThat(e.getResponse().getStatus()).isEqualTo(400);
+			}
+		}
+	}
+}
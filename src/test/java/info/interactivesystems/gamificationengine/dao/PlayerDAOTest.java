@@ -0,0 +1,216 @@
+package info.interactivesystems.gamificationengine.dao;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.event.GameEvent;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class PlayerDAOTest {
+
+	@Mock
+	private EntityManager em;
+
+	@InjectMocks
+	private PlayerDAO playerDao;
+
+	private Query update;
+	private Query select;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+		update = mock(Query.class);
+		select = mock(Query.class);
+		when(update.setParameter(anyString(), any())).thenReturn(update);
+		when(select.setParameter(anyString(), any())).thenReturn(select);
+		when(em.createQuery(startsWith("update Player"))).thenReturn(update);
+		when(em.createQuery(startsWith("select p.points"))).thenReturn(select);
+	}
+
+	private Player player(int id, int coins) {
+		Player player = new Player();
+		player.setId(id);
+		player.reconcileBalance(0, coins);
+		return player;
+	}
+
+	@Test
+	public void testBalanceIsStoredWithGuardedRelativeUpdate() {
+		Player player = player(7, 10);
+		player.awardPoints(5);
+		player.spent(4);
+		when(update.executeUpdate()).thenReturn(1);
+		when(select.getSingleResult()).thenReturn(new Object[] { 25, 16, 2 });
+
+		assertThat(playerDao.applyBalance(player)).isTrue();
+
+		verify(em).createQuery("update Player p set p.points = p.points + :points, p.coins = p.coins + :coins, "
+				+ "p.eventSequence = p.eventSequence + :events where p.id = :id and p.coins + :coins >= 0");
+		verify(update).setParameter("points", 5);
+		verify(update).setParameter("coins", -4);
+		verify(update).setParameter("events", 2);
+		verify(update).setParameter("id", 7);
+		// the stored values of concurrent requests are taken over
+		assertThat(player.getPoints()).isEqualTo(25);
+		assertThat(player.getCoins()).isEqualTo(16);
+		assertThat(player.getCoinsDelta()).isEqualTo(0);
+		// the opening balance and both events are logged
+		verify(em, times(3)).persist(any(GameEvent.class));
+	}
+
+	@Test
+	public void testSpendingWithoutStoredCoinsIsNotApplied() {
+		Player player = player(7, 10);
+		player.spent(10);
+		// a concurrent request has spent the coins meanwhile
+		when(update.executeUpdate()).thenReturn(0);
+		when(select.getSingleResult()).thenReturn(new Object[] { 0, 3, 0 });
+
+		assertThat(playerDao.applyBalance(player)).isFalse();
+
+		assertThat(player.getCoins()).isEqualTo(3);
+		assertThat(player.getCoinsDelta()).isEqualTo(0);
+		assertThat(player.takePendingEvents()).isEmpty();
+		verify(em, never()).persist(any());
+	}
+
+	@Test
+	public void testBalancesAreStoredInOrderOfIds() {
+		Player first = player(3, 0);
+		Player second = player(9, 0);
+		first.awardCoins(1);
+		second.awardCoins(1);
+		when(update.executeUpdate()).thenReturn(1);
+		when(select.getSingleResult()).thenReturn(new Object[] { 0, 1, 1 });
+
+		playerDao.applyBalances(Arrays.asList(second, first, second));
+
+		InOrder order = inOrder(update);
+		order.verify(update).setParameter("id", 3);
+		order.verify(update).setParameter("id", 9);
+		verify(update, times(2)).executeUpdate();
+	}
+
+	/**
+	 * Creates a query on one stored row of a player. Like in the data base, each update is 
+	 * applied atomically with the values of the row at that time.
+	 */
+	private static Query rowQuery(int[] row) {
+		Map<String, Object> parameters = new HashMap<>();
+		return (Query) Proxy.newProxyInstance(Query.class.getClassLoader(), new Class<?>[] { Query.class }, (query, method, args) -> {
+			switch (method.getName()) {
+			case "setParameter":
+				parameters.put((String) args[0], args[1]);
+				return query;
+			case "executeUpdate":
+				synchronized (row) {
+					int coins = (Integer) parameters.get("coins");
+					if (row[1] + coins < 0) {
+						return 0;
+					}
+					row[0] += (Integer) parameters.get("points");
+					row[1] += coins;
+					row[2] += (Integer) parameters.get("events");
+					return 1;
+				}
+			case "getSingleResult":
+				synchronized (row) {
+					return new Object[] { row[0], row[1], row[2] };
+				}
+			default:
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+
+	@Test
+	public void testConcurrentChangesAreNotLost() throws Exception {
+		int threads = 16;
+		int rounds = 200;
+		// points, coins and event sequence of the stored player
+		int[] row = { 0, 50, 0 };
+		when(em.createQuery(startsWith("update Player"))).thenAnswer(invocation -> rowQuery(row));
+		when(em.createQuery(startsWith("select p.points"))).thenAnswer(invocation -> rowQuery(row));
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<int[]>> results = new ArrayList<>();
+		for (int thread = 0; thread < threads; thread++) {
+			boolean earning = thread % 2 == 0;
+			results.add(executor.submit((Callable<int[]>) () -> {
+				// earned points, earned or spent coins and events which were stored
+				int[] stored = new int[3];
+				start.await();
+				for (int round = 0; round < rounds; round++) {
+					// each request loads its own copy of the player, which may be stale already
+					Player player;
+					synchronized (row) {
+						player = player(1, row[1]);
+					}
+					if (earning) {
+						player.awardPoints(3);
+						player.awardCoins(2);
+					} else {
+						player.spent(5);
+					}
+					int points = player.getPointsDelta();
+					int coins = player.getCoinsDelta();
+					int events = points != 0 || coins != 0 ? (earning ? 2 : 1) : 0;
+					if (playerDao.applyBalance(player) && events > 0) {
+						stored[0] += points;
+						stored[1] += coins;
+						stored[2] += events;
+					}
+				}
+				return stored;
+			}));
+		}
+		start.countDown();
+
+		int[] expected = { 0, 50, 0 };
+		for (Future<int[]> result : results) {
+			int[] stored = result.get();
+			for (int i = 0; i < expected.length; i++) {
+				expected[i] += stored[i];
+			}
+		}
+		executor.shutdown();
+
+		assertThat(row[0]).isEqualTo(threads / 2 * rounds * 3);
+		assertThat(row[0]).isEqualTo(expected[0]);
+		assertThat(row[1]).isEqualTo(expected[1]);
+		assertThat(row[1]).isAtLeast(0);
+		assertThat(row[2]).isEqualTo(expected[2]);
+	}
+}
@@ -0,0 +1,109 @@
+package info.interactivesystems.gamificationengine.dao;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import info.interactivesystems.gamificationengine.entities.present.Board;
+import info.interactivesystems.gamificationengine.entities.present.Present;
+import info.interactivesystems.gamificationengine.entities.present.TextMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Query;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class PresentDAOTest {
+
+	@Mock
+	private EntityManager em;
+
+	@InjectMocks
+	private PresentDAO presentDao;
+
+	private Query insert;
+	private PersistenceUnitUtil util;
+	private Present present;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+		insert = mock(Query.class);
+		util = mock(PersistenceUnitUtil.class);
+		EntityManagerFactory factory = mock(EntityManagerFactory.class);
+		when(insert.setParameter(anyString(), any())).thenReturn(insert);
+		when(em.createNativeQuery(anyString())).thenReturn(insert);
+		when(em.getEntityManagerFactory()).thenReturn(factory);
+		when(factory.getPersistenceUnitUtil()).thenReturn(util);
+
+		present = new TextMessage();
+		present.setId(3);
+	}
+
+	private static List<Board> boards(int count) {
+		List<Board> boards = new ArrayList<>();
+		for (int id = 1; id <= count; id++) {
+			Board board = new Board();
+			board.setId(id);
+			boards.add(board);
+		}
+		return boards;
+	}
+
+	@Test
+	public void testPresentIsNotDeliveredTwice() {
+		presentDao.deliver(present, boards(2));
+
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		verify(em).createNativeQuery(sql.capture());
+		assertThat(sql.getValue()).startsWith("insert into board_in_box (board, in_box) select");
+		assertThat(sql.getValue()).contains("not exists (select 1 from board_in_box i where i.board = b.id and i.in_box = :present)");
+		verify(insert).setParameter("present", 3);
+		verify(insert).setParameter(eq("boards"), eq(Arrays.asList(1, 2)));
+		verify(insert).executeUpdate();
+	}
+
+	@Test
+	public void testManyBoardsAreDeliveredInChunks() {
+		presentDao.deliver(present, boards(1200));
+
+		verify(insert, times(3)).executeUpdate();
+	}
+
+	@Test
+	public void testBoardsWithLoadedInBoxesAreDetached() {
+		List<Board> boards = boards(2);
+		when(util.isLoaded(boards.get(0), "inBox")).thenReturn(true);
+
+		presentDao.deliver(present, boards);
+
+		verify(em).detach(boards.get(0));
+		verify(em, never()).detach(boards.get(1));
+		verify(em, never()).refresh(any());
+	}
+
+	@Test
+	public void testNothingIsDeliveredWithoutBoards() {
+		presentDao.deliver(present, Collections.emptyList());
+
+		verify(em, never()).createNativeQuery(anyString());
+	}
+}
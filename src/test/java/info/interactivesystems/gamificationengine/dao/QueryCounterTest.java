@@ -0,0 +1,47 @@
+package info.interactivesystems.gamificationengine.dao;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import info.interactivesystems.gamificationengine.utils.QueryBudget;
+
+import org.junit.Test;
+
+/**
+ * Prepares statements like Hibernate does while a request is handled: one query of a data access
+ * method, followed by one load of a lazy association for each item of its result.
+ */
+public class QueryCounterTest {
+
+	private static final String OFFERS = "select offer0_.id as id1_ from offer offer0_ where offer0_.task_id=?";
+	private static final String BIDS = "select bids0_.offer_id as offer1_1_ from bid bids0_ where bids0_.offer_id=?";
+
+	private final QueryCounter counter = new QueryCounter();
+
+	@Test
+	public void testLoadsOfAssociationsAreDetectedAsNPlusOne() {
+		QueryBudget.begin();
+		assertThat(counter.onPrepareStatement(OFFERS)).isEqualTo(OFFERS);
+		for (int offer = 0; offer < QueryBudget.REPEATED; offer++) {
+			counter.onPrepareStatement(BIDS);
+		}
+		QueryBudget.Report report = QueryBudget.end();
+
+		assertThat(report.getTotal()).isEqualTo(QueryBudget.REPEATED + 1);
+		assertThat(report.getRepeatedQuery()).isEqualTo(BIDS);
+		assertThat(report.getCount(OFFERS)).isEqualTo(1);
+	}
+
+	@Test
+	public void testStatementsOutsideOfRequestsAreNotCounted() {
+		counter.onPrepareStatement(OFFERS);
+
+		QueryBudget.begin();
+		counter.onPrepareStatement(OFFERS);
+		counter.onPrepareStatement(BIDS);
+		QueryBudget.Report report = QueryBudget.end();
+
+		assertThat(report.getTotal()).isEqualTo(2);
+		assertThat(report.getRepeatedQuery()).isNull();
+		assertThat(report.isOverBudget()).isFalse();
+	}
+}
@@ -0,0 +1,163 @@
+package info.interactivesystems.gamificationengine.dao;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NoResultException;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.TypedQuery;
+
+/**
+ * An entity manager for the real data access objects which runs no statements, but reports each
+ * statement to the {@link QueryCounter} like Hibernate does when it prepares them. So the
+ * statements of a whole request can be counted by the
+ * {@link info.interactivesystems.gamificationengine.utils.QueryBudget} without a data base.
+ * <p>
+ * A query is reported with its JPQL, a persist, merge, remove, find or refresh with the kind of
+ * the statement and the name of the entity. Only the statements which the data access objects
+ * run themselves are seen. The loads of lazy associations and the inserts of cascaded entities
+ * happen inside of Hibernate and aren't counted.
+ */
+public class RecordingEntityManager implements InvocationHandler {
+
+	private final QueryCounter counter = new QueryCounter();
+	private final Map<String, List<?>> results = new LinkedHashMap<>();
+	private final EntityManager em = proxy(EntityManager.class, this);
+
+	/**
+	 * Sets the result of the queries which start with the passed JPQL. Queries without a
+	 * result return an empty list.
+	 *
+	 * @param query
+	 *            The start of the JPQL of the queries.
+	 * @param rows
+	 *            The rows which the queries return.
+	 * @return This entity manager.
+	 */
+	public RecordingEntityManager returning(String query, List<?> rows) {
+		results.put(query, rows);
+		return this;
+	}
+
+	/**
+	 * Replaces the entity manager of the passed data access object with this one.
+	 *
+	 * @param dao
+	 *            The data access object.
+	 * @return The passed data access object.
+	 */
+	public <T> T inject(T dao) {
+		try {
+			Field field = dao.getClass().getDeclaredField("em");
+			field.setAccessible(true);
+			field.set(dao, em);
+			return dao;
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException(dao.getClass() + " has no entity manager", e);
+		}
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		switch (method.getName()) {
+		case "createQuery":
+		case "createNativeQuery":
+			return proxy(TypedQuery.class, new RecordingQuery((String) args[0]));
+		case "persist":
+			return prepare("insert " + name(args[0]));
+		case "merge":
+			prepare("update " + name(args[0]));
+			return args[0];
+		case "remove":
+			return prepare("delete " + name(args[0]));
+		case "find":
+			return prepare("select " + ((Class<?>) args[0]).getSimpleName());
+		case "refresh":
+			return prepare("select " + name(args[0]));
+		case "getEntityManagerFactory":
+			return proxy(EntityManagerFactory.class, (factory, m, a) -> "getPersistenceUnitUtil".equals(m.getName())
+					? proxy(PersistenceUnitUtil.class, (util, n, b) -> "isLoaded".equals(n.getName())) : null);
+		default:
+			return standard(proxy, method, args);
+		}
+	}
+
+	private Object prepare(String statement) {
+		counter.onPrepareStatement(statement);
+		return null;
+	}
+
+	private List<?> resultOf(String query) {
+		for (Map.Entry<String, List<?>> result : results.entrySet()) {
+			if (query.startsWith(result.getKey())) {
+				return result.getValue();
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	private static String name(Object entity) {
+		return entity.getClass().getSimpleName();
+	}
+
+	private static Object standard(Object proxy, Method method, Object[] args) {
+		switch (method.getName()) {
+		case "equals":
+			return proxy == args[0];
+		case "hashCode":
+			return System.identityHashCode(proxy);
+		case "toString":
+			return "RecordingEntityManager";
+		default:
+			return method.getReturnType() == boolean.class ? false : null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+	}
+
+	private class RecordingQuery implements InvocationHandler {
+
+		private final String query;
+
+		RecordingQuery(String query) {
+			this.query = query;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			switch (method.getName()) {
+			case "getResultList":
+				prepare(query);
+				return new ArrayList<>(resultOf(query));
+			case "getSingleResult":
+				prepare(query);
+				List<?> rows = resultOf(query);
+				if (rows.isEmpty()) {
+					throw new NoResultException(query);
+				}
+				return rows.get(0);
+			case "executeUpdate":
+				prepare(query);
+				return 1;
+			default:
+				if (method.getReturnType().isInstance(proxy)) {
+					// the setters return the query itself
+					return proxy;
+				}
+				return standard(proxy, method, args);
+			}
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package info.interactivesystems.gamificationengine.dao;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.task.ArchivedTask;
+import info.interactivesystems.gamificationengine.entities.task.FinishedTask;
+import info.interactivesystems.gamificationengine.entities.task.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Runs the compaction of finished tasks against an entity manager which keeps the persisted and
+ * removed entities like a persistence context until it is flushed.
+ */
+public class TaskDAOTest {
+
+	private static final LocalDateTime JANUARY = LocalDateTime.of(2016, 1, 1, 12, 0);
+
+	@Mock
+	private EntityManager em;
+
+	@InjectMocks
+	private TaskDAO taskDao;
+
+	private final List<Object> persisted = new ArrayList<>();
+	private final List<Object> removed = new ArrayList<>();
+
+	private Player player;
+	private Task task;
+	private List<FinishedTask> stored;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+
+		player = new Player();
+		player.setId(1);
+		task = new Task();
+		task.setTaskName("review");
+		stored = new ArrayList<>();
+		for (int day = 1; day <= 5; day++) {
+			FinishedTask fTask = new FinishedTask();
+			fTask.setTask(task);
+			fTask.setPlayer(player);
+			fTask.setFinishedDate(JANUARY.plusDays(day));
+			player.getFinishedTasks().add(fTask);
+			stored.add(fTask);
+		}
+
+		TypedQuery<FinishedTask> tasksQuery = query(stored);
+		TypedQuery<LocalDateTime> goalsQuery = query(Collections.<LocalDateTime> emptyList());
+		when(em.createQuery(startsWith("select fT from FinishedTask"), eq(FinishedTask.class))).thenReturn(tasksQuery);
+		when(em.createQuery(startsWith("select fG.finishedDate"), eq(LocalDateTime.class))).thenReturn(goalsQuery);
+		doAnswer(invocation -> persisted.add(invocation.getArguments()[0])).when(em).persist(any());
+		doAnswer(invocation -> removed.add(invocation.getArguments()[0])).when(em).remove(any());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> TypedQuery<T> query(List<T> result) {
+		TypedQuery<T> query = mock(TypedQuery.class);
+		when(query.setParameter(anyString(), any())).thenReturn(query);
+		when(query.getResultList()).thenReturn(result);
+		return query;
+	}
+
+	@Test
+	public void testRawTasksAreReplacedByCountedTask() {
+		int archived = taskDao.compactFinishedTasks(player.getId(), JANUARY.plusMonths(3));
+
+		assertThat(archived).isEqualTo(5);
+		assertThat(removed).containsExactlyElementsIn(stored);
+		// a removed task which the player still references would be stored again by the cascade
+		for (FinishedTask fTask : player.getFinishedTasks()) {
+			assertThat(removed).doesNotContain(fTask);
+		}
+		assertThat(player.getFinishedTasks()).hasSize(1);
+		FinishedTask counted = player.getFinishedTasks().get(0);
+		assertThat(counted.getOccurrences()).isEqualTo(5);
+		assertThat(persisted).contains(counted);
+		assertThat(persisted.stream().filter(o -> o instanceof ArchivedTask).count()).isEqualTo(5L);
+	}
+
+	@Test
+	public void testCompactedTasksAreNotArchivedAgain() {
+		taskDao.compactFinishedTasks(player.getId(), JANUARY.plusMonths(3));
+		List<FinishedTask> compacted = new ArrayList<>(player.getFinishedTasks());
+		FinishedTask later = new FinishedTask();
+		later.setTask(task);
+		later.setPlayer(player);
+		later.setFinishedDate(JANUARY.plusDays(20));
+		player.getFinishedTasks().add(later);
+		stored.clear();
+		stored.addAll(compacted);
+		stored.add(later);
+		persisted.clear();
+		removed.clear();
+
+		int archived = taskDao.compactFinishedTasks(player.getId(), JANUARY.plusMonths(3));
+
+		assertThat(archived).isEqualTo(1);
+		assertThat(removed).containsExactlyElementsIn(Arrays.asList(compacted.get(0), later));
+		assertThat(player.getFinishedTasks()).hasSize(1);
+		assertThat(player.getFinishedTasks().get(0).getOccurrences()).isEqualTo(6);
+	}
+}
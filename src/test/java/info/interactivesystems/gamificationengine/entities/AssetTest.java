@@ -0,0 +1,29 @@
+package info.interactivesystems.gamificationengine.entities;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class AssetTest {
+
+	private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', 0x0d, 0x0a, 0x1a, 0x0a, 1, 2, 3 };
+	private static final byte[] JPEG = { (byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xe0, 4, 5, 6 };
+
+	@Test
+	public void testEqualContentHasEqualHash() {
+		Asset first = Asset.of(PNG.clone());
+		Asset second = Asset.of(PNG.clone());
+
+		assertThat(first.getHash()).isEqualTo(second.getHash());
+		assertThat(first.getHash()).hasLength(64);
+		assertThat(Asset.of(JPEG).getHash()).isNotEqualTo(first.getHash());
+	}
+
+	@Test
+	public void testContentTypeIsDetected() {
+		assertThat(Asset.of(PNG).getContentType()).isEqualTo("image/png");
+		assertThat(Asset.of(JPEG).getContentType()).isEqualTo("image/jpeg");
+		assertThat(Asset.of(new byte[] { 1, 2 }).getContentType()).isEqualTo("application/octet-stream");
+		assertThat(Asset.of(PNG).getSize()).isEqualTo(PNG.length);
+	}
+}
@@ -0,0 +1,89 @@
+package info.interactivesystems.gamificationengine.entities.event;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.rewards.Badge;
+import info.interactivesystems.gamificationengine.entities.rewards.Points;
+import info.interactivesystems.gamificationengine.entities.task.FinishedTask;
+import info.interactivesystems.gamificationengine.entities.task.Task;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class BalanceProjectionTest {
+
+	@Test
+	public void testEventsOfPlayerAddUpToBalance() {
+		Player player = new Player();
+		Task task = new Task();
+		task.setId(3);
+		FinishedTask finishedTask = new FinishedTask();
+		finishedTask.setTask(task);
+		Points points = new Points();
+		points.setId(5);
+		Badge badge = new Badge();
+		badge.setId(6);
+
+		player.addFinishedTask(finishedTask);
+		player.awardPoints(20, points);
+		player.addPermanentReward(badge);
+		player.awardCoins(10);
+		player.spent(4);
+		player.spent(100);
+
+		BalanceProjection projection = new BalanceProjection(GameEvent.Owner.PLAYER, 1);
+		List<GameEvent> events = player.takePendingEvents();
+		for (int i = 0; i < events.size(); i++) {
+			events.get(i).assign(null, GameEvent.Owner.PLAYER, 1, i + 1);
+			projection.apply(events.get(i));
+		}
+
+		assertThat(player.takePendingEvents()).isEmpty();
+		assertThat(projection.getSequence()).isEqualTo(5);
+		assertThat(projection.getPoints()).isEqualTo(player.getPoints());
+		assertThat(projection.getCoins()).isEqualTo(player.getCoins());
+		assertThat(projection.getTasks()).isEqualTo(1);
+		assertThat(projection.getRewards()).isEqualTo(2);
+	}
+
+	@Test
+	public void testPointsWithoutRewardAreNoReward() {
+		Player player = new Player();
+		player.awardPoints(7);
+
+		List<GameEvent> events = player.takePendingEvents();
+		assertThat(events).hasSize(1);
+		assertThat(events.get(0).getType()).isEqualTo(GameEvent.Type.POINTS_AWARDED);
+		BalanceProjection projection = new BalanceProjection(GameEvent.Owner.PLAYER, 1);
+		events.get(0).assign(null, GameEvent.Owner.PLAYER, 1, 1);
+		projection.apply(events.get(0));
+		assertThat(projection.getPoints()).isEqualTo(7);
+		assertThat(projection.getRewards()).isEqualTo(0);
+	}
+
+	@Test
+	public void testOpeningBalanceIsCounted() {
+		BalanceProjection projection = new BalanceProjection(GameEvent.Owner.GROUP, 2);
+		projection.apply(event(GameEvent.Type.BALANCE_OPENED, 0, 100, 50));
+		projection.apply(event(GameEvent.Type.COINS_SPENT, 1, 0, -30));
+
+		assertThat(projection.getPoints()).isEqualTo(100);
+		assertThat(projection.getCoins()).isEqualTo(20);
+		assertThat(projection.getEvents()).isEqualTo(2);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGapIsRejected() {
+		BalanceProjection projection = new BalanceProjection(GameEvent.Owner.PLAYER, 1);
+		projection.apply(event(GameEvent.Type.TASK_COMPLETED, 1, 0, 0));
+		projection.apply(event(GameEvent.Type.TASK_COMPLETED, 3, 0, 0));
+	}
+
+	private static GameEvent event(GameEvent.Type type, int sequence, int points, int coins) {
+		GameEvent event = GameEvent.of(type, 0, points, coins);
+		event.assign(null, GameEvent.Owner.PLAYER, 1, sequence);
+		return event;
+	}
+}
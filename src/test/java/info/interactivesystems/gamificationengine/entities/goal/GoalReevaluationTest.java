@@ -0,0 +1,87 @@
+package info.interactivesystems.gamificationengine.entities.goal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.Role;
+import info.interactivesystems.gamificationengine.entities.task.FinishedTask;
+import info.interactivesystems.gamificationengine.entities.task.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GoalReevaluationTest {
+
+	private Role developer;
+	private Role tester;
+	private Player player;
+	private Goal goal;
+
+	@Before
+	public void setUp() {
+		developer = new Role();
+		developer.setName("developer");
+		tester = new Role();
+		tester.setName("tester");
+
+		Task task = new Task();
+		task.setTaskName("review");
+		DoAnyTaskRule rule = new DoAnyTaskRule();
+		rule.setTasks(new ArrayList<>(Arrays.asList(task)));
+
+		player = new Player();
+		player.setBelongsToRoles(new ArrayList<>(Arrays.asList(tester)));
+		FinishedTask finishedTask = new FinishedTask();
+		finishedTask.setTask(task);
+		finishedTask.setFinishedDate(LocalDateTime.now().minusDays(1));
+		player.addFinishedTask(finishedTask);
+
+		goal = new Goal();
+		goal.setRule(rule);
+		goal.setCanCompletedBy(new ArrayList<>(Arrays.asList(developer)));
+	}
+
+	@Test
+	public void testGoalIsObtainedAfterRolesWereChanged() {
+		assertThat(goal.reevaluate(player)).isNull();
+
+		goal.setCanCompletedBy(new ArrayList<>(Arrays.asList(developer, tester)));
+		FinishedGoal finishedGoal = goal.reevaluate(player);
+
+		assertThat(finishedGoal).isNotNull();
+		assertThat(finishedGoal.getGoal()).isSameAs(goal);
+	}
+
+	@Test
+	public void testFinishedGoalIsNotObtainedAgain() {
+		goal.setCanCompletedBy(new ArrayList<>());
+		FinishedGoal finishedGoal = goal.reevaluate(player);
+		player.addFinishedGoal(finishedGoal);
+
+		assertThat(goal.reevaluate(player)).isNull();
+	}
+
+	@Test
+	public void testGoalsOfGroupsAreNotReevaluated() {
+		goal.setCanCompletedBy(new ArrayList<>());
+		goal.setPlayerGroupGoal(true);
+
+		assertThat(goal.reevaluate(player)).isNull();
+	}
+
+	@Test
+	public void testPointsGoalIsObtainedWithReachedPoints() {
+		GetPointsRule rule = new GetPointsRule();
+		rule.setPoints(50);
+		goal.setRule(rule);
+		goal.setCanCompletedBy(new ArrayList<>());
+
+		assertThat(goal.reevaluate(player)).isNull();
+		player.awardPoints(50);
+		assertThat(goal.reevaluate(player)).isNotNull();
+	}
+}
@@ -0,0 +1,86 @@
+package info.interactivesystems.gamificationengine.entities.task;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.goal.DoAllTasksRule;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FinishedTaskCompactionTest {
+
+	private static final LocalDateTime JANUARY = LocalDateTime.of(2016, 1, 1, 12, 0);
+
+	private Player player;
+	private Task review;
+	private Task commit;
+
+	@Before
+	public void setUp() {
+		player = new Player();
+		review = new Task();
+		review.setTaskName("review");
+		commit = new Task();
+		commit.setTaskName("commit");
+	}
+
+	@Test
+	public void testTasksOfSameMonthAreCounted() {
+		List<FinishedTask> finishedTasks = Arrays.asList(finished(review, 1), finished(review, 20), finished(commit, 2),
+				finished(review, 40));
+
+		List<FinishedTask> compacted = FinishedTask.compact(finishedTasks, Collections.emptyList());
+
+		assertThat(compacted).hasSize(3);
+		assertThat(compacted.get(0).getTask()).isSameAs(review);
+		assertThat(compacted.get(0).getOccurrences()).isEqualTo(2);
+		assertThat(compacted.get(0).isCompacted()).isTrue();
+		assertThat(compacted.get(0).getFinishedDate()).isEqualTo(JANUARY.plusDays(1));
+		assertThat(compacted.get(0).getLastFinishedDate()).isEqualTo(JANUARY.plusDays(20));
+		assertThat(compacted.get(0).getPlayer()).isSameAs(player);
+		assertThat(compacted.get(2).getOccurrences()).isEqualTo(1);
+	}
+
+	@Test
+	public void testTasksAreNotCompactedAcrossFinishedGoals() {
+		List<FinishedTask> finishedTasks = Arrays.asList(finished(review, 1), finished(review, 5), finished(review, 10),
+				finished(review, 15));
+
+		List<FinishedTask> compacted = FinishedTask.compact(finishedTasks, Arrays.asList(JANUARY.plusDays(10)));
+
+		assertThat(compacted).hasSize(2);
+		assertThat(compacted.get(0).getOccurrences()).isEqualTo(3);
+		assertThat(compacted.get(1).getOccurrences()).isEqualTo(1);
+	}
+
+	@Test
+	public void testRuleIsFulfilledLikeBeforeCompaction() {
+		DoAllTasksRule rule = new DoAllTasksRule();
+		rule.setTasks(new ArrayList<>(Arrays.asList(review, review, commit)));
+		LocalDateTime goalDate = JANUARY.plusDays(10);
+
+		List<FinishedTask> finishedTasks = Arrays.asList(finished(review, 1), finished(review, 5), finished(commit, 9),
+				finished(review, 12), finished(commit, 14));
+		List<FinishedTask> compacted = FinishedTask.compact(finishedTasks, Arrays.asList(goalDate));
+
+		assertThat(rule.checkRule(compacted, null)).isTrue();
+		assertThat(rule.checkRule(compacted, goalDate)).isFalse();
+		assertThat(rule.getCompletedTasks(compacted, goalDate)).isEqualTo(rule.getCompletedTasks(finishedTasks, goalDate));
+		assertThat(rule.getCompletedTasks(compacted, null)).containsExactly(review, review, commit);
+	}
+
+	private FinishedTask finished(Task task, int days) {
+		FinishedTask fTask = new FinishedTask();
+		fTask.setTask(task);
+		fTask.setPlayer(player);
+		fTask.setFinishedDate(JANUARY.plusDays(days));
+		return fTask;
+	}
+}
@@ -0,0 +1,75 @@
+package info.interactivesystems.gamificationengine.entities.task;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assume.assumeFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import info.interactivesystems.gamificationengine.dao.GoalDAO;
+import info.interactivesystems.gamificationengine.dao.PlayerGroupDAO;
+import info.interactivesystems.gamificationengine.dao.RuleDAO;
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.Role;
+import info.interactivesystems.gamificationengine.utils.CompletionTrace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks that a task completion doesn't do the work of its debug messages while debug logging is
+ * turned off. The messages used to read the name of each role of the player and of the task and
+ * to load the finished goals of the player for every completion.
+ */
+public class TaskLoggingTest {
+
+	private List<Role> roles;
+	private Player player;
+	private Task task;
+
+	@Before
+	public void setUp() {
+		assumeFalse(LoggerFactory.getLogger(Task.class).isDebugEnabled());
+
+		roles = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Role role = new Role();
+			role.setName("role " + i);
+			roles.add(spy(role));
+		}
+		player = spy(new Player());
+		player.setActive(true);
+		player.setBelongsToRoles(new ArrayList<>(roles.subList(19, 20)));
+		task = new Task();
+		task.setAllowedFor(roles);
+	}
+
+	@Test
+	public void testRoleCheckReadsOnlyMatchingRoles() {
+		task.playerIsAllowed(player, task, new ArrayList<>());
+
+		for (Role role : roles.subList(0, 19)) {
+			verify(role, never()).getName();
+		}
+	}
+
+	@Test
+	public void testCompletionDoesNotLoadFinishedGoals() {
+		RuleDAO ruleDao = mock(RuleDAO.class);
+		when(ruleDao.getRulesByTask(any(Task.class), anyString())).thenReturn(Collections.emptyList());
+
+		task.completeTask(player, ruleDao, mock(GoalDAO.class), mock(PlayerGroupDAO.class), null, "key",
+				new CompletionTrace());
+
+		assertThat(player.getFinishedTasks()).hasSize(1);
+		verify(player, never()).getFinishedGoals();
+	}
+}
@@ -0,0 +1,76 @@
+package info.interactivesystems.gamificationengine.jobs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import info.interactivesystems.gamificationengine.dao.EventDAO;
+import info.interactivesystems.gamificationengine.entities.event.BalanceProjection;
+import info.interactivesystems.gamificationengine.entities.event.GameEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class EventReplayTest {
+
+	@Test
+	public void testOwnersWithGapsAreNotProjected() {
+		List<GameEvent> events = new ArrayList<>();
+		events.add(event(1, 1, 10));
+		events.add(event(1, 2, 5));
+		events.add(event(2, 1, 7));
+		events.add(event(2, 3, 7));
+		events.add(event(2, 4, 7));
+		events.add(event(3, 1, 1));
+
+		EventReplay.Report report = new EventReplay.Report();
+		List<BalanceProjection> projections = EventReplay.project(GameEvent.Owner.PLAYER, events, report);
+
+		assertThat(projections).hasSize(2);
+		assertThat(projections.get(0).getOwnerId()).isEqualTo(1);
+		assertThat(projections.get(0).getPoints()).isEqualTo(15);
+		assertThat(projections.get(1).getOwnerId()).isEqualTo(3);
+		assertThat(report.getOwners()).isEqualTo(3);
+		assertThat(report.getBroken()).isEqualTo(1);
+		assertThat(report.getEvents()).isEqualTo(4);
+	}
+
+	@Test
+	public void testBatchCorrectsDifferingBalances() {
+		EventReplay replay = new EventReplay();
+		replay.eventDao = mock(EventDAO.class);
+		List<Integer> ownerIds = Arrays.asList(1, 2, 3);
+		when(replay.eventDao.getEvents(GameEvent.Owner.PLAYER, ownerIds)).thenReturn(
+				Arrays.asList(event(1, 1, 10), event(2, 1, 5), event(3, 1, 5), event(3, 2, 5)));
+		Map<Integer, int[]> balances = new HashMap<>();
+		balances.put(1, new int[] { 10, 0, 1 });
+		balances.put(2, new int[] { 8, 0, 1 });
+		// a new event of player 3 was stored meanwhile
+		balances.put(3, new int[] { 0, 0, 3 });
+		when(replay.eventDao.getBalances(GameEvent.Owner.PLAYER, ownerIds)).thenReturn(balances);
+		when(replay.eventDao.storeProjection(any(BalanceProjection.class))).thenReturn(true);
+
+		EventReplay.Report report = replay.replayBatch(GameEvent.Owner.PLAYER, ownerIds, true);
+
+		ArgumentCaptor<BalanceProjection> stored = ArgumentCaptor.forClass(BalanceProjection.class);
+		verify(replay.eventDao).storeProjection(stored.capture());
+		assertThat(stored.getValue().getOwnerId()).isEqualTo(2);
+		assertThat(stored.getValue().getPoints()).isEqualTo(5);
+		assertThat(report.getCorrected()).isEqualTo(1);
+		assertThat(report.getSkipped()).isEqualTo(1);
+	}
+
+	private static GameEvent event(int ownerId, int sequence, int points) {
+		GameEvent event = GameEvent.of(GameEvent.Type.POINTS_AWARDED, 0, points, 0);
+		event.assign(null, GameEvent.Owner.PLAYER, ownerId, sequence);
+		return event;
+	}
+}
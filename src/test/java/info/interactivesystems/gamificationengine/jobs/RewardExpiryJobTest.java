@@ -0,0 +1,65 @@
+package info.interactivesystems.gamificationengine.jobs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import info.interactivesystems.gamificationengine.dao.RewardDAO;
+import info.interactivesystems.gamificationengine.entities.Player;
+import info.interactivesystems.gamificationengine.entities.PlayerGroup;
+import info.interactivesystems.gamificationengine.entities.rewards.Badge;
+import info.interactivesystems.gamificationengine.entities.rewards.RewardGrant;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RewardExpiryJobTest {
+
+	@Test
+	public void testExpiryDateIsComputedFromTimeToLive() {
+		Badge badge = new Badge();
+		badge.setTimeToLive(7);
+
+		RewardGrant grant = RewardGrant.of(new Player(), badge);
+
+		assertThat(grant.getExpiryDate()).isEqualTo(grant.getAwardDate().plusDays(7));
+	}
+
+	@Test
+	public void testRewardWithoutTimeToLiveNeverExpires() {
+		Badge badge = new Badge();
+		badge.setTimeToLive(0);
+
+		RewardGrant grant = RewardGrant.of(new PlayerGroup(), badge);
+
+		assertThat(grant.getAwardDate()).isNotNull();
+		assertThat(grant.getExpiryDate()).isNull();
+	}
+
+	@Test
+	public void testExpiredRewardsAreRemovedFromPlayersAndGroups() {
+		Badge expired = new Badge();
+		expired.setTimeToLive(1);
+		Badge kept = new Badge();
+		Player player = new Player();
+		player.getRewards().addAll(Arrays.asList(expired, kept));
+		PlayerGroup group = new PlayerGroup();
+		group.setRewards(new ArrayList<>(Arrays.asList(expired)));
+		List<RewardGrant> grants = Arrays.asList(RewardGrant.of(player, expired), RewardGrant.of(group, expired));
+
+		RewardExpiryJob job = new RewardExpiryJob();
+		job.rewardDao = mock(RewardDAO.class);
+		LocalDateTime now = LocalDateTime.now().plusDays(2);
+		when(job.rewardDao.getExpiredRewardGrants(now, RewardExpiryJob.BATCH_SIZE)).thenReturn(grants);
+
+		assertThat(job.expireBatch(now)).isEqualTo(2);
+		assertThat(player.getRewards()).containsExactly(kept);
+		assertThat(group.getRewards()).isEmpty();
+		verify(job.rewardDao).deleteRewardGrants(grants);
+	}
+}
@@ -0,0 +1,36 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class ApiKeyCacheTest {
+
+	@Test
+	public void testApiKeysAreCachedUntilEvicted() {
+		ApiKeyCache cache = new ApiKeyCache(2, 60000);
+		cache.put(1, "first key");
+
+		assertThat(cache.get(1)).isEqualTo("first key");
+		assertThat(cache.get(2)).isNull();
+
+		cache.evict(1);
+		assertThat(cache.get(1)).isNull();
+	}
+
+	@Test
+	public void testExpiredAndOldestApiKeysAreRemoved() {
+		ApiKeyCache expiring = new ApiKeyCache(2, -1);
+		expiring.put(1, "key");
+		assertThat(expiring.get(1)).isNull();
+		assertThat(expiring.size()).isEqualTo(0);
+
+		ApiKeyCache cache = new ApiKeyCache(2, 60000);
+		cache.put(1, "first key");
+		cache.put(2, "second key");
+		cache.put(3, "third key");
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.get(1)).isNull();
+		assertThat(cache.get(3)).isEqualTo("third key");
+	}
+}
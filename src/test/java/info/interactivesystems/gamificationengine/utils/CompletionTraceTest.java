@@ -0,0 +1,58 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import info.interactivesystems.gamificationengine.utils.CompletionTrace.Stage;
+
+import org.junit.Test;
+
+public class CompletionTraceTest {
+
+	@Test
+	public void testStagesAreSummedUp() throws InterruptedException {
+		CompletionTrace trace = new CompletionTrace();
+		for (int i = 0; i < 2; i++) {
+			long start = trace.start();
+			Thread.sleep(2);
+			trace.stop(Stage.GOAL_CHECK, start);
+			trace.goalChecked();
+		}
+		trace.rulesMatched(3);
+		trace.rewardGranted();
+
+		assertThat(trace.getNanos(Stage.GOAL_CHECK)).isAtLeast(4000000L);
+		assertThat(trace.getNanos(Stage.RULE_LOOKUP)).isEqualTo(0L);
+		assertThat(trace.isEntered(Stage.GOAL_CHECK)).isTrue();
+		assertThat(trace.isEntered(Stage.RULE_LOOKUP)).isFalse();
+		assertThat(trace.getRules()).isEqualTo(3);
+		assertThat(trace.getGoals()).isEqualTo(2);
+		assertThat(trace.getRewards()).isEqualTo(1);
+	}
+
+	@Test
+	public void testTraceIsFormattedAsHeader() {
+		CompletionTrace trace = new CompletionTrace();
+		trace.rulesMatched(2);
+
+		assertThat(trace.toString()).startsWith("rules=2;goals=0;rewards=0;load=0.000;roleCheck=0.000;");
+		assertThat(trace.toString()).endsWith(";balance=0.000");
+	}
+
+	@Test
+	public void testTraceIsRecordedPerOrganisation() {
+		CompletionTrace trace = new CompletionTrace();
+		trace.stop(Stage.GOAL_CHECK, trace.start());
+		trace.rulesMatched(4);
+		trace.record(42);
+
+		StringBuilder out = new StringBuilder();
+		Metrics.COMPLETION_ITEMS.writeTo(out);
+		Metrics.COMPLETION_STAGES.writeTo(out);
+
+		assertThat(out.toString()).contains("gamificationengine_completion_items_count{organisation=\"42\",item=\"rules\"} 1\n");
+		assertThat(out.toString()).contains("gamificationengine_completion_items_sum{organisation=\"42\",item=\"rules\"} 4\n");
+		assertThat(out.toString()).contains("gamificationengine_completion_stage_seconds_count{organisation=\"42\",stage=\"goalCheck\"} 1\n");
+		assertThat(out.toString()).doesNotContain("organisation=\"42\",stage=\"load\"");
+		assertThat(out.toString()).doesNotContain("errors_total");
+	}
+}
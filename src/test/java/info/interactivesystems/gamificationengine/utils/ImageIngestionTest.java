@@ -0,0 +1,132 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+import info.interactivesystems.gamificationengine.api.exeption.ApiError;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Fetches images from a local HTTP stub.
+ */
+public class ImageIngestionTest {
+
+	private static HttpServer server;
+	private static String baseUrl;
+	private static byte[] png;
+
+	@BeforeClass
+	public static void startServer() throws IOException {
+		// short timeouts, so the test of a slow host doesn't take long
+		System.setProperty("gamificationengine.image.readTimeout", "300");
+		System.setProperty("gamificationengine.image.downloadTimeout", "1000");
+
+		BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		png = out.toByteArray();
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/avatar.png", exchange -> send(exchange, 200, png));
+		server.createContext("/text.png", exchange -> send(exchange, 200, "no image".getBytes("UTF-8")));
+		server.createContext("/missing.png", exchange -> send(exchange, 404, new byte[0]));
+		server.createContext("/huge.png", exchange -> send(exchange, 200, new byte[ImageIngestion.MAX_BYTES + 1]));
+		server.createContext("/slow.png", exchange -> {
+			try {
+				Thread.sleep(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			send(exchange, 200, png);
+		});
+		server.createContext("/dripping.png", exchange -> {
+			// each byte comes in time for the read timeout, but the whole image doesn't
+			exchange.sendResponseHeaders(200, png.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				for (byte b : png) {
+					body.write(b);
+					body.flush();
+					Thread.sleep(100);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@AfterClass
+	public static void stopServer() {
+		server.stop(0);
+		((ExecutorService) server.getExecutor()).shutdownNow();
+	}
+
+	private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static int statusOf(Runnable call) {
+		try {
+			call.run();
+			fail("ApiError expected");
+			return 0;
+		} catch (ApiError e) {
+			return e.getResponse().getStatus();
+		}
+	}
+
+	@Test
+	public void testFetchImage() {
+		assertThat(ImageIngestion.fetch(baseUrl + "/avatar.png")).isEqualTo(png);
+	}
+
+	@Test
+	public void testFetchRejectsInvalidContent() {
+		assertThat(statusOf(() -> ImageIngestion.fetch(baseUrl + "/text.png"))).isEqualTo(403);
+		assertThat(statusOf(() -> ImageIngestion.fetch(baseUrl + "/missing.png"))).isEqualTo(403);
+		assertThat(statusOf(() -> ImageIngestion.fetch("file:///etc/passwd"))).isEqualTo(403);
+	}
+
+	@Test
+	public void testFetchRejectsLargeImage() {
+		assertThat(statusOf(() -> ImageIngestion.fetch(baseUrl + "/huge.png"))).isEqualTo(413);
+	}
+
+	@Test
+	public void testFetchFromSlowHostTimesOut() {
+		assertThat(statusOf(() -> ImageIngestion.fetch(baseUrl + "/slow.png"))).isEqualTo(504);
+	}
+
+	@Test
+	public void testFetchFromDrippingHostTimesOut() {
+		assertThat(statusOf(() -> ImageIngestion.fetch(baseUrl + "/dripping.png"))).isEqualTo(504);
+	}
+
+	@Test
+	public void testReadUpload() {
+		assertThat(ImageIngestion.read(new ByteArrayInputStream(png))).isEqualTo(png);
+		assertThat(statusOf(() -> ImageIngestion.read(new ByteArrayInputStream(new byte[ImageIngestion.MAX_BYTES + 1]))))
+				.isEqualTo(413);
+	}
+}
@@ -0,0 +1,50 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+import info.interactivesystems.gamificationengine.jobs.ThumbnailGenerator;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+public class ImageUtilsTest {
+
+	private static byte[] image(int width, int height, String format) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, format, out);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testResizeKeepsProportionsAndFormat() throws IOException {
+		byte[] variant = ImageUtils.resize(image(600, 300, "png"), 64);
+
+		BufferedImage scaled = ImageIO.read(new ByteArrayInputStream(variant));
+		assertThat(scaled.getWidth()).isEqualTo(64);
+		assertThat(scaled.getHeight()).isEqualTo(32);
+		assertThat(ImageUtils.contentType(variant)).isEqualTo("image/png");
+
+		byte[] jpeg = ImageUtils.resize(image(100, 400, "jpg"), 32);
+		assertThat(ImageIO.read(new ByteArrayInputStream(jpeg)).getHeight()).isEqualTo(32);
+		assertThat(ImageUtils.contentType(jpeg)).isEqualTo("image/jpeg");
+	}
+
+	@Test
+	public void testSmallImagesAreNotResized() throws IOException {
+		assertThat(ImageUtils.resize(image(64, 40, "png"), 64)).isNull();
+	}
+
+	@Test
+	public void testVariantSize() {
+		assertThat(ThumbnailGenerator.variantSize(20)).isEqualTo(32);
+		assertThat(ThumbnailGenerator.variantSize(64)).isEqualTo(64);
+		assertThat(ThumbnailGenerator.variantSize(100)).isEqualTo(128);
+		assertThat(ThumbnailGenerator.variantSize(1000)).isEqualTo(0);
+	}
+}
@@ -0,0 +1,44 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+import com.google.common.collect.Range;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBucketsCoverAllLatencies() {
+		for (long micros = 0; micros < 100000; micros++) {
+			int index = LatencyHistogram.index(micros);
+			assertThat(LatencyHistogram.upperBound(index)).isAtLeast(micros);
+			if (index > 0) {
+				assertThat(LatencyHistogram.upperBound(index - 1)).isLessThan(micros);
+			}
+		}
+	}
+
+	@Test
+	public void testQuantilesArePrecise() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int millis = 1; millis <= 1000; millis++) {
+			histogram.record(millis * 1000000L);
+		}
+
+		assertThat(histogram.getCount()).isEqualTo(1000L);
+		assertThat(histogram.getSumMicros()).isEqualTo(500500000L);
+		assertThat(histogram.quantileMicros(0.5)).isIn(range(500000));
+		assertThat(histogram.quantileMicros(0.99)).isIn(range(990000));
+		assertThat(histogram.quantileMicros(1.0)).isIn(range(1000000));
+	}
+
+	@Test
+	public void testEmptyHistogram() {
+		assertThat(new LatencyHistogram().quantileMicros(0.99)).isEqualTo(0L);
+	}
+
+	private static Range<Long> range(long micros) {
+		return Range.closed(micros, micros + micros / LatencyHistogram.SUB_BUCKETS);
+	}
+}
@@ -0,0 +1,35 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class LoadShedderTest {
+
+	@Test
+	public void testNothingIsShedBelowThreshold() {
+		LoadShedder shedder = new LoadShedder(1000);
+		for (int i = 0; i < 100; i++) {
+			shedder.record(500);
+		}
+
+		assertThat(shedder.share()).isEqualTo(0.0);
+		assertThat(shedder.shed()).isFalse();
+	}
+
+	@Test
+	public void testShareGrowsWithLatency() {
+		LoadShedder shedder = new LoadShedder(1000);
+		for (int i = 0; i < 200; i++) {
+			shedder.record(1500);
+		}
+		double share = shedder.share();
+		assertThat(share).isGreaterThan(0.0);
+
+		for (int i = 0; i < 200; i++) {
+			shedder.record(100000);
+		}
+		assertThat(shedder.share()).isGreaterThan(share);
+		assertThat(shedder.share()).isAtMost(LoadShedder.MAX_SHARE);
+	}
+}
@@ -0,0 +1,77 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class MetricsTest {
+
+	@Test
+	public void testMetricsAreWrittenAsText() {
+		Metrics metrics = new Metrics("test_requests", "Requests by route", "method", "route");
+		metrics.record("POST", "/task/{id}/complete/{playerId}", 2000000, false);
+		metrics.record("POST", "/task/{id}/complete/{playerId}", 4000000, true);
+
+		StringBuilder out = new StringBuilder();
+		metrics.writeTo(out);
+		String text = out.toString();
+
+		String labels = "method=\"POST\",route=\"/task/{id}/complete/{playerId}\"";
+		assertThat(text).contains("# TYPE test_requests_seconds histogram\n");
+		assertThat(text).contains("test_requests_seconds_count{" + labels + "} 2\n");
+		assertThat(text).contains("test_requests_seconds_sum{" + labels + "} 0.006\n");
+		assertThat(text).contains("test_requests_errors_total{" + labels + "} 1\n");
+		assertThat(text).contains("test_requests_seconds_bucket{" + labels + ",le=\"0.001\"} 0\n");
+		assertThat(text).contains("test_requests_seconds_bucket{" + labels + ",le=\"0.0025\"} 1\n");
+		assertThat(text).contains("test_requests_seconds_bucket{" + labels + ",le=\"0.005\"} 2\n");
+		assertThat(text).contains("test_requests_seconds_bucket{" + labels + ",le=\"+Inf\"} 2\n");
+	}
+
+	@Test
+	public void testValuesAreCountedInBuckets() {
+		Metrics metrics = new Metrics("test_queries", "Queries by route", "method", "route", "", null);
+		metrics.recordValue("GET", "/player", 0, false);
+		metrics.recordValue("GET", "/player", 7, false);
+
+		StringBuilder out = new StringBuilder();
+		metrics.writeTo(out);
+		String text = out.toString();
+
+		String labels = "method=\"GET\",route=\"/player\"";
+		assertThat(text).contains("test_queries_bucket{" + labels + ",le=\"0.0\"} 1\n");
+		assertThat(text).contains("test_queries_bucket{" + labels + ",le=\"5.0\"} 1\n");
+		assertThat(text).contains("test_queries_bucket{" + labels + ",le=\"10.0\"} 2\n");
+		assertThat(text).contains("test_queries_sum{" + labels + "} 7\n");
+	}
+
+	@Test
+	public void testRequestsOverBudgetAreCountedAsErrors() {
+		Metrics.REQUEST_QUERIES.recordValue("GET", "/test/budget", 300, true);
+
+		StringBuilder out = new StringBuilder();
+		Metrics.REQUEST_QUERIES.writeTo(out);
+		String text = out.toString();
+
+		assertThat(text).contains("# HELP gamificationengine_http_request_queries_over_budget_total "
+				+ "Requests over the query budget by route\n");
+		assertThat(text).contains("gamificationengine_http_request_queries_over_budget_total"
+				+ "{method=\"GET\",route=\"/test/budget\"} 1\n");
+	}
+
+	@Test
+	public void testFirstLabelIsBounded() {
+		Metrics metrics = new Metrics("test_stages", "Stages by organisation", "organisation", "stage", "_seconds", null, 2);
+		for (int organisation = 1; organisation <= 4; organisation++) {
+			metrics.record(Integer.toString(organisation), "load", 1000000, false);
+		}
+
+		StringBuilder out = new StringBuilder();
+		metrics.writeTo(out);
+		String text = out.toString();
+
+		assertThat(text).contains("test_stages_seconds_count{organisation=\"1\",stage=\"load\"} 1\n");
+		assertThat(text).contains("test_stages_seconds_count{organisation=\"2\",stage=\"load\"} 1\n");
+		assertThat(text).contains("test_stages_seconds_count{organisation=\"other\",stage=\"load\"} 2\n");
+		assertThat(text).doesNotContain("organisation=\"3\"");
+	}
+}
@@ -0,0 +1,53 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+public class QrCodeCacheTest {
+
+	@Test
+	public void testCodesAreRenderedOnce() throws IOException {
+		QrCodeCache cache = new QrCodeCache(10, Long.MAX_VALUE);
+
+		byte[] png = cache.get("station-1", 200);
+		assertThat(cache.get("station-1", 200)).isSameAs(png);
+		assertThat(ImageIO.read(new ByteArrayInputStream(png)).getWidth()).isEqualTo(200);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedCodeIsRemoved() {
+		QrCodeCache cache = new QrCodeCache(2, Long.MAX_VALUE);
+
+		byte[] first = cache.get("station-1", 100);
+		cache.get("station-2", 100);
+		cache.get("station-1", 100);
+		byte[] third = cache.get("station-3", 100);
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.get("station-1", 100)).isSameAs(first);
+		assertThat(cache.get("station-3", 100)).isSameAs(third);
+	}
+
+	@Test
+	public void testCacheIsBoundedByBytes() {
+		QrCodeCache cache = new QrCodeCache(100, 1);
+
+		cache.get("station-1", 100);
+		cache.get("station-2", 100);
+
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void testEtagDependsOnContentAndSize() {
+		assertThat(QrCodeCache.etag("station-1", 100)).isEqualTo(QrCodeCache.etag("station-1", 100));
+		assertThat(QrCodeCache.etag("station-1", 100)).isNotEqualTo(QrCodeCache.etag("station-1", 200));
+		assertThat(QrCodeCache.etag("station-1", 100)).isNotEqualTo(QrCodeCache.etag("station-2", 100));
+	}
+}
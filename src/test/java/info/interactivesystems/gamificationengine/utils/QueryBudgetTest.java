@@ -0,0 +1,41 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class QueryBudgetTest {
+
+	private static final String PLAYER = "select player0_.id as id1_ from player player0_ where player0_.id=? limit ?";
+	private static final String TASK = "select task0_.id as id1_ from task task0_ where task0_.id=? limit ?";
+	private static final String OFFER = "select offer0_.id as id1_ from offer offer0_ where offer0_.task_id=?";
+
+	@Test
+	public void testQueriesAreCountedPerRequest() {
+		QueryBudget.count(PLAYER);
+
+		QueryBudget.begin();
+		QueryBudget.count(PLAYER);
+		QueryBudget.count(TASK);
+		QueryBudget.Report report = QueryBudget.end();
+
+		assertThat(report.getTotal()).isEqualTo(2);
+		assertThat(report.isOverBudget()).isFalse();
+		assertThat(report.getRepeatedQuery()).isNull();
+		assertThat(QueryBudget.end()).isNull();
+	}
+
+	@Test
+	public void testRepeatedQueryIsDetected() {
+		QueryBudget.begin();
+		QueryBudget.count(TASK);
+		for (int i = 0; i < QueryBudget.BUDGET; i++) {
+			QueryBudget.count(OFFER);
+		}
+		QueryBudget.Report report = QueryBudget.end();
+
+		assertThat(report.isOverBudget()).isTrue();
+		assertThat(report.getRepeatedQuery()).isEqualTo(OFFER);
+		assertThat(report.getCount(OFFER)).isEqualTo(QueryBudget.BUDGET);
+	}
+}
@@ -0,0 +1,77 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RateLimiterTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	public void testBurstIsAllowed() {
+		RateLimiter limiter = new RateLimiter(10, 3);
+
+		assertThat(limiter.acquire("key", 0)).isEqualTo(0L);
+		assertThat(limiter.acquire("key", 0)).isEqualTo(0L);
+		assertThat(limiter.acquire("key", 0)).isEqualTo(0L);
+		assertThat(limiter.acquire("key", 0)).isEqualTo(SECOND / 10);
+	}
+
+	@Test
+	public void testBucketIsRefilled() {
+		RateLimiter limiter = new RateLimiter(10, 1);
+
+		assertThat(limiter.acquire("key", 0)).isEqualTo(0L);
+		assertThat(limiter.acquire("key", SECOND / 20)).isEqualTo(SECOND / 20);
+		assertThat(limiter.acquire("key", SECOND / 10)).isEqualTo(0L);
+	}
+
+	@Test
+	public void testKeysAreLimitedSeparately() {
+		RateLimiter limiter = new RateLimiter(1, 1);
+
+		assertThat(limiter.acquire("noisy", 0)).isEqualTo(0L);
+		assertThat(limiter.acquire("noisy", 0)).isGreaterThan(0L);
+		assertThat(limiter.acquire("quiet", 0)).isEqualTo(0L);
+		assertThat(limiter.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void testPeekDoesNotTakeRequest() {
+		RateLimiter limiter = new RateLimiter(10, 1);
+
+		assertThat(limiter.peek("key", 0)).isEqualTo(0L);
+		assertThat(limiter.acquire("key", 0)).isEqualTo(0L);
+		assertThat(limiter.peek("key", 0)).isEqualTo(SECOND / 10);
+		assertThat(limiter.peek("key", 0)).isEqualTo(SECOND / 10);
+	}
+
+	@Test
+	public void testReleasedRequestIsAllowedAgain() {
+		RateLimiter limiter = new RateLimiter(10, 1);
+
+		assertThat(limiter.acquire("key", 0)).isEqualTo(0L);
+		limiter.release("key");
+		assertThat(limiter.acquire("key", 0)).isEqualTo(0L);
+		assertThat(limiter.acquire("key", 0)).isGreaterThan(0L);
+	}
+
+	@Test
+	public void testIdleBucketsAreRemovedWithNewKeys() {
+		RateLimiter limiter = new RateLimiter(10, 1);
+		for (int i = 0; i < 10000; i++) {
+			limiter.acquire("old " + i, 0);
+		}
+
+		for (int i = 0; i < 1000; i++) {
+			limiter.acquire("new " + i, SECOND);
+		}
+
+		// the idle buckets are removed a few at a time, just enough to keep the limit
+		assertThat(limiter.size()).isAtMost(10000);
+		assertThat(limiter.size()).isAtLeast(10000 - 4);
+	}
+}
@@ -0,0 +1,76 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class SecurityToolsTest {
+
+	@Test
+	public void testHashedPasswordIsVerified() {
+		String stored = SecurityTools.hashPassword("secret");
+
+		assertThat(SecurityTools.isSalted(stored)).isTrue();
+		assertThat(SecurityTools.verifyPassword("secret", stored)).isTrue();
+		assertThat(SecurityTools.verifyPassword("Secret", stored)).isFalse();
+		assertThat(SecurityTools.needsRehash(stored)).isFalse();
+	}
+
+	@Test
+	public void testHashesAreSalted() {
+		assertThat(SecurityTools.hashPassword("secret")).isNotEqualTo(SecurityTools.hashPassword("secret"));
+	}
+
+	@Test
+	public void testLegacyHashIsVerified() {
+		String stored = SecurityTools.encryptWithSHA512("secret");
+
+		assertThat(SecurityTools.isSalted(stored)).isFalse();
+		assertThat(SecurityTools.verifyPassword("secret", stored)).isTrue();
+		assertThat(SecurityTools.verifyPassword("other", stored)).isFalse();
+		assertThat(SecurityTools.needsRehash(stored)).isTrue();
+	}
+
+	@Test
+	public void testMalformedHashIsNotVerified() {
+		String stored = SecurityTools.hashPassword("secret");
+		String salt = stored.split("\\$")[3];
+
+		for (String malformed : new String[] { "$pbkdf2-sha256$many$" + salt + "$" + salt, "$pbkdf2-sha256$0$" + salt + "$" + salt,
+				"$pbkdf2-sha256$1$$" + salt, "$pbkdf2-sha256$1$#$" + salt, "$pbkdf2-sha256$1$" + salt,
+				"$pbkdf2-sha256$" }) {
+			assertThat(SecurityTools.verifyPassword("secret", malformed)).isFalse();
+			assertThat(SecurityTools.needsRehash(malformed)).isTrue();
+		}
+	}
+
+	@Test
+	public void testVerifiedCredentialsAreCached() {
+		CredentialCache cache = new CredentialCache(2, 60000);
+		String stored = SecurityTools.hashPassword("secret");
+
+		cache.verified("a@example.com", "secret", stored);
+		assertThat(cache.isVerified("a@example.com", "secret", stored)).isTrue();
+		assertThat(cache.isVerified("a@example.com", "other", stored)).isFalse();
+		assertThat(cache.isVerified("a@example.com", "secret", SecurityTools.hashPassword("secret"))).isFalse();
+
+		cache.verified("b@example.com", "secret", stored);
+		cache.verified("c@example.com", "secret", stored);
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.isVerified("a@example.com", "secret", stored)).isFalse();
+	}
+
+	@Test
+	public void testExpiredCredentialsAreNotAccepted() {
+		CredentialCache cache = new CredentialCache(2, -1);
+
+		cache.verified("a@example.com", "secret", "stored");
+		assertThat(cache.isVerified("a@example.com", "secret", "stored")).isFalse();
+		assertThat(cache.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testBenchmarkedIterationsHaveMinimum() {
+		assertThat(SecurityTools.benchmarkIterations(0)).isAtLeast(SecurityTools.MIN_ITERATIONS);
+	}
+}
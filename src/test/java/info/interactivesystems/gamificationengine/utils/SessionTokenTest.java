@@ -0,0 +1,57 @@
+package info.interactivesystems.gamificationengine.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.Test;
+
+public class SessionTokenTest {
+
+	private static final byte[] SECRET = "secret".getBytes(StandardCharsets.UTF_8);
+	private static final long NOW = 1000000L;
+
+	@Test
+	public void testIssuedTokenIsVerified() {
+		SessionToken issued = SessionToken.issue(7, NOW + 1000, SECRET);
+		SessionToken verified = SessionToken.verify(issued.getToken(), NOW, SECRET);
+
+		assertThat(verified).isNotNull();
+		assertThat(verified.getOrganisationId()).isEqualTo(7);
+		assertThat(verified.getApiKey()).isNull();
+		assertThat(verified.getExpires()).isEqualTo(NOW + 1000);
+		assertThat(verified.withApiKey("9b4d-api:key").getApiKey()).isEqualTo("9b4d-api:key");
+	}
+
+	@Test
+	public void testTokenDoesNotContainApiKey() {
+		String apiKey = "9b4d-api:key";
+		SessionToken issued = SessionToken.issue(7, NOW + 1000, SECRET).withApiKey(apiKey);
+		String payload = new String(Base64.getUrlDecoder().decode(issued.getToken().split("\\.")[0]), StandardCharsets.UTF_8);
+
+		assertThat(payload).startsWith("7:" + (NOW + 1000) + ":");
+		assertThat(payload).doesNotContain(apiKey);
+		assertThat(issued.getToken()).doesNotContain(apiKey);
+		assertThat(SessionToken.issue(7, NOW + 1000, SECRET).getToken()).isNotEqualTo(issued.getToken());
+	}
+
+	@Test
+	public void testExpiredTokenIsRejected() {
+		SessionToken issued = SessionToken.issue(7, NOW, SECRET);
+
+		assertThat(SessionToken.verify(issued.getToken(), NOW, SECRET)).isNull();
+	}
+
+	@Test
+	public void testForgedTokenIsRejected() {
+		String token = SessionToken.issue(7, NOW + 1000, SECRET).getToken();
+		String otherPayload = SessionToken.issue(8, NOW + 1000, SECRET).getToken().split("\\.")[0];
+		String signature = token.split("\\.")[1];
+
+		assertThat(SessionToken.verify(otherPayload + "." + signature, NOW, SECRET)).isNull();
+		assertThat(SessionToken.verify(token, NOW, "other".getBytes(StandardCharsets.UTF_8))).isNull();
+		assertThat(SessionToken.verify("no token", NOW, SECRET)).isNull();
+		assertThat(SessionToken.verify("a.b.c", NOW, SECRET)).isNull();
+	}
+}